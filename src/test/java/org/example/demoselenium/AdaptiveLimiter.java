@@ -0,0 +1,322 @@
+package org.example.demoselenium;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * AdaptiveLimiter class bounding the number of concurrent requests per host with a limit
+ * adjusted from the latency and the errors of the recent requests (AIMD):
+ * every few completions the p95 latency and the error rate of the last requests are computed;
+ * the limit is cut by 30% when the error rate is above 5% or the p95 latency is more than twice
+ * the baseline (the lowest p95 seen, drifting slowly up so that it follows the site), and it is
+ * raised by one when the limit was fully used and the signals are healthy. After a cut the window
+ * is emptied, so that the next decision is only based on requests made under the new limit.
+ * A request which cannot start within the queue timeout is rejected.
+ * The limit, the p95 latency, the error rate and the in-flight requests of every host are
+ * exposed as gauges, the rejections as a counter.
+ * Waiting uses a ReentrantLock so that virtual threads are not pinned.
+ */
+public class AdaptiveLimiter {
+    // Number of recent requests the signals are computed on
+    private static final int WINDOW = 64;
+
+    // Number of completions between two limit updates
+    private static final int UPDATE_EVERY = 8;
+
+    // Error rate above which the limit is cut
+    private static final double MAX_ERROR_RATE = 0.05;
+
+    // Ratio of the p95 latency to the baseline above which the limit is cut
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    // Factor the limit is multiplied by when it is cut
+    private static final double BACKOFF = 0.7;
+
+    // Share of the gap to a higher p95 the baseline moves by at each update
+    private static final double BASELINE_DRIFT = 0.02;
+
+    // Minimum limit
+    private static final int MIN_LIMIT = 1;
+
+    // Limit of a host seen for the first time
+    private final int initialLimit;
+
+    // Maximum limit
+    private final int maxLimit;
+
+    // Maximum time a request waits to start before being rejected, in nanoseconds
+    private final long queueTimeoutNanos;
+
+    // Metrics the signals are exposed into
+    private final ScrapeMetrics metrics;
+
+    // State per host
+    private final ConcurrentMap<String, HostLimit> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a limiter.
+     *
+     * @param metrics      Metrics the signals are exposed into.
+     * @param initialLimit Limit of a host seen for the first time.
+     * @param maxLimit     Maximum limit.
+     * @param queueTimeout Maximum time a request waits to start before being rejected.
+     */
+    public AdaptiveLimiter(ScrapeMetrics metrics, int initialLimit, int maxLimit, Duration queueTimeout) {
+        this.metrics = metrics;
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.initialLimit = Math.max(MIN_LIMIT, Math.min(initialLimit, this.maxLimit));
+        this.queueTimeoutNanos = queueTimeout.toNanos();
+    }
+
+    /**
+     * Waits for a request slot on the host of the URL.
+     *
+     * @param url The URL about to be requested.
+     * @return The permit, to be closed when the request is over, after success() if it succeeded.
+     * @throws InterruptedException       If the thread is interrupted while waiting.
+     * @throws RejectedExecutionException If no slot became available within the queue timeout.
+     */
+    public Permit acquire(String url) throws InterruptedException {
+        String host = CrawlScheduler.hostOf(url);
+        return hosts.computeIfAbsent(host, HostLimit::new).acquire();
+    }
+
+    /**
+     * Returns the current limit of a host.
+     *
+     * @param host The host.
+     * @return The limit, the initial limit for an unknown host.
+     */
+    public int limit(String host) {
+        HostLimit limit = hosts.get(host);
+        return limit == null ? initialLimit : limit.limit();
+    }
+
+    /**
+     * Permit class holding a request slot, the request outcome is recorded when it is closed.
+     */
+    public static class Permit implements AutoCloseable {
+        // Host state the slot belongs to
+        private final HostLimit host;
+
+        // Start time of the request, in nanoseconds
+        private final long start = System.nanoTime();
+
+        // Whether the request succeeded
+        private boolean succeeded;
+
+        // Time the request ended if known before the close, in nanoseconds
+        private long end;
+
+        // Whether the end time is set
+        private boolean ended;
+
+        // Set once the slot is released
+        private boolean released;
+
+        /**
+         * Creates a permit on the given host.
+         *
+         * @param host The host state.
+         */
+        private Permit(HostLimit host) {
+            this.host = host;
+        }
+
+        /**
+         * Marks the request as successful, a permit closed without it counts as an error.
+         */
+        public void success() {
+            succeeded = true;
+        }
+
+        /**
+         * Sets the time the request ended, when the permit is closed later than that,
+         * e.g. for a page which loaded in a background tab while the caller was busy.
+         *
+         * @param nanoTime The end time, as given by System.nanoTime.
+         */
+        public void endedAt(long nanoTime) {
+            end = nanoTime;
+            ended = true;
+        }
+
+        /**
+         * Releases the slot and records the latency and the outcome of the request.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                long now = System.nanoTime();
+                long finish = ended && end - now < 0 ? end : now;
+                host.release(Math.max(0, finish - start), !succeeded);
+            }
+        }
+    }
+
+    /**
+     * HostLimit class holding the limit and the recent requests of a host.
+     */
+    private final class HostLimit {
+        // Metric name suffix of the host
+        private final String suffix;
+
+        // Lock guarding the state
+        private final ReentrantLock lock = new ReentrantLock();
+
+        // Signalled when a slot is released or the limit raised
+        private final Condition available = lock.newCondition();
+
+        // Latencies of the recent requests, in nanoseconds
+        private final long[] latencies = new long[WINDOW];
+
+        // Whether the recent requests failed
+        private final boolean[] errors = new boolean[WINDOW];
+
+        // Number of completed requests
+        private long completed;
+
+        // Number of requests in the window, it is emptied when the limit is cut
+        private int filled;
+
+        // Current limit, fractional so that the cuts compound
+        private double limit = initialLimit;
+
+        // Requests in flight
+        private int inflight;
+
+        // Highest number of requests in flight since the last update
+        private int peakInflight;
+
+        // Lowest recent p95 latency, in nanoseconds, 0 until known
+        private double baseline;
+
+        /**
+         * Creates the state of a host.
+         *
+         * @param host The host.
+         */
+        HostLimit(String host) {
+            this.suffix = host;
+            publish(0, 0);
+        }
+
+        /**
+         * Returns the current limit.
+         *
+         * @return The limit, rounded down.
+         */
+        int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Waits for a slot.
+         *
+         * @return The permit.
+         * @throws InterruptedException       If the thread is interrupted while waiting.
+         * @throws RejectedExecutionException If no slot became available within the queue timeout.
+         */
+        Permit acquire() throws InterruptedException {
+            lock.lock();
+            try {
+                long remaining = queueTimeoutNanos;
+                while (inflight >= (int) limit) {
+                    if (remaining <= 0) {
+                        metrics.increment("limiter_rejected_" + suffix);
+                        throw new RejectedExecutionException("No request slot for " + suffix + " within "
+                                + Duration.ofNanos(queueTimeoutNanos) + ", limit " + (int) limit);
+                    }
+                    remaining = available.awaitNanos(remaining);
+                }
+                inflight++;
+                peakInflight = Math.max(peakInflight, inflight);
+                metrics.gauge("limiter_inflight_" + suffix, inflight);
+                return new Permit(this);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Releases a slot and records the request.
+         *
+         * @param nanos The request latency.
+         * @param error Whether the request failed.
+         */
+        void release(long nanos, boolean error) {
+            lock.lock();
+            try {
+                inflight--;
+                int slot = (int) (completed++ % WINDOW);
+                latencies[slot] = nanos;
+                errors[slot] = error;
+                filled = Math.min(filled + 1, WINDOW);
+                if (completed % UPDATE_EVERY == 0) {
+                    update();
+                }
+                metrics.gauge("limiter_inflight_" + suffix, inflight);
+                available.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Recomputes the limit from the recent requests, called with the lock held.
+         */
+        private void update() {
+            int count = filled;
+            if (count < UPDATE_EVERY) {
+                return;
+            }
+            // the window holds the last count requests, ending at the latest slot
+            long[] sorted = new long[count];
+            int failed = 0;
+            for (int i = 0; i < count; i++) {
+                int slot = (int) Math.floorMod(completed - 1 - i, (long) WINDOW);
+                sorted[i] = latencies[slot];
+                if (errors[slot]) {
+                    failed++;
+                }
+            }
+            Arrays.sort(sorted);
+            double p95 = sorted[Math.min(count - 1, (int) Math.ceil(count * 0.95) - 1)];
+            double errorRate = (double) failed / count;
+            baseline = baseline == 0 || p95 < baseline ? p95 : baseline + (p95 - baseline) * BASELINE_DRIFT;
+
+            if (errorRate > MAX_ERROR_RATE || p95 > baseline * LATENCY_TOLERANCE) {
+                limit = Math.max(MIN_LIMIT, limit * BACKOFF);
+                // judge the new limit on the requests which complete under it only
+                filled = 0;
+            } else if (peakInflight >= (int) limit) {
+                limit = Math.min(maxLimit, limit + 1);
+            }
+            peakInflight = inflight;
+            publish(p95, errorRate);
+        }
+
+        /**
+         * Exposes the signals of the host as gauges.
+         *
+         * @param p95       The p95 latency in nanoseconds.
+         * @param errorRate The error rate.
+         */
+        private void publish(double p95, double errorRate) {
+            metrics.gauge("limiter_limit_" + suffix, (int) limit);
+            metrics.gauge("limiter_p95_seconds_" + suffix, p95 / 1e9);
+            metrics.gauge("limiter_error_rate_" + suffix, errorRate);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AsyncCsvSink class writing product rows to a CSV file on a dedicated thread.
+ * Scraper threads hand their rows off through a bounded queue, so a slow disk applies
+ * backpressure instead of piling rows up in memory. The writer thread batches the rows and
+ * flushes either when a batch is full or when the flush interval has elapsed.
+ * Row numbers are assigned by the writer thread, so they follow the file order even when
+ * several scrapers submit rows at the same time.
+ * Closing queues an end marker behind the submitted rows, and the writer thread stops on it,
+ * so every row accepted before the close is written.
+ */
+public class AsyncCsvSink implements AutoCloseable {
+    // Header of the product CSV files
+    public static final String[] HEADER = {"No", "Product Name", "Price", "Image URL"};
+
+    // Size of the buffer between the CSV writer and the file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // End marker queued by close, compared by identity
+    private static final ProductInfo END = new ProductInfo("", "", "", "", "");
+
+    // Rows waiting to be written
+    private final BlockingQueue<ProductInfo> queue;
+
+    // CSV writer, only used by the writer thread
+    private final CSVWriter writer;
+
+    // Number of rows written before the output is flushed
+    private final int batchSize;
+
+    // Maximum time rows can stay unflushed, in nanoseconds
+    private final long flushIntervalNanos;
+
+    // Dedicated writer thread
+    private final Thread thread;
+
+    // Time the sink was created, in nanoseconds
+    private final long startNanos = System.nanoTime();
+
+    // Number of the next row
+    private int nextRowNumber;
+
+    // Number of rows written so far
+    private volatile long rowsWritten;
+
+    // Set once no more rows are accepted
+    private volatile boolean closed;
+
+    // Held shared by the submits and exclusively by close, so a row is either queued before the end marker or refused
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+    // First error raised by the writer thread
+    private volatile IOException failure;
+
+    /**
+     * Creates a sink writing to the given file, starting the numbering at 1.
+     *
+     * @param csvFile       Path of the CSV file, it is overwritten.
+     * @param queueCapacity Maximum number of rows waiting to be written.
+     * @param batchSize     Number of rows written before the output is flushed.
+     * @param flushMillis   Maximum time rows can stay unflushed, in milliseconds.
+     * @return The started sink.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static AsyncCsvSink open(String csvFile, int queueCapacity, int batchSize, long flushMillis) throws IOException {
+        Writer out = new BufferedWriter(new FileWriter(csvFile), BUFFER_SIZE);
+        return new AsyncCsvSink(new CSVWriter(out), queueCapacity, batchSize, flushMillis, 1);
+    }
+
+    /**
+     * Creates a sink and writes the header. The writer thread is started right away.
+     *
+     * @param writer        CSV writer the rows are written to, it is closed with the sink.
+     * @param queueCapacity Maximum number of rows waiting to be written.
+     * @param batchSize     Number of rows written before the output is flushed.
+     * @param flushMillis   Maximum time rows can stay unflushed, in milliseconds.
+     * @param firstRow      Number of the first row.
+     */
+    public AsyncCsvSink(CSVWriter writer, int queueCapacity, int batchSize, long flushMillis, int firstRow) {
+        this.writer = writer;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.nextRowNumber = firstRow;
+        writer.writeNext(HEADER);
+        thread = new Thread(this::run, "csv-sink");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Hands a row off to the writer thread, blocking while the queue is full.
+     *
+     * @param product The product to write.
+     * @throws IOException           If the writer thread failed.
+     * @throws IllegalStateException If the sink is closed.
+     * @throws InterruptedException  If the thread is interrupted while waiting for room in the queue.
+     */
+    public void submit(ProductInfo product) throws IOException, InterruptedException {
+        closeLock.readLock().lock();
+        try {
+            checkOpen();
+            while (!queue.offer(product, 100, TimeUnit.MILLISECONDS)) {
+                checkOpen();
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Hands several rows off to the writer thread, blocking while the queue is full.
+     *
+     * @param products The products to write.
+     * @throws IOException          If the writer thread failed.
+     * @throws InterruptedException If the thread is interrupted while waiting for room in the queue.
+     */
+    public void submitAll(List<ProductInfo> products) throws IOException, InterruptedException {
+        for (ProductInfo product : products) {
+            submit(product);
+        }
+    }
+
+    /**
+     * Returns the number of rows waiting to be written.
+     *
+     * @return The queue depth.
+     */
+    public int queueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Returns the number of rows written so far.
+     *
+     * @return The number of rows written.
+     */
+    public long rowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Returns the average write throughput since the sink was created.
+     *
+     * @return The number of rows written per second.
+     */
+    public double rowsPerSecond() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        return seconds > 0 ? rowsWritten / seconds : 0;
+    }
+
+    /**
+     * Fails if the sink is closed or the writer thread failed.
+     *
+     * @throws IOException If the writer thread failed.
+     */
+    private void checkOpen() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IllegalStateException("Sink is closed");
+        }
+    }
+
+    /**
+     * Writer thread loop: drains the queue in batches and flushes by size or by time,
+     * until the end marker is reached.
+     */
+    private void run() {
+        List<ProductInfo> batch = new ArrayList<>(batchSize);
+        int unflushed = 0;
+        long lastFlush = System.nanoTime();
+        boolean ended = false;
+        try {
+            while (!ended) {
+                ProductInfo first = queue.poll(Math.max(1, flushIntervalNanos), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, batchSize - 1);
+                    for (ProductInfo product : batch) {
+                        if (product == END) {
+                            ended = true;
+                            break;
+                        }
+                        writer.writeNext(product.toCsvRow(nextRowNumber++));
+                        unflushed++;
+                        rowsWritten++;
+                    }
+                    batch.clear();
+                }
+                long now = System.nanoTime();
+                if (unflushed > 0 && (unflushed >= batchSize || now - lastFlush >= flushIntervalNanos)) {
+                    writer.flush();
+                    unflushed = 0;
+                    lastFlush = now;
+                }
+            }
+            writer.flush();
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting rows, waits for the queued rows to be written and closes the file.
+     *
+     * @throws IOException If the rows cannot be written or the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        // waits for the submits in progress, their rows are queued before the end marker
+        closeLock.writeLock().lock();
+        try {
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+        try {
+            // the writer thread is gone if it failed, then nothing drains the queue
+            while (thread.isAlive() && !queue.offer(END, 100, TimeUnit.MILLISECONDS)) {
+                // the writer thread is making room
+            }
+            thread.join();
+        } catch (InterruptedException e) {
+            thread.interrupt();
+            Thread.currentThread().interrupt();
+        }
+        writer.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvException;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AsyncCsvSinkTest class containing test cases for the AsyncCsvSink class.
+ * Producers run on their own threads, as the scrapers of a crawl do.
+ */
+public class AsyncCsvSinkTest {
+    // Directory of the CSV files
+    @TempDir
+    Path dir;
+
+    /**
+     * Builds the row a producer submits.
+     *
+     * @param producer The producer number.
+     * @param index    The index of the row for the producer.
+     * @return The product.
+     */
+    private static ProductInfo product(int producer, int index) {
+        return new ProductInfo("P" + producer + "-" + index, "$1.00", "", "", "https://img/" + producer + "/" + index);
+    }
+
+    /**
+     * Reads the rows of a CSV file, header included.
+     *
+     * @param csvFile The CSV file.
+     * @return The rows.
+     * @throws IOException  If the file cannot be read.
+     * @throws CsvException If the file is not valid CSV.
+     */
+    private static List<String[]> readRows(Path csvFile) throws IOException, CsvException {
+        try (CSVReader reader = new CSVReader(new FileReader(csvFile.toFile()))) {
+            return reader.readAll();
+        }
+    }
+
+    /**
+     * Rows submitted by several producers while the sink is being closed are either written once
+     * or refused, the row numbers follow the file order and each producer's rows keep their order.
+     *
+     * @throws Exception If the sink fails or a producer is interrupted.
+     */
+    @Test
+    public void closeWhileProducersSubmitKeepsEveryAcceptedRow() throws Exception {
+        Path csvFile = dir.resolve("products.csv");
+        int producers = 4;
+        AsyncCsvSink sink = AsyncCsvSink.open(csvFile.toString(), 16, 8, 10);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Future<Integer>> accepted = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            accepted.add(executor.submit(() -> {
+                started.countDown();
+                int index = 0;
+                try {
+                    while (true) {
+                        sink.submit(product(producer, index));
+                        index++;
+                    }
+                } catch (IllegalStateException e) {
+                    // the sink is closed, the row at index was refused
+                }
+                return index;
+            }));
+        }
+        started.await();
+        Thread.sleep(200);
+        sink.close();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<String[]> rows = readRows(csvFile);
+        assertArrayEquals(AsyncCsvSink.HEADER, rows.get(0));
+        Map<Integer, Integer> nextIndex = new HashMap<>();
+        Set<String> names = new HashSet<>();
+        for (int row = 1; row < rows.size(); row++) {
+            assertEquals(String.valueOf(row), rows.get(row)[0]);
+            String name = rows.get(row)[1];
+            assertTrue(names.add(name), "written twice: " + name);
+            String[] parts = name.substring(1).split("-");
+            int producer = Integer.parseInt(parts[0]);
+            // each producer's rows come in submit order, without a gap
+            assertEquals(nextIndex.getOrDefault(producer, 0), Integer.parseInt(parts[1]));
+            nextIndex.put(producer, Integer.parseInt(parts[1]) + 1);
+        }
+        long total = 0;
+        for (int p = 0; p < producers; p++) {
+            int count = accepted.get(p).get();
+            assertEquals(count, nextIndex.getOrDefault(p, 0), "rows lost for producer " + p);
+            total += count;
+        }
+        assertTrue(total > 0);
+        assertEquals(total, sink.rowsWritten());
+        assertThrows(IllegalStateException.class, () -> sink.submit(product(0, -1)));
+    }
+
+    /**
+     * Submits block while the queue is full and resume once the writer thread makes room.
+     *
+     * @throws Exception If the sink fails or the producer is interrupted.
+     */
+    @Test
+    public void submitBlocksWhileQueueIsFull() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StringWriter out = new StringWriter();
+        GatedWriter gated = new GatedWriter(out, writing, release);
+        AsyncCsvSink sink = new AsyncCsvSink(new CSVWriter(gated), 1, 1, 10, 1);
+        gated.armed = true;
+
+        sink.submit(product(0, 0));
+        // the writer thread is stuck on the first row, the second one fills the queue
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        sink.submit(product(0, 1));
+        assertEquals(1, sink.queueDepth());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> third = executor.submit(() -> {
+            sink.submit(product(0, 2));
+            return null;
+        });
+        Thread.sleep(300);
+        assertFalse(third.isDone());
+
+        release.countDown();
+        third.get(5, TimeUnit.SECONDS);
+        sink.close();
+        executor.shutdown();
+
+        assertEquals(3, sink.rowsWritten());
+        String csv = out.toString();
+        assertTrue(csv.indexOf("P0-0") < csv.indexOf("P0-1"));
+        assertTrue(csv.indexOf("P0-1") < csv.indexOf("P0-2"));
+    }
+
+    /**
+     * GatedWriter class blocking the first write made once armed, until released.
+     */
+    private static class GatedWriter extends Writer {
+        // Writer the output goes to
+        private final Writer out;
+
+        // Counted down when the first write is blocked
+        private final CountDownLatch writing;
+
+        // Waited for by the first write
+        private final CountDownLatch release;
+
+        // Set once the header is written, the next write then blocks
+        volatile boolean armed;
+
+        /**
+         * Creates a gated writer.
+         *
+         * @param out     Writer the output goes to.
+         * @param writing Counted down when the first write is blocked.
+         * @param release Waited for by the first write.
+         */
+        GatedWriter(Writer out, CountDownLatch writing, CountDownLatch release) {
+            this.out = out;
+            this.writing = writing;
+            this.release = release;
+        }
+
+        /**
+         * Writes characters, blocking until released once armed.
+         *
+         * @param chars  The characters.
+         * @param offset The offset of the first character.
+         * @param length The number of characters.
+         * @throws IOException If the wait is interrupted.
+         */
+        @Override
+        public void write(char[] chars, int offset, int length) throws IOException {
+            if (armed) {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+            out.write(chars, offset, length);
+        }
+
+        /**
+         * Flushes the output.
+         */
+        @Override
+        public void flush() {
+        }
+
+        /**
+         * Closes the output.
+         */
+        @Override
+        public void close() {
+        }
+    }
+}
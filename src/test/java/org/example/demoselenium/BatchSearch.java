@@ -0,0 +1,266 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BatchSearch class running lists of search queries across the sessions of a DriverPool.
+ * Each query goes straight to the search results URL instead of typing into the search field,
+ * and the result tiles are read with the ProductExtractor.
+ * Results are cached per normalized query (trimmed, lower case, single spaces) for a time-to-live,
+ * so a term repeated within the window, in the same batch or a later one, is only searched once.
+ * A query only has no products when its page shows the no-results state; a page which shows
+ * neither tiles nor that state in time fails the query, and failed queries are never cached.
+ * A failed query does not fail the batch, its failure is reported with its result.
+ */
+public class BatchSearch {
+    // Path and parameter of the search results page
+    private static final String SEARCH_PATH = "search?search-bar=";
+
+    // Maximum time to wait for a session to be available
+    private static final Duration LEASE_TIMEOUT = Duration.ofMinutes(2);
+
+    /**
+     * QueryResult record holding the outcome of a query in a batch.
+     *
+     * @param products The products found, empty if the search has no results or failed.
+     * @param failure  The cause of the failure, null if the search succeeded.
+     */
+    public record QueryResult(List<ProductInfo> products, Throwable failure) {
+        /**
+         * Tells whether the search succeeded.
+         *
+         * @return true if the products are the results of the query.
+         */
+        public boolean succeeded() {
+            return failure == null;
+        }
+    }
+
+    /**
+     * CachedResult record holding the results of a query until they expire.
+     *
+     * @param results   The results, completed once the search is done.
+     * @param expiresAt Time the results expire, in nanoseconds.
+     */
+    private record CachedResult(CompletableFuture<List<ProductInfo>> results, long expiresAt) {
+    }
+
+    // Pool of sessions the searches run on
+    private final DriverPool pool;
+
+    // Home URL of the site, the search path is resolved against it
+    private final String homeUrl;
+
+    // Maximum number of products extracted per query, 0 for no limit
+    private final int maxPerPage;
+
+    // Time-to-live of the cached results, in nanoseconds
+    private final long ttlNanos;
+
+    // Limiter of the concurrent navigations per host, null for none
+    private final AdaptiveLimiter limiter;
+
+    // Cached results per normalized query
+    private final ConcurrentMap<String, CachedResult> cache = new ConcurrentHashMap<>();
+
+    // Number of queries answered from the cache
+    private final AtomicLong hits = new AtomicLong();
+
+    // Number of queries searched on a session
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Creates a batch search on the given pool.
+     *
+     * @param pool       Pool of sessions the searches run on.
+     * @param homeUrl    Home URL of the site, e.g. https://www.zehrs.ca/.
+     * @param maxPerPage Maximum number of products extracted per query, 0 for no limit.
+     * @param ttl        Time-to-live of the cached results.
+     * @param limiter    Limiter of the concurrent navigations per host, null for none.
+     */
+    public BatchSearch(DriverPool pool, String homeUrl, int maxPerPage, Duration ttl, AdaptiveLimiter limiter) {
+        this.pool = pool;
+        this.homeUrl = homeUrl.endsWith("/") ? homeUrl : homeUrl + "/";
+        this.maxPerPage = maxPerPage;
+        this.ttlNanos = ttl.toNanos();
+        this.limiter = limiter;
+    }
+
+    /**
+     * Runs the queries in parallel on the pool sessions, cached queries are answered right away.
+     * The expired results are dropped first, so the cache only grows with the live queries.
+     * If the batch ends early, the searches it scheduled and that never ran are failed, so that
+     * their cache entries are searched again instead of waited on forever.
+     *
+     * A query which fails, e.g. a page too slow to show its results, is reported with its failure
+     * and the other queries of the batch still get their results.
+     *
+     * @param queries The queries.
+     * @return The result of each query, keyed by query in the given order.
+     * @throws InterruptedException If the thread is interrupted while waiting for the results.
+     */
+    public Map<String, QueryResult> search(List<String> queries) throws InterruptedException {
+        evictExpired();
+        ExecutorService executor = Executors.newFixedThreadPool(pool.size());
+        List<CompletableFuture<List<ProductInfo>>> scheduled = new ArrayList<>();
+        try {
+            Map<String, CompletableFuture<List<ProductInfo>>> futures = new LinkedHashMap<>();
+            for (String query : queries) {
+                if (!futures.containsKey(query)) {
+                    futures.put(query, lookup(query, executor, scheduled));
+                }
+            }
+            Map<String, QueryResult> results = new LinkedHashMap<>();
+            for (Map.Entry<String, CompletableFuture<List<ProductInfo>>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), new QueryResult(entry.getValue().get(), null));
+                } catch (ExecutionException e) {
+                    results.put(entry.getKey(), new QueryResult(List.of(), e.getCause()));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+            // no-op for the completed searches, the interrupted ones fail on their own
+            CancellationException cancelled = new CancellationException("Search batch ended before the query ran");
+            scheduled.forEach(future -> future.completeExceptionally(cancelled));
+        }
+    }
+
+    /**
+     * Returns the cached results of a query, or schedules its search.
+     *
+     * @param query     The query.
+     * @param executor  The executor the search runs on.
+     * @param scheduled The searches scheduled by the batch, the new one is added to it.
+     * @return The results, possibly not completed yet.
+     */
+    private CompletableFuture<List<ProductInfo>> lookup(String query, ExecutorService executor,
+                                                        List<CompletableFuture<List<ProductInfo>>> scheduled) {
+        String key = normalize(query);
+        long now = System.nanoTime();
+        boolean[] created = {false};
+        CachedResult cached = cache.compute(key, (k, current) -> {
+            // expired and failed results are searched again
+            if (current != null && now - current.expiresAt() < 0 && !current.results().isCompletedExceptionally()) {
+                return current;
+            }
+            created[0] = true;
+            return new CachedResult(new CompletableFuture<>(), now + ttlNanos);
+        });
+        if (!created[0]) {
+            hits.incrementAndGet();
+            return cached.results();
+        }
+        misses.incrementAndGet();
+        scheduled.add(cached.results());
+        executor.execute(() -> {
+            try {
+                cached.results().complete(fetch(searchUrl(query)));
+            } catch (Exception e) {
+                cached.results().completeExceptionally(e);
+            }
+        });
+        return cached.results();
+    }
+
+    /**
+     * Loads a search results page on a leased session and extracts its products.
+     *
+     * @param url URL of the search results page.
+     * @return The products found, empty if the page shows the no-results state.
+     * @throws Exception If no session is available, the page cannot be loaded or shows neither
+     *                   result tiles nor the no-results state in time.
+     */
+    private List<ProductInfo> fetch(String url) throws Exception {
+        DriverPool.Lease lease = pool.lease(LEASE_TIMEOUT);
+        try {
+            WebDriver driver = lease.driver();
+            if (limiter == null) {
+                driver.get(url);
+            } else {
+                try (AdaptiveLimiter.Permit permit = limiter.acquire(url)) {
+                    driver.get(url);
+                    permit.success();
+                }
+            }
+            if (new PageReadiness(driver).waitForGridSettledOrEmpty(PageReadiness.EMPTY_STATE, PageReadiness.DEFAULT_TIMEOUT) == 0) {
+                return List.of();
+            }
+            return new ProductExtractor(driver).extractScrolling(maxPerPage);
+        } catch (TimeoutException e) {
+            // a slow page, the session itself is still usable
+            throw e;
+        } catch (WebDriverException e) {
+            lease.invalidate();
+            throw e;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Returns the search results URL of a query.
+     *
+     * @param query The query.
+     * @return The URL.
+     */
+    public String searchUrl(String query) {
+        return homeUrl + SEARCH_PATH + URLEncoder.encode(normalize(query), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Normalizes a query: trimmed, lower case, runs of whitespace collapsed to a single space.
+     *
+     * @param query The query.
+     * @return The normalized query.
+     */
+    static String normalize(String query) {
+        return query.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the number of queries answered from the cache.
+     *
+     * @return The cache hits.
+     */
+    public long hits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of queries searched on a session.
+     *
+     * @return The cache misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Drops the expired and failed results from the cache, called at the start of each batch.
+     */
+    public void evictExpired() {
+        long now = System.nanoTime();
+        cache.values().removeIf(cached -> now - cached.expiresAt() >= 0 || cached.results().isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,91 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * BrowserPageFetcher class reading listing pages on sessions leased from a DriverPool.
+ * The number of pages loaded at the same time is bounded by the pool size, and by the
+ * AdaptiveLimiter of the host if one is given.
+ */
+public class BrowserPageFetcher implements PageFetcher {
+    // Maximum time to wait for a session to be available
+    private static final Duration LEASE_TIMEOUT = Duration.ofMinutes(2);
+
+    // Maximum time to wait for the product grid of a page
+    private static final Duration GRID_TIMEOUT = Duration.ofSeconds(10);
+
+    // Pool of sessions the pages are loaded on
+    private final DriverPool pool;
+
+    // Maximum number of products extracted per page, 0 for no limit
+    private final int maxPerPage;
+
+    // Limiter of the concurrent navigations per host, null for none
+    private final AdaptiveLimiter limiter;
+
+    /**
+     * Creates a fetcher on the given pool.
+     *
+     * @param pool       Pool of sessions the pages are loaded on.
+     * @param maxPerPage Maximum number of products extracted per page, 0 for no limit.
+     */
+    public BrowserPageFetcher(DriverPool pool, int maxPerPage) {
+        this(pool, maxPerPage, null);
+    }
+
+    /**
+     * Creates a fetcher on the given pool, its navigations going through the given limiter.
+     *
+     * @param pool       Pool of sessions the pages are loaded on.
+     * @param maxPerPage Maximum number of products extracted per page, 0 for no limit.
+     * @param limiter    Limiter of the concurrent navigations per host, null for none.
+     */
+    public BrowserPageFetcher(DriverPool pool, int maxPerPage, AdaptiveLimiter limiter) {
+        this.pool = pool;
+        this.maxPerPage = maxPerPage;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Loads a page on a leased session and extracts its products.
+     *
+     * @param url URL of the listing page.
+     * @return The products of the page, empty if the page shows the empty state instead of the grid.
+     * @throws TimeoutException     If no session becomes available in time.
+     * @throws org.openqa.selenium.TimeoutException If the page shows neither a settled grid nor the
+     *                                              empty state in time.
+     * @throws InterruptedException If the thread is interrupted while waiting for a session.
+     */
+    @Override
+    public List<ProductInfo> fetch(String url) throws TimeoutException, InterruptedException {
+        DriverPool.Lease lease = pool.lease(LEASE_TIMEOUT);
+        try {
+            WebDriver driver = lease.driver();
+            if (limiter == null) {
+                driver.get(url);
+            } else {
+                try (AdaptiveLimiter.Permit permit = limiter.acquire(url)) {
+                    driver.get(url);
+                    permit.success();
+                }
+            }
+            if (new PageReadiness(driver).waitForGridSettledOrEmpty(PageReadiness.EMPTY_STATE, GRID_TIMEOUT) == 0) {
+                return List.of();
+            }
+            return new ProductExtractor(driver).extractScrolling(maxPerPage);
+        } catch (org.openqa.selenium.TimeoutException e) {
+            // a slow page, the session itself is still usable
+            throw e;
+        } catch (WebDriverException e) {
+            lease.invalidate();
+            throw e;
+        } finally {
+            lease.close();
+        }
+    }
+}
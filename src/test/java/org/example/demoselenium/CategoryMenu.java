@@ -0,0 +1,130 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CategoryMenu class reading the category tree of the department menus modelled by MainPage:
+ * Grocery, Home Beauty &amp; Baby, Joe Fresh and Discover.
+ * Each department is opened once and all its flyout links (navid=flyout-L2-..., flyout-L3-...)
+ * are read with a single script call, instead of hovering every submenu.
+ */
+public class CategoryMenu {
+    // Script returning the href and text of every flyout link currently in the page
+    private static final String FLYOUT_LINKS_SCRIPT =
+            "return Array.from(document.querySelectorAll('a[href*=\"navid=flyout-L\"]'), " +
+            "a => ({href: a.href, text: (a.innerText || '').trim()}));";
+
+    // Level and key of a flyout link, e.g. L3 and Drinks-Juice
+    private static final Pattern NAVID = Pattern.compile("navid=flyout-(L[23])-([^&#]+)");
+
+    /**
+     * Opens every department menu and builds the L1 → L2 → L3 category tree.
+     *
+     * @param driver   The WebDriver instance, on the home page.
+     * @param mainPage The main page model.
+     * @return The category tree.
+     */
+    public static CategoryTree extractTree(WebDriver driver, MainPage mainPage) {
+        PageReadiness readiness = new PageReadiness(driver);
+        Set<String> assigned = new HashSet<>();
+        List<CategoryTree.Node> departments = new ArrayList<>();
+        for (WebElement department : departments(mainPage)) {
+            String name = department.getText().trim();
+            ((JavascriptExecutor) driver).executeScript("arguments[0].click();", department);
+            readiness.waitForDomQuiet(PageReadiness.DEFAULT_QUIET, PageReadiness.DEFAULT_TIMEOUT);
+            // links of the previous flyouts may still be in the page, keep them in their first department
+            List<Map<String, String>> links = flyoutLinks(driver).stream()
+                    .filter(link -> assigned.add(link.get("href")))
+                    .toList();
+            departments.add(new CategoryTree.Node(name, "", buildLevels(links)));
+        }
+        return new CategoryTree(departments, System.currentTimeMillis());
+    }
+
+    /**
+     * Builds the L2 categories of a department and their L3 sub-categories from its flyout links.
+     * An L3 key (e.g. Drinks-Juice) belongs to the L2 whose key is its longest prefix (e.g. Drinks).
+     *
+     * @param links The flyout links of the department.
+     * @return The L2 categories in menu order.
+     */
+    static List<CategoryTree.Node> buildLevels(List<Map<String, String>> links) {
+        Map<String, Map<String, String>> level2 = new LinkedHashMap<>();
+        Map<String, List<CategoryTree.Node>> level3 = new LinkedHashMap<>();
+        List<Map<String, String>> pending = new ArrayList<>();
+        for (Map<String, String> link : links) {
+            Matcher matcher = NAVID.matcher(link.get("href"));
+            if (!matcher.find()) {
+                continue;
+            }
+            if (matcher.group(1).equals("L2")) {
+                level2.putIfAbsent(matcher.group(2), link);
+                level3.putIfAbsent(matcher.group(2), new ArrayList<>());
+            } else {
+                pending.add(link);
+            }
+        }
+        for (Map<String, String> link : pending) {
+            Matcher matcher = NAVID.matcher(link.get("href"));
+            matcher.find();
+            String key = matcher.group(2);
+            String parent = level2.keySet().stream()
+                    .filter(l2 -> key.startsWith(l2 + "-"))
+                    .max((a, b) -> Integer.compare(a.length(), b.length()))
+                    .orElse(null);
+            if (parent != null) {
+                level3.get(parent).add(new CategoryTree.Node(nameOf(link, key.substring(parent.length() + 1)),
+                        link.get("href"), List.of()));
+            }
+        }
+        List<CategoryTree.Node> nodes = new ArrayList<>();
+        level2.forEach((key, link) -> nodes.add(new CategoryTree.Node(nameOf(link, key), link.get("href"), level3.get(key))));
+        return nodes;
+    }
+
+    /**
+     * Returns the display name of a link, or its navid key when the link has no text.
+     *
+     * @param link The flyout link.
+     * @param key  The navid key of the link, without its parent prefix.
+     * @return The category name.
+     */
+    private static String nameOf(Map<String, String> link, String key) {
+        String text = link.get("text");
+        return text == null || text.isEmpty() ? key.replace('-', ' ') : text;
+    }
+
+    /**
+     * Returns the department menu buttons of the main page.
+     *
+     * @param mainPage The main page model.
+     * @return The department buttons.
+     */
+    static List<WebElement> departments(MainPage mainPage) {
+        return List.of(mainPage.gloceryMenuButton, mainPage.homeBeautyBabyMenuButton,
+                mainPage.joeFreshMenuButton, mainPage.discoverMenuButton);
+    }
+
+    /**
+     * Reads every flyout link currently in the page.
+     *
+     * @param driver The WebDriver instance.
+     * @return The links, with their href and text.
+     */
+    @SuppressWarnings("unchecked")
+    static List<Map<String, String>> flyoutLinks(WebDriver driver) {
+        Object links = ((JavascriptExecutor) driver).executeScript(FLYOUT_LINKS_SCRIPT);
+        return links instanceof List<?> ? (List<Map<String, String>>) links : List.of();
+    }
+}
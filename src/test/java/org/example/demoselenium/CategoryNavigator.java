@@ -0,0 +1,159 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * CategoryNavigator class sending the browser straight to a category from the cached category tree.
+ * The department menus are only walked when the cached tree is missing or stale, when the
+ * category is unknown, or when its cached link leads to a "not found" page.
+ * Every navigation holds a permit of the AdaptiveLimiter, if one is given.
+ */
+public class CategoryNavigator {
+    // Script checking whether the current page is a "not found" page
+    private static final String NOT_FOUND_SCRIPT =
+            "const h1 = document.querySelector('h1');" +
+            "const text = document.title + ' ' + (h1 ? h1.innerText : '');" +
+            "return /\\b404\\b|page not found|can.t find the page/i.test(text);";
+
+    // WebDriver instance used to navigate
+    private final WebDriver driver;
+
+    // Main page model, used to walk the menus
+    private final MainPage mainPage;
+
+    // Path of the cached tree
+    private final Path cacheFile;
+
+    // Time-to-live of the cached tree
+    private final Duration ttl;
+
+    // URL of the home page, where the menus are walked
+    private final String homeUrl;
+
+    // Limiter of the concurrent navigations per host, null for none
+    private final AdaptiveLimiter limiter;
+
+    // Tree in use, null until first needed
+    private CategoryTree tree;
+
+    /**
+     * Creates a navigator.
+     *
+     * @param driver    The WebDriver instance used to navigate.
+     * @param mainPage  The main page model, used to walk the menus.
+     * @param cacheFile Path of the cached tree.
+     * @param ttl       Time-to-live of the cached tree.
+     * @param homeUrl   URL of the home page, where the menus are walked.
+     * @param limiter   Limiter of the concurrent navigations per host, null for none.
+     */
+    public CategoryNavigator(WebDriver driver, MainPage mainPage, Path cacheFile, Duration ttl, String homeUrl,
+                             AdaptiveLimiter limiter) {
+        this.driver = driver;
+        this.mainPage = mainPage;
+        this.cacheFile = cacheFile;
+        this.ttl = ttl;
+        this.homeUrl = homeUrl;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Returns the category tree: the one in use, else the cached one, else a freshly walked one.
+     *
+     * @return The category tree.
+     */
+    public CategoryTree tree() {
+        long now = System.currentTimeMillis();
+        if (tree == null || tree.isStale(ttl, now)) {
+            tree = CategoryTree.load(cacheFile, ttl, now).orElseGet(this::walkMenus);
+        }
+        return tree;
+    }
+
+    /**
+     * Walks the department menus again and replaces the cached tree.
+     *
+     * @return The new category tree.
+     */
+    public CategoryTree refresh() {
+        tree = walkMenus();
+        return tree;
+    }
+
+    /**
+     * Navigates to a category, e.g. open("Grocery", "Drinks", "Juice").
+     *
+     * @param path The names from the department down to the category.
+     * @return The URL the browser was sent to.
+     * @throws IllegalArgumentException If the category is not in the menus.
+     */
+    public String open(String... path) {
+        String url = tree().find(path).orElse(null);
+        boolean refreshed = false;
+        if (url == null) {
+            url = refresh().find(path).orElse(null);
+            refreshed = true;
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("Unknown category " + String.join(" > ", path));
+        }
+        load(url);
+        if (!refreshed && isNotFound()) {
+            // the cached link is dead, the menus have changed
+            url = refresh().find(path)
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown category " + String.join(" > ", path)));
+            load(url);
+        }
+        return url;
+    }
+
+    /**
+     * Checks whether the current page is a "not found" page.
+     *
+     * @return true if the page was not found.
+     */
+    public boolean isNotFound() {
+        return Boolean.TRUE.equals(((JavascriptExecutor) driver).executeScript(NOT_FOUND_SCRIPT));
+    }
+
+    /**
+     * Walks the department menus from the home page and saves the tree.
+     *
+     * @return The new category tree.
+     */
+    private CategoryTree walkMenus() {
+        load(homeUrl);
+        CategoryTree walked = CategoryMenu.extractTree(driver, mainPage);
+        try {
+            walked.save(cacheFile);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return walked;
+    }
+
+    /**
+     * Loads a page, holding a navigation permit of its host if there is a limiter.
+     *
+     * @param url The URL of the page.
+     * @throws IllegalStateException If the thread is interrupted while waiting for a permit.
+     */
+    private void load(String url) {
+        if (limiter == null) {
+            driver.get(url);
+            return;
+        }
+        try (AdaptiveLimiter.Permit permit = limiter.acquire(url)) {
+            driver.get(url);
+            permit.success();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a navigation slot", e);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * CategoryTree class holding the L1 (department) → L2 → L3 category tree of the site menus.
+ * The tree is stored on disk as JSON with a creation time and a version stamp, so that
+ * scrapers can go straight to the category URLs instead of walking the menus with hovers.
+ * A stored tree is ignored when it is older than its time-to-live or when its version
+ * stamp does not match the current format.
+ */
+public class CategoryTree {
+    // Version stamp of the stored trees, to be increased when the tree format or the menu layout changes
+    public static final int VERSION = 1;
+
+    /**
+     * Node record holding a category of the tree.
+     *
+     * @param name     The category name.
+     * @param url      The category URL, empty for the departments.
+     * @param children The sub-categories.
+     */
+    public record Node(String name, String url, List<Node> children) {
+    }
+
+    // Departments of the tree
+    private final List<Node> departments;
+
+    // Time the tree was extracted, in epoch milliseconds
+    private final long createdAt;
+
+    /**
+     * Creates a tree.
+     *
+     * @param departments The departments of the tree.
+     * @param createdAt   Time the tree was extracted, in epoch milliseconds.
+     */
+    public CategoryTree(List<Node> departments, long createdAt) {
+        this.departments = departments;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Returns the departments of the tree.
+     *
+     * @return The departments.
+     */
+    public List<Node> departments() {
+        return departments;
+    }
+
+    /**
+     * Returns the time the tree was extracted.
+     *
+     * @return The creation time in epoch milliseconds.
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Checks whether the tree is older than the given time-to-live.
+     *
+     * @param ttl The time-to-live.
+     * @param now The current time in epoch milliseconds.
+     * @return true if the tree must be extracted again.
+     */
+    public boolean isStale(Duration ttl, long now) {
+        return now - createdAt > ttl.toMillis();
+    }
+
+    /**
+     * Finds the URL of a category by its path of names, e.g. "Grocery", "Drinks", "Juice".
+     * Names are compared ignoring case.
+     *
+     * @param path The names from the department down to the category.
+     * @return The category URL, or empty if there is no such category.
+     */
+    public Optional<String> find(String... path) {
+        List<Node> level = departments;
+        Node node = null;
+        for (String name : path) {
+            node = level.stream().filter(n -> n.name().equalsIgnoreCase(name)).findFirst().orElse(null);
+            if (node == null) {
+                return Optional.empty();
+            }
+            level = node.children();
+        }
+        return node == null || node.url().isEmpty() ? Optional.empty() : Optional.of(node.url());
+    }
+
+    /**
+     * Returns the URLs of the leaf categories: the L3 categories, or the L2 categories without sub-categories.
+     *
+     * @return The leaf category URLs in menu order.
+     */
+    public List<String> leafUrls() {
+        List<String> urls = new ArrayList<>();
+        for (Node department : departments) {
+            collectLeaves(department, urls);
+        }
+        return urls;
+    }
+
+    /**
+     * Collects the leaf URLs under a node.
+     *
+     * @param node The node.
+     * @param urls The collected URLs.
+     */
+    private static void collectLeaves(Node node, List<String> urls) {
+        if (node.children().isEmpty()) {
+            if (!node.url().isEmpty()) {
+                urls.add(node.url());
+            }
+            return;
+        }
+        for (Node child : node.children()) {
+            collectLeaves(child, urls);
+        }
+    }
+
+    /**
+     * Saves the tree as JSON, the file is replaced atomically.
+     *
+     * @param file Path of the tree file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("version", VERSION);
+        json.put("createdAt", createdAt);
+        json.put("departments", departments.stream().map(CategoryTree::toJson).toList());
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        Files.writeString(tmp, new Json().toJson(json));
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a stored tree if it exists, has the current version stamp and is not older than the time-to-live.
+     *
+     * @param file Path of the tree file.
+     * @param ttl  The time-to-live.
+     * @param now  The current time in epoch milliseconds.
+     * @return The stored tree, or empty if it is missing, stale or unreadable.
+     */
+    public static Optional<CategoryTree> load(Path file, Duration ttl, long now) {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            Map<String, Object> json = new Json().toType(Files.readString(file), Json.MAP_TYPE);
+            if (!(json.get("version") instanceof Number version) || version.intValue() != VERSION
+                    || !(json.get("createdAt") instanceof Number createdAt)) {
+                return Optional.empty();
+            }
+            CategoryTree tree = new CategoryTree(nodesOf(json.get("departments")), createdAt.longValue());
+            return tree.isStale(ttl, now) ? Optional.empty() : Optional.of(tree);
+        } catch (IOException | JsonException | ClassCastException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Converts a node to its JSON form.
+     *
+     * @param node The node.
+     * @return The JSON object.
+     */
+    private static Map<String, Object> toJson(Node node) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("name", node.name());
+        json.put("url", node.url());
+        json.put("children", node.children().stream().map(CategoryTree::toJson).toList());
+        return json;
+    }
+
+    /**
+     * Converts a JSON array to nodes.
+     *
+     * @param json The JSON array.
+     * @return The nodes.
+     */
+    private static List<Node> nodesOf(Object json) {
+        List<Node> nodes = new ArrayList<>();
+        if (json instanceof List<?> list) {
+            for (Object item : list) {
+                Map<?, ?> map = (Map<?, ?>) item;
+                nodes.add(new Node(String.valueOf(map.get("name")), String.valueOf(map.get("url")),
+                        nodesOf(map.get("children"))));
+            }
+        }
+        return nodes;
+    }
+}
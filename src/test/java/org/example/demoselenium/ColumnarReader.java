@@ -0,0 +1,284 @@
+package org.example.demoselenium;
+
+import org.example.demoselenium.ColumnarWriter.Block;
+import org.example.demoselenium.ColumnarWriter.Chunk;
+import org.example.demoselenium.ColumnarWriter.Column;
+import org.example.demoselenium.ColumnarWriter.Type;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * ColumnarReader class scanning the columns of a file written by ColumnarWriter.
+ * Only the chunks of the scanned column are read and inflated, the rows are never rebuilt,
+ * e.g. summing the prices of millions of products reads the PRICE_CENTS chunks alone.
+ * An instance is not thread-safe, use one per thread.
+ */
+public class ColumnarReader implements AutoCloseable {
+    // Length of the trailer: footer offset and magic number
+    private static final int TRAILER = 12;
+
+    // Input file
+    private final FileChannel channel;
+
+    // Blocks of the file
+    private final List<Block> blocks = new ArrayList<>();
+
+    // Dictionaries of the DICTIONARY columns
+    private final Map<Column, List<String>> dictionaries = new EnumMap<>(Column.class);
+
+    // Number of rows of the file
+    private final long rows;
+
+    // Reused decompressor
+    private final Inflater inflater = new Inflater();
+
+    // Reused compressed chunk
+    private byte[] compressed = new byte[0];
+
+    // Reused inflated chunk
+    private byte[] raw = new byte[0];
+
+    // Position in the inflated chunk while decoding varints
+    private int pos;
+
+    /**
+     * Opens a file and reads its footer.
+     *
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is not a columnar product file.
+     */
+    public ColumnarReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = size < 8 + TRAILER ? null : read(0, 8);
+            if (header == null || header.getInt() != ColumnarWriter.MAGIC) {
+                throw new IOException("Not a columnar product file: " + file);
+            }
+            if (header.getInt() != ColumnarWriter.VERSION) {
+                throw new IOException("Unsupported columnar file version: " + file);
+            }
+            ByteBuffer trailer = read(size - TRAILER, TRAILER);
+            long footer = trailer.getLong();
+            if (trailer.getInt() != ColumnarWriter.MAGIC) {
+                throw new IOException("Truncated columnar product file: " + file);
+            }
+            ByteBuffer buffer = read(footer, (int) (size - TRAILER - footer));
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(buffer.array()));
+            Column[] columns = Column.values();
+            int columnCount = in.readInt();
+            if (columnCount != columns.length) {
+                throw new IOException("Unexpected columns in " + file);
+            }
+            for (Column column : columns) {
+                if (!column.name().equals(in.readUTF()) || in.readByte() != column.type.ordinal()) {
+                    throw new IOException("Unexpected column " + column + " in " + file);
+                }
+                int entries = in.readInt();
+                List<String> dictionary = new ArrayList<>(entries);
+                for (int i = 0; i < entries; i++) {
+                    dictionary.add(in.readUTF());
+                }
+                dictionaries.put(column, dictionary);
+            }
+            long total = 0;
+            int blockCount = in.readInt();
+            for (int i = 0; i < blockCount; i++) {
+                int blockRows = in.readInt();
+                Chunk[] chunks = new Chunk[columns.length];
+                for (int c = 0; c < columns.length; c++) {
+                    chunks[c] = new Chunk(in.readLong(), in.readInt(), in.readInt());
+                }
+                blocks.add(new Block(blockRows, chunks));
+                total += blockRows;
+            }
+            this.rows = total;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of rows of the file.
+     *
+     * @return The number of rows.
+     */
+    public long rowCount() {
+        return rows;
+    }
+
+    /**
+     * Returns the dictionary of a DICTIONARY column.
+     *
+     * @param column The column.
+     * @return The values in id order, empty for the other columns.
+     */
+    public List<String> dictionary(Column column) {
+        return dictionaries.get(column);
+    }
+
+    /**
+     * Scans the values of an INT or CENTS column, or the ids of a DICTIONARY column, in row order.
+     *
+     * @param column   The column.
+     * @param consumer Receives the values.
+     * @throws IOException If the column cannot be read.
+     */
+    public void scanLongs(Column column, LongConsumer consumer) throws IOException {
+        if (column.type == Type.STRING) {
+            throw new IllegalArgumentException(column + " is a STRING column");
+        }
+        for (Block block : blocks) {
+            inflate(block.chunks()[column.ordinal()]);
+            pos = 0;
+            long previous = 0;
+            for (int row = 0; row < block.rows(); row++) {
+                long value = readVarint();
+                if (column.type == Type.DICTIONARY) {
+                    consumer.accept(value);
+                } else {
+                    previous += (value >>> 1) ^ -(value & 1);
+                    consumer.accept(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans the values of a STRING or DICTIONARY column in row order.
+     *
+     * @param column   The column.
+     * @param consumer Receives the values.
+     * @throws IOException If the column cannot be read.
+     */
+    public void scanStrings(Column column, Consumer<String> consumer) throws IOException {
+        if (column.type == Type.DICTIONARY) {
+            List<String> dictionary = dictionaries.get(column);
+            scanLongs(column, id -> consumer.accept(dictionary.get((int) id)));
+            return;
+        }
+        if (column.type != Type.STRING) {
+            throw new IllegalArgumentException(column + " is a " + column.type + " column");
+        }
+        for (Block block : blocks) {
+            inflate(block.chunks()[column.ordinal()]);
+            ByteBuffer ends = ByteBuffer.wrap(raw);
+            int base = block.rows() * 4;
+            int start = 0;
+            for (int row = 0; row < block.rows(); row++) {
+                int end = ends.getInt(row * 4);
+                consumer.accept(new String(raw, base + start, end - start, StandardCharsets.UTF_8));
+                start = end;
+            }
+        }
+    }
+
+    /**
+     * Closes the file.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Reads and inflates a chunk into raw.
+     *
+     * @param chunk The chunk.
+     * @throws IOException If the chunk cannot be read or is corrupt.
+     */
+    private void inflate(Chunk chunk) throws IOException {
+        if (compressed.length < chunk.compressed()) {
+            compressed = new byte[chunk.compressed()];
+        }
+        if (raw.length < chunk.raw()) {
+            raw = new byte[chunk.raw()];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(compressed, 0, chunk.compressed());
+        readFully(buffer, chunk.offset());
+        inflater.reset();
+        inflater.setInput(compressed, 0, chunk.compressed());
+        try {
+            int length = 0;
+            while (length < chunk.raw() && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, chunk.raw() - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != chunk.raw()) {
+                throw new IOException("Corrupt chunk at " + chunk.offset());
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk at " + chunk.offset(), e);
+        }
+    }
+
+    /**
+     * Decodes an unsigned varint at pos in raw.
+     *
+     * @return The value.
+     */
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = raw[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    /**
+     * Reads bytes of the file into a new buffer.
+     *
+     * @param offset The file offset.
+     * @param length The number of bytes.
+     * @return The buffer, positioned at its start.
+     * @throws IOException If the bytes cannot be read.
+     */
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(buffer, offset);
+        return buffer.flip();
+    }
+
+    /**
+     * Fills a buffer from the file.
+     *
+     * @param buffer The buffer.
+     * @param offset The file offset.
+     * @throws IOException If the end of the file is reached first.
+     */
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at " + offset);
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ColumnarWriteBenchmark class comparing the CSV and the columnar outputs: the time to write
+ * the rows, and the time to read the prices back, parsing the CSV rows against scanning the
+ * PRICE_CENTS column. The file sizes are checked by ColumnarWriterTest.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ColumnarWriteBenchmark {
+    // Number of rows written per invocation
+    @Param({"100000"})
+    public int rows;
+
+    // Products written by each invocation
+    private List<ProductInfo> products;
+
+    // Temporary files written by the write benchmarks
+    private Path csvFile;
+    private Path columnarFile;
+
+    // Files read by the scan benchmarks, written once
+    private Path csvInput;
+    private Path columnarInput;
+
+    /**
+     * Builds the products from the synthetic product grid, creates the temporary files and writes the scanned files.
+     *
+     * @throws IOException If a file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ProductInfo> tiles = HttpListingFetcher.parse(Fixtures.read("juice_page1.html"));
+        products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            products.add(tiles.get(i % tiles.size()));
+        }
+        csvFile = Files.createTempFile("products-", ".csv");
+        columnarFile = Files.createTempFile("products-", ".pcol");
+        csvInput = Files.createTempFile("products-input-", ".csv");
+        columnarInput = Files.createTempFile("products-input-", ".pcol");
+        write(CsvProductSink.open(csvInput.toString()));
+        write(ColumnarWriter.open(columnarInput));
+    }
+
+    /**
+     * Deletes the temporary files.
+     *
+     * @throws IOException If a file cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        for (Path file : List.of(csvFile, columnarFile, csvInput, columnarInput)) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Writes the rows to a sink and closes it.
+     *
+     * @param sink The sink.
+     * @throws IOException If the file cannot be written.
+     */
+    private void write(ProductSink sink) throws IOException {
+        try (sink) {
+            int count = 1;
+            for (ProductInfo product : products) {
+                sink.write(count, count % 2 == 0 ? "juice" : "coffee", product);
+                count++;
+            }
+        }
+    }
+
+    /**
+     * Writes the rows as CSV.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Benchmark
+    public void writeCsv() throws IOException {
+        write(CsvProductSink.open(csvFile.toString()));
+    }
+
+    /**
+     * Writes the rows as typed, compressed columns.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Benchmark
+    public void writeColumnar() throws IOException {
+        write(ColumnarWriter.open(columnarFile));
+    }
+
+    /**
+     * Sums the prices of the CSV file, parsing every row and every price.
+     *
+     * @return The sum of the known prices in cents.
+     * @throws IOException            If the file cannot be read.
+     * @throws CsvValidationException If a row is malformed.
+     */
+    @Benchmark
+    public long scanCsvPrices() throws IOException, CsvValidationException {
+        PriceParser parser = new PriceParser();
+        PriceParser.Fields fields = new PriceParser.Fields();
+        long sum = 0;
+        try (CSVReader reader = new CSVReader(new BufferedReader(new FileReader(csvInput.toFile()), 64 * 1024))) {
+            reader.readNext();
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                if (parser.parse(row[2], PriceType.REGULAR, fields)) {
+                    sum += fields.cents;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Sums the prices of the columnar file, scanning the PRICE_CENTS column alone.
+     *
+     * @return The sum of the known prices in cents.
+     * @throws IOException If the file cannot be read.
+     */
+    @Benchmark
+    public long scanColumnarPrices() throws IOException {
+        long[] sum = {0};
+        try (ColumnarReader reader = new ColumnarReader(columnarInput)) {
+            reader.scanLongs(ColumnarWriter.Column.PRICE_CENTS, cents -> {
+                if (cents >= 0) {
+                    sum[0] += cents;
+                }
+            });
+        }
+        return sum[0];
+    }
+}
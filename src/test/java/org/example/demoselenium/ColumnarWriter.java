@@ -0,0 +1,394 @@
+package org.example.demoselenium;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * ColumnarWriter class writing the products to a binary file of typed, compressed columns,
+ * an alternative to the CSV files once a crawl reaches millions of rows.
+ * The rows are buffered in blocks, and each column of a block is written as its own
+ * Deflate-compressed chunk, so that ColumnarReader can scan one column without reading the others:
+ * <ul>
+ *     <li>INT and CENTS columns hold zigzag varints of the difference with the previous row,
+ *     e.g. the row numbers take one byte each,</li>
+ *     <li>DICTIONARY columns hold varint ids into a per-column dictionary, e.g. the categories,</li>
+ *     <li>STRING columns hold the end offset of every value followed by the UTF-8 bytes.</li>
+ * </ul>
+ * The file starts with a magic number and a version and ends with a footer listing the columns,
+ * the dictionaries and the chunks of every block, followed by the footer offset and the magic number.
+ * The prices are parsed once with PriceParser, so the file holds the cents next to the text.
+ */
+public class ColumnarWriter implements ProductSink {
+    // Magic number at the start and the end of the file, "PCOL"
+    static final int MAGIC = 0x50434F4C;
+
+    // Version of the file layout
+    static final int VERSION = 1;
+
+    // Default number of rows per block
+    public static final int DEFAULT_BLOCK_ROWS = 65_536;
+
+    // Size of the buffer between the writer and the file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Type enum of the encodings of a column.
+     */
+    public enum Type {
+        // Integer, delta and zigzag varint encoded
+        INT,
+
+        // Amount in cents, -1 when unknown, delta and zigzag varint encoded
+        CENTS,
+
+        // String from a small set, varint id into the column dictionary
+        DICTIONARY,
+
+        // Free text, end offsets followed by the UTF-8 bytes
+        STRING
+    }
+
+    /**
+     * Column enum of the columns of the product files, in file order.
+     */
+    public enum Column {
+        NO(Type.INT),
+        CATEGORY(Type.DICTIONARY),
+        NAME(Type.STRING),
+        PRICE(Type.STRING),
+        PRICE_TYPE(Type.DICTIONARY),
+        PRICE_CENTS(Type.CENTS),
+        QUANTITY(Type.INT),
+        UNIT_PRICE_CENTS(Type.CENTS),
+        UNIT(Type.DICTIONARY),
+        IMAGE_URL(Type.STRING);
+
+        // Encoding of the column
+        public final Type type;
+
+        Column(Type type) {
+            this.type = type;
+        }
+    }
+
+    /**
+     * Chunk record locating the compressed chunk of a column in a block.
+     *
+     * @param offset     Offset of the chunk in the file.
+     * @param compressed Length of the compressed chunk.
+     * @param raw        Length of the chunk once inflated.
+     */
+    record Chunk(long offset, int compressed, int raw) {
+    }
+
+    /**
+     * Block record listing the chunks of a block.
+     *
+     * @param rows   The number of rows of the block.
+     * @param chunks The chunks, one per column in Column order.
+     */
+    record Block(int rows, Chunk[] chunks) {
+    }
+
+    /**
+     * Bytes class, a growable byte array with the varint encodings.
+     */
+    static final class Bytes {
+        // Content, valid up to size
+        byte[] data = new byte[1024];
+
+        // Number of bytes used
+        int size;
+
+        /**
+         * Makes room for more bytes.
+         *
+         * @param more The number of bytes about to be written.
+         */
+        void ensure(int more) {
+            if (size + more > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + more));
+            }
+        }
+
+        /**
+         * Appends a zigzag varint.
+         *
+         * @param value The signed value.
+         */
+        void writeZigzag(long value) {
+            writeVarint((value << 1) ^ (value >> 63));
+        }
+
+        /**
+         * Appends an unsigned varint.
+         *
+         * @param value The value, read as unsigned.
+         */
+        void writeVarint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+
+        /**
+         * Appends a big-endian int.
+         *
+         * @param value The value.
+         */
+        void writeInt(int value) {
+            ensure(4);
+            data[size++] = (byte) (value >>> 24);
+            data[size++] = (byte) (value >>> 16);
+            data[size++] = (byte) (value >>> 8);
+            data[size++] = (byte) value;
+        }
+
+        /**
+         * Appends bytes.
+         *
+         * @param bytes  The bytes.
+         * @param length The number of bytes to append.
+         */
+        void write(byte[] bytes, int length) {
+            ensure(length);
+            System.arraycopy(bytes, 0, data, size, length);
+            size += length;
+        }
+    }
+
+    // Output file
+    private final DataOutputStream out;
+
+    // Number of rows per block
+    private final int blockRows;
+
+    // Values of the current block, one buffer per column
+    private final Bytes[] values = new Bytes[Column.values().length];
+
+    // End offsets of the values of the current block, for the STRING columns
+    private final Bytes[] ends = new Bytes[Column.values().length];
+
+    // Previous value of the current block, for the INT and CENTS columns
+    private final long[] previous = new long[Column.values().length];
+
+    // Ids of the dictionary values, for the DICTIONARY columns
+    private final List<Map<String, Integer>> ids = new ArrayList<>();
+
+    // Dictionary values in id order, for the DICTIONARY columns
+    private final List<List<String>> dictionaries = new ArrayList<>();
+
+    // Blocks written so far
+    private final List<Block> blocks = new ArrayList<>();
+
+    // Reused compressor
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    // Reused compression output
+    private final Bytes compressed = new Bytes();
+
+    // Reused raw chunk of a STRING column, offsets then bytes
+    private final Bytes chunk = new Bytes();
+
+    // Reused price parser and result
+    private final PriceParser parser = new PriceParser();
+    private final PriceParser.Fields fields = new PriceParser.Fields();
+
+    // Number of rows of the current block
+    private int rows;
+
+    // Number of bytes written to the file
+    private long position;
+
+    /**
+     * Creates a writer with the default block size.
+     *
+     * @param file The output file, it is overwritten.
+     * @return The writer.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static ColumnarWriter open(Path file) throws IOException {
+        return new ColumnarWriter(file, DEFAULT_BLOCK_ROWS);
+    }
+
+    /**
+     * Creates a writer and writes the file header.
+     *
+     * @param file      The output file, it is overwritten.
+     * @param blockRows The number of rows per block.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ColumnarWriter(Path file, int blockRows) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE));
+        this.blockRows = blockRows;
+        for (Column column : Column.values()) {
+            values[column.ordinal()] = new Bytes();
+            ends[column.ordinal()] = column.type == Type.STRING ? new Bytes() : null;
+            ids.add(new HashMap<>());
+            dictionaries.add(new ArrayList<>());
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        position = 8;
+    }
+
+    /**
+     * Writes a product, its price being parsed into the typed columns.
+     *
+     * @param no       The row number of the product.
+     * @param category The category the product was found in, empty if unknown.
+     * @param product  The product.
+     * @throws IOException If a full block cannot be written.
+     */
+    @Override
+    public void write(int no, String category, ProductInfo product) throws IOException {
+        parser.parse(product.price(), product.priceType(), fields);
+        writeLong(Column.NO, no);
+        writeDictionary(Column.CATEGORY, category == null ? "" : category);
+        writeString(Column.NAME, product.name());
+        writeString(Column.PRICE, product.price());
+        writeDictionary(Column.PRICE_TYPE, fields.type.name());
+        writeLong(Column.PRICE_CENTS, fields.cents);
+        writeLong(Column.QUANTITY, fields.quantity);
+        writeLong(Column.UNIT_PRICE_CENTS, fields.unitCents);
+        writeDictionary(Column.UNIT, fields.unit.name());
+        writeString(Column.IMAGE_URL, product.imageUrl());
+        if (++rows == blockRows) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Writes the last block and the footer, and closes the file.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try (out) {
+            if (rows > 0) {
+                writeBlock();
+            }
+            long footer = position;
+            Column[] columns = Column.values();
+            out.writeInt(columns.length);
+            for (Column column : columns) {
+                out.writeUTF(column.name());
+                out.writeByte(column.type.ordinal());
+                List<String> dictionary = dictionaries.get(column.ordinal());
+                out.writeInt(dictionary.size());
+                for (String value : dictionary) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(blocks.size());
+            for (Block block : blocks) {
+                out.writeInt(block.rows());
+                for (Chunk chunk : block.chunks()) {
+                    out.writeLong(chunk.offset());
+                    out.writeInt(chunk.compressed());
+                    out.writeInt(chunk.raw());
+                }
+            }
+            out.writeLong(footer);
+            out.writeInt(MAGIC);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Appends a value to an INT or CENTS column.
+     *
+     * @param column The column.
+     * @param value  The value.
+     */
+    private void writeLong(Column column, long value) {
+        int index = column.ordinal();
+        values[index].writeZigzag(value - previous[index]);
+        previous[index] = value;
+    }
+
+    /**
+     * Appends a value to a DICTIONARY column, adding it to the dictionary if new.
+     *
+     * @param column The column.
+     * @param value  The value.
+     */
+    private void writeDictionary(Column column, String value) {
+        int index = column.ordinal();
+        Integer id = ids.get(index).get(value);
+        if (id == null) {
+            id = dictionaries.get(index).size();
+            ids.get(index).put(value, id);
+            dictionaries.get(index).add(value);
+        }
+        values[index].writeVarint(id);
+    }
+
+    /**
+     * Appends a value to a STRING column.
+     *
+     * @param column The column.
+     * @param value  The value, null is written as empty.
+     */
+    private void writeString(Column column, String value) {
+        int index = column.ordinal();
+        if (value != null && !value.isEmpty()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            values[index].write(bytes, bytes.length);
+        }
+        ends[index].writeInt(values[index].size);
+    }
+
+    /**
+     * Compresses and writes the chunks of the current block, then clears the block.
+     *
+     * @throws IOException If the chunks cannot be written.
+     */
+    private void writeBlock() throws IOException {
+        Chunk[] chunks = new Chunk[values.length];
+        for (Column column : Column.values()) {
+            int index = column.ordinal();
+            Bytes raw = values[index];
+            if (column.type == Type.STRING) {
+                chunk.size = 0;
+                chunk.write(ends[index].data, ends[index].size);
+                chunk.write(raw.data, raw.size);
+                raw = chunk;
+            }
+            deflater.reset();
+            deflater.setInput(raw.data, 0, raw.size);
+            deflater.finish();
+            compressed.size = 0;
+            while (!deflater.finished()) {
+                compressed.ensure(BUFFER_SIZE);
+                compressed.size += deflater.deflate(compressed.data, compressed.size, compressed.data.length - compressed.size);
+            }
+            out.write(compressed.data, 0, compressed.size);
+            chunks[index] = new Chunk(position, compressed.size, raw.size);
+            position += compressed.size;
+
+            values[index].size = 0;
+            if (ends[index] != null) {
+                ends[index].size = 0;
+            }
+            previous[index] = 0;
+        }
+        blocks.add(new Block(rows, chunks));
+        rows = 0;
+    }
+}
@@ -0,0 +1,131 @@
+package org.example.demoselenium;
+
+import org.example.demoselenium.ColumnarWriter.Column;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ColumnarWriterTest class containing test cases for the ColumnarWriter and ColumnarReader classes.
+ */
+public class ColumnarWriterTest {
+    // Directory of the written files
+    @TempDir
+    Path dir;
+
+    // Products written by the tests, cycled through
+    private static final List<ProductInfo> PRODUCTS = List.of(
+            new ProductInfo("Sunny D Tangy Original", "$3.49", "", "", "https://assets.example/1_front_a01.png"),
+            new ProductInfo("Tropicana Orange Juice, No Pulp & Calcium", "", "", "2 for $7.00",
+                    "https://assets.example/2_front_a01.png"),
+            new ProductInfo("Café Crème \"Extra\"", "", "$0.55/100ml", "", ""),
+            new ProductInfo("", "", "", "", "data:image/gif;base64,R0lGODlhAQABAAAAACw="));
+
+    /**
+     * Writes products cycling through PRODUCTS and the two categories.
+     *
+     * @param sink The sink.
+     * @param rows The number of rows.
+     * @throws IOException If a row cannot be written.
+     */
+    private static void writeRows(ProductSink sink, int rows) throws IOException {
+        try (sink) {
+            for (int i = 0; i < rows; i++) {
+                sink.write(i + 1, i % 3 == 0 ? "coffee" : "juice", PRODUCTS.get(i % PRODUCTS.size()));
+            }
+        }
+    }
+
+    /**
+     * Every column reads back as written, across several blocks.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void columnsReadBackAcrossBlocks() throws IOException {
+        Path file = dir.resolve("products.pcol");
+        writeRows(new ColumnarWriter(file, 4), 10);
+
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertEquals(10, reader.rowCount());
+
+            List<Long> numbers = new ArrayList<>();
+            reader.scanLongs(Column.NO, numbers::add);
+            assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L, 10L), numbers);
+
+            List<Long> cents = new ArrayList<>();
+            reader.scanLongs(Column.PRICE_CENTS, cents::add);
+            assertEquals(List.of(349L, 700L, 55L, -1L, 349L), cents.subList(0, 5));
+
+            List<Long> quantities = new ArrayList<>();
+            reader.scanLongs(Column.QUANTITY, quantities::add);
+            assertEquals(2L, quantities.get(1));
+
+            List<Long> unitCents = new ArrayList<>();
+            reader.scanLongs(Column.UNIT_PRICE_CENTS, unitCents::add);
+            assertEquals(55L, unitCents.get(2));
+
+            List<String> names = new ArrayList<>();
+            reader.scanStrings(Column.NAME, names::add);
+            assertEquals(PRODUCTS.get(2).name(), names.get(6));
+            assertEquals("", names.get(7));
+
+            List<String> prices = new ArrayList<>();
+            reader.scanStrings(Column.PRICE, prices::add);
+            assertEquals("2 for $7.00", prices.get(9));
+
+            List<String> categories = new ArrayList<>();
+            reader.scanStrings(Column.CATEGORY, categories::add);
+            assertEquals(List.of("coffee", "juice", "juice", "coffee"), categories.subList(0, 4));
+            assertEquals(List.of("coffee", "juice"), reader.dictionary(Column.CATEGORY));
+
+            List<String> types = new ArrayList<>();
+            reader.scanStrings(Column.PRICE_TYPE, types::add);
+            assertEquals(List.of("REGULAR", "SALE", "NON_MEMBER", "NONE"), types.subList(0, 4));
+
+            assertThrows(IllegalArgumentException.class, () -> reader.scanLongs(Column.NAME, value -> { }));
+        }
+    }
+
+    /**
+     * A file without rows is still valid, and a file of another format is rejected.
+     *
+     * @throws IOException If the file cannot be written or read.
+     */
+    @Test
+    public void emptyAndForeignFiles() throws IOException {
+        Path file = dir.resolve("empty.pcol");
+        writeRows(ColumnarWriter.open(file), 0);
+        try (ColumnarReader reader = new ColumnarReader(file)) {
+            assertEquals(0, reader.rowCount());
+            reader.scanStrings(Column.NAME, name -> fail("no rows expected"));
+        }
+
+        Path csv = dir.resolve("products.csv");
+        writeRows(CsvProductSink.open(csv.toString()), 10);
+        assertThrows(IOException.class, () -> new ColumnarReader(csv).close());
+    }
+
+    /**
+     * The columnar file is several times smaller than the CSV file of the same rows.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void smallerThanCsv() throws IOException {
+        Path columnar = dir.resolve("products.pcol");
+        Path csv = dir.resolve("products.csv");
+        writeRows(ColumnarWriter.open(columnar), 100_000);
+        writeRows(CsvProductSink.open(csv.toString()), 100_000);
+
+        assertTrue(Files.size(columnar) * 4 < Files.size(csv),
+                "CSV " + Files.size(csv) + " bytes, columnar " + Files.size(columnar) + " bytes");
+    }
+}
@@ -0,0 +1,297 @@
+package org.example.demoselenium;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * CrawlCheckpoint class keeping an append-only write-ahead log of the crawl units
+ * (category, page, sort, filter) whose rows are in the output file, together with the
+ * output size and the next row number after them.
+ * Each record is one text line ending with a CRC32 of its content, so a line torn by a
+ * crash is detected and dropped with everything after it. Appends only go to the OS;
+ * the log is forced to disk in batches by sync(), which the caller runs after forcing the
+ * output itself, so a durable record never points past durable output.
+ */
+public class CrawlCheckpoint implements AutoCloseable {
+
+    /**
+     * Unit record identifying a page of a crawl.
+     *
+     * @param category The category URL.
+     * @param page     The page number.
+     * @param sort     The sort option, empty for the default order.
+     * @param filter   The filter, empty for none.
+     */
+    public record Unit(String category, int page, String sort, String filter) {
+        /**
+         * Returns the key identifying the unit in the log.
+         *
+         * @return The key.
+         */
+        String key() {
+            return escape(category) + '\t' + page + '\t' + escape(sort) + '\t' + escape(filter);
+        }
+    }
+
+    /**
+     * Entry record describing a committed record of the log.
+     *
+     * @param offset  The output size after the rows of the unit.
+     * @param nextRow The next row number after the rows of the unit.
+     * @param key     The key of the unit.
+     * @param end     The log size after the record.
+     */
+    private record Entry(long offset, int nextRow, String key, long end) {
+    }
+
+    // Log file
+    private final Path file;
+
+    // Log channel, appending
+    private final FileChannel channel;
+
+    // Keys of the committed units
+    private final Set<String> done = new HashSet<>();
+
+    // Committed records in log order
+    private final List<Entry> entries = new ArrayList<>();
+
+    // Output size after the last committed unit, 0 if none
+    private long committedOffset;
+
+    // Next row number after the last committed unit, 1 if none
+    private int nextRow = 1;
+
+    // Number of records appended since the last sync
+    private int unsynced;
+
+    /**
+     * Opens a log, reading the records already committed and dropping a torn tail.
+     *
+     * @param file Path of the log file, created if missing.
+     * @throws IOException If the log cannot be read or opened.
+     */
+    public CrawlCheckpoint(Path file) throws IOException {
+        this.file = file;
+        long validLength = 0;
+        if (Files.exists(file)) {
+            byte[] content = Files.readAllBytes(file);
+            int start = 0;
+            for (int i = 0; i < content.length; i++) {
+                if (content[i] != '\n') {
+                    continue;
+                }
+                if (!replay(new String(content, start, i - start, StandardCharsets.UTF_8), i + 1)) {
+                    break;
+                }
+                start = i + 1;
+                validLength = start;
+            }
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(validLength);
+        channel.position(validLength);
+    }
+
+    /**
+     * Applies a log line.
+     *
+     * @param line The line without its end of line.
+     * @param end  The log size after the line.
+     * @return false if the line is torn or corrupt.
+     */
+    private boolean replay(String line, long end) {
+        int crcStart = line.lastIndexOf('\t');
+        if (crcStart < 0) {
+            return false;
+        }
+        String body = line.substring(0, crcStart);
+        if (!line.substring(crcStart + 1).equals(Long.toHexString(crc(body)))) {
+            return false;
+        }
+        // body: offset, next row, then the unit key
+        String[] parts = body.split("\t", 3);
+        if (parts.length < 3) {
+            return false;
+        }
+        try {
+            committedOffset = Long.parseLong(parts[0]);
+            nextRow = Integer.parseInt(parts[1]);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        done.add(parts[2]);
+        entries.add(new Entry(committedOffset, nextRow, parts[2], end));
+        return true;
+    }
+
+    /**
+     * Drops the records pointing past the end of the output, e.g. when the log reached the disk
+     * but the output did not, so that their units are crawled again.
+     *
+     * @param outputSize The current output size in bytes.
+     * @return The number of records dropped.
+     * @throws IOException If the log cannot be truncated.
+     */
+    public int dropBeyond(long outputSize) throws IOException {
+        // the offsets grow with the records, so the records past the output are the last ones
+        int keep = entries.size();
+        while (keep > 0 && entries.get(keep - 1).offset() > outputSize) {
+            keep--;
+        }
+        int dropped = entries.size() - keep;
+        if (dropped == 0) {
+            return 0;
+        }
+        entries.subList(keep, entries.size()).clear();
+        done.clear();
+        entries.forEach(entry -> done.add(entry.key()));
+        Entry last = entries.isEmpty() ? null : entries.get(entries.size() - 1);
+        committedOffset = last == null ? 0 : last.offset();
+        nextRow = last == null ? 1 : last.nextRow();
+        long end = last == null ? 0 : last.end();
+        channel.truncate(end);
+        channel.position(end);
+        channel.force(false);
+        unsynced = 0;
+        return dropped;
+    }
+
+    /**
+     * Checks whether a unit is committed.
+     *
+     * @param unit The unit.
+     * @return true if its rows are in the output.
+     */
+    public boolean isDone(Unit unit) {
+        return done.contains(unit.key());
+    }
+
+    /**
+     * Returns the units of the list which are not committed yet, in order.
+     *
+     * @param units The units of the crawl.
+     * @return The units still to be crawled.
+     */
+    public List<Unit> remaining(List<Unit> units) {
+        return units.stream().filter(unit -> !isDone(unit)).toList();
+    }
+
+    /**
+     * Returns the output size after the last committed unit, the output is to be truncated to it on resume.
+     *
+     * @return The committed output size in bytes, 0 if nothing is committed.
+     */
+    public long committedOffset() {
+        return committedOffset;
+    }
+
+    /**
+     * Returns the next row number after the last committed unit.
+     *
+     * @return The next row number, 1 if nothing is committed.
+     */
+    public int nextRow() {
+        return nextRow;
+    }
+
+    /**
+     * Returns the number of committed units.
+     *
+     * @return The number of units.
+     */
+    public int size() {
+        return done.size();
+    }
+
+    /**
+     * Appends the record of a unit whose rows were written to the output. The record reaches
+     * the disk at the next sync.
+     *
+     * @param unit    The unit.
+     * @param offset  The output size after the rows of the unit.
+     * @param nextRow The next row number after the rows of the unit.
+     * @return The number of records appended since the last sync.
+     * @throws IOException If the record cannot be written.
+     */
+    public int commit(Unit unit, long offset, int nextRow) throws IOException {
+        String body = offset + "\t" + nextRow + "\t" + unit.key();
+        ByteBuffer record = ByteBuffer.wrap((body + '\t' + Long.toHexString(crc(body)) + '\n')
+                .getBytes(StandardCharsets.UTF_8));
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        done.add(unit.key());
+        entries.add(new Entry(offset, nextRow, unit.key(), channel.position()));
+        committedOffset = offset;
+        this.nextRow = nextRow;
+        return ++unsynced;
+    }
+
+    /**
+     * Forces the appended records to disk.
+     *
+     * @throws IOException If the log cannot be forced.
+     */
+    public void sync() throws IOException {
+        if (unsynced > 0) {
+            channel.force(false);
+            unsynced = 0;
+        }
+    }
+
+    /**
+     * Closes the log after a last sync.
+     *
+     * @throws IOException If the log cannot be forced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            sync();
+            channel.close();
+        }
+    }
+
+    /**
+     * Closes and deletes the log once the crawl is complete, so that the next run starts over.
+     *
+     * @throws IOException If the log cannot be deleted.
+     */
+    public void delete() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Computes the CRC32 of a record body.
+     *
+     * @param body The record body.
+     * @return The checksum.
+     */
+    private static long crc(String body) {
+        CRC32 crc = new CRC32();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+
+    /**
+     * Escapes the tabs, line feeds and backslashes of a key part.
+     *
+     * @param value The key part.
+     * @return The escaped key part.
+     */
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,352 @@
+package org.example.demoselenium;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CrawlScheduler class crawling listing pages on Java 21 virtual threads.
+ * Every page is a cheap virtual-thread task, so thousands of category pages can be
+ * scheduled without a platform thread each. The scheduler keeps a deduplicated frontier
+ * of category and page URLs, follows the page= pagination of every category, and enforces
+ * a per-host concurrency limit and a minimum delay between two requests to the same host.
+ * Pages are read with the primary fetcher (typically the lightweight HTTP fetcher) and with
+ * the fallback fetcher (typically browser sessions) when the primary one finds nothing.
+ * A page which cannot be read, for instance whose grid did not settle in time, is retried up to
+ * MAX_ATTEMPTS times before it counts as failed, so that one slow response does not end its category.
+ */
+public class CrawlScheduler implements AutoCloseable {
+
+    /**
+     * PageHandler interface receiving the products of each crawled page.
+     */
+    public interface PageHandler {
+        /**
+         * Handles the products of a crawled page, called from the crawling threads.
+         *
+         * @param url      URL of the page.
+         * @param products The products of the page.
+         * @throws Exception If the products cannot be handled.
+         */
+        void onPage(String url, List<ProductInfo> products) throws Exception;
+    }
+
+    /**
+     * CrawlStats record holding the outcome of a crawl.
+     *
+     * @param pages      Number of pages read.
+     * @param products   Number of products read.
+     * @param failures   Number of pages which could not be read, after their retries.
+     * @param retries    Number of page reads retried.
+     * @param duplicates Number of URLs skipped because already in the frontier.
+     * @param elapsed    Time since the scheduler was created.
+     */
+    public record CrawlStats(long pages, long products, long failures, long retries, long duplicates,
+                             Duration elapsed) {
+    }
+
+    // Maximum number of times a page is read before it counts as failed
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Fetcher used first for every page
+    private final PageFetcher primary;
+
+    // Fetcher used when the primary one finds nothing, null for none
+    private final PageFetcher fallback;
+
+    // Maximum number of pages crawled per category
+    private final int maxPagesPerCategory;
+
+    // Handler of the crawled pages
+    private final PageHandler handler;
+
+    // Maximum number of concurrent requests per host
+    private final int perHostConcurrency;
+
+    // Minimum delay between two requests to the same host, in nanoseconds
+    private final long politenessNanos;
+
+    // One virtual thread per page
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Normalized URLs already in the frontier
+    private final Set<String> frontier = ConcurrentHashMap.newKeySet();
+
+    // Politeness state per host
+    private final ConcurrentMap<String, HostLimiter> hosts = new ConcurrentHashMap<>();
+
+    // Number of scheduled pages not yet done
+    private final AtomicLong pending = new AtomicLong();
+
+    // Crawl counters
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong products = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+
+    // Time the scheduler was created, in nanoseconds
+    private final long startNanos = System.nanoTime();
+
+    /**
+     * Creates a scheduler.
+     *
+     * @param primary             Fetcher used first for every page.
+     * @param fallback            Fetcher used when the primary one finds nothing, null for none.
+     * @param perHostConcurrency  Maximum number of concurrent requests per host.
+     * @param politeness          Minimum delay between two requests to the same host.
+     * @param maxPagesPerCategory Maximum number of pages crawled per category.
+     * @param handler             Handler of the crawled pages.
+     */
+    public CrawlScheduler(PageFetcher primary, PageFetcher fallback, int perHostConcurrency, Duration politeness,
+                          int maxPagesPerCategory, PageHandler handler) {
+        this.primary = primary;
+        this.fallback = fallback;
+        this.perHostConcurrency = perHostConcurrency;
+        this.politenessNanos = politeness.toNanos();
+        this.maxPagesPerCategory = maxPagesPerCategory;
+        this.handler = handler;
+    }
+
+    /**
+     * Adds a category URL to the frontier, its next pages are followed automatically.
+     *
+     * @param url The category URL.
+     * @return true if the URL was scheduled, false if it was already in the frontier.
+     */
+    public boolean submit(String url) {
+        return schedule(url, 1, null);
+    }
+
+    /**
+     * Adds several category URLs to the frontier.
+     *
+     * @param urls The category URLs.
+     */
+    public void submitAll(List<String> urls) {
+        urls.forEach(this::submit);
+    }
+
+    /**
+     * Schedules a page if it is not already in the frontier.
+     *
+     * @param url           URL of the page.
+     * @param page          Page number within its category.
+     * @param previousFirst Name of the first product of the previous page, null for the first page.
+     * @return true if the page was scheduled.
+     */
+    private boolean schedule(String url, int page, String previousFirst) {
+        if (!frontier.add(normalize(url))) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+        pending.incrementAndGet();
+        executor.execute(() -> crawl(url, page, previousFirst, 1));
+        return true;
+    }
+
+    /**
+     * Crawls a page and schedules the next page of its category if this one had products,
+     * or the page again if it could not be read and has attempts left.
+     *
+     * @param url           URL of the page.
+     * @param page          Page number within its category.
+     * @param previousFirst Name of the first product of the previous page, null for the first page.
+     * @param attempt       Number of this attempt, from 1.
+     */
+    private void crawl(String url, int page, String previousFirst, int attempt) {
+        try {
+            List<ProductInfo> found = fetch(url);
+            // sites clamp out-of-range pages to the last one, stop when a page repeats
+            if (!found.isEmpty() && found.get(0).name().equals(previousFirst)) {
+                return;
+            }
+            pages.incrementAndGet();
+            products.addAndGet(found.size());
+            handler.onPage(url, found);
+            if (!found.isEmpty() && page < maxPagesPerCategory) {
+                schedule(withPage(url, page + 1), page + 1, found.get(0).name());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failures.incrementAndGet();
+        } catch (Exception e) {
+            if (attempt < MAX_ATTEMPTS) {
+                retries.incrementAndGet();
+                pending.incrementAndGet();
+                executor.execute(() -> crawl(url, page, previousFirst, attempt + 1));
+            } else {
+                failures.incrementAndGet();
+            }
+        } finally {
+            if (pending.decrementAndGet() == 0) {
+                synchronized (pending) {
+                    pending.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a page within the politeness limits of its host, with the fallback if needed.
+     *
+     * @param url URL of the page.
+     * @return The products of the page.
+     * @throws Exception If the page cannot be read.
+     */
+    private List<ProductInfo> fetch(String url) throws Exception {
+        HostLimiter host = hosts.computeIfAbsent(hostOf(url), h -> new HostLimiter());
+        host.acquire();
+        try {
+            List<ProductInfo> found;
+            try {
+                found = primary.fetch(url);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                if (fallback == null) {
+                    throw e;
+                }
+                found = List.of();
+            }
+            if (found.isEmpty() && fallback != null) {
+                found = fallback.fetch(url);
+            }
+            return found;
+        } finally {
+            host.release();
+        }
+    }
+
+    /**
+     * Waits until every scheduled page, including the followed next pages, is done.
+     *
+     * @return The crawl stats.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public CrawlStats awaitCompletion() throws InterruptedException {
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                pending.wait();
+            }
+        }
+        return stats();
+    }
+
+    /**
+     * Returns the crawl stats so far.
+     *
+     * @return The crawl stats.
+     */
+    public CrawlStats stats() {
+        return new CrawlStats(pages.get(), products.get(), failures.get(), retries.get(), duplicates.get(),
+                Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Stops the scheduler, pages in progress are interrupted.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Normalizes a URL for the frontier: no fragment, no navid tracking parameter, no page=1.
+     *
+     * @param url The URL.
+     * @return The normalized URL.
+     */
+    static String normalize(String url) {
+        URI uri = URI.create(url);
+        List<String> params = new ArrayList<>();
+        if (uri.getRawQuery() != null) {
+            for (String param : uri.getRawQuery().split("&")) {
+                if (!param.isEmpty() && !param.startsWith("navid=") && !param.equals("page=1")) {
+                    params.add(param);
+                }
+            }
+        }
+        params.sort(null);
+        String base = uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath();
+        return params.isEmpty() ? base : base + "?" + String.join("&", params);
+    }
+
+    /**
+     * Returns the URL of another page of the same listing.
+     *
+     * @param url  The listing URL.
+     * @param page The page number.
+     * @return The URL with its page= parameter set.
+     */
+    static String withPage(String url, int page) {
+        URI uri = URI.create(url);
+        List<String> params = new ArrayList<>();
+        if (uri.getRawQuery() != null) {
+            for (String param : uri.getRawQuery().split("&")) {
+                if (!param.isEmpty() && !param.startsWith("page=")) {
+                    params.add(param);
+                }
+            }
+        }
+        params.add("page=" + page);
+        return uri.getScheme() + "://" + uri.getRawAuthority() + uri.getRawPath() + "?" + String.join("&", params);
+    }
+
+    /**
+     * Returns the host of a URL.
+     *
+     * @param url The URL.
+     * @return The host.
+     */
+    static String hostOf(String url) {
+        String host = URI.create(url).getHost();
+        return host == null ? "" : host;
+    }
+
+    /**
+     * HostLimiter class enforcing the concurrency limit and the politeness delay of a host.
+     */
+    private final class HostLimiter {
+        // Concurrent requests allowed
+        private final Semaphore permits = new Semaphore(perHostConcurrency, true);
+
+        // Earliest time the next request may start, in nanoseconds
+        private final AtomicLong nextStart = new AtomicLong(System.nanoTime());
+
+        /**
+         * Waits for a request slot and for the politeness delay.
+         *
+         * @throws InterruptedException If the thread is interrupted while waiting.
+         */
+        void acquire() throws InterruptedException {
+            permits.acquire();
+            long now = System.nanoTime();
+            long start = nextStart.getAndAccumulate(now, (next, n) -> Math.max(next, n) + politenessNanos);
+            long delay = Math.max(start, now) - now;
+            if (delay > 0) {
+                try {
+                    Thread.sleep(Duration.ofNanos(delay));
+                } catch (InterruptedException e) {
+                    permits.release();
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * Releases the request slot.
+         */
+        void release() {
+            permits.release();
+        }
+    }
+}
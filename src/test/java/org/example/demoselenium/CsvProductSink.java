@@ -0,0 +1,62 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * CsvProductSink class writing the products as "No, Product Name, Price, Image URL" CSV rows.
+ * The category is not a column of these files, it is ignored.
+ */
+public class CsvProductSink implements ProductSink {
+    // Size of the buffer between the CSV writer and the file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // CSV writer the rows are written to
+    private final CSVWriter writer;
+
+    /**
+     * Creates a sink writing to the given file, with the header.
+     *
+     * @param csvFile Path of the CSV file, it is overwritten.
+     * @return The sink.
+     * @throws IOException If the file cannot be opened.
+     */
+    public static CsvProductSink open(String csvFile) throws IOException {
+        return new CsvProductSink(new CSVWriter(new BufferedWriter(new FileWriter(csvFile), BUFFER_SIZE)));
+    }
+
+    /**
+     * Creates a sink and writes the header.
+     *
+     * @param writer CSV writer the rows are written to, it is closed with the sink.
+     */
+    public CsvProductSink(CSVWriter writer) {
+        this.writer = writer;
+        writer.writeNext(AsyncCsvSink.HEADER);
+    }
+
+    /**
+     * Writes a product as a CSV row.
+     *
+     * @param no       The row number of the product.
+     * @param category The category the product was found in, ignored.
+     * @param product  The product.
+     */
+    @Override
+    public void write(int no, String category, ProductInfo product) {
+        writer.writeNext(product.toCsvRow(no));
+    }
+
+    /**
+     * Closes the CSV writer.
+     *
+     * @throws IOException If the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
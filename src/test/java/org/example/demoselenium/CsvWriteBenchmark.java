@@ -0,0 +1,105 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CsvWriteBenchmark class comparing the ways of writing the product CSV files:
+ * CSVWriter over a plain FileWriter (as the tests do), over a BufferedWriter,
+ * and the batched AsyncCsvSink.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvWriteBenchmark {
+    // Number of rows written per invocation
+    @Param({"10000"})
+    public int rows;
+
+    // Products written by each invocation
+    private List<ProductInfo> products;
+
+    // Temporary CSV file
+    private Path csvFile;
+
+    /**
+     * Builds the products from the synthetic product grid and creates the temporary file.
+     *
+     * @throws IOException If the temporary file cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<ProductInfo> tiles = HttpListingFetcher.parse(Fixtures.read("juice_page1.html"));
+        products = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            products.add(tiles.get(i % tiles.size()));
+        }
+        csvFile = Files.createTempFile("products-", ".csv");
+    }
+
+    /**
+     * Deletes the temporary file.
+     *
+     * @throws IOException If the file cannot be deleted.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+    }
+
+    /**
+     * Writes the rows with a CSVWriter over a plain FileWriter.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Benchmark
+    public void csvWriterOverFileWriter() throws IOException {
+        try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile.toFile()))) {
+            writer.writeNext(AsyncCsvSink.HEADER);
+            int count = 1;
+            for (ProductInfo product : products) {
+                writer.writeNext(product.toCsvRow(count++));
+            }
+        }
+    }
+
+    /**
+     * Writes the rows with a CSVWriter over a BufferedWriter.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Benchmark
+    public void csvWriterOverBufferedWriter() throws IOException {
+        try (CSVWriter writer = new CSVWriter(new BufferedWriter(new FileWriter(csvFile.toFile()), 64 * 1024))) {
+            writer.writeNext(AsyncCsvSink.HEADER);
+            int count = 1;
+            for (ProductInfo product : products) {
+                writer.writeNext(product.toCsvRow(count++));
+            }
+        }
+    }
+
+    /**
+     * Writes the rows through the batched AsyncCsvSink.
+     *
+     * @throws Exception If the file cannot be written.
+     */
+    @Benchmark
+    public void asyncBatchedSink() throws Exception {
+        try (AsyncCsvSink sink = AsyncCsvSink.open(csvFile.toString(), 1024, 256, 100)) {
+            sink.submitAll(products);
+        }
+    }
+}
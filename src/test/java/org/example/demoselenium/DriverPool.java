@@ -0,0 +1,248 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * DriverPool class keeping a bounded set of warm WebDriver sessions.
+ * Sessions are created lazily up to the pool size, leased to one caller at a time and
+ * reset (cookies and storage cleared, back to the home URL) when they are returned.
+ * The browser startup cost is therefore paid once per pool slot instead of once per test.
+ */
+public class DriverPool implements AutoCloseable {
+    // Interval at which a waiting lease checks for a slot freed by a discarded session
+    private static final long RETRY_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    // Factory creating a new WebDriver session
+    private final Supplier<WebDriver> factory;
+
+    // URL every session is sent back to when it is reset
+    private final String homeUrl;
+
+    // Maximum number of sessions
+    private final int size;
+
+    // Idle sessions ready to be leased
+    private final BlockingQueue<WebDriver> idle;
+
+    // Every session created by the pool and not yet discarded
+    private final List<WebDriver> all = new ArrayList<>();
+
+    // Number of sessions created and not yet discarded
+    private final AtomicInteger created = new AtomicInteger();
+
+    // Set once the pool is closed
+    private volatile boolean closed;
+
+    /**
+     * Creates a pool of at most size sessions.
+     *
+     * @param size    Maximum number of sessions.
+     * @param factory Factory creating a new WebDriver session.
+     * @param homeUrl URL the sessions are sent back to when they are reset.
+     */
+    public DriverPool(int size, Supplier<WebDriver> factory, String homeUrl) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1: " + size);
+        }
+        this.size = size;
+        this.factory = factory;
+        this.homeUrl = homeUrl;
+        this.idle = new ArrayBlockingQueue<>(size);
+    }
+
+    /**
+     * Returns the maximum number of sessions of the pool.
+     *
+     * @return The pool size.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Leases a session, creating a new one if the pool is not full yet,
+     * otherwise waiting for a session to be returned or for a discarded session to free its slot.
+     *
+     * @param timeout Maximum time to wait for a session.
+     * @return The lease, to be closed to give the session back.
+     * @throws TimeoutException     If no session becomes available in time.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public Lease lease(Duration timeout) throws TimeoutException, InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            if (closed) {
+                throw new IllegalStateException("Pool is closed");
+            }
+            WebDriver driver = idle.poll();
+            if (driver == null) {
+                driver = tryCreate();
+            }
+            if (driver != null) {
+                return new Lease(driver);
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException("No WebDriver session available after " + timeout);
+            }
+            // a discarded session frees a slot without waking the poll, so the slots are checked again shortly
+            driver = idle.poll(Math.min(remaining, RETRY_INTERVAL_NANOS), TimeUnit.NANOSECONDS);
+            if (driver != null) {
+                return new Lease(driver);
+            }
+        }
+    }
+
+    /**
+     * Creates a new session if the pool is not full.
+     *
+     * @return The new session, or null if the pool is full.
+     */
+    private WebDriver tryCreate() {
+        while (true) {
+            int current = created.get();
+            if (current >= size) {
+                return null;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        WebDriver driver = null;
+        try {
+            driver = factory.get();
+            driver.get(homeUrl);
+            synchronized (all) {
+                all.add(driver);
+            }
+            return driver;
+        } catch (RuntimeException e) {
+            if (driver != null) {
+                // the browser started but could not load the home URL
+                try {
+                    driver.quit();
+                } catch (WebDriverException quitFailure) {
+                    e.addSuppressed(quitFailure);
+                }
+            }
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * Resets a session and gives it back to the pool. Broken sessions are discarded
+     * so that a fresh one is created on the next lease.
+     *
+     * @param driver The session to give back.
+     */
+    private void release(WebDriver driver) {
+        if (closed) {
+            discard(driver);
+            return;
+        }
+        try {
+            driver.manage().deleteAllCookies();
+            ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+            driver.get(homeUrl);
+            idle.offer(driver);
+        } catch (WebDriverException e) {
+            discard(driver);
+        }
+    }
+
+    /**
+     * Quits a session and frees its pool slot.
+     *
+     * @param driver The session to discard.
+     */
+    private void discard(WebDriver driver) {
+        synchronized (all) {
+            if (!all.remove(driver)) {
+                return;
+            }
+        }
+        created.decrementAndGet();
+        try {
+            driver.quit();
+        } catch (WebDriverException e) {
+            // already gone
+        }
+    }
+
+    /**
+     * Quits every session of the pool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        idle.clear();
+        List<WebDriver> drivers;
+        synchronized (all) {
+            drivers = new ArrayList<>(all);
+        }
+        drivers.forEach(this::discard);
+    }
+
+    /**
+     * Lease class giving exclusive access to a pooled session until it is closed.
+     */
+    public class Lease implements AutoCloseable {
+        // Leased session
+        private final WebDriver driver;
+
+        // Set once the session is returned to the pool
+        private boolean released;
+
+        /**
+         * Creates a lease on the given session.
+         *
+         * @param driver The leased session.
+         */
+        private Lease(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        /**
+         * Returns the leased session.
+         *
+         * @return The WebDriver instance.
+         */
+        public WebDriver driver() {
+            return driver;
+        }
+
+        /**
+         * Marks the leased session as broken so that it is quit instead of reused.
+         */
+        public void invalidate() {
+            if (!released) {
+                released = true;
+                discard(driver);
+            }
+        }
+
+        /**
+         * Resets the session and gives it back to the pool.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(driver);
+            }
+        }
+    }
+}
@@ -0,0 +1,330 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.openqa.selenium.json.Json;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * EndToEndHarness class running the scraping scenarios of MainPageTest against a ReplayServer
+ * serving a recorded SiteArchive, so that the throughput numbers are reproducible offline.
+ * For each scenario it reports the pages and rows per second and the peak RSS of the JVM and
+ * the browser processes, sampled while the scenario runs, and for the whole run the p50 and p99
+ * latency of every step.
+ * The report is written to target/e2e-report.json and the test fails when a budget is exceeded.
+ * The budgets derive from the baseline.json of the archive, the reviewed report of a measured
+ * replay run: a scenario may lose throughput or gain RSS up to the headroom factor, and the p99 of
+ * a step may move up one histogram bucket, the p99 being a bucket bound. Without a baseline, or
+ * with one measured under other network conditions, the test fails, so that a run can never pass
+ * without checking anything.
+ * It also fails when a page was not in the archive, since the numbers would then not be those of
+ * the recorded pages.
+ * It is not run by the default build: mvn -Pe2e verify, after recording an archive with
+ * mvn test -Dtest=MainPageTest -Dscraper.record=resources/site-archive.
+ */
+public class EndToEndHarness {
+    // Archive replayed
+    private static final Path ARCHIVE = Path.of(System.getProperty("e2e.archive", "resources/site-archive"));
+
+    // Recorded host served at the root of the replay server
+    private static final String SITE_HOST = System.getProperty("e2e.siteHost", "www.zehrs.ca");
+
+    // Delay before each replayed response
+    private static final Duration LATENCY = Duration.ofMillis(Long.getLong("e2e.latencyMillis", 40));
+
+    // Bandwidth of the replay server in kilobits per second, 0 for no limit
+    private static final long BANDWIDTH_KBPS = Long.getLong("e2e.bandwidthKbps", 20_000);
+
+    // Interval between two RSS samples
+    private static final long RSS_SAMPLE_MILLIS = 100;
+
+    // Report file
+    private static final Path REPORT = Path.of(System.getProperty("e2e.report", "target/e2e-report.json"));
+
+    // Baseline report the budgets derive from, measured on the same archive
+    private static final Path BASELINE = Path.of(System.getProperty("e2e.baseline",
+            ARCHIVE.resolve("baseline.json").toString()));
+
+    // Factor by which the throughput of a scenario may drop and its peak RSS grow over the baseline
+    private static final double HEADROOM = Double.parseDouble(System.getProperty("e2e.budget.headroom", "1.5"));
+
+    /**
+     * Scenario interface running one of the MainPageTest test cases on a set up instance.
+     */
+    @FunctionalInterface
+    private interface Scenario {
+        /**
+         * Runs the scenario.
+         *
+         * @param test The set up test instance.
+         * @throws Exception If the scenario fails.
+         */
+        void run(MainPageTest test) throws Exception;
+    }
+
+    /**
+     * ScenarioResult record holding the measures of a scenario.
+     *
+     * @param name       The scenario name.
+     * @param seconds    The duration, without the browser start.
+     * @param pages      The number of pages served.
+     * @param rows       The number of rows written.
+     * @param peakRssMb  The peak RSS of the JVM and the browser processes during the scenario, in megabytes,
+     *                   -1 if unknown.
+     */
+    private record ScenarioResult(String name, double seconds, long pages, long rows, double peakRssMb) {
+        double pagesPerSecond() {
+            return pages / seconds;
+        }
+
+        double rowsPerSecond() {
+            return rows / seconds;
+        }
+    }
+
+    /**
+     * Reads the entries of a baseline report section by name.
+     *
+     * @param section The section, the list of scenarios or the map of steps.
+     * @return The entries by name, empty if the section is missing.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> byName(Object section) {
+        Map<String, Map<String, Object>> entries = new LinkedHashMap<>();
+        if (section instanceof List<?> list) {
+            for (Object entry : list) {
+                Map<String, Object> map = (Map<String, Object>) entry;
+                entries.put(String.valueOf(map.get("name")), map);
+            }
+        } else if (section instanceof Map<?, ?> map) {
+            map.forEach((name, entry) -> entries.put(String.valueOf(name), (Map<String, Object>) entry));
+        }
+        return entries;
+    }
+
+    /**
+     * Reads a number of a baseline entry.
+     *
+     * @param entry The entry, null if the baseline has none.
+     * @param field The field.
+     * @return The number, NaN if missing or unbounded.
+     */
+    private static double number(Map<String, Object> entry, String field) {
+        return entry != null && entry.get(field) instanceof Number number ? number.doubleValue() : Double.NaN;
+    }
+
+    /**
+     * Returns the highest step p99 allowed for a baseline p99, one histogram bucket above it.
+     *
+     * @param baselineMillis The baseline p99 in milliseconds, a bucket bound.
+     * @return The allowed p99 in milliseconds.
+     */
+    private static double allowedP99Millis(double baselineMillis) {
+        for (int i = 0; i < LatencyHistogram.BOUNDS.length - 1; i++) {
+            if (LatencyHistogram.BOUNDS[i] * 1000 >= baselineMillis - 1e-6) {
+                return LatencyHistogram.BOUNDS[i + 1] * 1000;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Test case to replay the scraping scenarios and check the budgets.
+     *
+     * @throws Exception If a scenario fails or the report cannot be written.
+     */
+    @Test
+    public void replayScenarios() throws Exception {
+        assertTrue(Files.exists(ARCHIVE.resolve("index.tsv")), "No site archive in " + ARCHIVE
+                + ", record one with -Dscraper.record=" + ARCHIVE);
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        scenarios.put("task_1_4_scrapProducts", MainPageTest::task_1_4_scrapProducts);
+        scenarios.put("task_2_1_scrapProductsMultiPages", MainPageTest::task_2_1_scrapProductsMultiPages);
+        scenarios.put("task_4_10_scrapProductsPipelined", MainPageTest::task_4_10_scrapProductsPipelined);
+        scenarios.put("task_2_2_scrapProductsDifferentPages", MainPageTest::task_2_2_scrapProductsDifferentPages);
+        scenarios.put("task_3_1_searchProducts", MainPageTest::task_3_1_searchProducts);
+
+        List<ScenarioResult> results = new ArrayList<>();
+        long misses;
+        long pageMisses;
+        try (ReplayServer server = new ReplayServer(new SiteArchive(ARCHIVE), SITE_HOST, 0, LATENCY,
+                BANDWIDTH_KBPS * 1000 / 8, NetworkProductCapture.configuredPattern())) {
+            // read once by MainPageTest when the class is initialized, below
+            System.setProperty("scraper.baseUrl", server.baseUrl());
+            assertEquals(server.baseUrl(), MainPageTest.URL, "MainPageTest was initialized before the harness");
+            for (Map.Entry<String, Scenario> scenario : scenarios.entrySet()) {
+                results.add(run(scenario.getKey(), scenario.getValue(), server));
+            }
+            misses = server.misses();
+            pageMisses = server.pageMisses();
+        }
+
+        Map<String, Object> steps = new LinkedHashMap<>();
+        List<String> violations = new ArrayList<>();
+        Map<String, Object> baseline = Files.exists(BASELINE)
+                ? new Json().toType(Files.readString(BASELINE), Json.MAP_TYPE) : Map.of();
+        if (baseline.isEmpty()) {
+            violations.add("No baseline in " + BASELINE + ", review " + REPORT + " and copy it there");
+        } else if (number(baseline, "latencyMillis") != LATENCY.toMillis()
+                || number(baseline, "bandwidthKbps") != BANDWIDTH_KBPS) {
+            violations.add("Baseline " + BASELINE + " measured with other network conditions, measure it again");
+        }
+        Map<String, Map<String, Object>> baselineSteps = byName(baseline.get("steps"));
+        Map<String, Map<String, Object>> baselineScenarios = byName(baseline.get("scenarios"));
+        if (pageMisses > 0) {
+            violations.add(pageMisses + " page requests not in the archive " + ARCHIVE + ", record it again");
+        }
+        for (String step : MainPageTest.METRICS.stepNames()) {
+            LatencyHistogram latency = MainPageTest.METRICS.stepLatency(step);
+            double p50 = latency.percentileSeconds(0.50) * 1000;
+            double p99 = latency.percentileSeconds(0.99) * 1000;
+            steps.put(step, Map.of("count", latency.count(), "p50Ms", finite(p50), "p99Ms", finite(p99)));
+            double baselineP99 = number(baselineSteps.get(step), "p99Ms");
+            if (!baseline.isEmpty() && Double.isNaN(baselineP99)) {
+                violations.add(step + " has no bounded p99 in the baseline, measure it again");
+            } else if (p99 > allowedP99Millis(baselineP99)) {
+                violations.add(String.format("%s p99 %.1f ms > %.1f ms (baseline %.1f ms)", step, p99,
+                        allowedP99Millis(baselineP99), baselineP99));
+            }
+        }
+        List<Map<String, Object>> scenarioReports = new ArrayList<>();
+        for (ScenarioResult result : results) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("name", result.name());
+            report.put("seconds", result.seconds());
+            report.put("pages", result.pages());
+            report.put("rows", result.rows());
+            report.put("pagesPerSecond", result.pagesPerSecond());
+            report.put("rowsPerSecond", result.rowsPerSecond());
+            report.put("peakRssMb", result.peakRssMb());
+            scenarioReports.add(report);
+            if (baseline.isEmpty()) {
+                continue;
+            }
+            Map<String, Object> measured = baselineScenarios.get(result.name());
+            if (measured == null) {
+                violations.add(result.name() + " is not in the baseline, measure it again");
+                continue;
+            }
+            double pagesPerSecond = number(measured, "pagesPerSecond") / HEADROOM;
+            if (result.pages() > 0 && result.pagesPerSecond() < pagesPerSecond) {
+                violations.add(String.format("%s %.2f pages/s < %.2f (baseline %.2f)", result.name(),
+                        result.pagesPerSecond(), pagesPerSecond, pagesPerSecond * HEADROOM));
+            }
+            double rowsPerSecond = number(measured, "rowsPerSecond") / HEADROOM;
+            if (result.rows() > 0 && result.rowsPerSecond() < rowsPerSecond) {
+                violations.add(String.format("%s %.2f rows/s < %.2f (baseline %.2f)", result.name(),
+                        result.rowsPerSecond(), rowsPerSecond, rowsPerSecond * HEADROOM));
+            }
+            double peakRssMb = number(measured, "peakRssMb") * HEADROOM;
+            if (peakRssMb > 0 && result.peakRssMb() > peakRssMb) {
+                violations.add(String.format("%s peak RSS %.1f MB > %.1f MB (baseline %.1f MB)", result.name(),
+                        result.peakRssMb(), peakRssMb, peakRssMb / HEADROOM));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("latencyMillis", LATENCY.toMillis());
+        report.put("bandwidthKbps", BANDWIDTH_KBPS);
+        report.put("misses", misses);
+        report.put("pageMisses", pageMisses);
+        report.put("scenarios", scenarioReports);
+        report.put("steps", steps);
+        report.put("violations", violations);
+        Files.createDirectories(REPORT.toAbsolutePath().getParent());
+        Files.writeString(REPORT, new Json().toJson(report));
+
+        assertTrue(violations.isEmpty(), "Budgets exceeded: " + String.join("; ", violations));
+    }
+
+    /**
+     * Runs a scenario on a new MainPageTest instance and measures it.
+     *
+     * @param name     The scenario name.
+     * @param scenario The scenario.
+     * @param server   The replay server.
+     * @return The measures.
+     * @throws Exception If the scenario fails.
+     */
+    private static ScenarioResult run(String name, Scenario scenario, ReplayServer server) throws Exception {
+        MainPageTest test = new MainPageTest();
+        test.setUp();
+        try {
+            long pages = server.pages();
+            long rows = MainPageTest.METRICS.counter("rows_written");
+            // VmHWM is the peak since each process started, so the current RSS is sampled during the scenario
+            AtomicLong peakKilobytes = new AtomicLong(rssKilobytes());
+            Thread sampler = Thread.ofPlatform().daemon().name("rss-sampler").start(() -> {
+                try {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        Thread.sleep(RSS_SAMPLE_MILLIS);
+                        peakKilobytes.accumulateAndGet(rssKilobytes(), Math::max);
+                    }
+                } catch (InterruptedException e) {
+                    // scenario done
+                }
+            });
+            long start = System.nanoTime();
+            try {
+                scenario.run(test);
+            } finally {
+                sampler.interrupt();
+                sampler.join();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            // read before the browser exits, its processes are gone afterwards
+            peakKilobytes.accumulateAndGet(rssKilobytes(), Math::max);
+            return new ScenarioResult(name, seconds, server.pages() - pages,
+                    MainPageTest.METRICS.counter("rows_written") - rows,
+                    peakKilobytes.get() < 0 ? -1 : peakKilobytes.get() / 1024.0);
+        } finally {
+            test.tearDown();
+        }
+    }
+
+    /**
+     * Sums the current RSS (VmRSS) of the JVM and of its child processes, chromedriver and Chrome.
+     *
+     * @return The RSS in kilobytes, -1 if /proc is not available.
+     */
+    private static long rssKilobytes() {
+        long kilobytes = 0;
+        for (ProcessHandle process : Stream.concat(Stream.of(ProcessHandle.current()),
+                ProcessHandle.current().descendants()).toList()) {
+            try {
+                for (String line : Files.readAllLines(Path.of("/proc", String.valueOf(process.pid()), "status"))) {
+                    if (line.startsWith("VmRSS:")) {
+                        kilobytes += Long.parseLong(line.replaceAll("\\D", ""));
+                    }
+                }
+            } catch (IOException e) {
+                if (process.pid() == ProcessHandle.current().pid()) {
+                    return -1;
+                }
+                // the process exited meanwhile
+            }
+        }
+        return kilobytes;
+    }
+
+    /**
+     * Keeps a latency for the JSON report, which has no infinity.
+     *
+     * @param millis The latency in milliseconds.
+     * @return The latency, or "+Inf" if it fell in the unbounded bucket.
+     */
+    private static Object finite(double millis) {
+        return Double.isInfinite(millis) ? "+Inf" : millis;
+    }
+}
@@ -0,0 +1,137 @@
+package org.example.demoselenium;
+
+import org.openjdk.jmh.annotations.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.FindBy;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ExtractionBenchmark class comparing the product extraction strategies in a headless browser:
+ * - one findElement per field (getProductInfo) against a single bulk script,
+ * - the XPath locators of MainPage's @FindBy(xpath=...) fields against the equivalent CSS locators.
+ * The page is synthetic: the three hand-written tiles of the juice listing fixture repeated up to
+ * the tile count, in a DOM far smaller than the chakra DOM of the live site. The numbers show
+ * the cost of the round-trips and of the locator engines, not the times to expect on the site.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+    // XPath locator matching one element by attribute, e.g. //button[@data-code="WhatsNew"]
+    private static final Pattern ATTRIBUTE_XPATH = Pattern.compile("//([\\w-]+)\\[@([\\w-]+)=\"([^\"]*)\"]");
+
+    // Number of product tiles of the grid, the live site shows 48 per page
+    @Param({"48"})
+    public int tiles;
+
+    // Headless browser the grid is loaded in
+    private WebDriver driver;
+
+    // Extractor bound to the browser
+    private ProductExtractor extractor;
+
+    // XPath locators of the MainPage fields
+    private List<By> xpathLocators;
+
+    // CSS locators equivalent to xpathLocators
+    private List<By> cssLocators;
+
+    /**
+     * Starts a headless browser on the synthetic product grid and reads the XPath locators of MainPage.
+     *
+     * @throws IOException If the grid page cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        xpathLocators = new ArrayList<>();
+        cssLocators = new ArrayList<>();
+        for (Field field : MainPage.class.getFields()) {
+            FindBy findBy = field.getAnnotation(FindBy.class);
+            if (findBy == null || findBy.xpath().isEmpty()) {
+                continue;
+            }
+            Matcher matcher = ATTRIBUTE_XPATH.matcher(findBy.xpath());
+            if (!matcher.matches()) {
+                throw new IllegalStateException("No CSS equivalent of " + field.getName() + ": " + findBy.xpath());
+            }
+            xpathLocators.add(By.xpath(findBy.xpath()));
+            cssLocators.add(By.cssSelector(matcher.group(1) + "[" + matcher.group(2) + "=\"" + matcher.group(3) + "\"]"));
+        }
+        driver = LeanBrowserProfile.createDriver(List.of());
+        driver.get(Fixtures.writeProductGrid(tiles).toUri().toString());
+        extractor = new ProductExtractor(driver);
+    }
+
+    /**
+     * Quits the browser.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        driver.quit();
+    }
+
+    /**
+     * Extracts every tile with one findElement per field.
+     *
+     * @return The products.
+     */
+    @Benchmark
+    public List<ProductInfo> perElementExtraction() {
+        return extractor.extractPerElement(0);
+    }
+
+    /**
+     * Extracts every tile with a single script call.
+     *
+     * @return The products.
+     */
+    @Benchmark
+    public List<ProductInfo> bulkExtraction() {
+        return extractor.extractAll();
+    }
+
+    /**
+     * Locates the elements of the MainPage XPath locators.
+     *
+     * @return The number of located elements.
+     */
+    @Benchmark
+    public int xpathLocator() {
+        return locate(xpathLocators);
+    }
+
+    /**
+     * Locates the same elements with the equivalent CSS locators.
+     *
+     * @return The number of located elements.
+     */
+    @Benchmark
+    public int cssLocator() {
+        return locate(cssLocators);
+    }
+
+    /**
+     * Locates the elements of each locator.
+     *
+     * @param locators The locators.
+     * @return The number of located elements.
+     */
+    private int locate(List<By> locators) {
+        int found = 0;
+        for (By locator : locators) {
+            found += driver.findElements(locator).size();
+        }
+        return found;
+    }
+}
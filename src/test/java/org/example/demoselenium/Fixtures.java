@@ -0,0 +1,85 @@
+package org.example.demoselenium;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Fixtures class giving access to the pages under src/test/resources/fixtures, and building the
+ * products the tests feed to the index and the deduplicator.
+ * The pages are synthetic pages written by hand after the markup of the Zehrs website, with the
+ * selectors the scraper relies on but not the full DOM of the live site.
+ */
+public class Fixtures {
+    // Marker of the start of the product grid in the synthetic listing page
+    private static final String GRID_START = "<div class=\"css-0\" data-testid=\"product-grid\">";
+
+    // Marker of a product tile in the synthetic listing page
+    private static final String TILE_START = "  <div class=\"chakra-linkbox";
+
+    /**
+     * Reads a fixture page.
+     *
+     * @param name Name of the fixture file.
+     * @return The page source.
+     */
+    public static String read(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Builds a synthetic product grid page with the given number of tiles by repeating the three
+     * tiles of the juice listing fixture, as the live site shows 48 tiles per page.
+     *
+     * @param tiles Number of product tiles.
+     * @return The page source.
+     */
+    public static String productGrid(int tiles) {
+        String page = read("juice_page1.html");
+        int gridStart = page.indexOf(GRID_START) + GRID_START.length();
+        int firstTile = page.indexOf(TILE_START, gridStart);
+        int gridEnd = page.indexOf("</div>\n</body>");
+        String savedTiles = page.substring(firstTile, gridEnd);
+        String[] parts = savedTiles.split("(?=" + TILE_START + ")");
+        StringBuilder grid = new StringBuilder(page.substring(0, firstTile));
+        for (int i = 0; i < tiles; i++) {
+            grid.append(parts[i % parts.length]);
+        }
+        return grid.append(page.substring(gridEnd)).toString();
+    }
+
+    /**
+     * Writes a product grid page to a temporary file, to be opened with a file:// URL.
+     *
+     * @param tiles Number of product tiles.
+     * @return Path of the temporary file, deleted on exit.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Path writeProductGrid(int tiles) throws IOException {
+        Path file = Files.createTempFile("product-grid-" + tiles + "-", ".html");
+        file.toFile().deleteOnExit();
+        return Files.writeString(file, productGrid(tiles));
+    }
+
+    /**
+     * Builds a product whose key is the given product id, carried by its image URL as on the live site.
+     *
+     * @param id    The product id.
+     * @param price The price text.
+     * @return The product.
+     */
+    public static ProductInfo product(long id, String price) {
+        return new ProductInfo("Product " + id, price, "", "",
+                "https://assets.shop.loblaws.ca/products/" + id + "/b1/en/front/" + id + "_front_a01.png");
+    }
+}
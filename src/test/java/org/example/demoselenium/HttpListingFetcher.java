@@ -0,0 +1,442 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * HttpListingFetcher class reading category listing pages without a browser.
+ * Pages are fetched with a shared java.net.http.HttpClient (HTTP/2, connection reuse)
+ * and parsed straight into ProductInfo records, either from the server-rendered
+ * product tiles or from the page-state JSON embedded in the page.
+ * The Selenium path is only used as a fallback when the lightweight parse finds nothing.
+ * Requests can go through an AdaptiveLimiter, throttling responses (429, 5xx) and I/O errors
+ * then count as errors for the host.
+ * A client built by the fetcher is closed with it.
+ */
+public class HttpListingFetcher implements PageFetcher, AutoCloseable {
+    // User agent sent with the requests, some sites serve an empty shell to unknown clients
+    private static final String USER_AGENT =
+            "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/117.0 Safari/537.36";
+
+    // Maximum time to wait for a response
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
+
+    // Start of a product tile in the server-rendered HTML
+    private static final Pattern TILE = Pattern.compile("<div[^>]*class=\"[^\"]*chakra-linkbox[\\s\"]");
+
+    // Product title inside a tile
+    private static final Pattern TITLE = Pattern.compile(
+            "<h3[^>]*data-testid=\"product-title\"[^>]*>(.*?)</h3>", Pattern.DOTALL);
+
+    // Price texts inside a tile, by price type
+    private static final Pattern REGULAR_PRICE = pricePattern("regular-price");
+    private static final Pattern NON_MEMBER_PRICE = pricePattern("non-members-price");
+    private static final Pattern SALE_PRICE = pricePattern("sale-price");
+
+    // Product image tag inside a tile
+    private static final Pattern IMAGE = Pattern.compile("<img[^>]*class=\"[^\"]*chakra-image[^>]*>");
+
+    // src attribute of an image tag
+    private static final Pattern SRC = Pattern.compile("\\ssrc=\"([^\"]*)\"");
+
+    // Product page link tag inside a tile
+    private static final Pattern LINK = Pattern.compile("<a[^>]*class=\"[^\"]*chakra-linkbox__overlay[^>]*>");
+
+    // href attribute of a link tag
+    private static final Pattern HREF = Pattern.compile("\\shref=\"([^\"]*)\"");
+
+    // Any markup tag, removed from the extracted texts
+    private static final Pattern TAG = Pattern.compile("<[^>]+>");
+
+    // Embedded page-state JSON
+    private static final Pattern PAGE_STATE = Pattern.compile(
+            "<script[^>]*id=\"__NEXT_DATA__\"[^>]*>(.*?)</script>", Pattern.DOTALL);
+
+    // Shared HTTP client, reused across requests so connections are kept alive
+    private final HttpClient client;
+
+    // Whether the client was built by the fetcher, it is then closed with it
+    private final boolean ownsClient;
+
+    // Limiter of the concurrent requests per host, null for none
+    private final AdaptiveLimiter limiter;
+
+    // Requests waiting for their response
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Creates a fetcher with its own HTTP/2 client, closed with the fetcher.
+     */
+    public HttpListingFetcher() {
+        this((AdaptiveLimiter) null);
+    }
+
+    /**
+     * Creates a fetcher with its own HTTP/2 client, closed with the fetcher,
+     * its requests going through the given limiter.
+     *
+     * @param limiter Limiter of the concurrent requests per host, null for none.
+     */
+    public HttpListingFetcher(AdaptiveLimiter limiter) {
+        this(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build(), true, limiter);
+    }
+
+    /**
+     * Creates a fetcher on the given HTTP client.
+     * The client is left open when the fetcher is closed.
+     *
+     * @param client The shared HTTP client.
+     */
+    public HttpListingFetcher(HttpClient client) {
+        this(client, null);
+    }
+
+    /**
+     * Creates a fetcher on the given HTTP client, its requests going through the given limiter.
+     * The client is left open when the fetcher is closed.
+     *
+     * @param client  The shared HTTP client.
+     * @param limiter Limiter of the concurrent requests per host, null for none.
+     */
+    public HttpListingFetcher(HttpClient client, AdaptiveLimiter limiter) {
+        this(client, false, limiter);
+    }
+
+    /**
+     * Creates a fetcher.
+     *
+     * @param client     The HTTP client.
+     * @param ownsClient Whether the client is closed with the fetcher.
+     * @param limiter    Limiter of the concurrent requests per host, null for none.
+     */
+    private HttpListingFetcher(HttpClient client, boolean ownsClient, AdaptiveLimiter limiter) {
+        this.client = client;
+        this.ownsClient = ownsClient;
+        this.limiter = limiter;
+    }
+
+    /**
+     * Fetches a listing page and parses its products.
+     *
+     * @param url URL of the listing page.
+     * @return The products of the page, empty if none could be parsed.
+     * @throws IOException          If the page cannot be fetched.
+     * @throws InterruptedException If the thread is interrupted while waiting for the response.
+     */
+    @Override
+    public List<ProductInfo> fetch(String url) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "text/html,application/xhtml+xml")
+                .GET()
+                .build();
+        HttpResponse<String> response;
+        inFlight.incrementAndGet();
+        try {
+            if (limiter == null) {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            } else {
+                try (AdaptiveLimiter.Permit permit = limiter.acquire(url)) {
+                    response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    if (response.statusCode() != 429 && response.statusCode() < 500) {
+                        permit.success();
+                    }
+                }
+            }
+        } finally {
+            inFlight.decrementAndGet();
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Unexpected status " + response.statusCode() + " for " + url);
+        }
+        return parse(response.body());
+    }
+
+    /**
+     * Fetches a listing page without a browser, falling back to the given Selenium path
+     * when the page cannot be fetched or the lightweight parse finds nothing.
+     *
+     * @param url      URL of the listing page.
+     * @param fallback Selenium extraction of the page.
+     * @return The products of the page.
+     * @throws InterruptedException If the thread is interrupted while waiting for the response.
+     */
+    public List<ProductInfo> fetch(String url, Function<String, List<ProductInfo>> fallback) throws InterruptedException {
+        try {
+            List<ProductInfo> products = fetch(url);
+            if (!products.isEmpty()) {
+                return products;
+            }
+        } catch (IOException e) {
+            // fall back to the browser
+        }
+        return fallback.apply(url);
+    }
+
+    /**
+     * Closes the HTTP client if the fetcher built it. Requests still waiting for their response,
+     * e.g. on a crawler being stopped, are aborted.
+     */
+    @Override
+    public void close() {
+        if (ownsClient) {
+            if (inFlight.get() == 0) {
+                client.close();
+            } else {
+                // close() would wait for the requests still running
+                client.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Parses the products of a listing page, from the product tiles first,
+     * then from the embedded page-state JSON.
+     *
+     * @param html The page source.
+     * @return The products of the page, empty if none could be parsed.
+     */
+    public static List<ProductInfo> parse(String html) {
+        List<ProductInfo> products = parseTiles(html);
+        if (products.isEmpty()) {
+            products = parsePageState(html);
+        }
+        return products;
+    }
+
+    /**
+     * Parses the server-rendered product tiles, with the same selectors and price
+     * fallback order as the browser extraction.
+     *
+     * @param html The page source.
+     * @return The products of the page.
+     */
+    static List<ProductInfo> parseTiles(String html) {
+        List<Integer> starts = new ArrayList<>();
+        Matcher tile = TILE.matcher(html);
+        while (tile.find()) {
+            starts.add(tile.start());
+        }
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : html.length();
+            String chunk = html.substring(starts.get(i), end);
+            String name = firstText(TITLE, chunk);
+            if (name.isEmpty()) {
+                continue;
+            }
+            products.add(new ProductInfo(name,
+                    firstText(REGULAR_PRICE, chunk),
+                    firstText(NON_MEMBER_PRICE, chunk),
+                    firstText(SALE_PRICE, chunk),
+                    imageSrc(chunk),
+                    linkHref(chunk)));
+        }
+        return products;
+    }
+
+    /**
+     * Parses the products of the embedded page-state JSON. Every object having a title or name
+     * and a price is taken as a product.
+     *
+     * @param html The page source.
+     * @return The products of the page.
+     */
+    static List<ProductInfo> parsePageState(String html) {
+        Matcher matcher = PAGE_STATE.matcher(html);
+        List<ProductInfo> products = new ArrayList<>();
+        if (!matcher.find()) {
+            return products;
+        }
+        try {
+            Object state = new Json().toType(matcher.group(1), Object.class);
+            collectProducts(state, products);
+        } catch (JsonException e) {
+            // not a usable page state
+        }
+        return products;
+    }
+
+    /**
+     * Walks a page-state JSON tree and collects the product objects.
+     *
+     * @param node     The current JSON node.
+     * @param products The collected products.
+     */
+    private static void collectProducts(Object node, List<ProductInfo> products) {
+        if (node instanceof Map<?, ?> map) {
+            ProductInfo product = toProductInfo(map);
+            if (product != null) {
+                products.add(product);
+                return;
+            }
+            for (Object value : map.values()) {
+                collectProducts(value, products);
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object value : list) {
+                collectProducts(value, products);
+            }
+        }
+    }
+
+    /**
+     * Converts a page-state object into a ProductInfo if it looks like a product.
+     *
+     * @param map The page-state object.
+     * @return The product, or null if the object is not a product.
+     */
+    private static ProductInfo toProductInfo(Map<?, ?> map) {
+        String name = stringOf(map.get("title"));
+        if (name.isEmpty()) {
+            name = stringOf(map.get("name"));
+        }
+        if (name.isEmpty() || !(map.get("pricing") instanceof Map<?, ?> pricing)) {
+            return null;
+        }
+        String regular = ProductJsonDecoder.priceText(pricing.get("price"));
+        String nonMember = ProductJsonDecoder.priceText(pricing.get("nonMemberPrice"));
+        String sale = ProductJsonDecoder.priceText(pricing.get("salePrice"));
+        if (regular.isEmpty() && nonMember.isEmpty() && sale.isEmpty()) {
+            return null;
+        }
+        String image = "";
+        if (map.get("productImage") instanceof List<?> images && !images.isEmpty()
+                && images.get(0) instanceof Map<?, ?> first) {
+            image = stringOf(first.get("imageUrl"));
+        }
+        return new ProductInfo(name, regular, nonMember, sale, image, stringOf(map.get("link")));
+    }
+
+    /**
+     * Compiles the pattern of the price text of the given price type inside a tile.
+     *
+     * @param testId The data-testid of the price span.
+     * @return The pattern, its group is the price text.
+     */
+    private static Pattern pricePattern(String testId) {
+        return Pattern.compile(
+                "<span[^>]*data-testid=\"" + testId + "\"[^>]*>\\s*<span[^>]*>(.*?)</span>", Pattern.DOTALL);
+    }
+
+    /**
+     * Extracts the product image URL inside a tile.
+     *
+     * @param chunk The tile source.
+     * @return The image URL, or an empty string if absent.
+     */
+    private static String imageSrc(String chunk) {
+        Matcher image = IMAGE.matcher(chunk);
+        if (!image.find()) {
+            return "";
+        }
+        Matcher src = SRC.matcher(image.group());
+        return src.find() ? unescape(src.group(1)) : "";
+    }
+
+    /**
+     * Extracts the product page link of a tile.
+     *
+     * @param chunk The tile source.
+     * @return The link, or an empty string if absent.
+     */
+    private static String linkHref(String chunk) {
+        Matcher link = LINK.matcher(chunk);
+        if (!link.find()) {
+            return "";
+        }
+        Matcher href = HREF.matcher(link.group());
+        return href.find() ? unescape(href.group(1)) : "";
+    }
+
+    /**
+     * Returns the text of the first group matched by a pattern, without markup.
+     *
+     * @param pattern The pattern with one group.
+     * @param chunk   The source to search in.
+     * @return The text, or an empty string if the pattern does not match.
+     */
+    private static String firstText(Pattern pattern, String chunk) {
+        Matcher matcher = pattern.matcher(chunk);
+        if (!matcher.find()) {
+            return "";
+        }
+        return unescape(TAG.matcher(matcher.group(1)).replaceAll("")).trim();
+    }
+
+    /**
+     * Decodes the HTML entities found in texts and attributes.
+     *
+     * @param text The HTML text.
+     * @return The decoded text.
+     */
+    static String unescape(String text) {
+        if (text.indexOf('&') < 0) {
+            return text;
+        }
+        StringBuilder decoded = new StringBuilder(text.length());
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            int end = c == '&' ? text.indexOf(';', i) : -1;
+            if (end < 0 || end - i > 10) {
+                decoded.append(c);
+                i++;
+                continue;
+            }
+            String entity = text.substring(i + 1, end);
+            switch (entity) {
+                case "amp" -> decoded.append('&');
+                case "lt" -> decoded.append('<');
+                case "gt" -> decoded.append('>');
+                case "quot" -> decoded.append('"');
+                case "apos" -> decoded.append('\'');
+                case "nbsp" -> decoded.append(' ');
+                default -> {
+                    try {
+                        if (entity.startsWith("#x") || entity.startsWith("#X")) {
+                            decoded.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+                        } else if (entity.startsWith("#")) {
+                            decoded.appendCodePoint(Integer.parseInt(entity.substring(1)));
+                        } else {
+                            decoded.append('&').append(entity).append(';');
+                        }
+                    } catch (IllegalArgumentException e) {
+                        decoded.append('&').append(entity).append(';');
+                    }
+                }
+            }
+            i = end + 1;
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * Null-safe conversion of a JSON value to a string.
+     *
+     * @param value The JSON value.
+     * @return The value as a string, or an empty string if null.
+     */
+    private static String stringOf(Object value) {
+        return value == null ? "" : value.toString().trim();
+    }
+}
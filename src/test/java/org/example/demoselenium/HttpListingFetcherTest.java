@@ -0,0 +1,169 @@
+package org.example.demoselenium;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HttpListingFetcherTest class containing test cases for the HttpListingFetcher class.
+ * A local HTTP server stands in for the website and serves hand-written listing pages,
+ * so these tests do not need a browser nor a network connection.
+ */
+public class HttpListingFetcherTest {
+    // Local HTTP server serving the fixture pages
+    private HttpServer server;
+
+    // Base URL of the local HTTP server
+    private String baseUrl;
+
+    /**
+     * Reads a fixture page from the test resources.
+     *
+     * @param name Name of the fixture file.
+     * @return The fixture content, or null if there is no such fixture.
+     * @throws IOException If the fixture cannot be read.
+     */
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = HttpListingFetcherTest.class.getResourceAsStream("/fixtures/" + name)) {
+            return in == null ? null : in.readAllBytes();
+        }
+    }
+
+    /**
+     * Setup method to start the local HTTP server, every path serves the fixture of the same name.
+     * This method runs before each test.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String name = exchange.getRequestURI().getPath().substring(1);
+            byte[] body = fixture(name);
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Tear down method to stop the local HTTP server.
+     * This method runs after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    /**
+     * Test case to parse the server-rendered product tiles with the regular / non-members / sale fallback.
+     *
+     * @throws Exception If the page cannot be fetched.
+     */
+    @Test
+    public void fetchParsesServerRenderedTiles() throws Exception {
+        List<ProductInfo> products;
+        try (HttpListingFetcher fetcher = new HttpListingFetcher()) {
+            products = fetcher.fetch(baseUrl + "juice_page1.html");
+        }
+
+        assertEquals(3, products.size());
+        assertEquals("Sunny D Tangy Original", products.get(0).name());
+        assertEquals("$3.49", products.get(0).price());
+        assertEquals("Tropicana Orange Juice, No Pulp & Calcium", products.get(1).name());
+        assertEquals("2 for $7.00", products.get(1).price());
+        assertEquals("$2.99", products.get(2).price());
+        assertTrue(products.get(2).imageUrl().endsWith("20122154001_front_a01.png"));
+        assertEquals("/oasis-apple-juice/p/20122154001_EA", products.get(2).link());
+    }
+
+    /**
+     * Test case to parse the products of the embedded page-state JSON when there are no tiles.
+     *
+     * @throws Exception If the page cannot be fetched.
+     */
+    @Test
+    public void fetchParsesPageStateJson() throws Exception {
+        List<ProductInfo> products;
+        try (HttpListingFetcher fetcher = new HttpListingFetcher()) {
+            products = fetcher.fetch(baseUrl + "coffee_page_state.html");
+        }
+
+        assertEquals(2, products.size());
+        assertEquals("Nabob Tradition Ground Coffee", products.get(0).name());
+        assertEquals("$9.99", products.get(0).price());
+        assertEquals("$8.49", products.get(1).price());
+        assertTrue(products.get(1).imageUrl().endsWith("21199384001_front_a01.png"));
+        assertEquals("/maxwell-house-original-roast/p/21199384001_EA", products.get(1).link());
+    }
+
+    /**
+     * Test case to read numeric and wrapped page-state prices as the streaming decoder does.
+     */
+    @Test
+    public void parsesNumericPageStatePrices() {
+        String json = "{\"productTiles\":["
+                + "{\"title\":\"Numeric\",\"pricing\":{\"price\":3.99}},"
+                + "{\"title\":\"Wrapped\",\"pricing\":{\"salePrice\":{\"value\":2.5}}}]}";
+        List<ProductInfo> products = HttpListingFetcher.parsePageState(
+                "<script id=\"__NEXT_DATA__\" type=\"application/json\">" + json + "</script>");
+
+        assertEquals(2, products.size());
+        assertEquals("$3.99", products.get(0).price());
+        assertEquals("$2.50", products.get(1).price());
+        assertEquals(PriceType.SALE, products.get(1).priceType());
+        assertEquals(ProductJsonDecoder.decode(new StringReader(json)), products);
+    }
+
+    /**
+     * Test case to check the Selenium fallback is only used when the lightweight parse finds nothing.
+     *
+     * @throws Exception If the thread is interrupted.
+     */
+    @Test
+    public void fetchFallsBackOnlyWhenNothingParsed() throws Exception {
+        try (HttpListingFetcher fetcher = new HttpListingFetcher()) {
+            AtomicInteger fallbacks = new AtomicInteger();
+            List<ProductInfo> fromBrowser = List.of(new ProductInfo("From browser", "$1.00", "", "", ""));
+
+            List<ProductInfo> products = fetcher.fetch(baseUrl + "juice_page1.html", url -> {
+                fallbacks.incrementAndGet();
+                return fromBrowser;
+            });
+            assertEquals(3, products.size());
+            assertEquals(0, fallbacks.get());
+
+            products = fetcher.fetch(baseUrl + "empty_shell.html", url -> {
+                fallbacks.incrementAndGet();
+                return fromBrowser;
+            });
+            assertEquals(fromBrowser, products);
+
+            products = fetcher.fetch(baseUrl + "missing.html", url -> {
+                fallbacks.incrementAndGet();
+                return fromBrowser;
+            });
+            assertEquals(fromBrowser, products);
+            assertEquals(2, fallbacks.get());
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package org.example.demoselenium;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ImageFetcher class downloading the product images in the background, so that the scraper
+ * only hands the image URLs off and never waits for an image.
+ * The images are fetched with a shared java.net.http.HttpClient (HTTP/2, connection reuse),
+ * at most a given number at a time, and stored in a content-addressed disk cache: each file
+ * is named after the SHA-256 of its content, so an image served under several URLs is stored once.
+ * An index.tsv file maps every URL to its file, with the ETag and Last-Modified validators.
+ * A URL already cached is not fetched again until the refresh interval has elapsed, it is then
+ * revalidated with If-None-Match / If-Modified-Since and a 304 keeps the cached file.
+ */
+public class ImageFetcher implements AutoCloseable {
+    // Name of the index file
+    private static final String INDEX = "index.tsv";
+
+    // Name of the files directory
+    private static final String FILES = "files";
+
+    // Maximum time to wait for a response
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * Entry record describing a cached image.
+     *
+     * @param sha256       SHA-256 of the content, the name of the file under files/.
+     * @param etag         The ETag header of the response, empty if none.
+     * @param lastModified The Last-Modified header of the response, empty if none.
+     * @param checkedAt    Time the image was last fetched or revalidated, in epoch milliseconds.
+     */
+    public record Entry(String sha256, String etag, String lastModified, long checkedAt) {
+    }
+
+    // Cache directory
+    private final Path directory;
+
+    // Shared HTTP client
+    private final HttpClient client;
+
+    // Whether the client was built by the cache, it is then closed with it
+    private final boolean ownsClient;
+
+    // Maximum number of requests in flight
+    private final int maxConcurrent;
+
+    // Age after which a cached image is revalidated
+    private final Duration refreshAfter;
+
+    // Metrics the fetches are recorded to
+    private final ScrapeMetrics metrics;
+
+    // Cached images by URL
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    // Fetches submitted and not completed yet by URL, a URL submitted twice is fetched once
+    private final Map<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+
+    // Guards the queue of fetches and the number of requests in flight
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Signaled when the last fetch completes
+    private final Condition idle = lock.newCondition();
+
+    // Fetches waiting for a request slot
+    private final Queue<Runnable> pending = new ArrayDeque<>();
+
+    // Number of requests in flight
+    private int active;
+
+    /**
+     * Opens a cache with its own HTTP/2 client, closed with the cache, reading its index if it exists.
+     *
+     * @param directory     The cache directory.
+     * @param maxConcurrent Maximum number of requests in flight.
+     * @param refreshAfter  Age after which a cached image is revalidated.
+     * @param metrics       Metrics the fetches are recorded to.
+     * @throws IOException If the index cannot be read.
+     */
+    public ImageFetcher(Path directory, int maxConcurrent, Duration refreshAfter, ScrapeMetrics metrics)
+            throws IOException {
+        this(directory, HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build(), true, maxConcurrent, refreshAfter, metrics);
+    }
+
+    /**
+     * Opens a cache on the given HTTP client, reading its index if it exists.
+     * The client is left open when the cache is closed.
+     *
+     * @param directory     The cache directory.
+     * @param client        The shared HTTP client.
+     * @param maxConcurrent Maximum number of requests in flight.
+     * @param refreshAfter  Age after which a cached image is revalidated.
+     * @param metrics       Metrics the fetches are recorded to.
+     * @throws IOException If the index cannot be read.
+     */
+    public ImageFetcher(Path directory, HttpClient client, int maxConcurrent, Duration refreshAfter,
+                        ScrapeMetrics metrics) throws IOException {
+        this(directory, client, false, maxConcurrent, refreshAfter, metrics);
+    }
+
+    /**
+     * Opens a cache, reading its index if it exists.
+     *
+     * @param directory     The cache directory.
+     * @param client        The HTTP client.
+     * @param ownsClient    Whether the client is closed with the cache.
+     * @param maxConcurrent Maximum number of requests in flight.
+     * @param refreshAfter  Age after which a cached image is revalidated.
+     * @param metrics       Metrics the fetches are recorded to.
+     * @throws IOException If the index cannot be read.
+     */
+    private ImageFetcher(Path directory, HttpClient client, boolean ownsClient, int maxConcurrent,
+                         Duration refreshAfter, ScrapeMetrics metrics) throws IOException {
+        this.directory = directory;
+        this.client = client;
+        this.ownsClient = ownsClient;
+        this.maxConcurrent = maxConcurrent;
+        this.refreshAfter = refreshAfter;
+        this.metrics = metrics;
+        Path index = directory.resolve(INDEX);
+        if (Files.exists(index)) {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length == 5) {
+                    entries.put(parts[0], new Entry(parts[1], parts[2], parts[3], Long.parseLong(parts[4])));
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits the images of the given products, the call does not wait for them.
+     *
+     * @param products The products.
+     */
+    public void submitAll(Iterable<ProductInfo> products) {
+        for (ProductInfo product : products) {
+            submit(product.imageUrl());
+        }
+    }
+
+    /**
+     * Submits an image, the call does not wait for it.
+     * URLs which are not absolute http(s) URLs, e.g. the data: placeholders of the lazy images, are ignored.
+     *
+     * @param url The image URL.
+     * @return The file of the image once stored, completed right away if it is cached and fresh,
+     * or null if the URL is ignored. It completes exceptionally if the image cannot be fetched.
+     */
+    public CompletableFuture<Path> submit(String url) {
+        if (url == null || !(url.startsWith("http://") || url.startsWith("https://"))) {
+            return null;
+        }
+        Entry entry = entries.get(url);
+        if (entry != null && !isStale(entry) && Files.exists(file(entry.sha256()))) {
+            metrics.increment("images_cached");
+            return CompletableFuture.completedFuture(file(entry.sha256()));
+        }
+        boolean[] created = {false};
+        CompletableFuture<Path> future = inFlight.computeIfAbsent(url, key -> {
+            created[0] = true;
+            return new CompletableFuture<>();
+        });
+        if (created[0]) {
+            lock.lock();
+            try {
+                pending.add(() -> fetch(url, future));
+                dispatch();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Returns the cached file of an image.
+     *
+     * @param url The image URL.
+     * @return The file, null if the image is not cached.
+     */
+    public Path cached(String url) {
+        Entry entry = entries.get(url);
+        return entry == null ? null : file(entry.sha256());
+    }
+
+    /**
+     * Returns the cache entry of an image.
+     *
+     * @param url The image URL.
+     * @return The entry, null if the image is not cached.
+     */
+    public Entry entry(String url) {
+        return entries.get(url);
+    }
+
+    /**
+     * Waits until every submitted image is stored or has failed.
+     *
+     * @param timeout Maximum time to wait.
+     * @return true if the fetches completed, false if the timeout elapsed first.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        lock.lock();
+        try {
+            while (active > 0 || !pending.isEmpty()) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = idle.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the index, the files being already on disk.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(directory);
+        Path tmp = directory.resolve(INDEX + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (String url : entries.keySet().stream().sorted().toList()) {
+                Entry entry = entries.get(url);
+                writer.write(url + '\t' + entry.sha256() + '\t' + entry.etag() + '\t' + entry.lastModified()
+                        + '\t' + entry.checkedAt());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Waits for the submitted images, up to a minute, and writes the index. The images still
+     * being fetched are left out of the index and counted as images_pending_at_close.
+     * The HTTP client is closed if the cache built it.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        boolean drained = false;
+        try {
+            drained = awaitIdle(Duration.ofMinutes(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!drained) {
+            metrics.add("images_pending_at_close", inFlight.size());
+        }
+        try {
+            save();
+        } finally {
+            if (ownsClient) {
+                if (drained) {
+                    client.close();
+                } else {
+                    // close() would wait for the requests still running
+                    client.shutdownNow();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts the pending fetches while there are free request slots, called with the lock held.
+     */
+    private void dispatch() {
+        while (active < maxConcurrent && !pending.isEmpty()) {
+            active++;
+            pending.poll().run();
+        }
+    }
+
+    /**
+     * Fetches an image and completes its future, then frees the request slot.
+     *
+     * @param url    The image URL.
+     * @param future Completed with the file of the image.
+     */
+    private void fetch(String url, CompletableFuture<Path> future) {
+        long start = System.nanoTime();
+        CompletableFuture<Path> stored;
+        try {
+            stored = send(url);
+        } catch (RuntimeException e) {
+            // e.g. an invalid URL, rejected before anything is sent
+            stored = CompletableFuture.failedFuture(e);
+        }
+        stored.whenComplete((file, error) -> {
+            metrics.recordStep("image_fetch", System.nanoTime() - start);
+            inFlight.remove(url);
+            if (error == null) {
+                future.complete(file);
+            } else {
+                metrics.increment("images_failed");
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                future.completeExceptionally(cause instanceof UncheckedIOException unchecked ? unchecked.getCause() : cause);
+            }
+            lock.lock();
+            try {
+                active--;
+                dispatch();
+                if (active == 0 && pending.isEmpty()) {
+                    idle.signalAll();
+                }
+            } finally {
+                lock.unlock();
+            }
+        });
+    }
+
+    /**
+     * Sends the request of an image, conditional when a cached copy exists.
+     *
+     * @param url The image URL.
+     * @return Completed with the file of the image once the response is stored.
+     */
+    private CompletableFuture<Path> send(String url) {
+        Entry cached = entries.get(url);
+        if (cached != null && !Files.exists(file(cached.sha256()))) {
+            cached = null;
+        }
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "image/avif,image/webp,image/png,image/*;q=0.8")
+                .GET();
+        if (cached != null && !cached.etag().isEmpty()) {
+            request.header("If-None-Match", cached.etag());
+        }
+        if (cached != null && !cached.lastModified().isEmpty()) {
+            request.header("If-Modified-Since", cached.lastModified());
+        }
+        Entry previous = cached;
+        return client.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> store(url, previous, response));
+    }
+
+    /**
+     * Stores the response of an image request.
+     *
+     * @param url      The image URL.
+     * @param previous The cached copy the request was conditional on, null if none.
+     * @param response The response.
+     * @return The file of the image.
+     * @throws UncheckedIOException If the status is not 200 nor a 304 for a cached copy, or the file cannot be written.
+     */
+    private Path store(String url, Entry previous, HttpResponse<byte[]> response) {
+        long now = System.currentTimeMillis();
+        if (response.statusCode() == 304 && previous != null) {
+            metrics.increment("images_not_modified");
+            entries.put(url, new Entry(previous.sha256(), previous.etag(), previous.lastModified(), now));
+            return file(previous.sha256());
+        }
+        if (response.statusCode() != 200) {
+            throw new UncheckedIOException(new IOException("Unexpected status " + response.statusCode() + " for " + url));
+        }
+        byte[] body = response.body();
+        String sha256 = SiteArchive.sha256(body);
+        Path file = file(sha256);
+        try {
+            if (!Files.exists(file)) {
+                Files.createDirectories(file.getParent());
+                Path tmp = Files.createTempFile(file.getParent(), sha256, ".tmp");
+                Files.write(tmp, body);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                metrics.add("image_bytes_stored", body.length);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        metrics.increment("images_fetched");
+        entries.put(url, new Entry(sha256, header(response, "ETag"), header(response, "Last-Modified"), now));
+        return file;
+    }
+
+    /**
+     * Checks whether a cached image is due for revalidation.
+     *
+     * @param entry The cache entry.
+     * @return true if it was checked longer than the refresh interval ago.
+     */
+    private boolean isStale(Entry entry) {
+        return System.currentTimeMillis() - entry.checkedAt() >= refreshAfter.toMillis();
+    }
+
+    /**
+     * Returns the file of a content hash.
+     *
+     * @param sha256 The SHA-256 of the content.
+     * @return The file under files/.
+     */
+    private Path file(String sha256) {
+        return directory.resolve(FILES).resolve(sha256);
+    }
+
+    /**
+     * Reads a response header, with the tab and line breaks removed for the index.
+     *
+     * @param response The response.
+     * @param name     The header name.
+     * @return The header value, empty if absent.
+     */
+    private static String header(HttpResponse<?> response, String name) {
+        return response.headers().firstValue(name).orElse("").replaceAll("[\t\r\n]", " ");
+    }
+}
@@ -0,0 +1,205 @@
+package org.example.demoselenium;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * ImageFetcherTest class containing test cases for the ImageFetcher class.
+ * A local HTTP server stands in for the image host, it serves the images with an ETag
+ * and answers the conditional requests, so these tests do not need a network connection.
+ */
+public class ImageFetcherTest {
+    // Directory of the image cache
+    @TempDir
+    Path dir;
+
+    // Local HTTP server serving the images
+    private HttpServer server;
+
+    // Threads of the local HTTP server, several requests are served at the same time
+    private ExecutorService executor;
+
+    // Base URL of the local HTTP server
+    private String baseUrl;
+
+    // Image contents by path, the ETag is the content itself
+    private final Map<String, String> images = new ConcurrentHashMap<>();
+
+    // Number of requests answered with a body
+    private final AtomicInteger fullResponses = new AtomicInteger();
+
+    // Number of requests answered with a 304
+    private final AtomicInteger notModified = new AtomicInteger();
+
+    // Number of requests being served, and the most seen at the same time
+    private final AtomicInteger concurrent = new AtomicInteger();
+    private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+    /**
+     * Setup method to start the local HTTP server.
+     * This method runs before each test.
+     *
+     * @throws IOException If the server cannot be started.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+            try (exchange) {
+                String content = images.get(exchange.getRequestURI().getPath());
+                if (content == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                // a slow host, so that the requests overlap
+                Thread.sleep(50);
+                String etag = "\"" + content + "\"";
+                exchange.getResponseHeaders().add("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+                byte[] body = content.getBytes(StandardCharsets.UTF_8);
+                fullResponses.incrementAndGet();
+                exchange.getResponseHeaders().add("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                concurrent.decrementAndGet();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * Tear down method to stop the local HTTP server.
+     * This method runs after each test.
+     */
+    @AfterEach
+    public void tearDown() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Images are stored once per content, a cached URL is not fetched again, and the index is persisted.
+     *
+     * @throws Exception If an image cannot be fetched.
+     */
+    @Test
+    public void storesByContentAndSkipsCachedUrls() throws Exception {
+        images.put("/a.png", "front");
+        images.put("/a_copy.png", "front");
+        images.put("/b.png", "back");
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        try (ImageFetcher fetcher = new ImageFetcher(dir, 4, Duration.ofDays(1), metrics)) {
+            Path a = fetcher.submit(baseUrl + "/a.png").get();
+            Path copy = fetcher.submit(baseUrl + "/a_copy.png").get();
+            Path b = fetcher.submit(baseUrl + "/b.png").get();
+
+            assertEquals(a, copy);
+            assertNotEquals(a, b);
+            assertEquals(SiteArchive.sha256("front".getBytes(StandardCharsets.UTF_8)), a.getFileName().toString());
+            assertEquals("front", Files.readString(a));
+            assertEquals(a, fetcher.submit(baseUrl + "/a.png").get());
+            assertNull(fetcher.submit("data:image/gif;base64,R0lGODlhAQABAAAAACw="));
+        }
+        assertEquals(3, fullResponses.get());
+        assertEquals(1, metrics.counter("images_cached"));
+        try (Stream<Path> files = Files.list(dir.resolve("files"))) {
+            assertEquals(2, files.count());
+        }
+
+        // reopened on the same directory, the cached images are still fresh
+        try (ImageFetcher fetcher = new ImageFetcher(dir, 4, Duration.ofDays(1), metrics)) {
+            assertEquals("back", Files.readString(fetcher.submit(baseUrl + "/b.png").get()));
+        }
+        assertEquals(3, fullResponses.get());
+    }
+
+    /**
+     * Stale images are revalidated with their ETag, a 304 keeps the file and a changed image replaces it.
+     *
+     * @throws Exception If an image cannot be fetched.
+     */
+    @Test
+    public void revalidatesStaleImagesWithEtag() throws Exception {
+        images.put("/a.png", "v1");
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        try (ImageFetcher fetcher = new ImageFetcher(dir, 4, Duration.ZERO, metrics)) {
+            Path first = fetcher.submit(baseUrl + "/a.png").get();
+            assertEquals("\"v1\"", fetcher.entry(baseUrl + "/a.png").etag());
+
+            assertEquals(first, fetcher.submit(baseUrl + "/a.png").get());
+            assertEquals(1, notModified.get());
+            assertEquals(1, metrics.counter("images_not_modified"));
+
+            images.put("/a.png", "v2");
+            Path second = fetcher.submit(baseUrl + "/a.png").get();
+            assertNotEquals(first, second);
+            assertEquals("v2", Files.readString(second));
+            assertEquals(second, fetcher.cached(baseUrl + "/a.png"));
+        }
+        assertEquals(2, fullResponses.get());
+    }
+
+    /**
+     * No more requests than allowed are in flight, a URL submitted twice is fetched once,
+     * and a missing image fails its future only.
+     *
+     * @throws Exception If waiting is interrupted.
+     */
+    @Test
+    public void boundsConcurrentRequests() throws Exception {
+        List<CompletableFuture<Path>> futures = new ArrayList<>();
+        ScrapeMetrics metrics = new ScrapeMetrics();
+        try (ImageFetcher fetcher = new ImageFetcher(dir, 3, Duration.ofDays(1), metrics)) {
+            for (int i = 0; i < 20; i++) {
+                images.put("/" + i + ".png", "image " + i);
+                futures.add(fetcher.submit(baseUrl + "/" + i + ".png"));
+            }
+            futures.add(fetcher.submit(baseUrl + "/0.png"));
+            CompletableFuture<Path> missing = fetcher.submit(baseUrl + "/missing.png");
+            assertTrue(fetcher.awaitIdle(Duration.ofSeconds(30)));
+
+            ExecutionException failure = assertThrows(ExecutionException.class, missing::get);
+            assertInstanceOf(IOException.class, failure.getCause());
+            for (CompletableFuture<Path> future : futures) {
+                assertTrue(Files.exists(future.get()));
+            }
+        }
+        assertEquals(20, fullResponses.get());
+        assertEquals(1, metrics.counter("images_failed"));
+        assertTrue(maxConcurrent.get() <= 3, "max concurrent " + maxConcurrent.get());
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.demoselenium;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram class counting latencies in fixed buckets.
+ * Recording is a bucket lookup and two LongAdder increments, so it can stay enabled
+ * on every WebDriver command. Percentiles are approximated by the upper bound of the
+ * bucket they fall in.
+ */
+public class LatencyHistogram {
+    // Upper bounds of the buckets in seconds, the last bucket is unbounded (+Inf)
+    public static final double[] BOUNDS = {
+            0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30, 60};
+
+    // Upper bounds of the buckets in nanoseconds
+    private static final long[] BOUNDS_NANOS = new long[BOUNDS.length];
+
+    static {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            BOUNDS_NANOS[i] = (long) (BOUNDS[i] * 1e9);
+        }
+    }
+
+    // Number of latencies per bucket, the last one is +Inf
+    private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+    // Sum of the latencies in nanoseconds
+    private final LongAdder sumNanos = new LongAdder();
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds.
+     */
+    public void record(long nanos) {
+        int i = 0;
+        while (i < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[i]) {
+            i++;
+        }
+        buckets[i].increment();
+        sumNanos.add(nanos);
+    }
+
+    /**
+     * Returns the number of recorded latencies.
+     *
+     * @return The count.
+     */
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the sum of the recorded latencies.
+     *
+     * @return The sum in seconds.
+     */
+    public double sumSeconds() {
+        return sumNanos.sum() / 1e9;
+    }
+
+    /**
+     * Returns the number of latencies of each bucket, not cumulated.
+     *
+     * @return The bucket counts, the last one is +Inf.
+     */
+    public long[] bucketCounts() {
+        long[] counts = new long[buckets.length];
+        for (int i = 0; i < buckets.length; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Approximates a percentile by the upper bound of the bucket it falls in.
+     *
+     * @param percentile The percentile, between 0 and 1.
+     * @return The latency in seconds, 0 if nothing was recorded, +Inf if it falls in the last bucket.
+     */
+    public double percentileSeconds(double percentile) {
+        long[] counts = bucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return i < BOUNDS.length ? BOUNDS[i] : Double.POSITIVE_INFINITY;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+}
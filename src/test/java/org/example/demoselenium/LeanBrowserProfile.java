@@ -0,0 +1,139 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LeanBrowserProfile class creating headless Chrome sessions tuned for scraping.
+ * The scraper only reads texts and the image src attributes, so images, fonts, media and
+ * third-party trackers are blocked through the DevTools network domain, and the cache
+ * settings are tuned for short-lived sessions.
+ * Each navigation can be measured (bytes transferred, counted by a TransferMeter, and page-load
+ * time) to compare the lean profile with the full browser.
+ */
+public class LeanBrowserProfile {
+    // System property overriding the block list, comma-separated URL patterns
+    public static final String BLOCK_LIST_PROPERTY = "scraper.blockList";
+
+    // URL patterns blocked by default: images, fonts, media and third-party trackers
+    public static final List<String> DEFAULT_BLOCK_LIST = List.of(
+            "*.png", "*.jpg", "*.jpeg", "*.gif", "*.webp", "*.avif", "*.svg", "*.ico",
+            "*.woff", "*.woff2", "*.ttf", "*.otf",
+            "*.mp4", "*.webm", "*.mp3",
+            "*google-analytics.com*", "*googletagmanager.com*", "*doubleclick.net*",
+            "*facebook.net*", "*adobedtm.com*", "*omtrdc.net*", "*demdex.net*",
+            "*criteo.com*", "*bing.com*", "*hotjar.com*", "*newrelic.com*", "*nr-data.net*");
+
+    // Script reading the page-load time of the Performance API navigation entry
+    private static final String LOAD_TIME_SCRIPT =
+            "const nav = performance.getEntriesByType('navigation')[0];" +
+            "return nav ? (nav.loadEventEnd > 0 ? nav.loadEventEnd : nav.domContentLoadedEventEnd) : 0;";
+
+    /**
+     * NavigationStats record holding the cost of a navigation.
+     *
+     * @param url              URL of the page.
+     * @param bytesTransferred Bytes received over the network for the document and its resources.
+     * @param requests         Number of requests finished by the page.
+     * @param pageLoadMillis   Time from navigation start to the load event, in milliseconds; for an
+     *                         in-page navigation, time from its trigger to the settled product grid.
+     */
+    public record NavigationStats(String url, long bytesTransferred, long requests, double pageLoadMillis) {
+        @Override
+        public String toString() {
+            return String.format("%s: %d bytes, %d requests, %.0f ms", url, bytesTransferred, requests, pageLoadMillis);
+        }
+    }
+
+    /**
+     * Returns the block list, from the scraper.blockList system property if set.
+     *
+     * @return The blocked URL patterns.
+     */
+    public static List<String> blockList() {
+        String property = System.getProperty(BLOCK_LIST_PROPERTY);
+        if (property == null || property.isBlank()) {
+            return DEFAULT_BLOCK_LIST;
+        }
+        return Arrays.stream(property.split(",")).map(String::trim).filter(p -> !p.isEmpty()).toList();
+    }
+
+    /**
+     * Builds the options of a lean headless session.
+     *
+     * @return The Chrome options.
+     */
+    public static ChromeOptions options() {
+        ChromeOptions options = new ChromeOptions();
+        // Fix the issue https://github.com/SeleniumHQ/selenium/issues/11750
+        options.addArguments("--remote-allow-origins=*");
+        options.addArguments("--headless=new", "--window-size=1920,1080");
+        // short-lived sessions: capped disk cache, no media cache, no background traffic
+        options.addArguments("--disk-cache-size=33554432", "--media-cache-size=1",
+                "--disable-background-networking", "--disable-component-update",
+                "--disable-default-apps", "--disable-sync", "--no-first-run",
+                "--disable-extensions", "--mute-audio", "--disable-dev-shm-usage");
+        // the pages prefetched in background tabs load at full speed
+        options.addArguments(PipelinedPaginator.CHROME_ARGUMENTS);
+        return options;
+    }
+
+    /**
+     * Creates a lean headless session blocking the given URL patterns.
+     *
+     * @param blockList The blocked URL patterns.
+     * @return The new WebDriver instance.
+     */
+    public static ChromeDriver createDriver(List<String> blockList) {
+        ChromeDriver driver = new ChromeDriver(options());
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
+        block(driver, blockList);
+        return driver;
+    }
+
+    /**
+     * Blocks the given URL patterns through the DevTools network domain.
+     *
+     * @param driver    The Chrome session.
+     * @param blockList The blocked URL patterns.
+     */
+    public static void block(ChromeDriver driver, List<String> blockList) {
+        driver.executeCdpCommand("Network.enable", Map.of());
+        driver.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockList));
+    }
+
+    /**
+     * Measures the page just loaded: bytes received since the last measure, and page-load time.
+     * The meter is reset, so that the next in-page navigation (pagination, sort) is measured on its own.
+     *
+     * @param driver The WebDriver instance.
+     * @param meter  The meter counting the bytes received by the session.
+     * @return The navigation stats.
+     */
+    public static NavigationStats measure(WebDriver driver, TransferMeter meter) {
+        Object loadMillis = ((JavascriptExecutor) driver).executeScript(LOAD_TIME_SCRIPT);
+        return measure(driver, meter, loadMillis instanceof Number millis ? millis.doubleValue() : 0);
+    }
+
+    /**
+     * Measures an in-page navigation (pagination, sort): bytes received since the last measure,
+     * and the given duration. The navigation entry of the Performance API still describes the
+     * document first loaded, so it cannot tell the load time of an in-page navigation.
+     *
+     * @param driver         The WebDriver instance.
+     * @param meter          The meter counting the bytes received by the session.
+     * @param pageLoadMillis Time from the trigger of the navigation to the settled product grid, in milliseconds.
+     * @return The navigation stats.
+     */
+    public static NavigationStats measure(WebDriver driver, TransferMeter meter, double pageLoadMillis) {
+        long[] transferred = meter.reset();
+        return new NavigationStats(driver.getCurrentUrl(), transferred[0], transferred[1], pageLoadMillis);
+    }
+}
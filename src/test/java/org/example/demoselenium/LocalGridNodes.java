@@ -0,0 +1,81 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.chrome.ChromeDriverService;
+import org.openqa.selenium.remote.service.DriverService;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LocalGridNodes class starting chromedriver processes which stand in for the nodes of a
+ * Selenium grid, so that a sharded crawl can run on a single machine: each process listens
+ * on its own port and is driven through RemoteWebDriver exactly like a grid node.
+ * Real nodes are given with -Dscraper.gridNodes, e.g. http://localhost:4444/wd/hub for the
+ * Selenoid grid described in browsers.json.
+ */
+public class LocalGridNodes implements AutoCloseable {
+    // System property listing the node endpoints, comma separated
+    public static final String GRID_NODES_PROPERTY = "scraper.gridNodes";
+
+    // Started chromedriver processes
+    private final List<DriverService> services = new ArrayList<>();
+
+    /**
+     * Starts the given number of chromedriver processes on free ports.
+     *
+     * @param count Number of nodes.
+     * @throws IOException If a process cannot be started.
+     */
+    public LocalGridNodes(int count) throws IOException {
+        try {
+            for (int i = 0; i < count; i++) {
+                ChromeDriverService service = new ChromeDriverService.Builder().usingAnyFreePort().build();
+                service.start();
+                services.add(service);
+            }
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the endpoints of the started nodes.
+     *
+     * @return The node URLs.
+     */
+    public List<URL> urls() {
+        return services.stream().map(DriverService::getUrl).toList();
+    }
+
+    /**
+     * Returns the node endpoints configured with -Dscraper.gridNodes.
+     *
+     * @return The node URLs, empty if the property is not set.
+     * @throws MalformedURLException    If an endpoint has no known protocol.
+     * @throws IllegalArgumentException If an endpoint is not a valid absolute URI.
+     */
+    public static List<URL> configured() throws MalformedURLException {
+        List<URL> urls = new ArrayList<>();
+        String nodes = System.getProperty(GRID_NODES_PROPERTY, "");
+        for (String node : nodes.split(",")) {
+            if (!node.isBlank()) {
+                urls.add(URI.create(node.trim()).toURL());
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * Stops the chromedriver processes.
+     */
+    @Override
+    public void close() {
+        services.forEach(DriverService::stop);
+        services.clear();
+    }
+}
@@ -113,4 +113,14 @@ public class MainPage {
     public MainPage(WebDriver driver) {
         PageFactory.initElements(driver, this);
     }
+
+    /**
+     * Initializes the web elements so that they are resolved once per page generation of the snapshot.
+     *
+     * @param driver   The WebDriver instance decorated by the snapshot.
+     * @param snapshot The snapshot tracking the page of the driver.
+     */
+    public MainPage(WebDriver driver, PageSnapshot snapshot) {
+        PageFactory.initElements(new SnapshotFieldDecorator(driver, snapshot), this);
+    }
 }
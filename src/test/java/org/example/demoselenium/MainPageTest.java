@@ -8,14 +8,19 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.WebDriverWait;
 import com.opencsv.CSVWriter;
 
 import java.io.FileWriter;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -35,21 +40,129 @@ public class MainPageTest {
     // Actions instance for performing complex user interactions
     Actions actions;
 
-    // URL of the website to be tested
-    private static final String URL = "https://www.zehrs.ca/";
+    // PageReadiness instance for waiting on concrete page signals
+    PageReadiness readiness;
 
-    // Maximum number of products to be extracted per page
-    private static final int MAX_PER_PAGE = 5;
+    // PageSnapshot instance tracking the page generations of the driver
+    PageSnapshot snapshot;
 
-    /**
-     * Method to wait for a specified number of seconds.
-     * Uses implicit wait to pause the test execution.
-     *
-     * @param seconds Number of seconds to wait.
-     */
-    private void waitInSeconds(int seconds) {
-        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(seconds));
-    }
+    // NetworkProductCapture instance reading the product listing API responses, null when not capturing
+    NetworkProductCapture capture;
+
+    // SiteRecorder instance recording the responses of the session, null when not recording
+    SiteRecorder recorder;
+
+    // ProductDeduplicator instance dropping the products already written by the test
+    ProductDeduplicator dedup;
+
+    // ImageFetcher instance downloading the images of the written products, null when not downloading
+    ImageFetcher images;
+
+    // TransferMeter instance counting the bytes received, null unless LEAN_SCRAPE is set
+    TransferMeter transfers;
+
+    // Products of the listing response which loaded the current page, null if it was not captured
+    List<ProductInfo> capturedProducts;
+
+    // URL of the website to be tested, -Dscraper.baseUrl points the tests to a ReplayServer
+    static final String URL = System.getProperty("scraper.baseUrl", "https://www.zehrs.ca/");
+
+    // Maximum number of products to be extracted per page, -Dscraper.maxPerPage=0 scrolls through the whole grid
+    private static final int MAX_PER_PAGE = Integer.getInteger("scraper.maxPerPage", 5);
+
+    // Extract all the product tiles in a single script call instead of one findElement per field,
+    // -Dscraper.bulkExtraction=false reads them through the page model to compare
+    private static final boolean BULK_EXTRACTION =
+            Boolean.parseBoolean(System.getProperty("scraper.bulkExtraction", "true"));
+
+    // Keep the elements of the page model until the page changes instead of looking them up on every access,
+    // -Dscraper.snapshotPage=false looks them up every time to compare
+    private static final boolean SNAPSHOT_PAGE =
+            Boolean.parseBoolean(System.getProperty("scraper.snapshotPage", "true"));
+
+    // Read the products from the product listing API responses instead of the tiles, with -Dscraper.networkCapture
+    private static final boolean NETWORK_CAPTURE = Boolean.getBoolean("scraper.networkCapture");
+
+    // Use the lean headless profile (resource blocking) instead of the full browser, -Dscraper.lean=true
+    private static final boolean LEAN_SCRAPE = Boolean.getBoolean("scraper.lean");
+
+    // Latency metrics of the WebDriver commands and scraping steps, shared by all the tests
+    static final ScrapeMetrics METRICS = new ScrapeMetrics();
+
+    // Directory of the SiteArchive the responses are recorded into with -Dscraper.record, null when not recording
+    private static final String RECORD_ARCHIVE = System.getProperty("scraper.record");
+
+    // Directory the product images are downloaded into, -Dscraper.imageCache=..., null to keep the URLs only
+    private static final String IMAGE_CACHE = System.getProperty("scraper.imageCache");
+
+    // Maximum number of image downloads in flight
+    private static final int IMAGE_CONCURRENCY = 8;
+
+    // Age after which a downloaded image is revalidated
+    private static final Duration IMAGE_REFRESH = Duration.ofDays(7);
+
+    // Writes the product files as typed, compressed columns (.pcol) instead of CSV, -Dscraper.output=columnar
+    private static final boolean COLUMNAR_OUTPUT = "columnar".equals(System.getProperty("scraper.output"));
+
+    // Maximum number of listing pages loaded in background tabs while a page is extracted
+    private static final int PREFETCH_DEPTH = Integer.getInteger("scraper.prefetchDepth", 2);
+
+    // Memory the prefetched tabs may take, in megabytes
+    private static final long PREFETCH_MEMORY_MB = Long.getLong("scraper.prefetchMemoryMb", 512);
+
+    // Adaptive limit of the concurrent navigations and HTTP fetches per host, shared by all the tests
+    private static final AdaptiveLimiter LIMITER = new AdaptiveLimiter(METRICS, 2, 8, Duration.ofMinutes(1));
+
+    // Local port of the Prometheus metrics endpoint, -Dscraper.metricsPort=9464, disabled if not set
+    private static final int METRICS_PORT = Integer.getInteger("scraper.metricsPort", -1);
+
+    // Number of browser sessions kept warm for parallel scraping
+    private static final int POOL_SIZE = 2;
+
+    // Maximum number of rows waiting in the CSV sink queue
+    private static final int SINK_QUEUE_CAPACITY = 1024;
+
+    // Number of rows written by the CSV sink before flushing
+    private static final int SINK_BATCH_SIZE = 64;
+
+    // Maximum time rows stay unflushed in the CSV sink
+    private static final long SINK_FLUSH_MILLIS = 500;
+
+    // Maximum number of concurrent requests per host while crawling
+    private static final int CRAWL_HOST_CONCURRENCY = 4;
+
+    // Minimum delay between two requests to the same host while crawling
+    private static final Duration CRAWL_POLITENESS = Duration.ofMillis(250);
+
+    // Maximum number of pages crawled per category
+    private static final int CRAWL_MAX_PAGES = 3;
+
+    // Cached category tree, walked again from the menus once older than CATEGORY_TREE_TTL
+    private static final Path CATEGORY_TREE_FILE = Path.of("resources/category_tree.json");
+
+    // Number of distinct products the deduplicator is sized for, a full crawl of the site stays below it
+    private static final int DEDUP_EXPECTED_PRODUCTS = 100_000;
+
+    // Time-to-live of the cached search results
+    private static final Duration SEARCH_CACHE_TTL = Duration.ofMinutes(30);
+
+    // Number of crawl units committed between two syncs of the checkpoint log
+    private static final int CHECKPOINT_SYNC_EVERY = 16;
+
+    // Maximum time between two syncs of the checkpoint log, in milliseconds
+    private static final long CHECKPOINT_SYNC_MILLIS = 1000;
+
+    // Number of local chromedriver processes standing in for grid nodes when -Dscraper.gridNodes is not set
+    private static final int LOCAL_GRID_NODES = 2;
+
+    // Time-to-live of the cached category tree
+    private static final Duration CATEGORY_TREE_TTL = Duration.ofDays(1);
+
+    // URL of the Drinks >> Juice category
+    private static final String JUICE_URL = URL + "food/drinks/juice/c/28230?navid=flyout-L3-Drinks-Juice";
+
+    // URL of the Drinks >> Coffee category
+    private static final String COFFEE_URL = URL + "food/drinks/coffee/c/28228?navid=flyout-L3-Drinks-Coffee";
 
     /**
      * Method to click a web element using JavaScript.
@@ -73,76 +186,230 @@ public class MainPageTest {
      * @return An array containing the product name, price, image.
      */
     private String[] getProductInfo(WebElement projectNode) {
-        String name = projectNode.findElement(By.cssSelector("h3[data-testid=\"product-title\"]")).getText();
-        String price = "";
-        // try getting regular price
-        try {
-            price = projectNode.findElement(By.cssSelector("span[data-testid=\"regular-price\"] > span")).getText();
-        } catch (NoSuchElementException e) {
-            // do nothing
-        }
-        if (price.isEmpty()) {
-            try {
-                price = projectNode.findElement(By.cssSelector("span[data-testid=\"non-members-price\"] > span")).getText();
-            } catch (NoSuchElementException e) {
-                // do nothing
-            }
-            if (price.isEmpty()) {
-                price = projectNode.findElement(By.cssSelector("span[data-testid=\"sale-price\"] > span")).getText();
-            }
+        // optional prices are reported absent right away instead of sitting out the implicit wait
+        ProductInfo product = new ProductExtractor(driver).readTile(projectNode);
+        return new String[] {product.name(), product.price(), product.imageUrl()};
+    }
+
+    /**
+     * Reads the first products of the current page through a page model, accessing the product list by index.
+     *
+     * @param page The page model.
+     * @return The number of driver commands issued.
+     */
+    private long commandsToReadProducts(MainPage page) {
+        long before = METRICS.totalCommands();
+        int tiles = MAX_PER_PAGE > 0 ? Math.min(MAX_PER_PAGE, page.products.size()) : page.products.size();
+        for (int i = 0; i < tiles; i++) {
+            getProductInfo(page.products.get(i));
         }
+        return METRICS.totalCommands() - before;
+    }
 
-        String imageUrl = projectNode.findElement(By.cssSelector("img.chakra-image")).getAttribute("src");
-        return new String[] {name, price, imageUrl};
+    /**
+     * Opens the product file of a test case, a CSV file with its header, or a columnar file
+     * next to it when the columnar output is selected.
+     *
+     * @param csvFile Path of the CSV file, e.g. resources/products_page1.csv.
+     * @return The sink the products are written to.
+     * @throws IOException If the file cannot be opened.
+     */
+    private static ProductSink openProductSink(String csvFile) throws IOException {
+        if (COLUMNAR_OUTPUT) {
+            return ColumnarWriter.open(Path.of(csvFile.replaceFirst("\\.csv$", ".pcol")));
+        }
+        return CsvProductSink.open(csvFile);
     }
 
     /**
-     * Writes product information to a CSV file.
+     * Writes product information to the product file.
      *
-     * @param writer The CSVWriter instance used to write data to the CSV file.
+     * @param writer The sink used to write data to the product file.
      * @param startIndex The starting index for the product count.
      * @return The next index after the last written product.
-     * @throws IOException If an I/O error occurs while writing to the CSV file.
+     * @throws IOException If an I/O error occurs while writing to the product file.
      */
-    private int writeProductInfoToCSV(CSVWriter writer, int startIndex) throws IOException {
-        List<WebElement> products = mainPage.products;
+    private int writeProductInfoToCSV(ProductSink writer, int startIndex) throws IOException {
         int count = startIndex;
-        int limitCheck = 1;
-        // Loop through products and extract data
-        for (WebElement product : products) {
-            String[] productInfo = getProductInfo(product);
-            String[] data = {String.valueOf(count++), productInfo[0], productInfo[1], productInfo[2]};
-            writer.writeNext(data);
-            limitCheck++;
-            if (limitCheck > MAX_PER_PAGE) {
-                break;
+        List<ProductInfo> products;
+        String category = ProductDeduplicator.categoryOf(driver.getCurrentUrl());
+        if (capturedProducts != null) {
+            // already decoded from the listing response, no tile is read
+            products = MAX_PER_PAGE > 0 && capturedProducts.size() > MAX_PER_PAGE
+                    ? capturedProducts.subList(0, MAX_PER_PAGE) : capturedProducts;
+        } else if (BULK_EXTRACTION) {
+            products = METRICS.time("tile_extraction",
+                    () -> new ProductExtractor(driver).extractScrolling(MAX_PER_PAGE));
+        } else {
+            products = METRICS.time("tile_extraction", this::readProductsFromPageModel);
+        }
+        // products already written under another category or sort order are dropped
+        products = dedup.filter(category, products);
+        if (images != null) {
+            images.submitAll(products);
+        }
+        long start = System.nanoTime();
+        try {
+            for (ProductInfo product : products) {
+                writer.write(count++, category, product);
             }
+            METRICS.add("rows_written", products.size());
+        } finally {
+            METRICS.recordStep("csv_write", System.nanoTime() - start);
         }
         return count;
     }
 
+    /**
+     * Reads the first products of the current page one tile at a time through the page model,
+     * the way the tests did before the bulk extraction.
+     *
+     * @return The products in page order.
+     */
+    private List<ProductInfo> readProductsFromPageModel() {
+        return new ProductExtractor(driver).readTiles(mainPage.products, MAX_PER_PAGE);
+    }
+
     /**
      * Switches to a new page based on the provided page number.
      *
      * @param pageNumber The number of the page to switch to.
      */
     private void switchToNewPage(int pageNumber) {
-        WebElement nextPage = driver.findElement(By.cssSelector("a[aria-label=\"Page " + pageNumber + "\"]"));
-        actions.moveToElement(nextPage).perform();
-        waitInSeconds(5);
-        clickByJs(nextPage);
-        waitInSeconds(5);
+        try (AdaptiveLimiter.Permit permit = acquirePermit(driver.getCurrentUrl())) {
+            METRICS.time("pagination", () -> clickPage(pageNumber));
+            permit.success();
+        }
 
         // checkpoint: heading
-        WebElement heading = driver.findElement(By.cssSelector("h1[data-testid=\"heading\"]"));
-        WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
-        wait.until(ExpectedConditions.visibilityOf(heading));
+        WebElement heading = readiness.waitForVisible(By.cssSelector("h1[data-testid=\"heading\"]"), PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(heading.isDisplayed());
 
         String newUrl = driver.getCurrentUrl();
         assertTrue(newUrl.contains("page=" + pageNumber));
     }
 
+    /**
+     * Clicks the pager link of the given page and waits for its product grid.
+     *
+     * @param pageNumber The number of the page to switch to.
+     */
+    private void clickPage(int pageNumber) {
+        Runnable click = () -> {
+            WebElement nextPage = driver.findElement(By.cssSelector("a[aria-label=\"Page " + pageNumber + "\"]"));
+            actions.moveToElement(nextPage).perform();
+            clickByJs(nextPage);
+        };
+        if (capture != null) {
+            // the products come with the listing response, the grid does not need to be rendered
+            capturedProducts = captureProducts(click);
+            readiness.waitForUrlContains("page=" + pageNumber, PageReadiness.DEFAULT_TIMEOUT);
+            return;
+        }
+        PageReadiness.GridMark grid = readiness.markGrid();
+        long start = System.nanoTime();
+        click.run();
+
+        // wait for the new page URL and its product grid instead of fixed delays
+        readiness.waitForUrlContains("page=" + pageNumber, PageReadiness.DEFAULT_TIMEOUT);
+        readiness.waitForGridUpdate(grid, PageReadiness.DEFAULT_TIMEOUT);
+        recordInPageNavigation(System.nanoTime() - start);
+    }
+
+    /**
+     * Waits for a navigation slot on the host of the URL.
+     *
+     * @param url The URL about to be loaded.
+     * @return The permit, to be closed when the navigation is over.
+     */
+    private AdaptiveLimiter.Permit acquirePermit(String url) {
+        try {
+            return LIMITER.acquire(url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a navigation slot", e);
+        }
+    }
+
+    /**
+     * Runs an action triggering a product listing request and returns the products of its response.
+     *
+     * @param trigger The action, such as a sort or a pagination click.
+     * @return The products of the response.
+     */
+    private List<ProductInfo> captureProducts(Runnable trigger) {
+        try {
+            return capture.capture(trigger, PageReadiness.DEFAULT_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the product listing response", e);
+        }
+    }
+
+    /**
+     * Navigates to a page and reports the bytes transferred and page-load time
+     * when the lean profile is used.
+     *
+     * @param url The URL of the page.
+     */
+    private void navigateTo(String url) {
+        // the first page of a listing comes with the document, not from the listing API
+        capturedProducts = null;
+        try (AdaptiveLimiter.Permit permit = acquirePermit(url)) {
+            METRICS.time("page_load", () -> driver.get(url));
+            permit.success();
+        }
+        recordNavigation();
+    }
+
+    /**
+     * Records the bytes received, the number of requests and the page-load time of the last
+     * document navigation into METRICS when the lean profile is used.
+     */
+    private void recordNavigation() {
+        if (transfers == null) {
+            return;
+        }
+        LeanBrowserProfile.NavigationStats stats = LeanBrowserProfile.measure(driver, transfers);
+        recordNavigation(stats);
+        METRICS.recordStep("navigation_load_event", (long) (stats.pageLoadMillis() * 1_000_000));
+    }
+
+    /**
+     * Records the bytes received, the number of requests and the duration of the last in-page
+     * navigation into METRICS when the lean profile is used. The page-load time of the Performance
+     * API would still be the one of the document, so the measured duration is recorded instead.
+     *
+     * @param nanos Time from the click to the settled product grid, in nanoseconds.
+     */
+    private void recordInPageNavigation(long nanos) {
+        if (transfers == null) {
+            return;
+        }
+        recordNavigation(LeanBrowserProfile.measure(driver, transfers, nanos / 1_000_000.0));
+        METRICS.recordStep("navigation_in_page", nanos);
+    }
+
+    /**
+     * Records the bytes received and the number of requests of a navigation into METRICS.
+     *
+     * @param stats The navigation stats.
+     */
+    private void recordNavigation(LeanBrowserProfile.NavigationStats stats) {
+        METRICS.add("navigation_bytes", stats.bytesTransferred());
+        METRICS.add("navigation_requests", stats.requests());
+        METRICS.increment("navigations");
+    }
+
+    /**
+     * Creates a navigator going straight to the categories of the cached category tree.
+     *
+     * @return The category navigator.
+     */
+    private CategoryNavigator categoryNavigator() {
+        return new CategoryNavigator(driver, mainPage, CATEGORY_TREE_FILE, CATEGORY_TREE_TTL, URL, LIMITER);
+    }
+
     /**
      * Checks if the page heading matches the expected heading text.
      *
@@ -161,46 +428,143 @@ public class MainPageTest {
      * @param select_index The index to select the sort option.
      */
     private void sortByProducts(int select_index) {
+        METRICS.time("sort", () -> selectSortOption(select_index));
+    }
+
+    /**
+     * Opens the Sort By menu, selects an option and waits for the sorted product grid.
+     *
+     * @param select_index The index to select the sort option.
+     */
+    private void selectSortOption(int select_index) {
         // change Sort By
         WebElement sortBy = driver.findElement(By.cssSelector("button[aria-labelledby=\"sort-by menu-button-:r1:\"]"));
-        actions.moveToElement(sortBy);
-        waitInSeconds(5);
+        actions.moveToElement(sortBy).perform();
         sortBy.click();
-        waitInSeconds(5);
 
-        WebElement sortBySelection = driver.findElement(By.cssSelector("button[data-testid=\"menu-item\"][data-index=\"" + select_index +"\"]"));
-        actions.moveToElement(sortBySelection);
-        waitInSeconds(5);
+        // wait for the sort menu to open
+        WebElement sortBySelection = readiness.waitForVisible(
+                By.cssSelector("button[data-testid=\"menu-item\"][data-index=\"" + select_index +"\"]"), PageReadiness.DEFAULT_TIMEOUT);
+        actions.moveToElement(sortBySelection).perform();
+        if (capture != null) {
+            // the sorted products come with the listing response, the grid does not need to be rendered
+            capturedProducts = captureProducts(sortBySelection::click);
+            return;
+        }
+        PageReadiness.GridMark grid = readiness.markGrid();
         sortBySelection.click();
-        waitInSeconds(5);
+
+        // wait for the sorted product grid
+        readiness.waitForGridUpdate(grid, PageReadiness.DEFAULT_TIMEOUT);
     }
 
     /**
-     * Setup method to initialize the WebDriver, JavascriptExecutor, and Actions.
-     * This method runs before each test.
+     * Creates a new maximized ChromeDriver session with a 10 seconds implicit wait,
+     * or a lean headless session when LEAN_SCRAPE is set.
+     * Every call made by the session is recorded in METRICS.
+     *
+     * @return The new WebDriver instance.
      */
-    @BeforeEach
-    public void setUp() {
+    private static WebDriver createDriver() {
+        if (LEAN_SCRAPE) {
+            return MetricsListener.decorate(LeanBrowserProfile.createDriver(LeanBrowserProfile.blockList()), METRICS);
+        }
         ChromeOptions options = new ChromeOptions();
         // Fix the issue https://github.com/SeleniumHQ/selenium/issues/11750
         options.addArguments("--remote-allow-origins=*");
-        driver = new ChromeDriver(options);
+        // the pages prefetched in background tabs load at full speed
+        options.addArguments(PipelinedPaginator.CHROME_ARGUMENTS);
+        WebDriver driver = new ChromeDriver(options);
         driver.manage().window().maximize();
         driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(10));
-        driver.get(URL);
+        return MetricsListener.decorate(driver, METRICS);
+    }
+
+    /**
+     * Starts the Prometheus metrics endpoint when a port is configured.
+     * This method runs once before all the tests.
+     *
+     * @throws IOException If the endpoint cannot be started.
+     */
+    @BeforeAll
+    public static void startMetrics() throws IOException {
+        if (METRICS_PORT >= 0) {
+            METRICS.serve(METRICS_PORT);
+        }
+    }
+
+    /**
+     * Writes the JSON metrics summary of the run and stops the metrics endpoint.
+     * This method runs once after all the tests.
+     *
+     * @throws IOException If the summary cannot be written.
+     */
+    @AfterAll
+    public static void stopMetrics() throws IOException {
+        METRICS.writeJson(Path.of("resources/metrics_summary.json"));
+        METRICS.stop();
+    }
+
+    /**
+     * Setup method to initialize the WebDriver, JavascriptExecutor, and Actions,
+     * the capture of the product listing responses when NETWORK_CAPTURE is set,
+     * and the recording of the responses when RECORD_ARCHIVE is set.
+     * This method runs before each test.
+     *
+     * @throws IOException If the archive index cannot be read.
+     */
+    @BeforeEach
+    public void setUp() throws IOException {
+        snapshot = new PageSnapshot();
+        dedup = new ProductDeduplicator(DEDUP_EXPECTED_PRODUCTS);
+        if (IMAGE_CACHE != null) {
+            images = new ImageFetcher(Path.of(IMAGE_CACHE), IMAGE_CONCURRENCY, IMAGE_REFRESH, METRICS);
+        }
+        driver = snapshot.decorate(createDriver());
+        if (LEAN_SCRAPE) {
+            transfers = new TransferMeter(driver);
+        }
+        if (NETWORK_CAPTURE) {
+            capture = new NetworkProductCapture(driver, NetworkProductCapture.configuredPattern(), METRICS);
+        }
+        if (RECORD_ARCHIVE != null) {
+            recorder = new SiteRecorder(driver, new SiteArchive(Path.of(RECORD_ARCHIVE)));
+        }
+        navigateTo(URL);
 
         actions = new Actions(driver);
-        mainPage = new MainPage(driver);
+        mainPage = SNAPSHOT_PAGE ? new MainPage(driver, snapshot) : new MainPage(driver);
         js = (JavascriptExecutor) driver;
+        readiness = new PageReadiness(driver);
     }
 
     /**
-     * Tear down method to close the WebDriver.
+     * Tear down method to close the WebDriver, after writing the recorded responses if recording
+     * and waiting for the image downloads if downloading.
      * This method runs after each test.
+     *
+     * @throws IOException If the archive or the image cache index cannot be written.
      */
     @AfterEach
-    public void tearDown() {
-        driver.quit();
+    public void tearDown() throws IOException {
+        if (transfers != null) {
+            transfers.close();
+        }
+        if (capture != null) {
+            capture.close();
+        }
+        try {
+            if (recorder != null) {
+                recorder.close();
+                METRICS.add("responses_recorded", recorder.recorded());
+                METRICS.add("responses_unrecorded", recorder.unrecorded());
+            }
+        } finally {
+            driver.quit();
+            if (images != null) {
+                images.close();
+            }
+        }
     }
 
     /**
@@ -211,44 +575,41 @@ public class MainPageTest {
     @Test
     public void task_1_1_menu_interact() throws InterruptedException {
         mainPage.gloceryMenuButton.click();
-        waitInSeconds(2);
 
-        WebElement drinksMenu = mainPage.drinksSubMenuButton;
+        // wait for the flyout to open
+        WebElement drinksMenu = readiness.waitForVisible(mainPage.drinksSubMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(drinksMenu.isDisplayed());
 
         // move to Drinks menu
         actions.moveToElement(drinksMenu).perform();
-        waitInSeconds(5);
 
         // move to Drinks >> Juice from submenu bar
-        WebElement drinksJuiceMenu = mainPage.drinksJuiceSubMenuButton;
+        WebElement drinksJuiceMenu = readiness.waitForVisible(mainPage.drinksJuiceSubMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(drinksJuiceMenu.isDisplayed());
         actions.moveToElement(drinksJuiceMenu).perform();
-        waitInSeconds(5);
 
         // move to Drinks >> Coffee from submenu bar
-        WebElement drinksCoffeeMenu = mainPage.drinksCoffeeSubMenuButton;
+        WebElement drinksCoffeeMenu = readiness.waitForVisible(mainPage.drinksCoffeeSubMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(drinksCoffeeMenu.isDisplayed());
         actions.moveToElement(drinksCoffeeMenu).perform();
-        waitInSeconds(5);
 
         // move to Home Beauty & Baby menu
-        WebElement homeBeautyBabyMenu = mainPage.homeBeautyBabyMenuButton;
+        WebElement homeBeautyBabyMenu = readiness.waitForVisible(mainPage.homeBeautyBabyMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(homeBeautyBabyMenu.isDisplayed());
         actions.moveToElement(homeBeautyBabyMenu).perform();
-        waitInSeconds(5);
+        readiness.waitForDomQuiet(PageReadiness.DEFAULT_QUIET, PageReadiness.DEFAULT_TIMEOUT);
 
         // move to JoeFresh menu
-        WebElement joeFreshMenu = mainPage.joeFreshMenuButton;
+        WebElement joeFreshMenu = readiness.waitForVisible(mainPage.joeFreshMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(joeFreshMenu.isDisplayed());
         actions.moveToElement(joeFreshMenu).perform();
-        waitInSeconds(5);
+        readiness.waitForDomQuiet(PageReadiness.DEFAULT_QUIET, PageReadiness.DEFAULT_TIMEOUT);
 
         // move to Discover menu
-        WebElement discoverMenu = mainPage.discoverMenuButton;
+        WebElement discoverMenu = readiness.waitForVisible(mainPage.discoverMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(discoverMenu.isDisplayed());
         actions.moveToElement(discoverMenu).perform();
-        waitInSeconds(5);
+        readiness.waitForDomQuiet(PageReadiness.DEFAULT_QUIET, PageReadiness.DEFAULT_TIMEOUT);
     }
 
     /**
@@ -259,20 +620,21 @@ public class MainPageTest {
     @Test
     public void task_1_2_product_page_interact() throws InterruptedException {
         mainPage.gloceryMenuButton.click();
-        waitInSeconds(2);
 
-        WebElement drinksMenu = mainPage.drinksSubMenuButton;
+        // wait for the flyout to open
+        WebElement drinksMenu = readiness.waitForVisible(mainPage.drinksSubMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(drinksMenu.isDisplayed());
 
         // move to Drinks menu
         actions.moveToElement(drinksMenu).perform();
-        waitInSeconds(1);
-        WebElement drinksJuiceMenu = mainPage.drinksJuiceSubMenuButton;
+        WebElement drinksJuiceMenu = readiness.waitForVisible(mainPage.drinksJuiceSubMenuButton, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(drinksJuiceMenu.isDisplayed());
 
         // select Drinks Juice menu
+        PageReadiness.GridMark grid = readiness.markGrid();
         drinksJuiceMenu.click();
-        waitInSeconds(5);
+        readiness.waitForUrlContains("/juice/", PageReadiness.DEFAULT_TIMEOUT);
+        readiness.waitForGridUpdate(grid, PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(pageHeadingCheck("juice"));
 
         // select Price Low to High
@@ -283,12 +645,13 @@ public class MainPageTest {
 
         // select brand filter of juice products
         WebElement brandFilter = driver.findElement(By.cssSelector("input[name=\"Sunny Delight\"]"));
-        actions.moveToElement(brandFilter);
-        waitInSeconds(5);
+        actions.moveToElement(brandFilter).perform();
+        grid = readiness.markGrid();
         clickByJs(brandFilter);
 
-        // wait for page reload
-        waitInSeconds(5);
+        // wait for the filtered product grid
+        readiness.waitForUrlContains("productBrand=", PageReadiness.DEFAULT_TIMEOUT);
+        readiness.waitForGridUpdate(grid, PageReadiness.DEFAULT_TIMEOUT);
         String newUrl = driver.getCurrentUrl();
         // checkpoint URL's parameter
         assertTrue(newUrl.contains("productBrand=SUND"));
@@ -304,19 +667,18 @@ public class MainPageTest {
         // navigate to Weekly flyer
         WebElement weeklyFlyer = mainPage.footerWeeklyFlyer;
         actions.moveToElement(weeklyFlyer).perform();
-        waitInSeconds(5);
         clickByJs(weeklyFlyer);
-        waitInSeconds(5);
+        readiness.waitForUrlContains("flyer", PageReadiness.DEFAULT_TIMEOUT);
+        readiness.waitForVisible(By.cssSelector("h1[data-testid=\"heading\"]"), PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(pageHeadingCheck("flyer items"));
 
         // navigate to Contact page
         WebElement contact = mainPage.footerContactUs;
         actions.moveToElement(contact).perform();
-        waitInSeconds(5);
         clickByJs(contact);
 
-        waitInSeconds(5);
-        WebElement headerTitle = driver.findElement(By.className("contact-us-page__header__title"));
+        WebElement headerTitle = readiness.waitForVisible(By.className("contact-us-page__header__title"),
+                PageReadiness.DEFAULT_TIMEOUT);
         assertTrue(headerTitle.isDisplayed());
     }
 
@@ -328,22 +690,22 @@ public class MainPageTest {
     @Test
     public void task_1_4_scrapProducts() throws IOException {
         driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
-        driver.get("https://www.zehrs.ca/food/drinks/juice/c/28230?navid=flyout-L3-Drinks-Juice");
+        navigateTo(JUICE_URL);
+        // the bulk extraction runs a script, which gets no implicit wait
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
         // Find product elements
         List<WebElement> products = mainPage.products;
-        //waitInSeconds(5000);
 
         String csvFile = "resources/products_page1.csv";
-        CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
-        String[] header = {"No", "Product Name", "Price", "Image URL"};
-        writer.writeNext(header);
+        ProductSink writer = openProductSink(csvFile);
 
         int count = 1;
-        writeProductInfoToCSV(writer, count);
+        count = writeProductInfoToCSV(writer, count);
 
         // Close CSV writer and browser
         writer.close();
         assertFalse(products.isEmpty());
+        assertTrue(count > 1, "no rows written");
     }
 
     /**
@@ -354,20 +716,20 @@ public class MainPageTest {
     @Test
     public void task_2_1_scrapProductsMultiPages() throws IOException {
         driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
-        driver.get("https://www.zehrs.ca/food/drinks/juice/c/28230?navid=flyout-L3-Drinks-Juice");
+        navigateTo(JUICE_URL);
+        // the bulk extraction runs a script, which gets no implicit wait
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
 
         // Find product elements
         List<WebElement> products = mainPage.products;
-        //waitInSeconds(5000);
 
         String csvFile = "resources/products_pages123.csv";
-        CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
-        String[] header = {"No", "Product Name", "Price", "Image URL"};
-        writer.writeNext(header);
+        ProductSink writer = openProductSink(csvFile);
 
         int count = 1;
         // write to file and update count
         count = writeProductInfoToCSV(writer, count);
+        int page1Next = count;
 
         // Move to next Page : 2
         int pageNumber = 2;
@@ -377,6 +739,7 @@ public class MainPageTest {
         // products = mainPage.products;
         // write to file and update count
         count = writeProductInfoToCSV(writer, count);
+        int page2Next = count;
 
         // Move to next Page : 3
         pageNumber = 3;
@@ -390,6 +753,10 @@ public class MainPageTest {
         // Close CSV writer and browser
         writer.close();
         assertFalse(products.isEmpty());
+        // every page wrote rows
+        assertTrue(page1Next > 1, "no rows written for page 1");
+        assertTrue(page2Next > page1Next, "no rows written for page 2");
+        assertTrue(count > page2Next, "no rows written for page 3");
     }
 
     /**
@@ -400,33 +767,42 @@ public class MainPageTest {
     @Test
     public void task_2_2_scrapProductsDifferentPages() throws IOException {
         driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
-        driver.get("https://www.zehrs.ca/food/drinks/juice/c/28230?navid=flyout-L3-Drinks-Juice");
+        navigateTo(JUICE_URL);
+        // the bulk extraction runs a script, which gets no implicit wait
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
 
         // Find product elements
         List<WebElement> products = mainPage.products;
-        //waitInSeconds(5000);
 
         String csvFile = "resources/products_dif_cat.csv";
-        CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
-        String[] header = {"No", "Product Name", "Price", "Image URL"};
-        writer.writeNext(header);
+        ProductSink writer = openProductSink(csvFile);
 
         int count = 1;
         // write to file and update count
         count = writeProductInfoToCSV(writer, count);
+        int juiceNext = count;
 
         // Change to Drinks Coffee page
         driver.manage().timeouts().implicitlyWait(10, TimeUnit.SECONDS);
-        driver.get("https://www.zehrs.ca/food/drinks/coffee/c/28228?navid=flyout-L3-Drinks-Coffee");
+        navigateTo(COFFEE_URL);
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
 
         // reload products
         products = mainPage.products;
         // write to file and update count
-        writeProductInfoToCSV(writer, count);
+        count = writeProductInfoToCSV(writer, count);
 
         // Close CSV writer and browser
         writer.close();
+        int shared = dedup.writeMemberships("resources/products_dif_cat_categories.csv");
+        METRICS.gauge("dedup_products", dedup.size());
+        METRICS.gauge("dedup_duplicates", dedup.duplicates());
+        METRICS.gauge("dedup_shared_products", shared);
+        METRICS.gauge("dedup_bytes_per_key", dedup.bytesPerKey());
         assertFalse(products.isEmpty());
+        assertTrue(juiceNext > 1, "no rows written for juice");
+        // the coffee products also listed under juice are dropped, not all of them
+        assertTrue(count > juiceNext, "no rows written for coffee");
     }
 
     /**
@@ -441,25 +817,60 @@ public class MainPageTest {
         mainPage.searchField.sendKeys(searchStr);
         mainPage.searchButton.click();
 
-        waitInSeconds(5);
         WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         WebElement searchResult = mainPage.pageTitle;
-        wait.until(ExpectedConditions.visibilityOf(searchResult));
+        waitForSearchResults(wait, searchResult, searchStr);
         assertTrue(searchResult.isDisplayed());
         assertTrue(searchResult.getAttribute("innerText").toLowerCase().contains(searchStr.toLowerCase()));
 
-        waitInSeconds(5);
         mainPage.searchClear.click();
-        waitInSeconds(5);
+        wait.until(d -> mainPage.searchField.getAttribute("value").isEmpty());
         searchStr = "coffee";
         mainPage.searchField.sendKeys(searchStr);
         mainPage.searchButton.click();
-        waitInSeconds(5);
-        wait.until(ExpectedConditions.visibilityOf(searchResult));
+        waitForSearchResults(wait, searchResult, searchStr);
         assertTrue(searchResult.isDisplayed());
         assertTrue(searchResult.getAttribute("innerText").toLowerCase().contains(searchStr.toLowerCase()));
     }
 
+    /**
+     * Waits for the results of a search: the page title showing the searched text, then the
+     * result grid settled or the empty state.
+     *
+     * @param wait        The wait on the driver.
+     * @param searchTitle The page title of the search results.
+     * @param searchStr   The searched text.
+     */
+    private void waitForSearchResults(WebDriverWait wait, WebElement searchTitle, String searchStr) {
+        wait.until(d -> searchTitle.isDisplayed()
+                && searchTitle.getAttribute("innerText").toLowerCase().contains(searchStr.toLowerCase()));
+        readiness.waitForGridSettledOrEmpty(PageReadiness.EMPTY_STATE, PageReadiness.DEFAULT_TIMEOUT);
+    }
+
+    /**
+     * Test case to run a batch of search queries in parallel, going straight to the search results URLs.
+     * Repeated terms are answered from the cache.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting for the results.
+     */
+    @Test
+    public void task_3_3_batchSearchProducts() throws InterruptedException {
+        List<String> queries = List.of("milk & cream", "coffee", "juice", " Coffee ", "MILK &  cream");
+        Map<String, BatchSearch.QueryResult> results;
+        BatchSearch search;
+        try (DriverPool pool = new DriverPool(POOL_SIZE, MainPageTest::createDriver, URL)) {
+            search = new BatchSearch(pool, URL, MAX_PER_PAGE, SEARCH_CACHE_TTL, LIMITER);
+            results = search.search(queries);
+        }
+
+        METRICS.gauge("search_queries_failed", results.values().stream().filter(result -> !result.succeeded()).count());
+        assertEquals(queries.size(), results.size());
+        assertEquals(3, search.misses());
+        assertEquals(2, search.hits());
+        assertTrue(results.get("coffee").succeeded());
+        assertFalse(results.get("coffee").products().isEmpty());
+    }
+
     /**
      * Test method for handling a popup and verifying certain actions on the main page.
      * Verifies elements like the rapid logo, address autocomplete, continue button, and service availability.
@@ -470,28 +881,28 @@ public class MainPageTest {
     public void task_3_2_handlePopup() throws InterruptedException {
         WebElement rapidLogo = mainPage.rapidLogo;
         clickByJs(rapidLogo);
-        waitInSeconds(5);
 
         // get autocomplete text box
-        WebElement autoComplete = driver.findElement(By.cssSelector("input[id=\"addressAutocomplete\"]"));
+        WebElement autoComplete = readiness.waitForVisible(By.cssSelector("input[id=\"addressAutocomplete\"]"),
+                PageReadiness.DEFAULT_TIMEOUT);
         autoComplete.sendKeys("401 Sunset Ave");
-        waitInSeconds(5);
 
         // pick first item in the complete list
-        WebElement itemOne = driver.findElement((By.cssSelector(".address-autocomplete__address-list li:nth-child(1)")));
+        WebElement itemOne = readiness.waitForVisible(
+                By.cssSelector(".address-autocomplete__address-list li:nth-child(1)"), PageReadiness.DEFAULT_TIMEOUT);
         clickByJs(itemOne);
-        waitInSeconds(10);
 
         // check point 1 =>> continue
-        WebElement buttonContinue = driver.findElement(By.cssSelector("button.address-autocomplete-modal__button-continue"));
+        WebElement buttonContinue = readiness.waitForVisible(
+                By.cssSelector("button.address-autocomplete-modal__button-continue"), PageReadiness.DEFAULT_TIMEOUT);
         WebDriverWait wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         wait.until(ExpectedConditions.elementToBeClickable(buttonContinue));
         assertTrue(buttonContinue.isEnabled());
         buttonContinue.click();
-        waitInSeconds(10);
 
         // check point 2 =>> no service available
-        WebElement searchResult = driver.findElement(By.cssSelector("h1.no-serviceability__title"));
+        WebElement searchResult = readiness.waitForVisible(By.cssSelector("h1.no-serviceability__title"),
+                PageReadiness.DEFAULT_TIMEOUT);
         wait = new WebDriverWait(driver, Duration.ofSeconds(10));
         String msg = "We’re sorry but it looks like we’re not available in your area yet.";
         wait.until(ExpectedConditions.textToBePresentInElement(searchResult, msg));
@@ -501,7 +912,268 @@ public class MainPageTest {
         // check point 3 =>> return to main page
         WebElement returnToZehrs = driver.findElement(By.cssSelector("a.no-serviceability__go-back-button"));
         returnToZehrs.click();
-        waitInSeconds(5);
+        wait.until(ExpectedConditions.stalenessOf(returnToZehrs));
+    }
+
+    /**
+     * Test case to scrape several categories in parallel on a pool of warm sessions and save to a CSV file.
+     *
+     * @throws Exception If the scraping fails or an I/O error occurs while writing to the CSV file.
+     */
+    @Test
+    public void task_4_1_scrapCategoriesInParallel() throws Exception {
+        String csvFile = "resources/products_parallel.csv";
+        int submitted;
+        // rows of every scraper thread go through the same asynchronous sink
+        try (DriverPool pool = new DriverPool(POOL_SIZE, MainPageTest::createDriver, URL);
+             AsyncCsvSink sink = AsyncCsvSink.open(csvFile, SINK_QUEUE_CAPACITY, SINK_BATCH_SIZE, SINK_FLUSH_MILLIS)) {
+            submitted = new ParallelCategoryScraper(pool, MAX_PER_PAGE).scrapeInto(List.of(JUICE_URL, COFFEE_URL), sink);
+            METRICS.gauge("csv_sink_queue_depth", sink.queueDepth());
+            METRICS.gauge("csv_sink_rows_per_second", sink.rowsPerSecond());
+        }
+
+        assertTrue(submitted > 0);
+    }
+
+    /**
+     * Test case to read a category listing without the browser, the browser is only used
+     * if the lightweight parse finds nothing.
+     *
+     * @throws Exception If the thread is interrupted.
+     */
+    @Test
+    public void task_4_2_fetchProductsWithoutBrowser() throws Exception {
+        List<ProductInfo> products;
+        try (HttpListingFetcher fetcher = new HttpListingFetcher(LIMITER)) {
+            products = fetcher.fetch(JUICE_URL, url -> {
+                navigateTo(url);
+                readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+                return new ProductExtractor(driver).extractAll();
+            });
+        }
+
+        assertFalse(products.isEmpty());
+        assertFalse(products.get(0).name().isEmpty());
+    }
+
+    /**
+     * Test case to scrape a category incrementally: only new, changed or removed products
+     * are written, the product index is kept between runs.
+     *
+     * @throws IOException If an I/O error occurs while reading the index or writing the CSV file.
+     */
+    @Test
+    public void task_4_3_scrapProductsIncrementally() throws IOException {
+        Path indexFile = Path.of("resources/product_index.bin");
+        ProductIndex index = ProductIndex.load(indexFile);
+
+        navigateTo(JUICE_URL);
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+        List<ProductInfo> products = new ProductExtractor(driver).extractScrolling(MAX_PER_PAGE);
+        // only the first tiles of the first page are scraped, products missing from them are not removed
+        List<ProductIndex.ProductChange> changes = index.update("juice", products, false, System.currentTimeMillis());
+
+        String csvFile = "resources/products_changes.csv";
+        CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
+        String[] header = {"Change", "Key", "Product Name", "Price", "Image URL"};
+        writer.writeNext(header);
+        for (ProductIndex.ProductChange change : changes) {
+            ProductInfo product = change.product();
+            writer.writeNext(product == null
+                    ? new String[] {change.kind().name(), change.key(), "", "", ""}
+                    : new String[] {change.kind().name(), change.key(), product.name(), product.price(), product.imageUrl()});
+        }
+        writer.close();
+        index.save(indexFile);
+
+        METRICS.gauge("index_products", index.size());
+        METRICS.gauge("index_categories", index.categories().size());
+        assertFalse(products.isEmpty());
+        assertTrue(index.size() > 0);
+    }
+
+    /**
+     * Test case to crawl the categories of the department menus on virtual threads and save to a CSV file.
+     * Pages are read over HTTP, browser sessions are only used when the lightweight parse finds nothing.
+     *
+     * @throws Exception If the crawl fails or an I/O error occurs while writing to the CSV file.
+     */
+    @Test
+    public void task_4_4_crawlCategoryTree() throws Exception {
+        List<String> categories = categoryNavigator().tree().leafUrls();
+        assertFalse(categories.isEmpty());
+
+        String csvFile = "resources/products_crawl.csv";
+        CrawlScheduler.CrawlStats stats;
+        try (DriverPool pool = new DriverPool(POOL_SIZE, MainPageTest::createDriver, URL);
+             AsyncCsvSink sink = AsyncCsvSink.open(csvFile, SINK_QUEUE_CAPACITY, SINK_BATCH_SIZE, SINK_FLUSH_MILLIS);
+             HttpListingFetcher http = new HttpListingFetcher(LIMITER);
+             CrawlScheduler crawler = new CrawlScheduler(http, new BrowserPageFetcher(pool, 0, LIMITER),
+                     CRAWL_HOST_CONCURRENCY, CRAWL_POLITENESS, CRAWL_MAX_PAGES, (url, products) -> sink.submitAll(dedup.filter(ProductDeduplicator.categoryOf(url), products)))) {
+            crawler.submitAll(categories);
+            stats = crawler.awaitCompletion();
+        }
+
+        METRICS.gauge("crawl_pages", stats.pages());
+        METRICS.gauge("crawl_products", stats.products());
+        METRICS.gauge("crawl_failures", stats.failures());
+        METRICS.gauge("crawl_retries", stats.retries());
+        assertTrue(stats.pages() > 0);
+    }
+
+    /**
+     * Test case to go straight to categories from the cached category tree, without hovering the menus.
+     */
+    @Test
+    public void task_4_5_navigateFromCachedCategoryTree() {
+        CategoryNavigator navigator = categoryNavigator();
+
+        navigator.open("Grocery", "Drinks", "Juice");
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+        assertTrue(pageHeadingCheck("juice"));
+
+        navigator.open("Grocery", "Drinks", "Coffee");
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+        assertTrue(pageHeadingCheck("coffee"));
+    }
+
+    /**
+     * Test case to scrape a category and save the products with their normalized prices to a CSV file.
+     *
+     * @throws IOException If an I/O error occurs while writing to the CSV file.
+     */
+    @Test
+    public void task_4_6_normalizePrices() throws IOException {
+        navigateTo(JUICE_URL);
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+        List<ProductInfo> products = new ProductExtractor(driver).extractScrolling(MAX_PER_PAGE);
+
+        String csvFile = "resources/products_normalized.csv";
+        CSVWriter writer = new CSVWriter(new FileWriter(csvFile));
+        writer.writeNext(ProductRow.HEADER);
+        PriceParser parser = new PriceParser();
+        PriceParser.Fields fields = new PriceParser.Fields();
+        int count = 1;
+        int priced = 0;
+        for (ProductInfo product : products) {
+            ProductRow row = ProductRow.of(product, parser, fields);
+            if (row.priceCents() >= 0) {
+                priced++;
+            }
+            writer.writeNext(row.toCsvRow(count++));
+        }
+        writer.close();
+
+        assertFalse(products.isEmpty());
+        assertTrue(priced > 0);
+    }
+
+    /**
+     * Test case to compare the driver commands needed to read a page with the plain and the snapshot page models.
+     */
+    @Test
+    public void task_4_7_measureSnapshotPageModel() {
+        navigateTo(JUICE_URL);
+        readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+
+        long plain = commandsToReadProducts(new MainPage(driver));
+        long cached = commandsToReadProducts(new MainPage(driver, snapshot));
+        METRICS.gauge("page_model_commands_plain", plain);
+        METRICS.gauge("page_model_commands_snapshot", cached);
+
+        assertTrue(cached < plain);
+    }
+
+    /**
+     * Test case to crawl categories sharded over several RemoteWebDriver nodes and save to a CSV file.
+     * The nodes of -Dscraper.gridNodes are used, otherwise local chromedriver processes stand in for them.
+     *
+     * @throws Exception If the crawl fails or an I/O error occurs while writing to the CSV file.
+     */
+    @Test
+    public void task_4_8_crawlOnGridNodes() throws Exception {
+        String csvFile = "resources/products_sharded.csv";
+        List<URL> configured = LocalGridNodes.configured();
+        ShardedCrawlCoordinator.ShardStats stats;
+        try (LocalGridNodes local = new LocalGridNodes(configured.isEmpty() ? LOCAL_GRID_NODES : 0);
+             AsyncCsvSink sink = AsyncCsvSink.open(csvFile, SINK_QUEUE_CAPACITY, SINK_BATCH_SIZE, SINK_FLUSH_MILLIS);
+             ShardedCrawlCoordinator coordinator = new ShardedCrawlCoordinator(
+                     configured.isEmpty() ? local.urls() : configured,
+                     node -> MetricsListener.decorate(new RemoteWebDriver(node, LeanBrowserProfile.options()), METRICS),
+                     MAX_PER_PAGE, CRAWL_MAX_PAGES, (url, products) -> sink.submitAll(dedup.filter(ProductDeduplicator.categoryOf(url), products)), METRICS)) {
+            coordinator.submitAll(List.of(JUICE_URL, COFFEE_URL));
+            stats = coordinator.awaitCompletion();
+        }
+
+        // pages per second by node and the queue lag are recorded by the coordinator
+        METRICS.gauge("shard_requeued", stats.requeued());
+        assertTrue(stats.nodes().stream().mapToLong(ShardedCrawlCoordinator.NodeStats::pages).sum() > 0);
+    }
+
+    /**
+     * Test case to scrape several pages with a checkpoint log and save to a CSV file.
+     * If a previous run crashed, only the pages it did not complete are scraped, without duplicating rows.
+     *
+     * @throws IOException If an I/O error occurs while writing to the CSV file or the checkpoint log.
+     */
+    @Test
+    public void task_4_9_scrapProductsResumably() throws IOException {
+        List<CrawlCheckpoint.Unit> units = new ArrayList<>();
+        for (int page = 1; page <= CRAWL_MAX_PAGES; page++) {
+            units.add(new CrawlCheckpoint.Unit(JUICE_URL, page, "", ""));
+        }
+
+        try (ResumableCsvWriter writer = new ResumableCsvWriter(Path.of("resources/products_resumable.csv"),
+                Path.of("resources/products_resumable.wal"), CHECKPOINT_SYNC_EVERY, CHECKPOINT_SYNC_MILLIS)) {
+            List<CrawlCheckpoint.Unit> remaining = writer.checkpoint().remaining(units);
+            METRICS.gauge("checkpoint_pages_remaining", remaining.size());
+            for (CrawlCheckpoint.Unit unit : remaining) {
+                navigateTo(CrawlScheduler.withPage(unit.category(), unit.page()));
+                readiness.waitForGridSettled(PageReadiness.DEFAULT_TIMEOUT);
+                List<ProductInfo> products = METRICS.time("tile_extraction",
+                        () -> new ProductExtractor(driver).extractScrolling(MAX_PER_PAGE));
+                assertFalse(products.isEmpty());
+                writer.writeUnit(unit, products);
+            }
+            // the crawl is complete, the next run starts over
+            writer.complete();
+        }
+    }
+
+    /**
+     * Test case to scrape several pages while the next ones load in background tabs and save to a CSV file.
+     * The wall time per page should be close to the longest of the load and the extraction.
+     *
+     * @throws IOException If an I/O error occurs while writing to the CSV file.
+     */
+    @Test
+    public void task_4_10_scrapProductsPipelined() throws IOException {
+        navigateTo(JUICE_URL);
+        PipelinedPaginator paginator = new PipelinedPaginator(driver,
+                By.cssSelector("[data-testid=\"product-grid\"]"), PREFETCH_DEPTH, PREFETCH_MEMORY_MB * 1024 * 1024,
+                METRICS, LIMITER);
+
+        int[] count = {1};
+        List<Integer> rowsPerPage = new ArrayList<>();
+        long start = System.nanoTime();
+        int pages;
+        try (ProductSink writer = openProductSink("resources/products_pipelined.csv")) {
+            pages = paginator.crawl(CRAWL_MAX_PAGES, (page, url) -> {
+                int before = count[0];
+                count[0] = writeProductInfoToCSV(writer, count[0]);
+                rowsPerPage.add(count[0] - before);
+            });
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        // the prefetch depth and the prefetch wait are recorded by the paginator
+        METRICS.gauge("pipelined_seconds_per_page", seconds / pages);
+        METRICS.gauge("prefetch_tab_bytes", paginator.tabBytes());
+        assertEquals(CRAWL_MAX_PAGES, pages);
+        assertEquals(CRAWL_MAX_PAGES, rowsPerPage.size());
+        for (int page = 0; page < rowsPerPage.size(); page++) {
+            assertTrue(rowsPerPage.get(page) > 0, "No row written for page " + (page + 1));
+        }
     }
 
 }
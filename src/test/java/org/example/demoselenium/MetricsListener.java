@@ -0,0 +1,80 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * MetricsListener class timing every call made through a decorated WebDriver.
+ * Calls are named after the interface declaring the method, e.g. "WebDriver.get",
+ * "WebElement.findElement" or "JavascriptExecutor.executeScript". A findElement failing
+ * with NoSuchElementException has sat out the whole implicit wait, so it is also counted
+ * as an implicit-wait timeout.
+ */
+public class MetricsListener implements WebDriverListener {
+    // Counter of the findElement calls which sat out the implicit wait
+    public static final String IMPLICIT_WAIT_TIMEOUTS = "implicit_wait_timeouts";
+
+    // Start times of the calls in progress on the current thread, calls can be nested
+    private static final ThreadLocal<Deque<Long>> STARTS = ThreadLocal.withInitial(ArrayDeque::new);
+
+    // Metrics the calls are recorded into
+    private final ScrapeMetrics metrics;
+
+    /**
+     * Creates a listener recording into the given metrics.
+     *
+     * @param metrics The metrics.
+     */
+    public MetricsListener(ScrapeMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Decorates a driver so that every call it makes is recorded.
+     *
+     * @param driver  The driver to decorate.
+     * @param metrics The metrics the calls are recorded into.
+     * @return The decorated driver.
+     */
+    public static WebDriver decorate(WebDriver driver, ScrapeMetrics metrics) {
+        return new EventFiringDecorator<>(new MetricsListener(metrics)).decorate(driver);
+    }
+
+    @Override
+    public void beforeAnyCall(Object target, Method method, Object[] args) {
+        STARTS.get().push(System.nanoTime());
+    }
+
+    @Override
+    public void afterAnyCall(Object target, Method method, Object[] args, Object result) {
+        record(method);
+    }
+
+    @Override
+    public void onError(Object target, Method method, Object[] args, InvocationTargetException e) {
+        record(method);
+        if (e.getCause() instanceof NoSuchElementException && method.getName().equals("findElement")) {
+            metrics.increment(IMPLICIT_WAIT_TIMEOUTS);
+        }
+    }
+
+    /**
+     * Records the latency of the call ending on the current thread.
+     *
+     * @param method The called method.
+     */
+    private void record(Method method) {
+        Long start = STARTS.get().poll();
+        if (start != null) {
+            metrics.recordCommand(method.getDeclaringClass().getSimpleName() + "." + method.getName(),
+                    System.nanoTime() - start);
+        }
+    }
+}
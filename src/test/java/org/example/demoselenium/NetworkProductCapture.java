@@ -0,0 +1,406 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.devtools.HasDevTools;
+import org.openqa.selenium.json.JsonInput;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * NetworkProductCapture class reading the products straight from the product listing API
+ * responses the page fetches, through the Chrome DevTools Protocol network events, instead of
+ * reading the rendered tiles. The cost of a page is then one response body decode, whatever the
+ * number of tiles, and a sort or a pagination click only has to trigger the request.
+ * The raw protocol commands and events are used, so that no DevTools version module is tied
+ * to the installed Chrome. The response bodies are decoded by ProductJsonDecoder on a
+ * background thread, the protocol thread only records which requests to read.
+ * The DevTools session may be shared with a SiteRecorder: the listeners of a closed component
+ * ignore the events, since the session cannot remove them one by one, and the Network domain is
+ * only disabled when its last user is closed.
+ */
+public class NetworkProductCapture implements AutoCloseable {
+    /**
+     * Default pattern of the product listing API URLs, overridden by -Dscraper.captureUrlPattern.
+     */
+    public static final String DEFAULT_URL_PATTERN = "/api/v\\d+/(listingPage|products/search|productListing)";
+
+    // Number of captured responses kept for the callers which have not read them yet
+    private static final int RETAINED_CAPTURES = 16;
+
+    // Number of open components using the network events, by DevTools session
+    private static final Map<DevTools, Integer> NETWORK_USERS = new ConcurrentHashMap<>();
+
+    /**
+     * Capture record holding the products of a captured response.
+     *
+     * @param sequence The sequence number of the capture, starting from 1.
+     * @param url      The URL of the response.
+     * @param products The products of the response.
+     */
+    public record Capture(long sequence, String url, List<ProductInfo> products) {
+    }
+
+    /**
+     * Response record holding the fields of a Network.responseReceived event used by the capture.
+     *
+     * @param requestId The request id.
+     * @param url       The response URL.
+     * @param status    The HTTP status.
+     * @param mimeType  The MIME type of the response.
+     */
+    private record Response(String requestId, String url, int status, String mimeType) {
+    }
+
+    // DevTools session of the driver
+    private final DevTools devTools;
+
+    // Pattern of the URLs whose responses are captured
+    private final Pattern urlPattern;
+
+    // Metrics the decoding time is recorded into
+    private final ScrapeMetrics metrics;
+
+    // Reads and decodes the response bodies off the protocol thread
+    private final ExecutorService decoder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "network-capture");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // URLs of the matching requests whose body is not read yet, keyed by request id
+    private final Map<String, String> pending = new ConcurrentHashMap<>();
+
+    // Lock guarding the captures
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Signalled when a response is captured
+    private final Condition captured = lock.newCondition();
+
+    // Last captures, oldest first
+    private final ArrayDeque<Capture> captures = new ArrayDeque<>();
+
+    // Number of captures so far
+    private long sequence;
+
+    // Set once the capture is closed, its listeners then ignore the events
+    private volatile boolean closed;
+
+    /**
+     * Starts capturing the product listing responses of a Chrome session.
+     *
+     * @param driver     The driver, possibly decorated.
+     * @param urlPattern Pattern of the URLs whose responses are captured.
+     * @param metrics    Metrics the decoding time is recorded into.
+     * @throws IllegalArgumentException If the driver has no DevTools access.
+     */
+    public NetworkProductCapture(WebDriver driver, Pattern urlPattern, ScrapeMetrics metrics) {
+        this.devTools = devToolsOf(driver).orElseThrow(
+                () -> new IllegalArgumentException("The driver has no DevTools access: " + driver.getClass()));
+        this.urlPattern = urlPattern;
+        this.metrics = metrics;
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(new Event<>("Network.responseReceived", NetworkProductCapture::readResponse),
+                this::onResponse);
+        devTools.addListener(new Event<>("Network.loadingFinished", NetworkProductCapture::readRequestId),
+                this::onLoadingFinished);
+        devTools.addListener(new Event<>("Network.loadingFailed", NetworkProductCapture::readRequestId),
+                pending::remove);
+        enableNetwork(devTools);
+    }
+
+    /**
+     * Returns the pattern of the captured URLs, from -Dscraper.captureUrlPattern or the default.
+     *
+     * @return The URL pattern.
+     */
+    public static Pattern configuredPattern() {
+        return Pattern.compile(System.getProperty("scraper.captureUrlPattern", DEFAULT_URL_PATTERN));
+    }
+
+    /**
+     * Finds the DevTools access of a driver, looking through the decorators.
+     *
+     * @param driver The driver.
+     * @return The DevTools, empty if the browser does not support them.
+     */
+    static Optional<DevTools> devToolsOf(WebDriver driver) {
+        WebDriver current = driver;
+        // the decorators proxy every interface of the driver, the DevTools are taken from the driver itself
+        while (current instanceof WrapsDriver wrapper) {
+            current = wrapper.getWrappedDriver();
+        }
+        return current instanceof HasDevTools hasDevTools ? hasDevTools.maybeGetDevTools() : Optional.empty();
+    }
+
+    /**
+     * Enables the network events of a DevTools session for one more component.
+     *
+     * @param devTools The DevTools session.
+     */
+    static void enableNetwork(DevTools devTools) {
+        NETWORK_USERS.merge(devTools, 1, Integer::sum);
+        devTools.send(new Command<Void>("Network.enable", Map.of()));
+    }
+
+    /**
+     * Releases the network events of a DevTools session for a closed component, they are
+     * disabled when no other component uses them.
+     *
+     * @param devTools The DevTools session.
+     */
+    static void disableNetwork(DevTools devTools) {
+        if (NETWORK_USERS.computeIfPresent(devTools, (session, users) -> users > 1 ? users - 1 : null) != null) {
+            return;
+        }
+        try {
+            devTools.send(new Command<Void>("Network.disable", Map.of()));
+        } catch (WebDriverException e) {
+            // the session is already gone
+        }
+    }
+
+    /**
+     * Returns the sequence number of the last capture, to wait for the next ones.
+     *
+     * @return The sequence number, 0 before the first capture.
+     */
+    public long mark() {
+        lock.lock();
+        try {
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Runs an action triggering a product listing request, such as a sort or a pagination click,
+     * and returns the products of the response it triggers.
+     *
+     * @param trigger The action.
+     * @param timeout Maximum time to wait for the response.
+     * @return The products of the response.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     * @throws TimeoutException     If no matching response arrives within the timeout.
+     */
+    public List<ProductInfo> capture(Runnable trigger, Duration timeout) throws InterruptedException {
+        long mark = mark();
+        trigger.run();
+        return awaitAfter(mark, timeout).products();
+    }
+
+    /**
+     * Waits for the first capture after a mark.
+     *
+     * @param mark    The sequence number returned by mark().
+     * @param timeout Maximum time to wait.
+     * @return The capture, or the oldest one kept if it was already dropped.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     * @throws TimeoutException     If no matching response arrives within the timeout.
+     */
+    public Capture awaitAfter(long mark, Duration timeout) throws InterruptedException {
+        lock.lock();
+        try {
+            long remaining = timeout.toNanos();
+            while (sequence <= mark) {
+                if (remaining <= 0) {
+                    throw new TimeoutException("No response matching " + urlPattern + " within " + timeout);
+                }
+                remaining = captured.awaitNanos(remaining);
+            }
+            for (Capture capture : captures) {
+                if (capture.sequence() > mark) {
+                    return capture;
+                }
+            }
+            return captures.getLast();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the last capture after a mark without waiting.
+     *
+     * @param mark The sequence number returned by mark().
+     * @return The latest capture, empty if none arrived after the mark.
+     */
+    public Optional<Capture> latestAfter(long mark) {
+        lock.lock();
+        try {
+            Capture last = captures.peekLast();
+            return last != null && last.sequence() > mark ? Optional.of(last) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stops the capture, and disables the network events unless another component still uses them.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        decoder.shutdownNow();
+        disableNetwork(devTools);
+    }
+
+    /**
+     * Records a response of the listing API, its body is read once it is fully loaded.
+     *
+     * @param response The response.
+     */
+    private void onResponse(Response response) {
+        if (!closed && response.status() == 200 && response.mimeType().contains("json")
+                && urlPattern.matcher(response.url()).find()) {
+            pending.put(response.requestId(), response.url());
+        }
+    }
+
+    /**
+     * Schedules the read of a recorded response whose body is fully loaded.
+     *
+     * @param requestId The request id.
+     */
+    private void onLoadingFinished(String requestId) {
+        String url = pending.remove(requestId);
+        if (url == null || closed) {
+            return;
+        }
+        decoder.execute(() -> {
+            List<ProductInfo> products;
+            try {
+                products = metrics.time("network_decode", () -> devTools.send(new Command<>(
+                        "Network.getResponseBody", Map.of("requestId", requestId), NetworkProductCapture::readBody)));
+            } catch (WebDriverException e) {
+                // the body was evicted from the browser cache or the session is gone
+                return;
+            }
+            publish(url, products);
+        });
+    }
+
+    /**
+     * Adds a capture and wakes up the waiting callers.
+     *
+     * @param url      The response URL.
+     * @param products The products of the response.
+     */
+    private void publish(String url, List<ProductInfo> products) {
+        lock.lock();
+        try {
+            captures.addLast(new Capture(++sequence, url, products));
+            if (captures.size() > RETAINED_CAPTURES) {
+                captures.removeFirst();
+            }
+            captured.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the fields used by the capture from the Network.responseReceived parameters.
+     *
+     * @param input The event parameters.
+     * @return The response.
+     */
+    private static Response readResponse(JsonInput input) {
+        String requestId = "";
+        String url = "";
+        int status = 0;
+        String mimeType = "";
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            if ("requestId".equals(name)) {
+                requestId = input.nextString();
+            } else if ("response".equals(name)) {
+                input.beginObject();
+                while (input.hasNext()) {
+                    switch (input.nextName()) {
+                        case "url" -> url = input.nextString();
+                        case "status" -> status = input.nextNumber().intValue();
+                        case "mimeType" -> mimeType = input.nextString();
+                        default -> input.skipValue();
+                    }
+                }
+                input.endObject();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return new Response(requestId, url, status, mimeType);
+    }
+
+    /**
+     * Reads the request id of the Network.loadingFinished and Network.loadingFailed parameters.
+     *
+     * @param input The event parameters.
+     * @return The request id.
+     */
+    static String readRequestId(JsonInput input) {
+        String requestId = "";
+        input.beginObject();
+        while (input.hasNext()) {
+            if ("requestId".equals(input.nextName())) {
+                requestId = input.nextString();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return requestId;
+    }
+
+    /**
+     * Decodes the products of the Network.getResponseBody result.
+     *
+     * @param input The command result.
+     * @return The products of the body.
+     */
+    private static List<ProductInfo> readBody(JsonInput input) {
+        String body = "";
+        boolean base64 = false;
+        input.beginObject();
+        while (input.hasNext()) {
+            switch (input.nextName()) {
+                case "body" -> body = input.nextString();
+                case "base64Encoded" -> base64 = input.nextBoolean();
+                default -> input.skipValue();
+            }
+        }
+        input.endObject();
+        Reader reader = base64
+                ? new InputStreamReader(Base64.getDecoder().wrap(
+                        new ByteArrayInputStream(body.getBytes(StandardCharsets.ISO_8859_1))), StandardCharsets.UTF_8)
+                : new StringReader(body);
+        return ProductJsonDecoder.decode(reader);
+    }
+}
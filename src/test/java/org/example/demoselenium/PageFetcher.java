@@ -0,0 +1,18 @@
+package org.example.demoselenium;
+
+import java.util.List;
+
+/**
+ * PageFetcher interface implemented by the ways of reading the products of a listing page:
+ * a lightweight HTTP fetch or a browser session.
+ */
+public interface PageFetcher {
+    /**
+     * Reads the products of a listing page.
+     *
+     * @param url URL of the listing page.
+     * @return The products of the page, empty if none were found.
+     * @throws Exception If the page cannot be read.
+     */
+    List<ProductInfo> fetch(String url) throws Exception;
+}
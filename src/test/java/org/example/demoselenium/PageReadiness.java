@@ -0,0 +1,350 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.ExpectedConditions;
+import org.openqa.selenium.support.ui.WebDriverWait;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * PageReadiness class waiting for concrete page signals instead of fixed delays.
+ * Each wait returns as soon as its signal is observed, so the scraper only spends
+ * the time the site really needs. Supported signals are:
+ * - a DOM-quiet window observed with a MutationObserver,
+ * - the number of in-flight fetch/XHR requests reaching zero,
+ * - the number of product tiles settling, or a page showing an empty state instead,
+ * - the product grid being replaced after a pagination, sort or filter,
+ * - the URL containing an expected fragment.
+ */
+public class PageReadiness {
+    // Default maximum time to wait for a signal
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    // Element shown instead of the product grid when a listing or a search has nothing to show
+    public static final String EMPTY_STATE =
+            "[data-testid=\"no-results\"], [data-testid=\"search-no-results\"], .search-no-results";
+
+    // Default DOM-quiet window
+    public static final Duration DEFAULT_QUIET = Duration.ofMillis(300);
+
+    // Polling interval of the waits
+    private static final Duration POLL = Duration.ofMillis(100);
+
+    // Script patching fetch and XHR to count the in-flight requests in window.__scrapeInflight
+    // and the completed ones in window.__scrapeCompleted
+    private static final String NETWORK_TRACKER_SCRIPT =
+            "if (window.__scrapeInflight === undefined) {" +
+            "  window.__scrapeInflight = 0;" +
+            "  window.__scrapeCompleted = 0;" +
+            "  const done = () => {" +
+            "    window.__scrapeInflight = Math.max(0, window.__scrapeInflight - 1);" +
+            "    window.__scrapeCompleted++;" +
+            "  };" +
+            "  const fetch0 = window.fetch;" +
+            "  if (fetch0) {" +
+            "    window.fetch = function() {" +
+            "      window.__scrapeInflight++;" +
+            "      return fetch0.apply(this, arguments).finally(done);" +
+            "    };" +
+            "  }" +
+            "  const send0 = XMLHttpRequest.prototype.send;" +
+            "  XMLHttpRequest.prototype.send = function() {" +
+            "    window.__scrapeInflight++;" +
+            "    this.addEventListener('loadend', done, {once: true});" +
+            "    return send0.apply(this, arguments);" +
+            "  };" +
+            "}";
+
+    // Async script resolving once no DOM mutation happened for arguments[0] ms, or after arguments[1] ms
+    private static final String DOM_QUIET_SCRIPT =
+            "const quiet = arguments[0], timeout = arguments[1], callback = arguments[arguments.length - 1];" +
+            "const start = Date.now();" +
+            "let timer;" +
+            "const observer = new MutationObserver(() => arm());" +
+            "const finish = quietReached => { observer.disconnect(); clearTimeout(timer); callback(quietReached); };" +
+            "const arm = () => {" +
+            "  clearTimeout(timer);" +
+            "  const left = timeout - (Date.now() - start);" +
+            "  if (left <= 0) { finish(false); return; }" +
+            "  timer = setTimeout(() => finish(true), Math.min(quiet, left));" +
+            "};" +
+            "observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "arm();";
+
+    // Script returning the titles of the product tiles in page order, a signature of the grid content
+    private static final String GRID_SIGNATURE_SCRIPT =
+            "return Array.from(document.querySelectorAll('div.chakra-linkbox'), tile => {" +
+            "  const title = tile.querySelector('[data-testid=\"product-title\"]');" +
+            "  return title ? title.textContent : '';" +
+            "}).join('\\n');";
+
+    // Script returning whether a tracked request completed since the mark, given as arguments[0], and none is in flight
+    private static final String REQUESTS_DONE_SCRIPT =
+            "return (window.__scrapeCompleted || 0) > arguments[0] && (window.__scrapeInflight || 0) === 0;";
+
+    /**
+     * GridMark record holding the state of the product grid before an in-page navigation.
+     *
+     * @param firstTile The first product tile, null if the grid was empty.
+     * @param signature The titles of the tiles in page order.
+     * @param completed The number of tracked requests completed so far.
+     */
+    public record GridMark(WebElement firstTile, String signature, long completed) {
+    }
+
+    // WebDriver instance the signals are observed on
+    private final WebDriver driver;
+
+    /**
+     * Creates a readiness helper bound to the given WebDriver instance.
+     *
+     * @param driver The WebDriver instance, it must implement JavascriptExecutor.
+     */
+    public PageReadiness(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Installs the fetch/XHR tracker in the current document. It is a no-op if already installed,
+     * and must be called again after a full page load since the tracker lives in the document.
+     */
+    public void trackNetwork() {
+        js().executeScript(NETWORK_TRACKER_SCRIPT);
+    }
+
+    /**
+     * Waits until the document is loaded and no tracked fetch/XHR request is in flight.
+     *
+     * @param timeout Maximum time to wait.
+     */
+    public void waitForNetworkIdle(Duration timeout) {
+        trackNetwork();
+        wait(timeout).until(d -> Boolean.TRUE.equals(js().executeScript(
+                "return document.readyState === 'complete' && (window.__scrapeInflight || 0) === 0;")));
+    }
+
+    /**
+     * Waits until the DOM did not change for the given quiet window.
+     *
+     * @param quiet   Duration without any DOM mutation.
+     * @param timeout Maximum time to wait.
+     * @return true if the quiet window was observed, false if the timeout was reached first.
+     */
+    public boolean waitForDomQuiet(Duration quiet, Duration timeout) {
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        Duration previous = timeouts.getScriptTimeout();
+        Duration needed = timeout.plusSeconds(1);
+        if (previous.compareTo(needed) < 0) {
+            timeouts.scriptTimeout(needed);
+        }
+        try {
+            Object quietReached = js().executeAsyncScript(DOM_QUIET_SCRIPT, quiet.toMillis(), timeout.toMillis());
+            return Boolean.TRUE.equals(quietReached);
+        } finally {
+            if (previous.compareTo(needed) < 0) {
+                timeouts.scriptTimeout(previous);
+            }
+        }
+    }
+
+    /**
+     * Waits until the product grid has at least one tile and its tile count stopped changing.
+     *
+     * @param timeout Maximum time to wait.
+     * @return The settled number of tiles.
+     */
+    public int waitForGridSettled(Duration timeout) {
+        int[] last = {-1};
+        return wait(timeout).until(d -> {
+            int count = ((Number) js().executeScript(
+                    "return document.querySelectorAll('div.chakra-linkbox').length;")).intValue();
+            boolean settled = count > 0 && count == last[0];
+            last[0] = count;
+            return settled ? count : null;
+        });
+    }
+
+    /**
+     * Waits until the product grid has at least one tile and its tile count stopped changing,
+     * or the page shows the given empty state without any tile, e.g. a search without results.
+     * A page showing neither is not taken as empty: the wait times out.
+     *
+     * @param emptyState CSS selector of the element shown instead of the grid when there is nothing to list.
+     * @param timeout    Maximum time to wait.
+     * @return The settled number of tiles, 0 if the empty state is shown.
+     */
+    public int waitForGridSettledOrEmpty(String emptyState, Duration timeout) {
+        int[] last = {-1};
+        return wait(timeout).until(d -> {
+            int count = ((Number) js().executeScript(
+                    "return document.querySelector(arguments[0]) && !document.querySelector('div.chakra-linkbox')"
+                            + " ? 0 : document.querySelectorAll('div.chakra-linkbox').length || -1;", emptyState)).intValue();
+            if (count == 0) {
+                return 0;
+            }
+            boolean settled = count > 0 && count == last[0];
+            last[0] = count;
+            return settled ? count : null;
+        });
+    }
+
+    /**
+     * Waits until the current URL contains the given fragment.
+     *
+     * @param fragment The expected URL fragment.
+     * @param timeout  Maximum time to wait.
+     */
+    public void waitForUrlContains(String fragment, Duration timeout) {
+        wait(timeout).until(ExpectedConditions.urlContains(fragment));
+    }
+
+    /**
+     * Waits until an element is visible, for instance a submenu after a hover.
+     *
+     * @param element The element to wait for.
+     * @param timeout Maximum time to wait.
+     * @return The visible element.
+     */
+    public WebElement waitForVisible(WebElement element, Duration timeout) {
+        return wait(timeout).until(ExpectedConditions.visibilityOf(element));
+    }
+
+    /**
+     * Waits until the element located by the given locator is visible.
+     *
+     * @param locator The element locator.
+     * @param timeout Maximum time to wait.
+     * @return The visible element.
+     */
+    public WebElement waitForVisible(By locator, Duration timeout) {
+        return wait(timeout).until(ExpectedConditions.visibilityOfElementLocated(locator));
+    }
+
+    /**
+     * Records the product grid before a navigation triggered inside the page (pagination, sort, filter),
+     * and installs the fetch/XHR tracker so that the request fired by the trigger is counted.
+     * It must be called before the trigger, the result is then given to waitForGridUpdate.
+     *
+     * @return The state of the grid.
+     */
+    public GridMark markGrid() {
+        trackNetwork();
+        WebElement firstTile = withoutImplicitWait(() -> findOptional(driver, By.cssSelector("div.chakra-linkbox")))
+                .orElse(null);
+        Object completed = js().executeScript("return window.__scrapeCompleted || 0;");
+        return new GridMark(firstTile, gridSignature(), ((Number) completed).longValue());
+    }
+
+    /**
+     * Waits for a navigation triggered inside the page (pagination, sort, filter) to be complete:
+     * the grid recorded before the trigger replaced, or a request completed since the trigger with
+     * none left in flight, then network idle, a short DOM-quiet window and the product grid settled.
+     * Without the first wait, the old grid would pass the other ones. The request signal covers the
+     * navigations which leave the tiles as they were, e.g. sorting an already sorted list; if neither
+     * signal shows up in time, the other checks run anyway.
+     *
+     * @param mark    The state of the grid recorded by markGrid before the trigger.
+     * @param timeout Maximum time to wait for each signal.
+     */
+    public void waitForGridUpdate(GridMark mark, Duration timeout) {
+        try {
+            wait(timeout).until(d -> isReplaced(mark) || Boolean.TRUE.equals(
+                    js().executeScript(REQUESTS_DONE_SCRIPT, mark.completed())) ? Boolean.TRUE : null);
+        } catch (TimeoutException e) {
+            // nothing changed and no request was made, the grid is still checked below
+        }
+        waitForNetworkIdle(timeout);
+        waitForDomQuiet(DEFAULT_QUIET, timeout);
+        waitForGridSettled(timeout);
+    }
+
+    /**
+     * Runs a pass of lookups with the implicit wait disabled, e.g. the extraction of the tiles of a
+     * settled grid, so that the optional elements looked up with findOptional are reported absent
+     * right away. The implicit wait is read, cleared and restored once for the whole pass.
+     *
+     * @param pass The lookups.
+     * @param <T>  The type of the result.
+     * @return The result of the pass.
+     */
+    public <T> T withoutImplicitWait(Supplier<T> pass) {
+        WebDriver.Timeouts timeouts = driver.manage().timeouts();
+        Duration implicitWait = timeouts.getImplicitWaitTimeout();
+        timeouts.implicitlyWait(Duration.ZERO);
+        try {
+            return pass.get();
+        } finally {
+            timeouts.implicitlyWait(implicitWait);
+        }
+    }
+
+    /**
+     * Looks up an optional element with a single command. Within withoutImplicitWait an absent
+     * element is reported right away, otherwise the lookup sits out the implicit wait.
+     *
+     * @param context The element or driver to search in.
+     * @param locator The element locator.
+     * @return The element, or empty if it is absent.
+     */
+    public Optional<WebElement> findOptional(SearchContext context, By locator) {
+        List<WebElement> found = context.findElements(locator);
+        return found.isEmpty() ? Optional.empty() : Optional.of(found.get(0));
+    }
+
+    /**
+     * Checks whether the grid recorded before a navigation was replaced: its first tile is
+     * detached from the document, or the tiles show other products.
+     *
+     * @param mark The state of the grid before the navigation.
+     * @return true if the grid was replaced.
+     */
+    private boolean isReplaced(GridMark mark) {
+        if (mark.firstTile() != null) {
+            try {
+                mark.firstTile().isEnabled();
+            } catch (StaleElementReferenceException e) {
+                return true;
+            }
+        }
+        return !gridSignature().equals(mark.signature());
+    }
+
+    /**
+     * Reads the signature of the product grid.
+     *
+     * @return The titles of the tiles in page order.
+     */
+    private String gridSignature() {
+        return String.valueOf(js().executeScript(GRID_SIGNATURE_SCRIPT));
+    }
+
+    /**
+     * Creates a WebDriverWait polling at the readiness interval.
+     *
+     * @param timeout Maximum time to wait.
+     * @return The wait.
+     */
+    private WebDriverWait wait(Duration timeout) {
+        WebDriverWait wait = new WebDriverWait(driver, timeout);
+        wait.pollingEvery(POLL);
+        return wait;
+    }
+
+    /**
+     * Returns the driver as a JavascriptExecutor.
+     *
+     * @return The JavascriptExecutor.
+     */
+    private JavascriptExecutor js() {
+        return (JavascriptExecutor) driver;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.interactions.Sequence;
+import org.openqa.selenium.support.events.EventFiringDecorator;
+import org.openqa.selenium.support.events.WebDriverListener;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * PageSnapshot class numbering the "generations" of the page a driver shows, so that page
+ * models can keep the elements they resolved until the page changes.
+ * The generation is increased right away on navigation (get, to, back, forward, refresh).
+ * Calls which may change the page without a navigation (clicks, key presses, actions,
+ * scripts, window switches) only mark the snapshot as dirty: the next lookup runs a single
+ * check script comparing the URL and markers left on the window, the body and the first
+ * product tile, and the generation is increased if any of them changed (DOM swap).
+ * An instance belongs to a single driver and is not thread-safe.
+ */
+public class PageSnapshot implements WebDriverListener {
+    // Script comparing the markers with arguments[0], marking the page again, and returning [url, unchanged]
+    private static final String CHECK_SCRIPT =
+            "const token = arguments[0];" +
+            "const tile = document.querySelector('div.chakra-linkbox');" +
+            "const unchanged = window.__scrapeSnapshot === token" +
+            "  && document.body.dataset.scrapeSnapshot === token" +
+            "  && (!tile || tile.dataset.scrapeSnapshot === token);" +
+            "window.__scrapeSnapshot = token;" +
+            "document.body.dataset.scrapeSnapshot = token;" +
+            "if (tile) tile.dataset.scrapeSnapshot = token;" +
+            "return [location.href, unchanged];";
+
+    // Marker value of this snapshot, distinct from the markers of other snapshots on the same page
+    private final String token = UUID.randomUUID().toString();
+
+    // Driver the check script runs on, the decorated one
+    private WebDriver driver;
+
+    // Current generation
+    private long generation;
+
+    // Whether the page may have changed since the last check
+    private boolean dirty = true;
+
+    // URL seen by the last check
+    private String lastUrl = "";
+
+    // Number of generations started because a check found the page changed
+    private long swaps;
+
+    /**
+     * Decorates a driver so that its navigations and interactions are tracked by this snapshot.
+     *
+     * @param driver The driver to decorate.
+     * @return The decorated driver, to be used for every call.
+     */
+    public WebDriver decorate(WebDriver driver) {
+        this.driver = new EventFiringDecorator<>(this).decorate(driver);
+        return this.driver;
+    }
+
+    /**
+     * Returns the current generation, checking the page first if it may have changed.
+     *
+     * @return The current generation.
+     */
+    public long generation() {
+        if (dirty && driver != null) {
+            dirty = false;
+            List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(CHECK_SCRIPT, token);
+            String url = String.valueOf(result.get(0));
+            if (!Boolean.TRUE.equals(result.get(1)) || !url.equals(lastUrl)) {
+                generation++;
+                swaps++;
+            }
+            lastUrl = url;
+        }
+        return generation;
+    }
+
+    /**
+     * Starts a new generation, every cached element is resolved again.
+     */
+    public void invalidate() {
+        generation++;
+        dirty = true;
+    }
+
+    /**
+     * Returns the number of generations started because a check found the page changed.
+     *
+     * @return The number of detected page changes.
+     */
+    public long swaps() {
+        return swaps;
+    }
+
+    @Override
+    public void afterGet(WebDriver driver, String url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterTo(WebDriver.Navigation navigation, String url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterTo(WebDriver.Navigation navigation, URL url) {
+        invalidate();
+    }
+
+    @Override
+    public void afterBack(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterForward(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterRefresh(WebDriver.Navigation navigation) {
+        invalidate();
+    }
+
+    @Override
+    public void afterClick(WebElement element) {
+        dirty = true;
+    }
+
+    @Override
+    public void afterSubmit(WebElement element) {
+        dirty = true;
+    }
+
+    @Override
+    public void afterSendKeys(WebElement element, CharSequence... keysToSend) {
+        dirty = true;
+    }
+
+    @Override
+    public void afterPerform(WebDriver driver, Collection<Sequence> actions) {
+        dirty = true;
+    }
+
+    @Override
+    public void afterExecuteScript(WebDriver driver, String script, Object[] args, Object result) {
+        // the check script only sets markers
+        if (!CHECK_SCRIPT.equals(script)) {
+            dirty = true;
+        }
+    }
+
+    @Override
+    public void afterExecuteAsyncScript(WebDriver driver, String script, Object[] args, Object result) {
+        dirty = true;
+    }
+
+    @Override
+    public void afterAnyWebDriverCall(WebDriver driver, Method method, Object[] args, Object result) {
+        if (method.getName().equals("switchTo")) {
+            dirty = true;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * PageSnapshotTest class containing test cases for the PageSnapshot and SnapshotFieldDecorator classes.
+ * A stub driver stands in for the browser and counts the commands it receives: a page lists
+ * TILES product tiles, and clicking a tile swaps the DOM without a navigation.
+ */
+public class PageSnapshotTest {
+    // Product tiles listed by the page
+    private static final int TILES = 5;
+
+    // URL of the page
+    private static final String URL = "https://www.zehrs.ca/food/drinks/juice/c/28229";
+
+    /**
+     * StubPage class simulating a page whose elements go stale when its DOM is swapped.
+     */
+    private static final class StubPage {
+        // The driver proxy
+        private final WebDriver driver;
+
+        // Number of commands received by the driver and its elements
+        private int commands;
+
+        // Version of the DOM, increased by a swap
+        private int version;
+
+        // Marker left by the check script of a snapshot, lost on a swap
+        private Object marker;
+
+        /**
+         * Creates a page.
+         */
+        StubPage() {
+            driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {WebDriver.class, JavascriptExecutor.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "findElements" -> {
+                            commands++;
+                            List<WebElement> tiles = new ArrayList<>();
+                            for (int i = 0; i < TILES; i++) {
+                                tiles.add(tile(version, i));
+                            }
+                            yield tiles;
+                        }
+                        case "executeScript" -> {
+                            commands++;
+                            Object token = ((Object[]) args[1])[0];
+                            boolean unchanged = token.equals(marker);
+                            marker = token;
+                            yield List.of(URL, unchanged);
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "StubPage";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        /**
+         * Creates a product tile of the given DOM version.
+         *
+         * @param tileVersion The DOM version the tile belongs to.
+         * @param index       The index of the tile.
+         * @return The tile.
+         */
+        private WebElement tile(int tileVersion, int index) {
+            return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {WebElement.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "getText" -> {
+                            commands++;
+                            if (tileVersion != version) {
+                                throw new StaleElementReferenceException("Tile " + index + " is gone");
+                            }
+                            yield "Product " + index + " v" + version;
+                        }
+                        case "click" -> {
+                            commands++;
+                            swap();
+                            yield null;
+                        }
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "Tile " + index;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        /**
+         * Replaces the DOM without a navigation, the elements found so far go stale.
+         */
+        void swap() {
+            version++;
+            marker = null;
+        }
+    }
+
+    /**
+     * Reads the text of every product tile through a page model, accessing the product list by index.
+     *
+     * @param page The page model.
+     * @return The texts.
+     */
+    private static List<String> readProducts(MainPage page) {
+        List<String> texts = new ArrayList<>();
+        int tiles = page.products.size();
+        for (int i = 0; i < tiles; i++) {
+            texts.add(page.products.get(i).getText());
+        }
+        return texts;
+    }
+
+    /**
+     * The plain PageFactory list looks the tiles up again on every access, the snapshot page model
+     * looks them up once per generation.
+     */
+    @Test
+    public void readsProductListWithFewerCommands() {
+        StubPage stub = new StubPage();
+        PageSnapshot snapshot = new PageSnapshot();
+        WebDriver driver = snapshot.decorate(stub.driver);
+
+        readProducts(new MainPage(driver));
+        // one lookup for size(), then one lookup and one getText per tile
+        assertEquals(1 + 2 * TILES, stub.commands);
+
+        stub.commands = 0;
+        MainPage cached = new MainPage(driver, snapshot);
+        readProducts(cached);
+        // one check script, one lookup, one getText per tile
+        assertEquals(2 + TILES, stub.commands);
+
+        stub.commands = 0;
+        readProducts(cached);
+        assertEquals(TILES, stub.commands);
+    }
+
+    /**
+     * A click marks the page as possibly changed, and the check script finds the DOM swapped.
+     */
+    @Test
+    public void detectsDomSwapAfterClick() {
+        StubPage stub = new StubPage();
+        PageSnapshot snapshot = new PageSnapshot();
+        MainPage page = new MainPage(snapshot.decorate(stub.driver), snapshot);
+
+        assertEquals("Product 0 v0", readProducts(page).get(0));
+        page.products.get(1).click();
+        assertEquals("Product 0 v1", readProducts(page).get(0));
+        // the first check finds no marker yet, the second one the swapped DOM
+        assertEquals(2, snapshot.swaps());
+    }
+
+    /**
+     * A DOM swap the snapshot did not see makes the cached tile stale, the call is retried once
+     * on the tile looked up again.
+     */
+    @Test
+    public void retriesStaleElement() {
+        StubPage stub = new StubPage();
+        PageSnapshot snapshot = new PageSnapshot();
+        MainPage page = new MainPage(snapshot.decorate(stub.driver), snapshot);
+        readProducts(page);
+
+        stub.swap();
+        assertEquals(List.of("Product 0 v1", "Product 1 v1", "Product 2 v1", "Product 3 v1", "Product 4 v1"),
+                readProducts(page));
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.demoselenium;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * ParallelCategoryScraper class fanning a list of category URLs out across a DriverPool.
+ * Each category is loaded on its own leased session and its tiles are read with the
+ * ProductExtractor. Results are merged back in the order of the given URLs.
+ */
+public class ParallelCategoryScraper {
+    // Pool of sessions the categories are loaded on
+    private final DriverPool pool;
+
+    // Fetcher loading the categories on the pool sessions
+    private final BrowserPageFetcher fetcher;
+
+    /**
+     * Creates a scraper on the given pool.
+     *
+     * @param pool       Pool of sessions the categories are loaded on.
+     * @param maxPerPage Maximum number of products extracted per category, 0 for no limit.
+     */
+    public ParallelCategoryScraper(DriverPool pool, int maxPerPage) {
+        this.pool = pool;
+        this.fetcher = new BrowserPageFetcher(pool, maxPerPage);
+    }
+
+    /**
+     * Returns the number of categories scraped concurrently: the pool size, bounded by the CPU cores.
+     *
+     * @return The parallelism.
+     */
+    public int parallelism() {
+        return Math.max(1, Math.min(pool.size(), Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Scrapes every category in parallel.
+     *
+     * @param categoryUrls URLs of the category pages.
+     * @return The products of each category, keyed by URL in the given order.
+     * @throws InterruptedException If the thread is interrupted while waiting for the results.
+     */
+    public Map<String, List<ProductInfo>> scrape(List<String> categoryUrls) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism());
+        try {
+            Map<String, Future<List<ProductInfo>>> futures = new LinkedHashMap<>();
+            for (String url : categoryUrls) {
+                // a category listed twice is scraped once
+                futures.computeIfAbsent(url, key -> executor.submit(() -> fetcher.fetch(key)));
+            }
+            Map<String, List<ProductInfo>> results = new LinkedHashMap<>();
+            for (Map.Entry<String, Future<List<ProductInfo>>> entry : futures.entrySet()) {
+                try {
+                    results.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Failed to scrape " + entry.getKey(), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Scrapes every category in parallel and merges the products into a single list.
+     *
+     * @param categoryUrls URLs of the category pages.
+     * @return The products of all the categories, in the order of the given URLs.
+     * @throws InterruptedException If the thread is interrupted while waiting for the results.
+     */
+    public List<ProductInfo> scrapeMerged(List<String> categoryUrls) throws InterruptedException {
+        List<ProductInfo> merged = new ArrayList<>();
+        scrape(categoryUrls).values().forEach(merged::addAll);
+        return merged;
+    }
+
+    /**
+     * Scrapes every category in parallel and hands the products of each category
+     * off to the sink as soon as they are extracted.
+     *
+     * @param categoryUrls URLs of the category pages.
+     * @param sink         Sink the products are written to.
+     * @return The number of products submitted to the sink.
+     * @throws IOException          If the sink failed.
+     * @throws InterruptedException If the thread is interrupted while waiting for the results.
+     */
+    public int scrapeInto(List<String> categoryUrls, AsyncCsvSink sink) throws IOException, InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism());
+        try {
+            Map<String, Future<Integer>> futures = new LinkedHashMap<>();
+            for (String url : categoryUrls) {
+                // a category listed twice is scraped and written once
+                futures.computeIfAbsent(url, key -> executor.submit(() -> {
+                    List<ProductInfo> products = fetcher.fetch(key);
+                    sink.submitAll(products);
+                    return products.size();
+                }));
+            }
+            int submitted = 0;
+            for (Map.Entry<String, Future<Integer>> entry : futures.entrySet()) {
+                try {
+                    submitted += entry.getValue().get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    throw new IllegalStateException("Failed to scrape " + entry.getKey(), e.getCause());
+                }
+            }
+            return submitted;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+}
@@ -0,0 +1,303 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * PipelinedPaginator class walking the pages of a listing while the next pages load in other tabs.
+ * While page N is extracted, pages N+1 to N+depth are opened in background tabs with their page= URL,
+ * then the driver swaps to the tab of page N+1, which is usually loaded already, and closes the tab of page N.
+ * The browser loads the prefetched tabs while the driver extracts the current one, so a page costs
+ * about max(load, extract) instead of their sum.
+ * Every open tab holds a renderer, so the prefetch depth is bounded by a memory budget: the cost of a
+ * tab is estimated from the JavaScript heap of the pages seen so far plus a fixed renderer overhead.
+ * With a depth of 0 the pages are loaded one after the other in the current tab.
+ * If an AdaptiveLimiter is given, every load holds a permit of the host, from the opening of its
+ * tab until the page is ready, and the depth is also bounded by the limit of the host. The latency
+ * recorded for a prefetch ends when its page finished loading, as timed by the browser, not when
+ * it is swapped to, so that the extraction of the pages ahead of it does not count as site slowness.
+ * Background tabs are throttled by Chrome unless it runs with CHROME_ARGUMENTS.
+ */
+public class PipelinedPaginator {
+    // Chrome arguments letting the background tabs load and run their scripts at full speed
+    public static final List<String> CHROME_ARGUMENTS = List.of("--disable-background-timer-throttling",
+            "--disable-renderer-backgrounding", "--disable-backgrounding-occluded-windows");
+
+    // Memory of a renderer besides the JavaScript heap of its page
+    private static final long RENDERER_OVERHEAD_BYTES = 40L * 1024 * 1024;
+
+    // Script returning the milliseconds since the page finished loading, the listing responses included, -1 if not loaded
+    private static final String LOADED_AGO_SCRIPT =
+            "const nav = performance.getEntriesByType('navigation')[0];" +
+            "if (!nav || nav.loadEventEnd === 0) { return -1; }" +
+            "let end = nav.loadEventEnd;" +
+            "for (const r of performance.getEntriesByType('resource')) { end = Math.max(end, r.responseEnd); }" +
+            "return Math.max(0, performance.now() - end);";
+
+    // Script reading the JavaScript heap of the page, Chrome only
+    private static final String JS_HEAP_SCRIPT =
+            "return performance.memory ? performance.memory.usedJSHeapSize : null;";
+
+    /**
+     * PageHandler interface extracting the page shown by the driver.
+     */
+    @FunctionalInterface
+    public interface PageHandler {
+        /**
+         * Extracts the current page.
+         *
+         * @param page The page number, from 1.
+         * @param url  The page URL.
+         * @throws IOException If the extracted data cannot be written.
+         */
+        void extract(int page, String url) throws IOException;
+    }
+
+    /**
+     * Tab record describing a prefetched page.
+     *
+     * @param page   The page number.
+     * @param handle The window handle of its tab.
+     * @param permit The limiter permit held while the page loads, null without limiter.
+     */
+    private record Tab(int page, String handle, AdaptiveLimiter.Permit permit) {
+    }
+
+    // WebDriver instance, possibly decorated
+    private final WebDriver driver;
+
+    // Element showing that a page is ready to be extracted, e.g. the product grid
+    private final By readyLocator;
+
+    // Maximum number of prefetched pages
+    private final int maxDepth;
+
+    // Memory the prefetched tabs may take, in bytes
+    private final long memoryBudgetBytes;
+
+    // Metrics the waits are recorded to
+    private final ScrapeMetrics metrics;
+
+    // Limiter of the page loads, null for none
+    private final AdaptiveLimiter limiter;
+
+    // PageReadiness instance waiting for the swapped tabs
+    private final PageReadiness readiness;
+
+    // Estimated memory of a tab, the largest seen so far
+    private long tabBytes = RENDERER_OVERHEAD_BYTES;
+
+    /**
+     * Creates a paginator.
+     *
+     * @param driver            The WebDriver instance.
+     * @param readyLocator      Element showing that a page is ready to be extracted, e.g. the product grid.
+     * @param maxDepth          Maximum number of prefetched pages, 0 to load the pages one after the other.
+     * @param memoryBudgetBytes Memory the prefetched tabs may take, in bytes.
+     * @param metrics           Metrics the waits are recorded to.
+     * @param limiter           Limiter of the page loads, null for none.
+     */
+    public PipelinedPaginator(WebDriver driver, By readyLocator, int maxDepth, long memoryBudgetBytes,
+                              ScrapeMetrics metrics, AdaptiveLimiter limiter) {
+        this.driver = driver;
+        this.readyLocator = readyLocator;
+        this.maxDepth = maxDepth;
+        this.memoryBudgetBytes = memoryBudgetBytes;
+        this.metrics = metrics;
+        this.limiter = limiter;
+        this.readiness = new PageReadiness(driver);
+    }
+
+    /**
+     * Returns the number of pages prefetched for the next page, given the memory budget.
+     *
+     * @return The prefetch depth, between 0 and the maximum depth.
+     */
+    public int depth() {
+        return (int) Math.min(maxDepth, memoryBudgetBytes / tabBytes);
+    }
+
+    /**
+     * Returns the estimated memory of a tab.
+     *
+     * @return The estimate in bytes.
+     */
+    public long tabBytes() {
+        return tabBytes;
+    }
+
+    /**
+     * Extracts the pages of the listing shown by the current tab, which must be on its first page.
+     * Like every other page, the first one is only extracted once the ready element is visible.
+     * When done, the prefetched tabs are closed and the driver is back on the first tab.
+     *
+     * @param pages   The number of pages to extract.
+     * @param handler Extracts each page.
+     * @return The number of pages extracted.
+     * @throws IOException If the handler fails to write a page.
+     */
+    public int crawl(int pages, PageHandler handler) throws IOException {
+        String home = driver.getWindowHandle();
+        String firstUrl = driver.getCurrentUrl();
+        Deque<Tab> prefetched = new ArrayDeque<>();
+        Set<String> opened = new HashSet<>();
+        int extracted = 0;
+        int next = 2;
+        try {
+            if (pages > 0) {
+                readiness.waitForVisible(readyLocator, PageReadiness.DEFAULT_TIMEOUT);
+            }
+            for (int page = 1; page <= pages; page++) {
+                measureTab();
+                int depth = depth();
+                if (limiter != null) {
+                    // the prefetches hold their permits until they are swapped to, more would wait on themselves
+                    depth = Math.min(depth, limiter.limit(CrawlScheduler.hostOf(firstUrl)));
+                }
+                metrics.gauge("prefetch_depth", depth);
+                // the next loads start before the extraction, so they overlap with it
+                while (prefetched.size() < depth && next <= pages) {
+                    String url = CrawlScheduler.withPage(firstUrl, next);
+                    AdaptiveLimiter.Permit permit = acquire(url);
+                    String handle;
+                    try {
+                        handle = open(url);
+                    } catch (RuntimeException e) {
+                        release(permit);
+                        throw e;
+                    }
+                    opened.add(handle);
+                    prefetched.add(new Tab(next++, handle, permit));
+                }
+                handler.extract(page, driver.getCurrentUrl());
+                extracted++;
+                if (page == pages) {
+                    break;
+                }
+
+                Tab tab = prefetched.poll();
+                if (tab == null) {
+                    // no room for a prefetch, the next page is loaded in place
+                    String url = CrawlScheduler.withPage(firstUrl, page + 1);
+                    try (AdaptiveLimiter.Permit permit = acquire(url)) {
+                        metrics.time("page_load", () -> {
+                            driver.get(url);
+                            readiness.waitForVisible(readyLocator, PageReadiness.DEFAULT_TIMEOUT);
+                        });
+                        if (permit != null) {
+                            permit.success();
+                        }
+                    }
+                    next = Math.max(next, page + 2);
+                    continue;
+                }
+                try (AdaptiveLimiter.Permit permit = tab.permit()) {
+                    String current = driver.getWindowHandle();
+                    if (!current.equals(home)) {
+                        driver.close();
+                        opened.remove(current);
+                    }
+                    driver.switchTo().window(tab.handle());
+                    metrics.increment("pages_prefetched");
+                    // usually immediate, the page loaded during the extraction
+                    metrics.time("prefetch_wait", () -> readiness.waitForVisible(readyLocator, PageReadiness.DEFAULT_TIMEOUT));
+                    if (permit != null) {
+                        markLoadEnd(permit);
+                        permit.success();
+                    }
+                }
+            }
+        } finally {
+            // the prefetches not swapped to count as failed loads
+            prefetched.forEach(tab -> release(tab.permit()));
+            for (String handle : opened) {
+                if (driver.getWindowHandles().contains(handle)) {
+                    driver.switchTo().window(handle);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(home);
+        }
+        return extracted;
+    }
+
+    /**
+     * Waits for a limiter permit for a page load.
+     *
+     * @param url The URL about to be loaded.
+     * @return The permit, null without limiter.
+     * @throws IllegalStateException If the thread is interrupted while waiting.
+     */
+    private AdaptiveLimiter.Permit acquire(String url) {
+        if (limiter == null) {
+            return null;
+        }
+        try {
+            return limiter.acquire(url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a page load slot", e);
+        }
+    }
+
+    /**
+     * Sets the end of a prefetch permit to the time its page finished loading, read from the
+     * Performance API of the current tab. Left unset if the page is still loading.
+     *
+     * @param permit The permit of the current tab.
+     */
+    private void markLoadEnd(AdaptiveLimiter.Permit permit) {
+        long now = System.nanoTime();
+        Object ago = ((JavascriptExecutor) driver).executeScript(LOADED_AGO_SCRIPT);
+        if (ago instanceof Number millis && millis.doubleValue() >= 0) {
+            permit.endedAt(now - (long) (millis.doubleValue() * 1_000_000));
+        }
+    }
+
+    /**
+     * Releases a permit whose load did not complete.
+     *
+     * @param permit The permit, null without limiter.
+     */
+    private static void release(AdaptiveLimiter.Permit permit) {
+        if (permit != null) {
+            permit.close();
+        }
+    }
+
+    /**
+     * Opens a URL in a new background tab, the driver stays on the current tab and does not wait for the load.
+     *
+     * @param url The URL.
+     * @return The window handle of the new tab.
+     * @throws IllegalStateException If no tab was opened, e.g. when a popup blocker is on.
+     */
+    private String open(String url) {
+        Set<String> before = driver.getWindowHandles();
+        ((JavascriptExecutor) driver).executeScript("window.open(arguments[0], '_blank');", url);
+        Set<String> added = new HashSet<>(driver.getWindowHandles());
+        added.removeAll(before);
+        if (added.size() != 1) {
+            throw new IllegalStateException("No tab was opened for " + url);
+        }
+        return added.iterator().next();
+    }
+
+    /**
+     * Updates the estimated memory of a tab from the JavaScript heap of the current page.
+     */
+    private void measureTab() {
+        Object heap = ((JavascriptExecutor) driver).executeScript(JS_HEAP_SCRIPT);
+        if (heap instanceof Number bytes) {
+            tabBytes = Math.max(tabBytes, RENDERER_OVERHEAD_BYTES + bytes.longValue());
+        }
+    }
+}
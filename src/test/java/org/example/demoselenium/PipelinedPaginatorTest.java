@@ -0,0 +1,255 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PipelinedPaginatorTest class containing test cases for the PipelinedPaginator class.
+ * A stub driver stands in for the browser: every page takes LOAD_MILLIS to load, in the
+ * foreground or in a background tab, so these tests do not need a browser.
+ */
+public class PipelinedPaginatorTest {
+    // Time a page takes to load
+    private static final long LOAD_MILLIS = 300;
+
+    // Time the handler takes to extract a page
+    private static final long EXTRACT_MILLIS = 300;
+
+    // Number of pages crawled
+    private static final int PAGES = 5;
+
+    // First page of the listing
+    private static final String FIRST_URL = "https://www.zehrs.ca/food/drinks/juice/c/28229";
+
+    // Element showing that a page is loaded
+    private static final By READY = By.cssSelector("[data-testid=\"product-grid\"]");
+
+    /**
+     * StubBrowser class simulating the tabs of a browser whose pages load in LOAD_MILLIS.
+     */
+    private static final class StubBrowser {
+        // Tabs by window handle: URL and time the page is loaded at, in nanoseconds
+        private final Map<String, Object[]> tabs = new LinkedHashMap<>();
+
+        // Window handle of the current tab
+        private String current;
+
+        // Number of tabs opened so far, used to name the handles
+        private int opened;
+
+        // The driver proxy
+        private final WebDriver driver;
+
+        /**
+         * Creates a browser whose first tab starts loading the given URL.
+         *
+         * @param url The URL of the first tab.
+         */
+        StubBrowser(String url) {
+            current = openTab(url);
+            driver = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {WebDriver.class, JavascriptExecutor.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "get" -> {
+                            // like a real driver, get returns once the page is loaded
+                            Thread.sleep(LOAD_MILLIS);
+                            tabs.put(current, new Object[] {args[0], System.nanoTime()});
+                            yield null;
+                        }
+                        case "getCurrentUrl" -> tabs.get(current)[0];
+                        case "getWindowHandle" -> current;
+                        case "getWindowHandles" -> new LinkedHashSet<>(tabs.keySet());
+                        case "close" -> {
+                            tabs.remove(current);
+                            yield null;
+                        }
+                        case "switchTo" -> targetLocator(proxy);
+                        case "findElement" -> {
+                            if (!isLoaded()) {
+                                throw new NoSuchElementException("Page still loading");
+                            }
+                            yield element();
+                        }
+                        case "findElements" -> isLoaded() ? List.of(element()) : List.of();
+                        case "executeScript" -> executeScript((String) args[0], (Object[]) args[1]);
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "StubBrowser";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        /**
+         * Tells whether the page of the current tab is loaded.
+         *
+         * @return true if the page is loaded.
+         */
+        boolean isLoaded() {
+            return System.nanoTime() >= (long) tabs.get(current)[1];
+        }
+
+        /**
+         * Opens a tab which starts loading a URL.
+         *
+         * @param url The URL.
+         * @return The window handle of the tab.
+         */
+        private String openTab(String url) {
+            String handle = "tab-" + opened++;
+            tabs.put(handle, new Object[] {url, System.nanoTime() + LOAD_MILLIS * 1_000_000});
+            return handle;
+        }
+
+        /**
+         * Runs the scripts of the paginator: opening a tab, reading the JavaScript heap and the load time.
+         *
+         * @param script The script.
+         * @param args   The script arguments.
+         * @return The script result.
+         */
+        private Object executeScript(String script, Object[] args) {
+            if (script.contains("window.open")) {
+                openTab((String) args[0]);
+                return null;
+            }
+            if (script.contains("usedJSHeapSize")) {
+                return 10L * 1024 * 1024;
+            }
+            return -1L;
+        }
+
+        /**
+         * Creates the target locator switching to a tab.
+         *
+         * @param driver The driver proxy, returned by window.
+         * @return The target locator.
+         */
+        private WebDriver.TargetLocator targetLocator(Object driver) {
+            return (WebDriver.TargetLocator) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {WebDriver.TargetLocator.class}, (proxy, method, args) -> {
+                        if (!method.getName().equals("window") || !tabs.containsKey((String) args[0])) {
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                        current = (String) args[0];
+                        return driver;
+                    });
+        }
+
+        /**
+         * Creates a displayed element.
+         *
+         * @return The element.
+         */
+        private static WebElement element() {
+            return (WebElement) Proxy.newProxyInstance(StubBrowser.class.getClassLoader(),
+                    new Class<?>[] {WebElement.class}, (proxy, method, args) -> switch (method.getName()) {
+                        case "isDisplayed" -> true;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "product grid";
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    /**
+     * Returns the page number of a listing URL.
+     *
+     * @param url The URL.
+     * @return The page number, 1 for the first URL.
+     */
+    private static int pageOf(String url) {
+        int query = url.indexOf("?page=");
+        return query < 0 ? 1 : Integer.parseInt(url.substring(query + "?page=".length()));
+    }
+
+    /**
+     * Crawls the pages with the given prefetch depth, the handler checks each page is loaded.
+     *
+     * @param browser  The stub browser.
+     * @param maxDepth The maximum prefetch depth.
+     * @param urls     The URLs of the extracted pages, in order.
+     * @param ahead    Number of later pages already opened when each page was extracted, filled by the crawl.
+     * @return The longest time a page became loaded after the extraction of the previous one, in milliseconds,
+     *         0 if every page was loaded by then.
+     * @throws Exception If the crawl fails.
+     */
+    private static long crawl(StubBrowser browser, int maxDepth, List<String> urls, List<Integer> ahead)
+            throws Exception {
+        PipelinedPaginator paginator = new PipelinedPaginator(browser.driver, READY, maxDepth,
+                Long.MAX_VALUE, new ScrapeMetrics(), null);
+        long[] lastEnd = {0};
+        long[] longestGap = {0};
+        int pages = paginator.crawl(PAGES, (page, url) -> {
+            assertTrue(browser.isLoaded(), "Page " + page + " extracted before it was loaded");
+            if (page > 1) {
+                long loadedAt = (long) browser.tabs.get(browser.current)[1];
+                longestGap[0] = Math.max(longestGap[0], loadedAt - lastEnd[0]);
+            }
+            ahead.add((int) browser.tabs.values().stream()
+                    .filter(tab -> pageOf((String) tab[0]) > page).count());
+            urls.add(url);
+            try {
+                Thread.sleep(EXTRACT_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            lastEnd[0] = System.nanoTime();
+        });
+        assertEquals(PAGES, pages);
+        return longestGap[0] / 1_000_000;
+    }
+
+    /**
+     * Every page, the first one included, is extracted once loaded and in order, and the
+     * prefetched tabs are closed at the end.
+     *
+     * @throws Exception If the crawl fails.
+     */
+    @Test
+    public void extractsEveryPageOnceLoaded() throws Exception {
+        StubBrowser browser = new StubBrowser(FIRST_URL);
+        List<String> urls = new ArrayList<>();
+        crawl(browser, 2, urls, new ArrayList<>());
+
+        assertEquals(FIRST_URL, urls.get(0));
+        for (int page = 2; page <= PAGES; page++) {
+            assertEquals(FIRST_URL + "?page=" + page, urls.get(page - 1));
+        }
+        assertEquals(List.of("tab-0"), new ArrayList<>(browser.tabs.keySet()));
+        assertEquals("tab-0", browser.current);
+    }
+
+    /**
+     * With prefetching, the next page is already loading while a page is extracted, so no page is
+     * waited for after an extraction. Loaded in place, every page is waited for its whole load.
+     *
+     * @throws Exception If the crawl fails.
+     */
+    @Test
+    public void overlapsLoadsWithExtraction() throws Exception {
+        List<Integer> ahead = new ArrayList<>();
+        assertEquals(0, crawl(new StubBrowser(FIRST_URL), 2, new ArrayList<>(), ahead));
+        for (int page = 1; page < PAGES; page++) {
+            assertTrue(ahead.get(page - 1) > 0, "Nothing loading during the extraction of page " + page);
+        }
+
+        ahead.clear();
+        assertTrue(crawl(new StubBrowser(FIRST_URL), 0, new ArrayList<>(), ahead) >= LOAD_MILLIS);
+        assertEquals(List.of(0, 0, 0, 0, 0), ahead);
+    }
+}
@@ -0,0 +1,280 @@
+package org.example.demoselenium;
+
+/**
+ * PriceParser class turning display prices into integer cents without allocating.
+ * Supported forms are plain prices ("$3.49", "$1,299.00", "59¢"), multi-buy offers
+ * ("2 for $7.00") and unit prices ("$0.55/100ml", "$2.20/lb", "$4.99 ea").
+ * The text is copied into a char buffer reused across calls and the result is written
+ * into a caller-provided Fields instance, so parsing millions of rows creates no garbage.
+ * An instance is not thread-safe, use one per thread.
+ */
+public class PriceParser {
+    // Grams in a pound, times 1000 to stay in integer arithmetic
+    private static final long MILLIGRAMS_PER_POUND = 453_592;
+
+    /**
+     * Fields class receiving the result of a parse. Reused across calls.
+     */
+    public static final class Fields {
+        // Price in cents of the whole offer, e.g. 700 for "2 for $7.00"
+        public long cents;
+
+        // Number of items of the offer, 1 unless it is a multi-buy
+        public int quantity;
+
+        // Price in cents per standard unit, -1 if there is none
+        public long unitCents;
+
+        // Standard unit of unitCents
+        public PriceUnit unit;
+
+        // Price of the tile the text came from
+        public PriceType type;
+
+        /**
+         * Clears the fields before a parse.
+         */
+        void reset() {
+            cents = -1;
+            quantity = 1;
+            unitCents = -1;
+            unit = PriceUnit.NONE;
+            type = PriceType.NONE;
+        }
+    }
+
+    // Reused copy of the text being parsed
+    private char[] buffer = new char[64];
+
+    // Length of the text in the buffer
+    private int length;
+
+    // Current position in the buffer
+    private int pos;
+
+    /**
+     * Parses a display price.
+     *
+     * @param text The display price.
+     * @param type The price of the tile the text came from.
+     * @param out  The fields receiving the result.
+     * @return true if a price was found, false otherwise (out.cents is then -1).
+     */
+    public boolean parse(CharSequence text, PriceType type, Fields out) {
+        out.reset();
+        out.type = type;
+        load(text);
+
+        // multi-buy: "<n> for $x"
+        pos = 0;
+        skipSpaces();
+        int start = pos;
+        long count = readInteger();
+        if (pos > start && skipSpaces() > 0 && matchWord("for")) {
+            out.quantity = (int) Math.max(1, count);
+        } else {
+            pos = 0;
+        }
+
+        // price: "$x.yy" or "yy¢"
+        while (pos < length && buffer[pos] != '$' && !isDigit(buffer[pos])) {
+            pos++;
+        }
+        if (pos == length) {
+            return false;
+        }
+        if (buffer[pos] == '$') {
+            pos++;
+            skipSpaces();
+            out.cents = readAmount();
+        } else {
+            long amount = readInteger();
+            if (pos < length && buffer[pos] == '¢') {
+                pos++;
+                out.cents = amount;
+            }
+        }
+        if (out.cents < 0) {
+            return false;
+        }
+
+        // unit: "/100ml", "/1kg", "/lb", " ea"
+        skipSpaces();
+        if (pos < length && buffer[pos] == '/') {
+            pos++;
+            skipSpaces();
+            start = pos;
+            long amount = readInteger();
+            readUnit(out, pos > start ? Math.max(1, amount) : 1);
+        } else {
+            readUnit(out, 1);
+        }
+        if (out.unit == PriceUnit.NONE && out.quantity > 1) {
+            out.unit = PriceUnit.EACH;
+            out.unitCents = divide(out.cents, out.quantity);
+        }
+        return true;
+    }
+
+    /**
+     * Copies the text into the reused buffer, growing it only when needed.
+     *
+     * @param text The text.
+     */
+    private void load(CharSequence text) {
+        length = text.length();
+        if (buffer.length < length) {
+            buffer = new char[Math.max(length, buffer.length * 2)];
+        }
+        if (text instanceof String string) {
+            string.getChars(0, length, buffer, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                buffer[i] = text.charAt(i);
+            }
+        }
+    }
+
+    /**
+     * Reads a unit at the current position and computes the unit price.
+     *
+     * @param out    The fields receiving the unit price.
+     * @param amount The amount of the unit, e.g. 100 for "/100ml".
+     */
+    private void readUnit(Fields out, long amount) {
+        if (matchWord("ml")) {
+            setUnit(out, PriceUnit.PER_100ML, out.cents * 100, amount);
+        } else if (matchWord("l")) {
+            setUnit(out, PriceUnit.PER_100ML, out.cents, amount * 10);
+        } else if (matchWord("g")) {
+            setUnit(out, PriceUnit.PER_100G, out.cents * 100, amount);
+        } else if (matchWord("kg")) {
+            setUnit(out, PriceUnit.PER_100G, out.cents, amount * 10);
+        } else if (matchWord("lb")) {
+            setUnit(out, PriceUnit.PER_100G, out.cents * 100_000, amount * MILLIGRAMS_PER_POUND);
+        } else if (matchWord("ea") || matchWord("each") || matchWord("ct")) {
+            setUnit(out, PriceUnit.EACH, out.cents, amount * out.quantity);
+        }
+    }
+
+    /**
+     * Sets the unit price as numerator / denominator, rounded to the nearest cent.
+     *
+     * @param out         The fields receiving the unit price.
+     * @param unit        The standard unit.
+     * @param numerator   The numerator.
+     * @param denominator The denominator.
+     */
+    private static void setUnit(Fields out, PriceUnit unit, long numerator, long denominator) {
+        out.unit = unit;
+        out.unitCents = divide(numerator, denominator);
+    }
+
+    /**
+     * Divides rounding half up.
+     *
+     * @param numerator   The numerator.
+     * @param denominator The denominator, positive.
+     * @return The rounded quotient.
+     */
+    private static long divide(long numerator, long denominator) {
+        return (numerator * 2 + denominator) / (denominator * 2);
+    }
+
+    /**
+     * Reads an amount with optional thousands separators and up to two decimals.
+     *
+     * @return The amount in cents, or -1 if there is no digit.
+     */
+    private long readAmount() {
+        long units = 0;
+        boolean digits = false;
+        while (pos < length) {
+            char c = buffer[pos];
+            if (isDigit(c)) {
+                units = units * 10 + (c - '0');
+                digits = true;
+            } else if (!(c == ',' && pos + 1 < length && isDigit(buffer[pos + 1]))) {
+                break;
+            }
+            pos++;
+        }
+        long cents = 0;
+        if (pos + 1 < length && buffer[pos] == '.' && isDigit(buffer[pos + 1])) {
+            pos++;
+            int decimals = 0;
+            while (pos < length && isDigit(buffer[pos])) {
+                if (decimals < 2) {
+                    cents = cents * 10 + (buffer[pos] - '0');
+                    decimals++;
+                }
+                pos++;
+            }
+            if (decimals == 1) {
+                cents *= 10;
+            }
+            digits = true;
+        }
+        return digits ? units * 100 + cents : -1;
+    }
+
+    /**
+     * Reads an unsigned integer.
+     *
+     * @return The integer, 0 if there is no digit.
+     */
+    private long readInteger() {
+        long value = 0;
+        while (pos < length && isDigit(buffer[pos])) {
+            value = value * 10 + (buffer[pos] - '0');
+            pos++;
+        }
+        return value;
+    }
+
+    /**
+     * Consumes a word at the current position, ignoring case, if it is not followed by a letter.
+     *
+     * @param word The lowercase word.
+     * @return true if the word was consumed.
+     */
+    private boolean matchWord(String word) {
+        int end = pos + word.length();
+        if (end > length) {
+            return false;
+        }
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.toLowerCase(buffer[pos + i]) != word.charAt(i)) {
+                return false;
+            }
+        }
+        if (end < length && Character.isLetter(buffer[end])) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    /**
+     * Skips whitespace.
+     *
+     * @return The number of characters skipped.
+     */
+    private int skipSpaces() {
+        int start = pos;
+        while (pos < length && Character.isWhitespace(buffer[pos])) {
+            pos++;
+        }
+        return pos - start;
+    }
+
+    /**
+     * Checks for an ASCII digit.
+     *
+     * @param c The character.
+     * @return true if it is a digit.
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
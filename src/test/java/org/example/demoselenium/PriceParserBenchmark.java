@@ -0,0 +1,43 @@
+package org.example.demoselenium;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PriceParserBenchmark class measuring how many display prices PriceParser normalizes per second.
+ * Run with -prof gc to check that the parse allocates nothing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceParserBenchmark {
+    // Display prices as found on the product tiles
+    private static final String[] PRICES = {"$3.49", "2 for $7.00", "$0.55/100ml", "$1,299.00", "$2.20/lb",
+            "99¢", "$4.99 ea", "$12.99/1kg", "3 for $10", "$5.49/1l", "$0.89/100g", "$18.00"};
+
+    // Reused parser
+    private final PriceParser parser = new PriceParser();
+
+    // Reused parse result
+    private final PriceParser.Fields fields = new PriceParser.Fields();
+
+    /**
+     * Parses every price of the sample once.
+     *
+     * @return The sum of the cents, so that the work is not optimized away.
+     */
+    @Benchmark
+    @OperationsPerInvocation(12)
+    public long parse() {
+        long total = 0;
+        for (String price : PRICES) {
+            parser.parse(price, PriceType.REGULAR, fields);
+            total += fields.cents + fields.unitCents;
+        }
+        return total;
+    }
+}
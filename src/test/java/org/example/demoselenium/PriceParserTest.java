@@ -0,0 +1,83 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * PriceParserTest class checking the display price forms found on the product tiles.
+ */
+public class PriceParserTest {
+    // Parser shared by the checks, as a scraper thread would
+    private final PriceParser parser = new PriceParser();
+
+    // Parse result shared by the checks
+    private final PriceParser.Fields fields = new PriceParser.Fields();
+
+    /**
+     * Plain prices, with thousands separators or in cents.
+     */
+    @Test
+    public void parsesPlainPrices() {
+        assertTrue(parser.parse("$3.49", PriceType.REGULAR, fields));
+        assertEquals(349, fields.cents);
+        assertEquals(1, fields.quantity);
+        assertEquals(PriceUnit.NONE, fields.unit);
+
+        assertTrue(parser.parse("$1,299.00", PriceType.SALE, fields));
+        assertEquals(129900, fields.cents);
+        assertEquals(PriceType.SALE, fields.type);
+
+        assertTrue(parser.parse("99¢", PriceType.REGULAR, fields));
+        assertEquals(99, fields.cents);
+    }
+
+    /**
+     * Multi-buy offers give the price per item.
+     */
+    @Test
+    public void parsesMultiBuy() {
+        assertTrue(parser.parse("2 for $7.00", PriceType.SALE, fields));
+        assertEquals(700, fields.cents);
+        assertEquals(2, fields.quantity);
+        assertEquals(PriceUnit.EACH, fields.unit);
+        assertEquals(350, fields.unitCents);
+
+        assertTrue(parser.parse("3 for $10", PriceType.SALE, fields));
+        assertEquals(333, fields.unitCents);
+    }
+
+    /**
+     * Unit prices are converted to the standard units.
+     */
+    @Test
+    public void parsesUnitPrices() {
+        assertTrue(parser.parse("$0.55/100ml", PriceType.REGULAR, fields));
+        assertEquals(PriceUnit.PER_100ML, fields.unit);
+        assertEquals(55, fields.unitCents);
+
+        assertTrue(parser.parse("$5.49/1l", PriceType.REGULAR, fields));
+        assertEquals(55, fields.unitCents);
+
+        assertTrue(parser.parse("$12.99/1kg", PriceType.REGULAR, fields));
+        assertEquals(PriceUnit.PER_100G, fields.unit);
+        assertEquals(130, fields.unitCents);
+
+        assertTrue(parser.parse("$2.20/lb", PriceType.REGULAR, fields));
+        assertEquals(49, fields.unitCents);
+
+        assertTrue(parser.parse("$4.99 ea", PriceType.REGULAR, fields));
+        assertEquals(PriceUnit.EACH, fields.unit);
+        assertEquals(499, fields.unitCents);
+    }
+
+    /**
+     * Text without a price is rejected.
+     */
+    @Test
+    public void rejectsMissingPrice() {
+        assertFalse(parser.parse("", PriceType.NONE, fields));
+        assertEquals(-1, fields.cents);
+        assertFalse(parser.parse("Price unavailable", PriceType.NONE, fields));
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.demoselenium;
+
+/**
+ * PriceType enum naming which price of a product tile was used as its display price.
+ */
+public enum PriceType {
+    /**
+     * The regular price.
+     */
+    REGULAR,
+
+    /**
+     * The non-members price.
+     */
+    NON_MEMBER,
+
+    /**
+     * The sale price.
+     */
+    SALE,
+
+    /**
+     * The tile has no price.
+     */
+    NONE
+}
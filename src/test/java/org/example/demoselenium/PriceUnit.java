@@ -0,0 +1,26 @@
+package org.example.demoselenium;
+
+/**
+ * PriceUnit enum naming the standard unit a unit price is expressed in.
+ */
+public enum PriceUnit {
+    /**
+     * No unit price.
+     */
+    NONE,
+
+    /**
+     * Price per 100 grams, also used for kilograms and pounds.
+     */
+    PER_100G,
+
+    /**
+     * Price per 100 millilitres, also used for litres.
+     */
+    PER_100ML,
+
+    /**
+     * Price per item, also used for multi-buy offers.
+     */
+    EACH
+}
@@ -0,0 +1,530 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVWriter;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ProductDeduplicator class dropping the products already written, before they reach the writer,
+ * while keeping every category a product was seen in.
+ * Products are keyed by ProductIndex#keyOf, the product id of the tile link, so that tiles still
+ * showing the same lazy-load placeholder image stay distinct. A key is first checked against a
+ * Bloom filter sized for the expected number of keys (about 1.2 bytes per key for 1% false
+ * positives): a miss means the product is new. A hit is confirmed against an exact set.
+ * The product ids of this site are numeric, so the exact set is an open-addressing table of
+ * 12-byte slots (the id as a long, the category) in a direct buffer: about 25 bytes per key with
+ * the table at half to three quarters full, and no garbage-collected objects, where a HashSet of
+ * String costs around 90. The category of a product seen in one category is kept in its slot,
+ * only the products seen in several categories get a membership list.
+ * The few keys without a numeric id (a link without /p/ id, a name) are kept in a HashMap.
+ * More keys than expected only raise the false positive rate of the filter, never the result.
+ */
+public class ProductDeduplicator {
+    // False positive rate the Bloom filter is sized for
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    // Bytes per slot of the exact set: product id plus one, membership
+    private static final int SLOT_BYTES = 12;
+
+    // Bytes per membership node: category id, next node
+    private static final int NODE_BYTES = 8;
+
+    // Maximum load factor of the exact set
+    private static final double MAX_LOAD = 0.75;
+
+    // End of a membership list, or key not found
+    private static final int NONE = -1;
+
+    // Initial size of the membership buffer, doubled when full
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    // Estimated heap bytes of a key without numeric id besides its characters:
+    // map entry, String, byte array header, boxed membership and table slot
+    private static final int STRING_KEY_OVERHEAD = 100;
+
+    // Bloom filter bits
+    private final long[] bloom;
+
+    // Number of Bloom filter bits
+    private final long bloomBits;
+
+    // Number of hash functions of the Bloom filter
+    private final int hashes;
+
+    // Lock guarding the state, the crawl handlers run concurrently
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // Exact set slots of the numeric ids, a zero id marks an empty slot
+    private ByteBuffer slots;
+
+    // Number of slots, a power of two
+    private int capacity;
+
+    // Number of numeric ids in the slots
+    private int ids;
+
+    // Memberships of the keys without numeric id
+    private final Map<String, Integer> otherKeys = new HashMap<>();
+
+    // Estimated heap bytes of the keys without numeric id
+    private long otherKeyBytes;
+
+    // Membership nodes of the products seen in several categories
+    private ByteBuffer nodes;
+
+    // Category ids by name
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+
+    // Category names by id
+    private final List<String> categories = new ArrayList<>();
+
+    // Number of duplicates dropped
+    private long duplicates;
+
+    // Number of Bloom filter hits which were not in the exact set
+    private long falsePositives;
+
+    /**
+     * Creates a deduplicator.
+     *
+     * @param expectedKeys The expected number of distinct products.
+     */
+    public ProductDeduplicator(int expectedKeys) {
+        int expected = Math.max(1024, expectedKeys);
+        // optimal Bloom filter: m = -n ln p / (ln 2)^2 bits and k = m / n ln 2 hashes
+        long bits = (long) Math.ceil(-expected * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2)));
+        this.bloom = new long[(int) ((bits + 63) / 64)];
+        this.bloomBits = bloom.length * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bloomBits / expected * Math.log(2)));
+        this.capacity = Integer.highestOneBit((int) Math.min(1 << 30, (long) (expected / MAX_LOAD) * 2 - 1));
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES);
+        this.nodes = ByteBuffer.allocateDirect(INITIAL_BUFFER_BYTES);
+    }
+
+    /**
+     * Returns the category of a listing URL: the URL without its query, so that the pages and
+     * sort orders of a category share it.
+     *
+     * @param url The listing URL.
+     * @return The category.
+     */
+    public static String categoryOf(String url) {
+        int end = url.indexOf('?');
+        if (end < 0) {
+            end = url.indexOf('#');
+        }
+        return end < 0 ? url : url.substring(0, end);
+    }
+
+    /**
+     * Keeps the products of a page which were not seen before, and records the category of all of them.
+     *
+     * @param category The category the page belongs to, e.g. the listing URL.
+     * @param products The products of the page.
+     * @return The new products, in page order.
+     */
+    public List<ProductInfo> filter(String category, List<ProductInfo> products) {
+        List<ProductInfo> fresh = new ArrayList<>(products.size());
+        for (ProductInfo product : products) {
+            if (add(category, product)) {
+                fresh.add(product);
+            }
+        }
+        return fresh;
+    }
+
+    /**
+     * Records a product and its category.
+     *
+     * @param category The category the product was seen in.
+     * @param product  The product.
+     * @return true if the product was not seen before.
+     */
+    public boolean add(String category, ProductInfo product) {
+        String key = ProductIndex.keyOf(product);
+        long id = numericId(key);
+        long hash = id == NONE ? hash(key.getBytes(StandardCharsets.UTF_8)) : mix(id);
+        lock.lock();
+        try {
+            int categoryId = categoryIds.computeIfAbsent(category, name -> {
+                categories.add(name);
+                return categories.size() - 1;
+            });
+            boolean maybeSeen = bloomContains(hash);
+            // a Bloom filter miss is a new key, the exact set is only probed to confirm a hit
+            if (maybeSeen) {
+                if (id == NONE) {
+                    Integer membership = otherKeys.get(key);
+                    if (membership != null) {
+                        otherKeys.put(key, addMembership(membership, categoryId));
+                        duplicates++;
+                        return false;
+                    }
+                } else {
+                    int slot = find(id, hash);
+                    if (slot >= 0) {
+                        slots.putInt(slot * SLOT_BYTES + 8, addMembership(slots.getInt(slot * SLOT_BYTES + 8),
+                                categoryId));
+                        duplicates++;
+                        return false;
+                    }
+                }
+                falsePositives++;
+            }
+            bloomAdd(hash);
+            if (id == NONE) {
+                otherKeys.put(key, categoryId);
+                otherKeyBytes += STRING_KEY_OVERHEAD + key.length();
+            } else {
+                insert(id, hash, categoryId);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the categories a product was seen in.
+     *
+     * @param product The product.
+     * @return The category names in the order they were seen, empty if the product was never seen.
+     */
+    public List<String> categoriesOf(ProductInfo product) {
+        String key = ProductIndex.keyOf(product);
+        long id = numericId(key);
+        lock.lock();
+        try {
+            if (id == NONE) {
+                Integer membership = otherKeys.get(key);
+                return membership == null ? List.of() : membership(membership);
+            }
+            int slot = find(id, mix(id));
+            return slot < 0 ? List.of() : membership(slots.getInt(slot * SLOT_BYTES + 8));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Writes the products seen in more than one category, with their categories.
+     *
+     * @param csvFile Path of the CSV file.
+     * @return The number of products written.
+     * @throws IOException If the file cannot be written.
+     */
+    public int writeMemberships(String csvFile) throws IOException {
+        lock.lock();
+        try (CSVWriter writer = new CSVWriter(new FileWriter(csvFile))) {
+            writer.writeNext(new String[] {"Product Key", "Categories"});
+            int written = 0;
+            for (int slot = 0; slot < capacity; slot++) {
+                long stored = slots.getLong(slot * SLOT_BYTES);
+                int membership = slots.getInt(slot * SLOT_BYTES + 8);
+                if (stored != 0 && membership < 0) {
+                    writer.writeNext(new String[] {Long.toString(stored - 1), String.join("|", membership(membership))});
+                    written++;
+                }
+            }
+            for (Map.Entry<String, Integer> entry : otherKeys.entrySet()) {
+                if (entry.getValue() < 0) {
+                    writer.writeNext(new String[] {entry.getKey(), String.join("|", membership(entry.getValue()))});
+                    written++;
+                }
+            }
+            return written;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of distinct products.
+     *
+     * @return The number of keys.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return ids + otherKeys.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of duplicates dropped.
+     *
+     * @return The number of duplicates.
+     */
+    public long duplicates() {
+        lock.lock();
+        try {
+            return duplicates;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of new products the Bloom filter reported as possibly seen.
+     *
+     * @return The number of false positives.
+     */
+    public long falsePositives() {
+        lock.lock();
+        try {
+            return falsePositives;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the memory allocated by the filter and the exact set, on and off heap, the keys
+     * without numeric id being estimated.
+     *
+     * @return The number of bytes used.
+     */
+    public long memoryBytes() {
+        lock.lock();
+        try {
+            return bloom.length * 8L + (long) capacity * SLOT_BYTES + nodes.capacity() + otherKeyBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the memory used per distinct product.
+     *
+     * @return The number of bytes per key, 0 if empty.
+     */
+    public double bytesPerKey() {
+        int keys = size();
+        return keys == 0 ? 0 : (double) memoryBytes() / keys;
+    }
+
+    /**
+     * Reads the numeric product id of a key.
+     *
+     * @param key The key.
+     * @return The id, NONE if the key is not a product id, e.g. a link without id or a name.
+     */
+    static long numericId(String key) {
+        // a leading zero would be lost in a long, such ids stay strings
+        if (key.isEmpty() || key.length() > 18 || (key.charAt(0) == '0' && key.length() > 1)) {
+            return NONE;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                return NONE;
+            }
+        }
+        return Long.parseLong(key);
+    }
+
+    /**
+     * Checks whether a hash may have been added to the Bloom filter.
+     *
+     * @param hash The key hash.
+     * @return false if it was certainly not added.
+     */
+    private boolean bloomContains(long hash) {
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bloomBits);
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a hash to the Bloom filter.
+     *
+     * @param hash The key hash.
+     */
+    private void bloomAdd(long hash) {
+        long step = (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(hash + i * step, bloomBits);
+            bloom[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Finds the slot of a numeric id in the exact set.
+     *
+     * @param id   The product id.
+     * @param hash The id hash.
+     * @return The slot, NONE if the id is not in the set.
+     */
+    private int find(long id, long hash) {
+        for (int slot = (int) (hash >>> 33) & (capacity - 1); ; slot = (slot + 1) & (capacity - 1)) {
+            long stored = slots.getLong(slot * SLOT_BYTES);
+            if (stored == 0) {
+                return NONE;
+            }
+            if (stored == id + 1) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * Inserts a new numeric id with its first category, growing the set if needed.
+     *
+     * @param id         The product id.
+     * @param hash       The id hash.
+     * @param categoryId The category id.
+     */
+    private void insert(long id, long hash, int categoryId) {
+        if (ids + 1 > capacity * MAX_LOAD) {
+            grow();
+        }
+        putSlot(slots, capacity, (int) (hash >>> 33), id + 1, categoryId);
+        ids++;
+    }
+
+    /**
+     * Adds a category to a membership unless already there. A membership is the category id
+     * itself while the product was seen in one category, then the complement of the offset of
+     * the newest node of its list.
+     *
+     * @param membership The membership.
+     * @param categoryId The category id.
+     * @return The new membership.
+     */
+    private int addMembership(int membership, int categoryId) {
+        if (membership >= 0) {
+            return membership == categoryId ? membership : ~newNode(categoryId, newNode(membership, NONE));
+        }
+        for (int node = ~membership; node != NONE; node = nodes.getInt(node + 4)) {
+            if (nodes.getInt(node) == categoryId) {
+                return membership;
+            }
+        }
+        return ~newNode(categoryId, ~membership);
+    }
+
+    /**
+     * Returns the category names of a membership.
+     *
+     * @param membership The membership.
+     * @return The category names, oldest first.
+     */
+    private List<String> membership(int membership) {
+        if (membership >= 0) {
+            return List.of(categories.get(membership));
+        }
+        List<String> names = new ArrayList<>();
+        for (int node = ~membership; node != NONE; node = nodes.getInt(node + 4)) {
+            names.add(0, categories.get(nodes.getInt(node)));
+        }
+        return names;
+    }
+
+    /**
+     * Appends a membership node.
+     *
+     * @param categoryId The category id.
+     * @param next       The next node, NONE for the end of the list.
+     * @return The node offset.
+     */
+    private int newNode(int categoryId, int next) {
+        nodes = ensure(nodes, NODE_BYTES);
+        int node = nodes.position();
+        nodes.putInt(categoryId).putInt(next);
+        return node;
+    }
+
+    /**
+     * Doubles the number of slots and reinserts the ids.
+     */
+    private void grow() {
+        int newCapacity = capacity * 2;
+        ByteBuffer newSlots = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES);
+        for (int slot = 0; slot < capacity; slot++) {
+            long stored = slots.getLong(slot * SLOT_BYTES);
+            if (stored != 0) {
+                putSlot(newSlots, newCapacity, (int) (mix(stored - 1) >>> 33), stored,
+                        slots.getInt(slot * SLOT_BYTES + 8));
+            }
+        }
+        slots = newSlots;
+        capacity = newCapacity;
+    }
+
+    /**
+     * Writes a slot at the first free position from its home position.
+     *
+     * @param table      The slots.
+     * @param tableSize  The number of slots, a power of two.
+     * @param home       The home position, before masking.
+     * @param stored     The product id plus one.
+     * @param membership The membership.
+     */
+    private static void putSlot(ByteBuffer table, int tableSize, int home, long stored, int membership) {
+        int slot = home & (tableSize - 1);
+        while (table.getLong(slot * SLOT_BYTES) != 0) {
+            slot = (slot + 1) & (tableSize - 1);
+        }
+        table.putLong(slot * SLOT_BYTES, stored);
+        table.putInt(slot * SLOT_BYTES + 8, membership);
+    }
+
+    /**
+     * Returns a buffer with room for more bytes, doubling it when full.
+     *
+     * @param buffer The buffer, its position being the end of the data.
+     * @param needed The number of bytes about to be written.
+     * @return The same buffer, or a larger copy.
+     */
+    private static ByteBuffer ensure(ByteBuffer buffer, int needed) {
+        if (buffer.remaining() >= needed) {
+            return buffer;
+        }
+        ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        larger.put(buffer.duplicate().flip());
+        return larger;
+    }
+
+    /**
+     * Hashes key bytes: 64-bit FNV-1a followed by the finalizer of mix.
+     *
+     * @param key The key bytes.
+     * @return The hash.
+     */
+    private static long hash(byte[] key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * Spreads the bits of a value, e.g. a product id, over the whole hash.
+     *
+     * @param value The value.
+     * @return The hash.
+     */
+    private static long mix(long value) {
+        long hash = value ^ (value >>> 33);
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        return hash ^ (hash >>> 33);
+    }
+}
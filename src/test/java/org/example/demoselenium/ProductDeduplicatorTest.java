@@ -0,0 +1,110 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.example.demoselenium.Fixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * ProductDeduplicatorTest class containing test cases for the ProductDeduplicator class.
+ */
+public class ProductDeduplicatorTest {
+    // Directory of the membership files
+    @TempDir
+    Path dir;
+
+    /**
+     * A product seen in a second category is dropped, and both categories are kept.
+     *
+     * @throws IOException If the membership file cannot be written.
+     */
+    @Test
+    public void dropsDuplicatesAndKeepsCategories() throws IOException {
+        ProductDeduplicator dedup = new ProductDeduplicator(1000);
+        List<ProductInfo> juice = dedup.filter("juice",
+                List.of(product(1, "$1.00"), product(2, "$1.00"), product(3, "$1.00")));
+        List<ProductInfo> drinks = dedup.filter("drinks",
+                List.of(product(2, "$1.00"), product(4, "$1.00"), product(2, "$1.00")));
+
+        assertEquals(3, juice.size());
+        assertEquals(List.of(product(4, "$1.00")), drinks);
+        assertEquals(4, dedup.size());
+        assertEquals(2, dedup.duplicates());
+        assertEquals(List.of("juice", "drinks"), dedup.categoriesOf(product(2, "$1.00")));
+        assertEquals(List.of("juice"), dedup.categoriesOf(product(1, "$1.00")));
+        assertEquals(List.of(), dedup.categoriesOf(product(5, "$1.00")));
+
+        Path memberships = dir.resolve("memberships.csv");
+        assertEquals(1, dedup.writeMemberships(memberships.toString()));
+        assertTrue(Files.readString(memberships).contains("\"2\",\"juice|drinks\""));
+    }
+
+    /**
+     * Distinct products whose tiles still show the lazy-load placeholder image are both kept,
+     * the same product seen again with its image loaded is a duplicate.
+     */
+    @Test
+    public void keepsProductsSharingPlaceholderImage() {
+        String placeholder = "data:image/gif;base64,R0lGODlhAQABAAAAACw=";
+        ProductInfo sunny = new ProductInfo("Sunny D Tangy Original", "$3.49", "", "", placeholder,
+                "/sunny-d-tangy-original/p/20039563001_EA");
+        ProductInfo oasis = new ProductInfo("Oasis Apple Juice", "$2.99", "", "", placeholder,
+                "/oasis-apple-juice/p/20122154001_EA");
+        ProductDeduplicator dedup = new ProductDeduplicator(1000);
+
+        assertEquals(List.of(sunny, oasis), dedup.filter("juice", List.of(sunny, oasis)));
+        assertEquals(List.of(), dedup.filter("drinks", List.of(product(20039563001L, "$1.00"))));
+        assertEquals(List.of("juice", "drinks"), dedup.categoriesOf(sunny));
+        assertEquals(2, dedup.size());
+    }
+
+    /**
+     * Products without a product id are keyed by their link or name, and deduplicated the same way.
+     *
+     * @throws IOException If the membership file cannot be written.
+     */
+    @Test
+    public void dedupsProductsWithoutId() throws IOException {
+        ProductInfo noImage = new ProductInfo("Sunny D Tangy Original", "$3.49", "", "", "");
+        ProductInfo offer = new ProductInfo("Juice Offer", "$5.00", "", "", "", "/deals/juice-offer");
+        ProductDeduplicator dedup = new ProductDeduplicator(1000);
+
+        List<ProductInfo> page = List.of(noImage, offer, product(7, "$1.00"));
+
+        assertEquals(page, dedup.filter("juice", page));
+        assertEquals(List.of(), dedup.filter("drinks", page));
+        assertEquals(List.of("juice", "drinks"), dedup.categoriesOf(offer));
+        assertEquals(3, dedup.size());
+
+        Path memberships = dir.resolve("memberships.csv");
+        assertEquals(3, dedup.writeMemberships(memberships.toString()));
+        assertTrue(Files.readString(memberships).contains("\"7\",\"juice|drinks\""));
+    }
+
+    /**
+     * Millions of keys, more than expected, are all kept exactly, in under a third of the memory of a HashSet of String.
+     */
+    @Test
+    public void staysExactAndCompactWithMillionsOfKeys() {
+        int keys = 2_000_000;
+        ProductDeduplicator dedup = new ProductDeduplicator(keys / 2);
+        for (long id = 0; id < keys; id++) {
+            assertTrue(dedup.add("all", product(20_000_000_000L + id, "$1.00")));
+        }
+        for (long id = 0; id < keys; id += 1000) {
+            assertFalse(dedup.add("again", product(20_000_000_000L + id, "$1.00")));
+        }
+
+        assertEquals(keys, dedup.size());
+        assertEquals(keys / 1000, dedup.duplicates());
+        // 12-byte slots at most three quarters and at least three eighths full, plus the Bloom filter;
+        // a HashSet of these 11-character String keys takes about 90 bytes per key
+        assertTrue(dedup.bytesPerKey() < 30, dedup.bytesPerKey() + " bytes per key");
+    }
+}
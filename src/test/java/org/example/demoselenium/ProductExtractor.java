@@ -0,0 +1,252 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ProductExtractor class reading every product tile of the current page in bulk.
+ * Instead of issuing several findElement calls per tile, a single script is executed
+ * in the browser which collects the name, prices, image and link of all the tiles at once.
+ * Lazily loaded grids can be read in full with extractScrolling, which scrolls down
+ * until the tile count stops growing and reads each tile only once.
+ */
+public class ProductExtractor {
+    // Script collecting the product tiles, arguments[0] is the maximum number of tiles (0 = no limit)
+    private static final String EXTRACT_SCRIPT =
+            "const limit = arguments[0];" +
+            "const tiles = Array.from(document.querySelectorAll('div.chakra-linkbox'));" +
+            "const result = [];" +
+            "for (const tile of (limit > 0 ? tiles.slice(0, limit) : tiles)) {" +
+            "  const text = s => { const e = tile.querySelector(s); return e ? e.innerText.trim() : ''; };" +
+            "  const img = tile.querySelector('img.chakra-image');" +
+            "  const link = tile.querySelector('a.chakra-linkbox__overlay');" +
+            "  result.push({" +
+            "    name: text('h3[data-testid=\"product-title\"]')," +
+            "    regular: text('span[data-testid=\"regular-price\"] > span')," +
+            "    nonMember: text('span[data-testid=\"non-members-price\"] > span')," +
+            "    sale: text('span[data-testid=\"sale-price\"] > span')," +
+            "    image: img ? img.src : ''," +
+            "    link: link ? link.getAttribute('href') : ''" +
+            "  });" +
+            "}" +
+            "return result;";
+
+    // Script reading the tiles not yet marked with the token arguments[0], at most arguments[1] (0 = no limit),
+    // then scrolling one viewport down unless the limit was reached
+    private static final String SCROLL_EXTRACT_SCRIPT =
+            "const token = arguments[0], limit = arguments[1];" +
+            "const tiles = document.querySelectorAll('div.chakra-linkbox');" +
+            "const result = [];" +
+            "for (const tile of tiles) {" +
+            "  if (tile.dataset.scrapeToken === token) continue;" +
+            "  if (limit > 0 && result.length >= limit) break;" +
+            "  tile.dataset.scrapeToken = token;" +
+            "  const text = s => { const e = tile.querySelector(s); return e ? e.innerText.trim() : ''; };" +
+            "  const img = tile.querySelector('img.chakra-image');" +
+            "  const link = tile.querySelector('a.chakra-linkbox__overlay');" +
+            "  result.push({" +
+            "    name: text('h3[data-testid=\"product-title\"]')," +
+            "    regular: text('span[data-testid=\"regular-price\"] > span')," +
+            "    nonMember: text('span[data-testid=\"non-members-price\"] > span')," +
+            "    sale: text('span[data-testid=\"sale-price\"] > span')," +
+            "    image: img ? img.src : ''," +
+            "    link: link ? link.getAttribute('href') : ''" +
+            "  });" +
+            "}" +
+            "if (limit === 0 || result.length < limit) {" +
+            "  if (tiles.length > 0) tiles[tiles.length - 1].scrollIntoView({block: 'end'});" +
+            "  window.scrollBy(0, Math.floor(window.innerHeight * 0.9));" +
+            "}" +
+            "return {products: result, total: tiles.length};";
+
+    // Quiet window waited for after each scroll, for the lazily loaded tiles to be rendered
+    private static final Duration SCROLL_QUIET = Duration.ofMillis(300);
+
+    // Maximum time waited for the quiet window after each scroll
+    private static final Duration SCROLL_TIMEOUT = Duration.ofSeconds(3);
+
+    // Number of scrolls in a row without any new tile after which the grid is considered complete
+    private static final int STABLE_SCROLLS = 2;
+
+    // Upper bound on the number of scrolls, in case the page keeps changing
+    private static final int MAX_SCROLLS = 100;
+
+    // WebDriver instance the script is executed on
+    private final WebDriver driver;
+
+    /**
+     * Creates an extractor bound to the given WebDriver instance.
+     *
+     * @param driver The WebDriver instance, it must implement JavascriptExecutor.
+     */
+    public ProductExtractor(WebDriver driver) {
+        this.driver = driver;
+    }
+
+    /**
+     * Extracts every product tile of the current page in a single round-trip.
+     *
+     * @return The list of products in page order.
+     */
+    public List<ProductInfo> extractAll() {
+        return extract(0);
+    }
+
+    /**
+     * Extracts the first product tiles of the current page in a single round-trip.
+     *
+     * @param limit Maximum number of products to extract, 0 for no limit.
+     * @return The list of products in page order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ProductInfo> extract(int limit) {
+        Object raw = ((JavascriptExecutor) driver).executeScript(EXTRACT_SCRIPT, limit);
+        List<ProductInfo> products = new ArrayList<>();
+        if (raw instanceof List<?> tiles) {
+            for (Object tile : tiles) {
+                products.add(toProductInfo((Map<String, Object>) tile));
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Extracts the product tiles of the current page, scrolling down in steps so that the
+     * lazily loaded tiles get rendered, until the tile count stops growing.
+     * Tiles already read are marked in the page and skipped by the following rounds,
+     * so each round only transfers the new tiles.
+     *
+     * @param limit Maximum number of products to extract, 0 for the whole grid.
+     * @return The list of products in page order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<ProductInfo> extractScrolling(int limit) {
+        // a new token per call, so tiles marked by a previous page or extraction are read again
+        String token = UUID.randomUUID().toString();
+        PageReadiness readiness = new PageReadiness(driver);
+        List<ProductInfo> products = new ArrayList<>();
+        long lastTotal = -1;
+        int stable = 0;
+        for (int scroll = 0; scroll < MAX_SCROLLS && stable < STABLE_SCROLLS; scroll++) {
+            int remaining = limit > 0 ? limit - products.size() : 0;
+            Map<String, Object> round = (Map<String, Object>) ((JavascriptExecutor) driver)
+                    .executeScript(SCROLL_EXTRACT_SCRIPT, token, remaining);
+            for (Object tile : (List<Object>) round.get("products")) {
+                products.add(toProductInfo((Map<String, Object>) tile));
+            }
+            if (limit > 0 && products.size() >= limit) {
+                break;
+            }
+            long total = ((Number) round.get("total")).longValue();
+            stable = total == lastTotal ? stable + 1 : 0;
+            lastTotal = total;
+            readiness.waitForDomQuiet(SCROLL_QUIET, SCROLL_TIMEOUT);
+        }
+        return products;
+    }
+
+    /**
+     * Extracts the first product tiles of the current page one WebDriver call at a time,
+     * as MainPageTest#getProductInfo does. Kept to compare with the bulk extraction.
+     *
+     * @param limit Maximum number of products to extract, 0 for no limit.
+     * @return The list of products in page order.
+     */
+    public List<ProductInfo> extractPerElement(int limit) {
+        return readTiles(driver.findElements(By.cssSelector("div.chakra-linkbox")), limit);
+    }
+
+    /**
+     * Reads product tiles one WebDriver call at a time, in a single pass without implicit wait.
+     *
+     * @param tiles The web elements representing the products.
+     * @param limit Maximum number of products to read, 0 for no limit.
+     * @return The list of products in tile order.
+     */
+    public List<ProductInfo> readTiles(List<WebElement> tiles, int limit) {
+        PageReadiness readiness = new PageReadiness(driver);
+        return readiness.withoutImplicitWait(() -> {
+            List<ProductInfo> products = new ArrayList<>();
+            for (WebElement tile : tiles) {
+                if (limit > 0 && products.size() >= limit) {
+                    break;
+                }
+                products.add(read(readiness, tile));
+            }
+            return products;
+        });
+    }
+
+    /**
+     * Reads a single product tile with one findElement per field.
+     * Prices are looked up in the regular / non-members / sale order and only the first found is read.
+     *
+     * @param tile The web element representing a product.
+     * @return The product.
+     */
+    public ProductInfo readTile(WebElement tile) {
+        PageReadiness readiness = new PageReadiness(driver);
+        return readiness.withoutImplicitWait(() -> read(readiness, tile));
+    }
+
+    /**
+     * Reads a single product tile, the implicit wait being disabled by the caller.
+     *
+     * @param readiness The readiness of the driver.
+     * @param tile      The web element representing a product.
+     * @return The product.
+     */
+    private static ProductInfo read(PageReadiness readiness, WebElement tile) {
+        String name = tile.findElement(By.cssSelector("h3[data-testid=\"product-title\"]")).getText();
+        String regular = readiness.findOptional(tile, By.cssSelector("span[data-testid=\"regular-price\"] > span"))
+                .map(WebElement::getText).orElse("");
+        String nonMember = "";
+        String sale = "";
+        if (regular.isEmpty()) {
+            nonMember = readiness.findOptional(tile, By.cssSelector("span[data-testid=\"non-members-price\"] > span"))
+                    .map(WebElement::getText).orElse("");
+            if (nonMember.isEmpty()) {
+                sale = tile.findElement(By.cssSelector("span[data-testid=\"sale-price\"] > span")).getText();
+            }
+        }
+        String imageUrl = tile.findElement(By.cssSelector("img.chakra-image")).getAttribute("src");
+        // the attribute as written, like the scripts, not the absolute href property
+        String link = readiness.findOptional(tile, By.cssSelector("a.chakra-linkbox__overlay"))
+                .map(a -> a.getDomAttribute("href")).orElse("");
+        return new ProductInfo(name, regular, nonMember, sale, imageUrl, link);
+    }
+
+    /**
+     * Converts a tile returned by the extraction script into a ProductInfo record.
+     *
+     * @param tile The map of tile properties.
+     * @return The matching ProductInfo.
+     */
+    private static ProductInfo toProductInfo(Map<String, Object> tile) {
+        return new ProductInfo(
+                stringOf(tile.get("name")),
+                stringOf(tile.get("regular")),
+                stringOf(tile.get("nonMember")),
+                stringOf(tile.get("sale")),
+                stringOf(tile.get("image")),
+                stringOf(tile.get("link")));
+    }
+
+    /**
+     * Null-safe conversion of a script value to a string.
+     *
+     * @param value The script value.
+     * @return The value as a string, or an empty string if null.
+     */
+    private static String stringOf(Object value) {
+        return value == null ? "" : value.toString();
+    }
+}
@@ -0,0 +1,332 @@
+package org.example.demoselenium;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ProductIndex class keeping the products seen by previous runs in a compact binary file.
+ * Products are keyed by their product id, taken from the product page link of the tile,
+ * and store a 64-bit content hash of the name, price and image of the CSV rows, so an
+ * incremental run only has to emit the products which are new, changed or removed.
+ *
+ * File layout: magic, version, entry count, then for each entry the key, category
+ * (length-prefixed UTF-8), content hash and last-seen time.
+ */
+public class ProductIndex {
+    // Magic number of the index files: "PIDX"
+    private static final int MAGIC = 0x50494458;
+
+    // Version of the file layout
+    private static final int VERSION = 1;
+
+    // Product id inside the product page link, e.g. /sunny-d-tangy-original/p/20039563001_EA
+    private static final Pattern LINK_PRODUCT_ID = Pattern.compile("/p/(\\d+)");
+
+    // Product id inside the image URL, e.g. /products/20039563001/
+    private static final Pattern PRODUCT_ID = Pattern.compile("/products/(\\d+)/");
+
+    /**
+     * Kind of change detected for a product.
+     */
+    public enum ChangeKind { ADDED, CHANGED, REMOVED }
+
+    /**
+     * ProductChange record holding a change detected by an incremental run.
+     *
+     * @param kind    The kind of change.
+     * @param key     The product key.
+     * @param product The scraped product, null for removed products.
+     */
+    public record ProductChange(ChangeKind kind, String key, ProductInfo product) {
+    }
+
+    /**
+     * CategorySummary record holding the state of a category in the index.
+     *
+     * @param category The category.
+     * @param products Number of products of the category.
+     * @param lastSeen Last time a product of the category was seen, in epoch milliseconds.
+     */
+    public record CategorySummary(String category, int products, long lastSeen) {
+    }
+
+    /**
+     * Entry class holding the indexed state of a product.
+     */
+    private static final class Entry {
+        // Category the product was seen in
+        String category;
+
+        // Content hash of name, price and image
+        long hash;
+
+        // Last time the product was seen, in epoch milliseconds
+        long lastSeen;
+
+        /**
+         * Creates an entry.
+         *
+         * @param category Category the product was seen in.
+         * @param hash     Content hash of name, price and image.
+         * @param lastSeen Last time the product was seen, in epoch milliseconds.
+         */
+        Entry(String category, long hash, long lastSeen) {
+            this.category = category;
+            this.hash = hash;
+            this.lastSeen = lastSeen;
+        }
+    }
+
+    // Indexed products by key
+    private final Map<String, Entry> entries;
+
+    /**
+     * Creates an index on the given entries.
+     *
+     * @param entries The indexed products by key.
+     */
+    private ProductIndex(Map<String, Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Creates an empty index.
+     *
+     * @return The empty index.
+     */
+    public static ProductIndex empty() {
+        return new ProductIndex(new HashMap<>());
+    }
+
+    /**
+     * Loads an index file, or returns an empty index if the file does not exist.
+     *
+     * @param file Path of the index file.
+     * @return The loaded index.
+     * @throws IOException If the file cannot be read or is not an index file.
+     */
+    public static ProductIndex load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return empty();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a product index: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported product index version " + version + ": " + file);
+            }
+            int count = in.readInt();
+            Map<String, Entry> entries = new HashMap<>(Math.max(16, count * 4 / 3 + 1));
+            // categories repeat a lot, share their instances
+            Map<String, String> categories = new HashMap<>();
+            for (int i = 0; i < count; i++) {
+                String key = readString(in);
+                String category = categories.computeIfAbsent(readString(in), c -> c);
+                entries.put(key, new Entry(category, in.readLong(), in.readLong()));
+            }
+            return new ProductIndex(entries);
+        } catch (EOFException e) {
+            throw new IOException("Truncated product index: " + file, e);
+        }
+    }
+
+    /**
+     * Saves the index, the file is replaced atomically.
+     *
+     * @param file Path of the index file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(entries.size());
+            for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                writeString(out, entry.getKey());
+                writeString(out, entry.getValue().category);
+                out.writeLong(entry.getValue().hash);
+                out.writeLong(entry.getValue().lastSeen);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Returns the number of indexed products.
+     *
+     * @return The index size.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Compares a fresh scrape of a category with the index and updates the index.
+     * Only a complete scrape, every page of the category, proves that a product is gone:
+     * then the products of the category missing from it are reported as removed and dropped.
+     * After a partial scrape, e.g. the first tiles of the first page, they are kept as they are.
+     *
+     * @param category The scraped category.
+     * @param products The products of the category.
+     * @param complete Whether the scrape covers the whole category.
+     * @param now      Time of the scrape, in epoch milliseconds.
+     * @return The new, changed and removed products.
+     */
+    public List<ProductChange> update(String category, List<ProductInfo> products, boolean complete, long now) {
+        List<ProductChange> changes = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ProductInfo product : products) {
+            String key = keyOf(product);
+            if (!seen.add(key)) {
+                continue;
+            }
+            long hash = contentHash(product);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                entries.put(key, new Entry(category, hash, now));
+                changes.add(new ProductChange(ChangeKind.ADDED, key, product));
+            } else {
+                if (entry.hash != hash) {
+                    entry.hash = hash;
+                    changes.add(new ProductChange(ChangeKind.CHANGED, key, product));
+                }
+                entry.category = category;
+                entry.lastSeen = now;
+            }
+        }
+        if (!complete) {
+            return changes;
+        }
+        entries.entrySet().removeIf(e -> {
+            if (e.getValue().category.equals(category) && !seen.contains(e.getKey())) {
+                changes.add(new ProductChange(ChangeKind.REMOVED, e.getKey(), null));
+                return true;
+            }
+            return false;
+        });
+        return changes;
+    }
+
+    /**
+     * Summarizes the indexed categories: number of products and last time they were seen.
+     *
+     * @return The summaries sorted by category.
+     */
+    public List<CategorySummary> categories() {
+        Map<String, long[]> totals = new TreeMap<>();
+        for (Entry entry : entries.values()) {
+            long[] total = totals.computeIfAbsent(entry.category, c -> new long[2]);
+            total[0]++;
+            total[1] = Math.max(total[1], entry.lastSeen);
+        }
+        List<CategorySummary> summaries = new ArrayList<>();
+        totals.forEach((category, total) -> summaries.add(new CategorySummary(category, (int) total[0], total[1])));
+        return summaries;
+    }
+
+    /**
+     * Returns the key of a product: the product id of its product page link, or else the
+     * product id of its image URL, or else the link, or else the image URL if it is an
+     * http(s) one, or else the name. Lazily loaded tiles can still carry a data: placeholder
+     * image shared by every tile, which must not be taken as the key.
+     * The product ids are the same in the link and the image URL, so indexes built from
+     * either match.
+     *
+     * @param product The product.
+     * @return The product key.
+     */
+    public static String keyOf(ProductInfo product) {
+        Matcher matcher = LINK_PRODUCT_ID.matcher(product.link());
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        matcher = PRODUCT_ID.matcher(product.imageUrl());
+        if (matcher.find()) {
+            return matcher.group(1);
+        }
+        if (!product.link().isEmpty()) {
+            return product.link();
+        }
+        String image = product.imageUrl();
+        return image.startsWith("https://") || image.startsWith("http://") ? image : product.name();
+    }
+
+    /**
+     * Computes the 64-bit FNV-1a hash of the name, price and image of a product.
+     *
+     * @param product The product.
+     * @return The content hash.
+     */
+    public static long contentHash(ProductInfo product) {
+        long hash = 0xcbf29ce484222325L;
+        hash = fnv(hash, product.name());
+        hash = fnv(hash, product.price());
+        return fnv(hash, product.imageUrl());
+    }
+
+    /**
+     * Feeds a string and a separator into an FNV-1a hash.
+     *
+     * @param hash  The current hash.
+     * @param value The string to hash.
+     * @return The updated hash.
+     */
+    private static long fnv(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= 0xffff;
+        return hash * 0x100000001b3L;
+    }
+
+    /**
+     * Reads a length-prefixed UTF-8 string.
+     *
+     * @param in The stream to read from.
+     * @return The string.
+     * @throws IOException If the string cannot be read.
+     */
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt product index string length " + length);
+        }
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a length-prefixed UTF-8 string.
+     *
+     * @param out   The stream to write to.
+     * @param value The string.
+     * @throws IOException If the string cannot be written.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
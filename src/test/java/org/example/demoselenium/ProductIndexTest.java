@@ -0,0 +1,114 @@
+package org.example.demoselenium;
+
+import org.example.demoselenium.ProductIndex.ChangeKind;
+import org.example.demoselenium.ProductIndex.ProductChange;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.example.demoselenium.Fixtures.product;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * ProductIndexTest class containing test cases for the ProductIndex class.
+ */
+public class ProductIndexTest {
+    // Directory of the index files
+    @TempDir
+    Path dir;
+
+    /**
+     * Returns the kinds of a list of changes, in order.
+     *
+     * @param changes The changes.
+     * @return The kinds.
+     */
+    private static List<ChangeKind> kinds(List<ProductChange> changes) {
+        return changes.stream().map(ProductChange::kind).toList();
+    }
+
+    /**
+     * A saved index loads back with its products, categories and last-seen times,
+     * and a product seen again with another price is reported as changed.
+     *
+     * @throws IOException If the index file cannot be written or read.
+     */
+    @Test
+    public void roundTripsAndDetectsChanges() throws IOException {
+        Path file = dir.resolve("index.bin");
+        ProductIndex index = ProductIndex.load(file);
+        assertEquals(0, index.size());
+
+        List<ProductChange> added = index.update("juice", List.of(product(1, "$1.00"), product(2, "$2.00")), true, 1000);
+        assertEquals(List.of(ChangeKind.ADDED, ChangeKind.ADDED), kinds(added));
+        index.update("coffee", List.of(product(3, "$3.00")), true, 2000);
+        index.save(file);
+
+        ProductIndex loaded = ProductIndex.load(file);
+        assertEquals(3, loaded.size());
+        assertEquals(List.of(new ProductIndex.CategorySummary("coffee", 1, 2000),
+                new ProductIndex.CategorySummary("juice", 2, 1000)), loaded.categories());
+
+        List<ProductChange> changes = loaded.update("juice", List.of(product(1, "$1.00"), product(2, "$2.50")), true, 3000);
+        assertEquals(1, changes.size());
+        assertEquals(ChangeKind.CHANGED, changes.get(0).kind());
+        assertEquals("2", changes.get(0).key());
+        assertEquals("$2.50", changes.get(0).product().price());
+
+        Files.writeString(file, "not an index");
+        assertThrows(IOException.class, () -> ProductIndex.load(file));
+    }
+
+    /**
+     * A partial scrape does not remove the products it did not see, a complete scrape does.
+     */
+    @Test
+    public void removesOnlyAfterCompleteScrape() {
+        ProductIndex index = ProductIndex.empty();
+        index.update("juice", List.of(product(1, "$1.00"), product(2, "$2.00"), product(3, "$3.00")), true, 1000);
+        index.update("coffee", List.of(product(4, "$4.00")), true, 1000);
+
+        // the first tiles of a reordered page
+        List<ProductChange> partial = index.update("juice", List.of(product(3, "$3.00"), product(1, "$1.00")), false, 2000);
+        assertTrue(partial.isEmpty());
+        assertEquals(4, index.size());
+
+        List<ProductChange> complete = index.update("juice", List.of(product(3, "$3.00"), product(1, "$1.00")), true, 3000);
+        assertEquals(List.of(ChangeKind.REMOVED), kinds(complete));
+        assertEquals("2", complete.get(0).key());
+        assertNull(complete.get(0).product());
+        // the other categories are left alone
+        assertEquals(3, index.size());
+    }
+
+    /**
+     * Tiles still showing the lazy-load placeholder image are keyed by their product page link,
+     * so they neither overwrite each other nor come back as changed or removed once the real
+     * image is loaded; without link, a placeholder image falls back to the name.
+     */
+    @Test
+    public void keysPlaceholderImagesByLink() {
+        String placeholder = "data:image/gif;base64,R0lGODlhAQABAAAAACw=";
+        ProductInfo sunny = new ProductInfo("Sunny D Tangy Original", "$3.49", "", "", placeholder,
+                "/sunny-d-tangy-original/p/20039563001_EA");
+        ProductInfo oasis = new ProductInfo("Oasis Apple Juice", "$2.99", "", "", placeholder,
+                "/oasis-apple-juice/p/20122154001_EA");
+        ProductIndex index = ProductIndex.empty();
+
+        List<ProductChange> added = index.update("juice", List.of(sunny, oasis), true, 1000);
+        assertEquals(List.of(ChangeKind.ADDED, ChangeKind.ADDED), kinds(added));
+        assertEquals(List.of("20039563001", "20122154001"), added.stream().map(ProductChange::key).toList());
+
+        // the same products once their image is loaded, keyed by the product id of the image URL
+        List<ProductChange> loaded = index.update("juice", List.of(product(20039563001L, "$3.49"),
+                product(20122154001L, "$2.99")), true, 2000);
+        assertTrue(loaded.stream().noneMatch(c -> c.kind() == ChangeKind.REMOVED));
+        assertEquals(2, index.size());
+
+        assertEquals("Sunny D", ProductIndex.keyOf(new ProductInfo("Sunny D", "$3.49", "", "", placeholder)));
+    }
+}
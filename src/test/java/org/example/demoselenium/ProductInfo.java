@@ -0,0 +1,73 @@
+package org.example.demoselenium;
+
+/**
+ * ProductInfo record holding the data extracted from a single product tile.
+ * All the price candidates of the tile are kept so that the display price can be
+ * resolved with the same fallback order used by MainPageTest#getProductInfo:
+ * regular price, then non-members price, then sale price.
+ *
+ * @param name           The product title.
+ * @param regularPrice   The regular price text, or an empty string if absent.
+ * @param nonMemberPrice The non-members price text, or an empty string if absent.
+ * @param salePrice      The sale price text, or an empty string if absent.
+ * @param imageUrl       The product image URL.
+ * @param link           The product page link of the tile as written in its href attribute, site-relative
+ *                       (e.g. /sunny-d-tangy-original/p/20039563001_EA) whichever way the tile was read,
+ *                       or an empty string if absent.
+ */
+public record ProductInfo(String name, String regularPrice, String nonMemberPrice, String salePrice, String imageUrl,
+                          String link) {
+
+    /**
+     * Creates a product without product page link.
+     *
+     * @param name           The product title.
+     * @param regularPrice   The regular price text, or an empty string if absent.
+     * @param nonMemberPrice The non-members price text, or an empty string if absent.
+     * @param salePrice      The sale price text, or an empty string if absent.
+     * @param imageUrl       The product image URL.
+     */
+    public ProductInfo(String name, String regularPrice, String nonMemberPrice, String salePrice, String imageUrl) {
+        this(name, regularPrice, nonMemberPrice, salePrice, imageUrl, "");
+    }
+
+    /**
+     * Resolves the display price using the regular / non-members / sale fallback order.
+     *
+     * @return The first non-empty price, or an empty string if the tile has no price.
+     */
+    public String price() {
+        if (!regularPrice.isEmpty()) {
+            return regularPrice;
+        }
+        if (!nonMemberPrice.isEmpty()) {
+            return nonMemberPrice;
+        }
+        return salePrice;
+    }
+
+    /**
+     * Tells which price is the display price, with the same fallback order as price().
+     *
+     * @return The type of the display price.
+     */
+    public PriceType priceType() {
+        if (!regularPrice.isEmpty()) {
+            return PriceType.REGULAR;
+        }
+        if (!nonMemberPrice.isEmpty()) {
+            return PriceType.NON_MEMBER;
+        }
+        return salePrice.isEmpty() ? PriceType.NONE : PriceType.SALE;
+    }
+
+    /**
+     * Converts this product into a CSV row matching the "No, Product Name, Price, Image URL" header.
+     *
+     * @param no The row number of the product.
+     * @return An array containing the row number, product name, price, image.
+     */
+    public String[] toCsvRow(int no) {
+        return new String[] {String.valueOf(no), name, price(), imageUrl};
+    }
+}
@@ -0,0 +1,225 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.json.Json;
+import org.openqa.selenium.json.JsonException;
+import org.openqa.selenium.json.JsonInput;
+
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ProductJsonDecoder class reading the products of a product listing JSON document with a
+ * streaming parser, token by token, without building the JSON tree.
+ * The product objects have the same shape as in the page-state JSON read by HttpListingFetcher:
+ * a title or name, a pricing object with price, nonMemberPrice and salePrice, a productImage
+ * list whose first entry holds the imageUrl, and the link of the product page.
+ * A price is a display text ("$3.99"), a number (3.99) or an object holding either as its value
+ * ({"value": 3.99}); priceText turns them all into the text the product tiles show.
+ * Every object having a name and a price is taken as a product, wherever it is in the document.
+ */
+public final class ProductJsonDecoder {
+    // Parser factory, thread-safe
+    private static final Json JSON = new Json();
+
+    /**
+     * Fields class collecting the known fields of the JSON object being read.
+     */
+    private static final class Fields {
+        // Title or name of the object
+        private String name = "";
+
+        // Price texts of the pricing object
+        private String regularPrice = "";
+        private String nonMemberPrice = "";
+        private String salePrice = "";
+
+        // Image URL of the first productImage entry, or of the object itself
+        private String imageUrl = "";
+
+        // Product page link of the object
+        private String link = "";
+
+        // Price text of an object wrapping a price in its value field
+        private String value = "";
+
+        // Whether the pricing object was read
+        private boolean priced;
+
+        /**
+         * Records a string field.
+         *
+         * @param key   The field name.
+         * @param value The field value.
+         */
+        void set(String key, String value) {
+            switch (key) {
+                case "title" -> name = value;
+                case "name" -> {
+                    if (name.isEmpty()) {
+                        name = value;
+                    }
+                }
+                case "price" -> regularPrice = value;
+                case "nonMemberPrice" -> nonMemberPrice = value;
+                case "salePrice" -> salePrice = value;
+                case "link" -> link = value;
+                case "value" -> this.value = value;
+                case "imageUrl" -> {
+                    if (imageUrl.isEmpty()) {
+                        imageUrl = value;
+                    }
+                }
+                default -> {
+                    // not a product field
+                }
+            }
+        }
+
+        /**
+         * Takes the fields of a nested object, according to the field it was read from.
+         *
+         * @param key   The field name of the nested object.
+         * @param child The fields of the nested object.
+         */
+        void absorb(String key, Fields child) {
+            if ("pricing".equals(key)) {
+                regularPrice = child.regularPrice;
+                nonMemberPrice = child.nonMemberPrice;
+                salePrice = child.salePrice;
+                priced = true;
+            } else if ("productImage".equals(key) && imageUrl.isEmpty()) {
+                imageUrl = child.imageUrl;
+            } else if (isPrice(key) && !child.value.isEmpty()) {
+                set(key, child.value);
+            }
+        }
+
+        /**
+         * Tells whether a field holds a price.
+         *
+         * @param key The field name.
+         * @return true for the price fields and the value of a wrapped price.
+         */
+        static boolean isPrice(String key) {
+            return switch (key) {
+                case "price", "nonMemberPrice", "salePrice", "value" -> true;
+                default -> false;
+            };
+        }
+
+        /**
+         * Converts the fields into a product if the object is one.
+         *
+         * @return The product, or null if the object has no name or no price.
+         */
+        ProductInfo toProduct() {
+            if (name.isEmpty() || !priced
+                    || (regularPrice.isEmpty() && nonMemberPrice.isEmpty() && salePrice.isEmpty())) {
+                return null;
+            }
+            return new ProductInfo(name, regularPrice, nonMemberPrice, salePrice, imageUrl, link);
+        }
+    }
+
+    /**
+     * Prevents instantiation, the decoder only has static methods.
+     */
+    private ProductJsonDecoder() {
+    }
+
+    /**
+     * Converts a JSON price into the display text of the product tiles, with two decimals for a
+     * number as the tiles show them: "$3.99" stays as is, 3.99 and {"value": 3.99} become "$3.99".
+     *
+     * @param value The JSON price: a string, a number, an object with a value field, or null.
+     * @return The price text, empty if none.
+     */
+    static String priceText(Object value) {
+        if (value instanceof Number number) {
+            return "$" + new BigDecimal(number.toString()).setScale(2, RoundingMode.HALF_UP).toPlainString();
+        }
+        if (value instanceof Map<?, ?> map) {
+            return priceText(map.get("value"));
+        }
+        return value == null ? "" : value.toString().trim();
+    }
+
+    /**
+     * Reads the products of a JSON document.
+     *
+     * @param reader The JSON document, closed once read.
+     * @return The products in document order, empty if the document is not valid JSON.
+     */
+    public static List<ProductInfo> decode(Reader reader) {
+        List<ProductInfo> products = new ArrayList<>();
+        try (JsonInput input = JSON.newInput(reader)) {
+            readValue(input, "", null, products);
+        } catch (JsonException e) {
+            // truncated or not JSON, keep the products read so far
+        }
+        return products;
+    }
+
+    /**
+     * Reads the next value of the document.
+     *
+     * @param input    The JSON input.
+     * @param key      The field name the value is read from, the list field name for list entries.
+     * @param parent   The fields of the enclosing object, null at the top level.
+     * @param products The collected products.
+     */
+    private static void readValue(JsonInput input, String key, Fields parent, List<ProductInfo> products) {
+        switch (input.peek()) {
+            case START_MAP -> readObject(input, key, parent, products);
+            case START_COLLECTION -> {
+                input.beginArray();
+                while (input.hasNext()) {
+                    readValue(input, key, parent, products);
+                }
+                input.endArray();
+            }
+            case STRING -> {
+                String value = input.nextString();
+                if (parent != null) {
+                    parent.set(key, value);
+                }
+            }
+            case NUMBER -> {
+                Number value = input.nextNumber();
+                if (parent != null && Fields.isPrice(key)) {
+                    parent.set(key, priceText(value));
+                }
+            }
+            default -> input.skipValue();
+        }
+    }
+
+    /**
+     * Reads an object, emitting it as a product or handing its fields to the enclosing object.
+     *
+     * @param input    The JSON input, on the start of the object.
+     * @param key      The field name the object is read from.
+     * @param parent   The fields of the enclosing object, null at the top level.
+     * @param products The collected products.
+     */
+    private static void readObject(JsonInput input, String key, Fields parent, List<ProductInfo> products) {
+        Fields fields = new Fields();
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            readValue(input, name, fields, products);
+        }
+        input.endObject();
+
+        ProductInfo product = fields.toProduct();
+        if (product != null) {
+            products.add(product);
+        } else if (parent != null) {
+            parent.absorb(key, fields);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * ProductJsonDecoderTest class containing test cases for the ProductJsonDecoder class,
+ * on a hand-written product listing API response.
+ */
+public class ProductJsonDecoderTest {
+
+    /**
+     * Test case to decode the product tiles of a listing response, ignoring the other objects having a name.
+     */
+    @Test
+    public void decodesListingResponse() {
+        List<ProductInfo> products = ProductJsonDecoder.decode(
+                new StringReader(Fixtures.read("listing_api_response.json")));
+
+        assertEquals(3, products.size());
+        ProductInfo first = products.get(0);
+        assertEquals("Tropicana Pure Premium Orange Juice, No Pulp", first.name());
+        assertEquals("$5.99", first.price());
+        assertTrue(first.imageUrl().endsWith("20187431001_front_a01.png"));
+        assertEquals(PriceType.NON_MEMBER, products.get(1).priceType());
+        assertEquals("$3.29", products.get(1).price());
+        assertEquals(PriceType.SALE, products.get(2).priceType());
+        assertEquals("", products.get(2).imageUrl());
+        assertEquals("/oasis-apple-juice/p/21063432001_EA", products.get(2).link());
+        assertEquals("21063432001", ProductIndex.keyOf(products.get(2)));
+    }
+
+    /**
+     * Test case to check the streaming decoder reads the same products as the page-state parser.
+     */
+    @Test
+    public void matchesPageStateParser() {
+        String html = Fixtures.read("coffee_page_state.html");
+        String json = html.substring(html.indexOf('{', html.indexOf("__NEXT_DATA__")), html.indexOf("</script>"));
+
+        assertEquals(HttpListingFetcher.parsePageState(html), ProductJsonDecoder.decode(new StringReader(json)));
+    }
+
+    /**
+     * Test case to read the numeric prices and the prices wrapped in a value object as the tiles show them.
+     */
+    @Test
+    public void decodesNumericAndWrappedPrices() {
+        String json = "{\"productTiles\":["
+                + "{\"title\":\"Numeric\",\"pricing\":{\"price\":3.99}},"
+                + "{\"title\":\"Whole\",\"pricing\":{\"price\":4}},"
+                + "{\"title\":\"Wrapped number\",\"pricing\":{\"salePrice\":{\"value\":2.5,\"unit\":\"ea\"}}},"
+                + "{\"title\":\"Wrapped text\",\"pricing\":{\"nonMemberPrice\":{\"value\":\"$1.25\"}}}]}";
+        List<ProductInfo> products = ProductJsonDecoder.decode(new StringReader(json));
+
+        assertEquals(4, products.size());
+        assertEquals("$3.99", products.get(0).price());
+        assertEquals("$4.00", products.get(1).price());
+        assertEquals("$2.50", products.get(2).price());
+        assertEquals(PriceType.SALE, products.get(2).priceType());
+        assertEquals("$1.25", products.get(3).price());
+        assertEquals(PriceType.NON_MEMBER, products.get(3).priceType());
+    }
+
+    /**
+     * Test case to keep the products read before a truncated body.
+     */
+    @Test
+    public void keepsProductsBeforeTruncation() {
+        String json = Fixtures.read("listing_api_response.json");
+        String truncated = json.substring(0, json.indexOf("{\"productId\":\"21063432001_EA\"") + 40);
+
+        assertEquals(2, ProductJsonDecoder.decode(new StringReader(truncated)).size());
+    }
+}
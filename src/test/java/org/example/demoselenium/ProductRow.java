@@ -0,0 +1,45 @@
+package org.example.demoselenium;
+
+/**
+ * ProductRow record holding a product together with its normalized display price,
+ * so that sorts, diffs and aggregations work on integers instead of re-parsing text.
+ * The original text stays available through the product.
+ *
+ * @param product        The product as extracted.
+ * @param priceType      Which price of the tile is the display price.
+ * @param priceCents     The display price in cents, -1 if it could not be parsed.
+ * @param quantity       The number of items of the offer, 1 unless it is a multi-buy.
+ * @param unitPriceCents The price in cents per standard unit, -1 if there is none.
+ * @param unit           The standard unit of unitPriceCents.
+ */
+public record ProductRow(ProductInfo product, PriceType priceType, long priceCents, int quantity,
+                         long unitPriceCents, PriceUnit unit) {
+    // Header matching toCsvRow
+    public static final String[] HEADER = {"No", "Product Name", "Price", "Image URL",
+            "Price Type", "Price Cents", "Quantity", "Unit Price Cents", "Unit"};
+
+    /**
+     * Normalizes the display price of a product.
+     *
+     * @param product The product.
+     * @param parser  The parser, reused across products.
+     * @param fields  The parse result, reused across products.
+     * @return The row.
+     */
+    public static ProductRow of(ProductInfo product, PriceParser parser, PriceParser.Fields fields) {
+        parser.parse(product.price(), product.priceType(), fields);
+        return new ProductRow(product, fields.type, fields.cents, fields.quantity, fields.unitCents, fields.unit);
+    }
+
+    /**
+     * Converts this row into a CSV row matching HEADER: the original columns followed by the typed ones.
+     *
+     * @param no The row number of the product.
+     * @return An array containing the original columns and the typed price fields.
+     */
+    public String[] toCsvRow(int no) {
+        return new String[] {String.valueOf(no), product.name(), product.price(), product.imageUrl(),
+                priceType.name(), String.valueOf(priceCents), String.valueOf(quantity),
+                String.valueOf(unitPriceCents), unit.name()};
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.demoselenium;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * ProductSink interface for the outputs the scraped products are written to, one row per product.
+ * CsvProductSink writes the CSV files read by people and spreadsheets, ColumnarWriter writes
+ * typed and compressed columns for the large crawls, both take the same rows.
+ */
+public interface ProductSink extends Closeable {
+    /**
+     * Writes a product.
+     *
+     * @param no       The row number of the product.
+     * @param category The category the product was found in, empty if unknown.
+     * @param product  The product.
+     * @throws IOException If the row cannot be written.
+     */
+    void write(int no, String category, ProductInfo product) throws IOException;
+}
@@ -0,0 +1,291 @@
+package org.example.demoselenium;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * ReplayServer class serving the responses of a SiteArchive on a local port, with a configurable
+ * latency before each response and a configurable bandwidth, so that the scenarios run offline
+ * with reproducible network conditions.
+ * The recorded site is served at the root of the server and the other recorded hosts (the API,
+ * the assets) under /~host/. Their absolute URLs are rewritten in the text responses and in the
+ * redirects, so that the browser stays on the server.
+ * Requests which were not recorded get a 404 and are counted as misses, separately for the pages.
+ */
+public class ReplayServer implements AutoCloseable {
+    // Prefix of the paths of the hosts other than the site
+    private static final String HOST_PREFIX = "/~";
+
+    // Size of the chunks written when the bandwidth is limited
+    private static final int CHUNK_SIZE = 16 * 1024;
+
+    // Recorded responses
+    private final SiteArchive archive;
+
+    // Host served at the root of the server, e.g. www.zehrs.ca
+    private final String siteHost;
+
+    // Hosts of the archive, their URLs are rewritten in the text responses
+    private final Set<String> hosts;
+
+    // Delay before each response
+    private final Duration latency;
+
+    // Bandwidth in bytes per second, 0 for no limit
+    private final long bytesPerSecond;
+
+    // Handles the requests, on a virtual thread each so that the delays do not hold platform threads
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Local HTTP server
+    private final HttpServer server;
+
+    // Number of responses served from the archive
+    private final AtomicLong served = new AtomicLong();
+
+    // Pattern of the recorded URLs counted as pages besides the HTML documents, e.g. the listing API
+    private final Pattern pagePattern;
+
+    // Number of pages served: HTML documents and responses matching the page pattern
+    private final AtomicLong pages = new AtomicLong();
+
+    // Number of requests which were not recorded
+    private final AtomicLong misses = new AtomicLong();
+
+    // Number of page requests which were not recorded: documents and URLs matching the page pattern
+    private final AtomicLong pageMisses = new AtomicLong();
+
+    /**
+     * Starts a server replaying an archive.
+     *
+     * @param archive        The recorded responses.
+     * @param siteHost       Host served at the root of the server, e.g. www.zehrs.ca.
+     * @param port           The local port, 0 for any free port.
+     * @param latency        Delay before each response.
+     * @param bytesPerSecond Bandwidth in bytes per second, 0 for no limit.
+     * @param pagePattern    Pattern of the recorded URLs counted as pages besides the HTML documents.
+     * @throws IOException If the server cannot be started.
+     */
+    public ReplayServer(SiteArchive archive, String siteHost, int port, Duration latency, long bytesPerSecond,
+                        Pattern pagePattern) throws IOException {
+        this.archive = archive;
+        this.siteHost = siteHost;
+        this.hosts = archive.hosts();
+        this.latency = latency;
+        this.bytesPerSecond = bytesPerSecond;
+        this.pagePattern = pagePattern;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the URL the recorded site is served at.
+     *
+     * @return The base URL, ending with a slash.
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Maps a recorded URL to its URL on the server.
+     *
+     * @param url The recorded URL, e.g. https://www.zehrs.ca/food/drinks/juice/c/28230.
+     * @return The URL on the server.
+     */
+    public String localUrl(String url) {
+        return rewrite(url);
+    }
+
+    /**
+     * Returns the number of responses served from the archive.
+     *
+     * @return The number of responses.
+     */
+    public long served() {
+        return served.get();
+    }
+
+    /**
+     * Returns the number of pages served: the HTML documents, and the responses matching the
+     * page pattern since the client-side pagination and sort only fetch the listing data.
+     *
+     * @return The number of pages.
+     */
+    public long pages() {
+        return pages.get();
+    }
+
+    /**
+     * Returns the number of requests which were not recorded.
+     *
+     * @return The number of misses.
+     */
+    public long misses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of page requests which were not recorded, the documents and the URLs
+     * matching the page pattern. The scenarios did not see the recorded site when it is not 0.
+     *
+     * @return The number of page misses.
+     */
+    public long pageMisses() {
+        return pageMisses.get();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Serves a request from the archive.
+     *
+     * @param exchange The HTTP exchange.
+     * @throws IOException If the response cannot be written.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] requestBody;
+            try (InputStream in = exchange.getRequestBody()) {
+                requestBody = in.readAllBytes();
+            }
+            String url = recordedUrl(exchange);
+            String key = SiteArchive.key(exchange.getRequestMethod(), url, requestBody);
+            SiteArchive.Entry entry = archive.get(key);
+            sleep(latency.toNanos());
+            if (entry == null) {
+                misses.incrementAndGet();
+                if ("document".equals(exchange.getRequestHeaders().getFirst("Sec-Fetch-Dest"))
+                        || pagePattern.matcher(url).find()) {
+                    pageMisses.incrementAndGet();
+                }
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = archive.body(entry);
+            if (isText(entry.contentType())) {
+                body = rewrite(new String(body, StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            }
+            if (!entry.contentType().isEmpty()) {
+                exchange.getResponseHeaders().add("Content-Type", entry.contentType());
+            }
+            if (!entry.location().isEmpty()) {
+                exchange.getResponseHeaders().add("Location", rewrite(entry.location()));
+            }
+            exchange.getResponseHeaders().add("Cache-Control", "no-store");
+            served.incrementAndGet();
+            if (entry.contentType().startsWith("text/html") || pagePattern.matcher(url).find()) {
+                pages.incrementAndGet();
+            }
+            exchange.sendResponseHeaders(entry.status(), body.length == 0 ? -1 : body.length);
+            if (body.length > 0) {
+                write(exchange.getResponseBody(), body);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the recorded URL of a request made to the server.
+     *
+     * @param exchange The HTTP exchange.
+     * @return The recorded URL.
+     */
+    private String recordedUrl(HttpExchange exchange) {
+        String path = exchange.getRequestURI().getRawPath();
+        String query = exchange.getRequestURI().getRawQuery();
+        String host = siteHost;
+        if (path.startsWith(HOST_PREFIX)) {
+            int end = path.indexOf('/', HOST_PREFIX.length());
+            host = path.substring(HOST_PREFIX.length(), end < 0 ? path.length() : end);
+            path = end < 0 ? "/" : path.substring(end);
+        }
+        return "https://" + host + path + (query == null ? "" : "?" + query);
+    }
+
+    /**
+     * Replaces the absolute URLs of the recorded hosts by their URLs on the server,
+     * in plain and in JSON-escaped form.
+     *
+     * @param text The text.
+     * @return The rewritten text.
+     */
+    private String rewrite(String text) {
+        String base = baseUrl().substring(0, baseUrl().length() - 1);
+        for (String host : hosts) {
+            String local = host.equals(siteHost) ? base : base + HOST_PREFIX + host;
+            text = text.replace("https://" + host, local)
+                    .replace("https:\\/\\/" + host, local.replace("/", "\\/"));
+        }
+        return text;
+    }
+
+    /**
+     * Writes a body at the configured bandwidth.
+     *
+     * @param out  The response body stream.
+     * @param body The body.
+     * @throws IOException If the body cannot be written.
+     */
+    private void write(OutputStream out, byte[] body) throws IOException {
+        if (bytesPerSecond <= 0) {
+            out.write(body);
+            return;
+        }
+        long start = System.nanoTime();
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, body.length - offset);
+            out.write(body, offset, length);
+            out.flush();
+            // wait until the bytes written so far fit in the bandwidth
+            long due = start + (offset + length) * 1_000_000_000L / bytesPerSecond;
+            sleep(due - System.nanoTime());
+        }
+    }
+
+    /**
+     * Sleeps for a duration, keeping the interrupt status.
+     *
+     * @param nanos The duration in nanoseconds, nothing is done if not positive.
+     */
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(Duration.ofNanos(nanos));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Checks whether a content type is text whose URLs are rewritten.
+     *
+     * @param contentType The content type.
+     * @return true for HTML, CSS, JavaScript and JSON.
+     */
+    private static boolean isText(String contentType) {
+        return contentType.startsWith("text/") || contentType.contains("json") || contentType.contains("javascript");
+    }
+}
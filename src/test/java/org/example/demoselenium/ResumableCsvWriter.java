@@ -0,0 +1,140 @@
+package org.example.demoselenium;
+
+import com.opencsv.CSVWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResumableCsvWriter class writing the products of a crawl unit by unit, with a CrawlCheckpoint
+ * recording which units are in the CSV file and up to which byte.
+ * On open, the records pointing past the end of the CSV file are dropped, their rows did not reach
+ * the disk, then the CSV file is truncated to the last committed offset, dropping the rows of a unit
+ * interrupted by a crash, and the numbering goes on from the last committed row, so a restart
+ * only crawls the remaining units and never duplicates rows.
+ * Disk syncs are batched: the CSV file then the log are forced every syncEvery units or every
+ * syncMillis, whichever comes first, instead of once per unit.
+ */
+public class ResumableCsvWriter implements AutoCloseable {
+    // Size of the buffer between the CSV writer and the file
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // CSV file channel, used for the offsets and the syncs
+    private final FileChannel csv;
+
+    // CSV writer over the channel
+    private final CSVWriter writer;
+
+    // Checkpoint log of the committed units
+    private final CrawlCheckpoint checkpoint;
+
+    // Number of units committed between two syncs
+    private final int syncEvery;
+
+    // Maximum time between two syncs, in nanoseconds
+    private final long syncIntervalNanos;
+
+    // Time of the last sync, in nanoseconds
+    private long lastSync = System.nanoTime();
+
+    // Number of the next row
+    private int nextRow;
+
+    /**
+     * Opens the CSV file and its checkpoint log, resuming after the last committed unit if any.
+     *
+     * @param csvFile        Path of the CSV file.
+     * @param checkpointFile Path of the checkpoint log.
+     * @param syncEvery      Number of units committed between two syncs.
+     * @param syncMillis     Maximum time between two syncs, in milliseconds.
+     * @throws IOException If the files cannot be opened.
+     */
+    public ResumableCsvWriter(Path csvFile, Path checkpointFile, int syncEvery, long syncMillis) throws IOException {
+        this.checkpoint = new CrawlCheckpoint(checkpointFile);
+        this.syncEvery = Math.max(1, syncEvery);
+        this.syncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(syncMillis);
+        this.csv = FileChannel.open(csvFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        // units whose rows are not all in the file are crawled again
+        checkpoint.dropBeyond(csv.size());
+        // rows past the committed offset belong to a unit which did not complete
+        csv.truncate(checkpoint.committedOffset());
+        csv.position(checkpoint.committedOffset());
+        this.writer = new CSVWriter(new BufferedWriter(
+                new OutputStreamWriter(Channels.newOutputStream(csv), StandardCharsets.UTF_8), BUFFER_SIZE));
+        this.nextRow = checkpoint.nextRow();
+        if (checkpoint.committedOffset() == 0) {
+            writer.writeNext(AsyncCsvSink.HEADER);
+        }
+    }
+
+    /**
+     * Returns the checkpoint log, to find the units still to be crawled.
+     *
+     * @return The checkpoint.
+     */
+    public CrawlCheckpoint checkpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Writes the products of a unit and commits the unit.
+     *
+     * @param unit     The unit.
+     * @param products The products of the unit.
+     * @throws IOException If the rows or the record cannot be written.
+     */
+    public void writeUnit(CrawlCheckpoint.Unit unit, List<ProductInfo> products) throws IOException {
+        for (ProductInfo product : products) {
+            writer.writeNext(product.toCsvRow(nextRow++));
+        }
+        writer.flush();
+        int unsynced = checkpoint.commit(unit, csv.position(), nextRow);
+        if (unsynced >= syncEvery || System.nanoTime() - lastSync >= syncIntervalNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Forces the CSV file then the log to disk, so that a durable record never points past durable rows.
+     *
+     * @throws IOException If the files cannot be forced.
+     */
+    public void sync() throws IOException {
+        csv.force(false);
+        checkpoint.sync();
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Syncs and closes the files. The log is kept so that a later run resumes.
+     *
+     * @throws IOException If the files cannot be synced or closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (csv.isOpen()) {
+            writer.flush();
+            sync();
+            writer.close();
+            checkpoint.close();
+        }
+    }
+
+    /**
+     * Syncs and closes the files and deletes the log, the crawl being complete.
+     *
+     * @throws IOException If the files cannot be synced, closed or deleted.
+     */
+    public void complete() throws IOException {
+        close();
+        checkpoint.delete();
+    }
+}
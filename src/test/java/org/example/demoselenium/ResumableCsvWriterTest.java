@@ -0,0 +1,141 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ResumableCsvWriterTest class containing test cases for the ResumableCsvWriter and CrawlCheckpoint classes.
+ * Crashes are simulated by leaving a partly written unit in the CSV file and a torn record in the log.
+ */
+public class ResumableCsvWriterTest {
+    // Directory of the CSV file and its log
+    @TempDir
+    Path dir;
+
+    // Units of the simulated crawl
+    private final List<CrawlCheckpoint.Unit> units = List.of(
+            new CrawlCheckpoint.Unit("https://www.zehrs.ca/food/drinks/juice/c/28230", 1, "", ""),
+            new CrawlCheckpoint.Unit("https://www.zehrs.ca/food/drinks/juice/c/28230", 2, "", ""),
+            new CrawlCheckpoint.Unit("https://www.zehrs.ca/food/drinks/juice/c/28230", 3, "", ""));
+
+    /**
+     * Builds the products of a unit.
+     *
+     * @param page The page number.
+     * @return Two products named after the page.
+     */
+    private static List<ProductInfo> products(int page) {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            products.add(new ProductInfo("Juice " + page + "-" + i, "$3.49", "", "", "https://img/" + page + i));
+        }
+        return products;
+    }
+
+    /**
+     * A restart after a crash drops the rows of the interrupted unit and only crawls the remaining units.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void resumesAfterCrashWithoutDuplicates() throws IOException {
+        Path csvFile = dir.resolve("products.csv");
+        Path logFile = dir.resolve("products.wal");
+        try (ResumableCsvWriter writer = new ResumableCsvWriter(csvFile, logFile, 8, 1000)) {
+            writer.writeUnit(units.get(0), products(1));
+        }
+        // crash while page 2 was being written: half a unit in the CSV file and a torn log record
+        Files.writeString(csvFile, "\"3\",\"Juice 2-1\",\"$3.49\",\"https://img/21\"\n", StandardOpenOption.APPEND);
+        Files.write(logFile, "123\t4\thalf".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (ResumableCsvWriter writer = new ResumableCsvWriter(csvFile, logFile, 8, 1000)) {
+            List<CrawlCheckpoint.Unit> remaining = writer.checkpoint().remaining(units);
+            assertEquals(units.subList(1, 3), remaining);
+            for (CrawlCheckpoint.Unit unit : remaining) {
+                writer.writeUnit(unit, products(unit.page()));
+            }
+            writer.complete();
+        }
+
+        List<String> lines = Files.readAllLines(csvFile);
+        assertEquals(7, lines.size());
+        assertTrue(lines.get(0).contains("Product Name"));
+        for (int row = 1; row <= 6; row++) {
+            assertTrue(lines.get(row).startsWith("\"" + row + "\""));
+        }
+        assertEquals(1, lines.stream().filter(line -> line.contains("Juice 2-1")).count());
+        assertFalse(Files.exists(logFile));
+    }
+
+    /**
+     * Records pointing past the end of a CSV file that lost its tail are dropped, and their units crawled again.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void dropsRecordsBeyondTheCsvFile() throws IOException {
+        Path csvFile = dir.resolve("products.csv");
+        Path logFile = dir.resolve("products.wal");
+        long firstUnitEnd;
+        try (ResumableCsvWriter writer = new ResumableCsvWriter(csvFile, logFile, 8, 1000)) {
+            writer.writeUnit(units.get(0), products(1));
+            firstUnitEnd = writer.checkpoint().committedOffset();
+            writer.writeUnit(units.get(1), products(2));
+        }
+        // the log reached the disk but the rows of page 2 did not
+        try (FileChannel channel = FileChannel.open(csvFile, StandardOpenOption.WRITE)) {
+            channel.truncate(firstUnitEnd + 10);
+        }
+
+        try (ResumableCsvWriter writer = new ResumableCsvWriter(csvFile, logFile, 8, 1000)) {
+            assertEquals(firstUnitEnd, writer.checkpoint().committedOffset());
+            assertEquals(3, writer.checkpoint().nextRow());
+            List<CrawlCheckpoint.Unit> remaining = writer.checkpoint().remaining(units);
+            assertEquals(units.subList(1, 3), remaining);
+            for (CrawlCheckpoint.Unit unit : remaining) {
+                writer.writeUnit(unit, products(unit.page()));
+            }
+            writer.complete();
+        }
+
+        List<String> lines = Files.readAllLines(csvFile);
+        assertEquals(7, lines.size());
+        for (int row = 1; row <= 6; row++) {
+            assertTrue(lines.get(row).startsWith("\"" + row + "\""));
+        }
+    }
+
+    /**
+     * A record whose checksum does not match is dropped with everything after it.
+     *
+     * @throws IOException If the files cannot be written.
+     */
+    @Test
+    public void dropsCorruptRecords() throws IOException {
+        Path logFile = dir.resolve("corrupt.wal");
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(logFile)) {
+            checkpoint.commit(units.get(0), 100, 3);
+            checkpoint.commit(units.get(1), 200, 5);
+        }
+        String log = Files.readString(logFile);
+        Files.writeString(logFile, log.replace("200\t5\t", "999\t5\t"));
+
+        try (CrawlCheckpoint checkpoint = new CrawlCheckpoint(logFile)) {
+            assertEquals(1, checkpoint.size());
+            assertTrue(checkpoint.isDone(units.get(0)));
+            assertEquals(100, checkpoint.committedOffset());
+            assertEquals(3, checkpoint.nextRow());
+        }
+    }
+}
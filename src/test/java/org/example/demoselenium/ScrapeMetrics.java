@@ -0,0 +1,375 @@
+package org.example.demoselenium;
+
+import com.sun.net.httpserver.HttpServer;
+import org.openqa.selenium.json.Json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ScrapeMetrics class collecting the latency of the WebDriver commands and of the
+ * logical scraping steps (page load, tile extraction, pagination, sort, CSV write),
+ * and the number of implicit-wait timeouts.
+ * Metrics can be served in the Prometheus text format on a local endpoint and
+ * written as a JSON summary at the end of a run.
+ */
+public class ScrapeMetrics {
+    // Latency per WebDriver command, e.g. "WebDriver.get" or "WebElement.findElement"
+    private final ConcurrentMap<String, LatencyHistogram> commands = new ConcurrentHashMap<>();
+
+    // Latency per logical step
+    private final ConcurrentMap<String, LatencyHistogram> steps = new ConcurrentHashMap<>();
+
+    // Free-form counters, e.g. the implicit-wait timeouts
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    // Gauges, e.g. a queue depth or a concurrency limit
+    private final ConcurrentMap<String, Double> gauges = new ConcurrentHashMap<>();
+
+    // Local Prometheus endpoint, null if not started
+    private HttpServer server;
+
+    /**
+     * Records the latency of a WebDriver command.
+     *
+     * @param command The command name.
+     * @param nanos   The latency in nanoseconds.
+     */
+    public void recordCommand(String command, long nanos) {
+        commands.computeIfAbsent(command, c -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Records the latency of a logical step.
+     *
+     * @param step  The step name.
+     * @param nanos The latency in nanoseconds.
+     */
+    public void recordStep(String step, long nanos) {
+        steps.computeIfAbsent(step, s -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Runs a logical step and records its latency, also when it fails.
+     *
+     * @param step   The step name.
+     * @param action The step.
+     * @param <T>    The type of the result.
+     * @param <E>    The type of the exception thrown by the step.
+     * @return The result of the step.
+     * @throws E If the step fails.
+     */
+    public <T, E extends Exception> T time(String step, TimedCall<T, E> action) throws E {
+        long start = System.nanoTime();
+        try {
+            return action.call();
+        } finally {
+            recordStep(step, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs a logical step without a result and records its latency, also when it fails.
+     *
+     * @param step   The step name.
+     * @param action The step.
+     * @param <E>    The type of the exception thrown by the step.
+     * @throws E If the step fails.
+     */
+    public <E extends Exception> void time(String step, TimedRun<E> action) throws E {
+        long start = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            recordStep(step, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Increments a counter.
+     *
+     * @param counter The counter name.
+     */
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, c -> new LongAdder()).increment();
+    }
+
+    /**
+     * Adds a value to a counter.
+     *
+     * @param counter The counter name.
+     * @param delta   The value to add.
+     */
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Sets a gauge.
+     *
+     * @param gauge The gauge name.
+     * @param value The gauge value.
+     */
+    public void gauge(String gauge, double value) {
+        gauges.put(gauge, value);
+    }
+
+    /**
+     * Returns the value of a counter.
+     *
+     * @param counter The counter name.
+     * @return The counter value, 0 if never incremented.
+     */
+    public long counter(String counter) {
+        LongAdder adder = counters.get(counter);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Returns the latency histogram of a WebDriver command.
+     *
+     * @param command The command name.
+     * @return The histogram, null if the command was never recorded.
+     */
+    public LatencyHistogram command(String command) {
+        return commands.get(command);
+    }
+
+    /**
+     * Returns the latency histogram of a logical step.
+     *
+     * @param step The step name.
+     * @return The histogram, null if the step was never recorded.
+     */
+    public LatencyHistogram stepLatency(String step) {
+        return steps.get(step);
+    }
+
+    /**
+     * Returns the names of the recorded steps.
+     *
+     * @return The step names, sorted.
+     */
+    public Set<String> stepNames() {
+        return new TreeSet<>(steps.keySet());
+    }
+
+    /**
+     * Returns the total number of WebDriver commands recorded.
+     *
+     * @return The number of commands.
+     */
+    public long totalCommands() {
+        return commands.values().stream().mapToLong(LatencyHistogram::count).sum();
+    }
+
+    /**
+     * Renders the metrics in the Prometheus text exposition format.
+     *
+     * @return The metrics text.
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        appendHistograms(out, "scraper_command_duration_seconds", "command", commands);
+        appendHistograms(out, "scraper_step_duration_seconds", "step", steps);
+        for (Map.Entry<String, LongAdder> counter : new TreeMap<>(counters).entrySet()) {
+            String name = "scraper_" + sanitize(counter.getKey()) + "_total";
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, Double> gauge : new TreeMap<>(gauges).entrySet()) {
+            String name = "scraper_" + sanitize(gauge.getKey());
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(format(gauge.getValue())).append('\n');
+        }
+        return out.toString();
+    }
+
+    /**
+     * Renders a JSON summary of the metrics: count, mean and percentiles per command and step.
+     *
+     * @return The JSON summary.
+     */
+    public String toJson() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("commands", summarize(commands));
+        summary.put("steps", summarize(steps));
+        Map<String, Long> counterValues = new TreeMap<>();
+        counters.forEach((name, adder) -> counterValues.put(name, adder.sum()));
+        summary.put("counters", counterValues);
+        summary.put("gauges", new TreeMap<>(gauges));
+        return new Json().toJson(summary);
+    }
+
+    /**
+     * Writes the JSON summary to a file.
+     *
+     * @param file Path of the summary file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeJson(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Files.writeString(file, toJson());
+    }
+
+    /**
+     * Serves the metrics in the Prometheus text format on http://127.0.0.1:port/metrics.
+     *
+     * @param port The local port, 0 for any free port.
+     * @return The port the endpoint listens on.
+     * @throws IOException If the endpoint cannot be started.
+     */
+    public synchronized int serve(int port) throws IOException {
+        if (server != null) {
+            return server.getAddress().getPort();
+        }
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = toPrometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops the Prometheus endpoint if started.
+     */
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    /**
+     * Appends a family of histograms in the Prometheus text format.
+     *
+     * @param out        The output.
+     * @param name       The metric name.
+     * @param label      The label distinguishing the histograms.
+     * @param histograms The histograms by label value.
+     */
+    private static void appendHistograms(StringBuilder out, String name, String label,
+                                         Map<String, LatencyHistogram> histograms) {
+        if (histograms.isEmpty()) {
+            return;
+        }
+        out.append("# TYPE ").append(name).append(" histogram\n");
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            String labels = label + "=\"" + entry.getKey().replace("\"", "\\\"") + "\"";
+            long[] counts = entry.getValue().bucketCounts();
+            long cumulated = 0;
+            for (int i = 0; i < counts.length; i++) {
+                cumulated += counts[i];
+                String le = i < LatencyHistogram.BOUNDS.length ? format(LatencyHistogram.BOUNDS[i]) : "+Inf";
+                out.append(name).append("_bucket{").append(labels).append(",le=\"").append(le).append("\"} ")
+                        .append(cumulated).append('\n');
+            }
+            out.append(name).append("_sum{").append(labels).append("} ")
+                    .append(format(entry.getValue().sumSeconds())).append('\n');
+            out.append(name).append("_count{").append(labels).append("} ").append(cumulated).append('\n');
+        }
+    }
+
+    /**
+     * Summarizes histograms for the JSON output.
+     *
+     * @param histograms The histograms by name.
+     * @return The summaries by name.
+     */
+    private static Map<String, Object> summarize(Map<String, LatencyHistogram> histograms) {
+        Map<String, Object> summaries = new TreeMap<>();
+        histograms.forEach((name, histogram) -> {
+            long count = histogram.count();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", count);
+            summary.put("meanMs", count == 0 ? 0 : histogram.sumSeconds() * 1000 / count);
+            summary.put("p50Ms", millis(histogram.percentileSeconds(0.50)));
+            summary.put("p95Ms", millis(histogram.percentileSeconds(0.95)));
+            summary.put("p99Ms", millis(histogram.percentileSeconds(0.99)));
+            summaries.put(name, summary);
+        });
+        return summaries;
+    }
+
+    /**
+     * Converts seconds to milliseconds, keeping the unbounded bucket as a string since JSON has no infinity.
+     *
+     * @param seconds The value in seconds.
+     * @return The value in milliseconds.
+     */
+    private static Object millis(double seconds) {
+        return Double.isInfinite(seconds) ? "+Inf" : seconds * 1000;
+    }
+
+    /**
+     * Formats a number for the Prometheus output.
+     *
+     * @param value The value.
+     * @return The formatted value.
+     */
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%s", value);
+    }
+
+    /**
+     * Turns a free-form name into a valid Prometheus metric name part.
+     *
+     * @param name The name.
+     * @return The sanitized name.
+     */
+    private static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * TimedCall interface implemented by the logical steps returning a result.
+     *
+     * @param <T> The type of the result.
+     * @param <E> The type of the exception thrown by the step.
+     */
+    @FunctionalInterface
+    public interface TimedCall<T, E extends Exception> {
+        /**
+         * Runs the step.
+         *
+         * @return The result.
+         * @throws E If the step fails.
+         */
+        T call() throws E;
+    }
+
+    /**
+     * TimedRun interface implemented by the logical steps without a result.
+     *
+     * @param <E> The type of the exception thrown by the step.
+     */
+    @FunctionalInterface
+    public interface TimedRun<E extends Exception> {
+        /**
+         * Runs the step.
+         *
+         * @throws E If the step fails.
+         */
+        void run() throws E;
+    }
+}
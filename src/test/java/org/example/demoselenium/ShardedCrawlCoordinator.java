@@ -0,0 +1,508 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * ShardedCrawlCoordinator class spreading the pages of a crawl over several WebDriver nodes,
+ * e.g. the RemoteWebDriver endpoints of a Selenium grid.
+ * Every node runs one session on its own worker thread and owns a work deque: the category
+ * URLs are sharded round-robin over the deques, the next page of a category goes to the
+ * deque of the node which read the previous one, and an idle node steals from the tail of
+ * the busiest deques. When a node dies (session lost, node unreachable and no new session
+ * can be created), its current page and its whole deque are re-queued on the live nodes.
+ * A page whose grid does not settle in time is re-queued too, up to MAX_ATTEMPTS attempts.
+ * The products of every node are handed to a single PageHandler, and the queue lag (time
+ * between a page being queued and a node starting it) is recorded as the "queue_lag" step.
+ */
+public class ShardedCrawlCoordinator implements AutoCloseable {
+
+    /**
+     * NodeStats record holding the outcome of a node.
+     *
+     * @param node           The node endpoint.
+     * @param pages          Number of pages read.
+     * @param products       Number of products read.
+     * @param failures       Number of page attempts which failed on this node.
+     * @param stolen         Number of pages taken from the deques of other nodes.
+     * @param pagesPerSecond Pages read per second of the node's lifetime.
+     * @param alive          Whether the node was still alive at the end.
+     */
+    public record NodeStats(String node, long pages, long products, long failures, long stolen,
+                            double pagesPerSecond, boolean alive) {
+    }
+
+    /**
+     * ShardStats record holding the outcome of a sharded crawl.
+     *
+     * @param nodes     The stats of every node.
+     * @param requeued  Number of pages re-queued after a failure or a node death.
+     * @param abandoned Number of pages given up after too many attempts or because no node was left.
+     * @param lagP50Ms  Median queue lag in milliseconds.
+     * @param lagP99Ms  99th percentile queue lag in milliseconds.
+     * @param elapsed   Time since the coordinator was started.
+     */
+    public record ShardStats(List<NodeStats> nodes, long requeued, long abandoned, double lagP50Ms,
+                             double lagP99Ms, Duration elapsed) {
+    }
+
+    /**
+     * WorkUnit record holding a page to crawl.
+     *
+     * @param url           URL of the page.
+     * @param page          Page number within its category.
+     * @param previousFirst Name of the first product of the previous page, null for the first page.
+     * @param queuedAt      Time the unit was queued, in nanoseconds.
+     * @param attempts      Number of failed attempts so far.
+     */
+    private record WorkUnit(String url, int page, String previousFirst, long queuedAt, int attempts) {
+    }
+
+    // Step recording the time between a page being queued and a node starting it
+    public static final String QUEUE_LAG_STEP = "queue_lag";
+
+    // Maximum number of attempts per page before it is given up
+    private static final int MAX_ATTEMPTS = 3;
+
+    // Time an idle worker waits before looking for work again
+    private static final long IDLE_WAIT_MILLIS = 20;
+
+    // Workers, one per node
+    private final List<NodeWorker> workers = new ArrayList<>();
+
+    // Factory creating a session on a node
+    private final Function<URL, WebDriver> sessionFactory;
+
+    // Maximum number of products extracted per page, 0 for no limit
+    private final int maxPerPage;
+
+    // Maximum number of pages crawled per category
+    private final int maxPagesPerCategory;
+
+    // Handler of the crawled pages
+    private final CrawlScheduler.PageHandler handler;
+
+    // Metrics the queue lag and node throughput are recorded into
+    private final ScrapeMetrics metrics;
+
+    // Queue lag of the started pages
+    private final LatencyHistogram lag = new LatencyHistogram();
+
+    // Number of queued pages not yet done or given up
+    private final AtomicLong pending = new AtomicLong();
+
+    // Number of pages re-queued
+    private final AtomicLong requeued = new AtomicLong();
+
+    // Number of pages given up
+    private final AtomicLong abandoned = new AtomicLong();
+
+    // Lock idle workers wait on
+    private final Object idleLock = new Object();
+
+    // Next deque a category URL is sharded to
+    private int nextShard;
+
+    // Time the coordinator was started, in nanoseconds
+    private final long startNanos = System.nanoTime();
+
+    // Set once the coordinator is closed
+    private volatile boolean closed;
+
+    /**
+     * Creates a coordinator with one worker per node. Workers start when the first URLs are submitted.
+     *
+     * @param nodes               The node endpoints.
+     * @param sessionFactory      Factory creating a session on a node, e.g. a RemoteWebDriver.
+     * @param maxPerPage          Maximum number of products extracted per page, 0 for no limit.
+     * @param maxPagesPerCategory Maximum number of pages crawled per category.
+     * @param handler             Handler of the crawled pages, called from the worker threads.
+     * @param metrics             Metrics the queue lag and node throughput are recorded into.
+     */
+    public ShardedCrawlCoordinator(List<URL> nodes, Function<URL, WebDriver> sessionFactory, int maxPerPage,
+                                   int maxPagesPerCategory, CrawlScheduler.PageHandler handler,
+                                   ScrapeMetrics metrics) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is needed");
+        }
+        this.sessionFactory = sessionFactory;
+        this.maxPerPage = maxPerPage;
+        this.maxPagesPerCategory = maxPagesPerCategory;
+        this.handler = handler;
+        this.metrics = metrics;
+        for (URL node : nodes) {
+            workers.add(new NodeWorker(node));
+        }
+    }
+
+    /**
+     * Shards category URLs round-robin over the nodes and starts the workers if needed.
+     * The workers stop once every queued page is done, so all the URLs are to be submitted before waiting.
+     *
+     * @param urls The category URLs.
+     */
+    public synchronized void submitAll(List<String> urls) {
+        for (String url : urls) {
+            pending.incrementAndGet();
+            workers.get(nextShard++ % workers.size()).deque.addLast(new WorkUnit(url, 1, null, System.nanoTime(), 0));
+        }
+        for (NodeWorker worker : workers) {
+            if (!worker.started) {
+                worker.started = true;
+                worker.start();
+            }
+        }
+        wakeIdle();
+    }
+
+    /**
+     * Waits until every queued page is done or given up, or until no node is left.
+     *
+     * @return The crawl stats.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public ShardStats awaitCompletion() throws InterruptedException {
+        for (NodeWorker worker : workers) {
+            worker.join();
+        }
+        // pages left behind when every node died
+        for (NodeWorker worker : workers) {
+            WorkUnit unit;
+            while ((unit = worker.deque.pollFirst()) != null) {
+                abandon(unit);
+            }
+        }
+        return stats();
+    }
+
+    /**
+     * Returns the crawl stats so far.
+     *
+     * @return The crawl stats.
+     */
+    public ShardStats stats() {
+        List<NodeStats> nodes = new ArrayList<>();
+        for (NodeWorker worker : workers) {
+            nodes.add(worker.stats());
+        }
+        return new ShardStats(nodes, requeued.get(), abandoned.get(), lag.percentileSeconds(0.50) * 1000,
+                lag.percentileSeconds(0.99) * 1000, Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    /**
+     * Stops the workers, their sessions are quit.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        wakeIdle();
+        for (NodeWorker worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues a unit on the given worker, or on a live worker if it is dead.
+     *
+     * @param preferred The preferred worker.
+     * @param unit      The unit.
+     */
+    private void enqueue(NodeWorker preferred, WorkUnit unit) {
+        NodeWorker target = preferred.alive ? preferred : liveWorker();
+        if (target == null) {
+            abandon(unit);
+            return;
+        }
+        target.deque.addLast(unit);
+        wakeIdle();
+    }
+
+    /**
+     * Re-queues a unit after a failed attempt, or gives it up after too many attempts.
+     *
+     * @param worker The worker the attempt failed on.
+     * @param unit   The unit.
+     */
+    private void retry(NodeWorker worker, WorkUnit unit) {
+        if (unit.attempts() + 1 >= MAX_ATTEMPTS) {
+            abandon(unit);
+            return;
+        }
+        requeued.incrementAndGet();
+        enqueue(worker, new WorkUnit(unit.url(), unit.page(), unit.previousFirst(), System.nanoTime(),
+                unit.attempts() + 1));
+    }
+
+    /**
+     * Gives up a unit.
+     *
+     * @param unit The unit.
+     */
+    private void abandon(WorkUnit unit) {
+        abandoned.incrementAndGet();
+        done();
+    }
+
+    /**
+     * Marks a unit as done, waking the workers up when the crawl is over.
+     */
+    private void done() {
+        if (pending.decrementAndGet() == 0) {
+            wakeIdle();
+        }
+    }
+
+    /**
+     * Returns the live worker with the fewest queued units.
+     *
+     * @return The worker, or null if every node is dead.
+     */
+    private NodeWorker liveWorker() {
+        NodeWorker best = null;
+        for (NodeWorker worker : workers) {
+            if (worker.alive && (best == null || worker.deque.size() < best.deque.size())) {
+                best = worker;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Wakes the idle workers up.
+     */
+    private void wakeIdle() {
+        synchronized (idleLock) {
+            idleLock.notifyAll();
+        }
+    }
+
+    /**
+     * Checks whether an exception means that the session or the node is gone.
+     *
+     * @param e The exception.
+     * @return true if the session must be replaced.
+     */
+    static boolean isSessionLost(WebDriverException e) {
+        return e instanceof NoSuchSessionException || e instanceof UnreachableBrowserException
+                || e instanceof SessionNotCreatedException;
+    }
+
+    /**
+     * NodeWorker class crawling on one node with its own session and deque.
+     */
+    private class NodeWorker extends Thread {
+        // Node endpoint
+        private final URL node;
+
+        // Units queued on this node, taken from the head by the node and from the tail by thieves
+        private final ConcurrentLinkedDeque<WorkUnit> deque = new ConcurrentLinkedDeque<>();
+
+        // Node counters
+        private final AtomicLong pages = new AtomicLong();
+        private final AtomicLong products = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong stolen = new AtomicLong();
+
+        // Whether the node is still usable
+        private volatile boolean alive = true;
+
+        // Whether the thread was started
+        private boolean started;
+
+        // Time the node stopped, in nanoseconds, 0 while running
+        private volatile long stoppedAt;
+
+        /**
+         * Creates a worker for the given node.
+         *
+         * @param node The node endpoint.
+         */
+        NodeWorker(URL node) {
+            super("crawl-node-" + node.getHost() + ":" + node.getPort());
+            this.node = node;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            WebDriver driver = null;
+            try {
+                while (!closed && pending.get() > 0) {
+                    WorkUnit unit = next();
+                    if (unit == null) {
+                        synchronized (idleLock) {
+                            if (pending.get() > 0 && !closed) {
+                                idleLock.wait(IDLE_WAIT_MILLIS);
+                            }
+                        }
+                        continue;
+                    }
+                    long lagNanos = System.nanoTime() - unit.queuedAt();
+                    lag.record(lagNanos);
+                    metrics.recordStep(QUEUE_LAG_STEP, lagNanos);
+                    if (driver == null) {
+                        driver = newSession(unit);
+                        if (driver == null) {
+                            return;
+                        }
+                    }
+                    try {
+                        crawl(driver, unit);
+                    } catch (WebDriverException e) {
+                        failures.incrementAndGet();
+                        if (!isSessionLost(e)) {
+                            retry(this, unit);
+                            continue;
+                        }
+                        quietQuit(driver);
+                        driver = newSession(unit);
+                        if (driver == null) {
+                            return;
+                        }
+                        // the node is still there, only the session was lost
+                        retry(this, unit);
+                    } catch (InterruptedException e) {
+                        retry(this, unit);
+                        return;
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        retry(this, unit);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // closed
+            } finally {
+                stoppedAt = System.nanoTime();
+                quietQuit(driver);
+                if (!alive) {
+                    requeueAll();
+                }
+                metrics.gauge("node_pages_per_second_" + node.getHost() + "_" + node.getPort(), stats().pagesPerSecond());
+            }
+        }
+
+        /**
+         * Takes the next unit: from the head of its own deque, otherwise from the tail of the longest other deque.
+         *
+         * @return The unit, or null if there is no work.
+         */
+        private WorkUnit next() {
+            WorkUnit unit = deque.pollFirst();
+            if (unit != null) {
+                return unit;
+            }
+            NodeWorker victim = null;
+            for (NodeWorker worker : workers) {
+                if (worker != this && (victim == null || worker.deque.size() > victim.deque.size())) {
+                    victim = worker;
+                }
+            }
+            unit = victim == null ? null : victim.deque.pollLast();
+            if (unit != null) {
+                stolen.incrementAndGet();
+            }
+            return unit;
+        }
+
+        /**
+         * Creates a session on the node. If it fails the node is considered dead and the unit is re-queued.
+         *
+         * @param unit The unit the session is needed for.
+         * @return The session, or null if the node is dead.
+         */
+        private WebDriver newSession(WorkUnit unit) {
+            try {
+                return sessionFactory.apply(node);
+            } catch (WebDriverException e) {
+                alive = false;
+                requeued.incrementAndGet();
+                enqueue(this, unit);
+                return null;
+            }
+        }
+
+        /**
+         * Reads a page and queues the next page of its category on this node.
+         *
+         * @param driver The session.
+         * @param unit   The unit.
+         * @throws Exception If the page cannot be read, shows neither a settled grid nor the empty
+         *                   state in time, or cannot be handled.
+         */
+        private void crawl(WebDriver driver, WorkUnit unit) throws Exception {
+            driver.get(unit.url());
+            // a grid which does not settle in time throws a TimeoutException, retried like any failed attempt
+            if (new PageReadiness(driver).waitForGridSettledOrEmpty(PageReadiness.EMPTY_STATE,
+                    PageReadiness.DEFAULT_TIMEOUT) == 0) {
+                // the empty state, nothing to list
+                done();
+                return;
+            }
+            List<ProductInfo> found = new ProductExtractor(driver).extractScrolling(maxPerPage);
+            // sites clamp out-of-range pages to the last one, stop when a page repeats
+            if (found.isEmpty() || found.get(0).name().equals(unit.previousFirst())) {
+                done();
+                return;
+            }
+            pages.incrementAndGet();
+            products.addAndGet(found.size());
+            handler.onPage(unit.url(), found);
+            if (unit.page() < maxPagesPerCategory) {
+                pending.incrementAndGet();
+                enqueue(this, new WorkUnit(CrawlScheduler.withPage(unit.url(), unit.page() + 1), unit.page() + 1,
+                        found.get(0).name(), System.nanoTime(), 0));
+            }
+            done();
+        }
+
+        /**
+         * Moves the units queued on this dead node to the live nodes.
+         */
+        private void requeueAll() {
+            WorkUnit unit;
+            while ((unit = deque.pollFirst()) != null) {
+                requeued.incrementAndGet();
+                enqueue(this, unit);
+            }
+        }
+
+        /**
+         * Quits a session, ignoring the errors of a dead node.
+         *
+         * @param driver The session, may be null.
+         */
+        private void quietQuit(WebDriver driver) {
+            if (driver == null) {
+                return;
+            }
+            try {
+                driver.quit();
+            } catch (WebDriverException e) {
+                // node already gone
+            }
+        }
+
+        /**
+         * Returns the stats of the node.
+         *
+         * @return The node stats.
+         */
+        NodeStats stats() {
+            long end = stoppedAt == 0 ? System.nanoTime() : stoppedAt;
+            double seconds = Math.max(1e-9, (end - startNanos) / 1e9);
+            return new NodeStats(node.toString(), pages.get(), products.get(), failures.get(), stolen.get(),
+                    pages.get() / seconds, alive);
+        }
+    }
+}
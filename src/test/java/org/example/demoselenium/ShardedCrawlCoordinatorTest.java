@@ -0,0 +1,248 @@
+package org.example.demoselenium;
+
+import org.junit.jupiter.api.*;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ShardedCrawlCoordinatorTest class containing test cases for the ShardedCrawlCoordinator class.
+ * Stub sessions stand in for the grid nodes: every page of a category lists TILES products,
+ * a node can be slowed down, die after a number of pages or time out once on a page, so these
+ * tests do not need a browser.
+ */
+public class ShardedCrawlCoordinatorTest {
+    // Products listed by every page
+    private static final int TILES = 2;
+
+    // Pages crawled per category
+    private static final int PAGES = 3;
+
+    /**
+     * StubNode class simulating a grid node whose sessions load pages.
+     */
+    private static final class StubNode {
+        // Node endpoint
+        private final URL url;
+
+        // Time a page takes to load on this node
+        private final long loadMillis;
+
+        // Number of pages after which the node dies, 0 for never
+        private final int diesAfter;
+
+        // URL of a page whose grid does not settle the first time it is loaded, null for none
+        private final String slowPage;
+
+        // Number of pages loaded on this node
+        private final AtomicInteger loads = new AtomicInteger();
+
+        // Whether the node is gone
+        private volatile boolean dead;
+
+        // Whether the slow page was already loaded once
+        private volatile boolean timedOut;
+
+        /**
+         * Creates a node.
+         *
+         * @param port       Port of the node endpoint, naming the node.
+         * @param loadMillis Time a page takes to load on this node.
+         * @param diesAfter  Number of pages after which the node dies, 0 for never.
+         * @param slowPage   URL of a page whose grid does not settle the first time, null for none.
+         * @throws Exception If the endpoint URL is malformed.
+         */
+        StubNode(int port, long loadMillis, int diesAfter, String slowPage) throws Exception {
+            this.url = URI.create("http://node:" + port + "/wd/hub").toURL();
+            this.loadMillis = loadMillis;
+            this.diesAfter = diesAfter;
+            this.slowPage = slowPage;
+        }
+
+        /**
+         * Creates a session on the node.
+         *
+         * @return The session.
+         * @throws SessionNotCreatedException If the node is dead.
+         */
+        WebDriver newSession() {
+            if (dead) {
+                throw new SessionNotCreatedException("Node " + url + " is gone");
+            }
+            String[] current = {null};
+            return (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[] {WebDriver.class, JavascriptExecutor.class},
+                    (proxy, method, args) -> switch (method.getName()) {
+                        case "get" -> {
+                            if (diesAfter > 0 && loads.get() >= diesAfter) {
+                                dead = true;
+                            }
+                            if (dead) {
+                                throw new UnreachableBrowserException("Node " + url + " is gone");
+                            }
+                            loads.incrementAndGet();
+                            Thread.sleep(loadMillis);
+                            current[0] = (String) args[0];
+                            yield null;
+                        }
+                        case "executeScript" -> executeScript(current[0], (String) args[0]);
+                        case "quit" -> null;
+                        case "hashCode" -> System.identityHashCode(proxy);
+                        case "equals" -> proxy == args[0];
+                        case "toString" -> "StubSession on " + url;
+                        default -> throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+
+        /**
+         * Runs the scripts of the readiness wait and of the extraction on the loaded page.
+         *
+         * @param page   URL of the loaded page.
+         * @param script The script.
+         * @return The script result.
+         */
+        private Object executeScript(String page, String script) {
+            if (script.contains("scrapeToken")) {
+                List<Map<String, Object>> tiles = new ArrayList<>();
+                for (int i = 0; i < TILES; i++) {
+                    tiles.add(Map.of("name", page + " #" + i, "regular", "$1.00", "nonMember", "", "sale", "",
+                            "image", "", "link", ""));
+                }
+                return Map.of("products", tiles, "total", (long) TILES);
+            }
+            if (page.equals(slowPage) && !timedOut) {
+                timedOut = true;
+                throw new TimeoutException("Grid of " + page + " did not settle");
+            }
+            return (long) TILES;
+        }
+    }
+
+    /**
+     * Crawls the given categories over the given nodes.
+     *
+     * @param nodes      The nodes.
+     * @param categories The category URLs.
+     * @param handled    Number of times each page was handled, filled by the crawl.
+     * @return The crawl stats.
+     * @throws Exception If the crawl fails.
+     */
+    private static ShardedCrawlCoordinator.ShardStats crawl(List<StubNode> nodes, List<String> categories,
+                                                            Map<String, Integer> handled) throws Exception {
+        Map<URL, StubNode> byUrl = new ConcurrentHashMap<>();
+        nodes.forEach(node -> byUrl.put(node.url, node));
+        try (ShardedCrawlCoordinator coordinator = new ShardedCrawlCoordinator(
+                nodes.stream().map(node -> node.url).toList(), url -> byUrl.get(url).newSession(), TILES, PAGES,
+                (url, products) -> handled.merge(url, 1, Integer::sum), new ScrapeMetrics())) {
+            coordinator.submitAll(categories);
+            return coordinator.awaitCompletion();
+        }
+    }
+
+    /**
+     * Builds category URLs.
+     *
+     * @param count Number of categories.
+     * @return The URLs.
+     */
+    private static List<String> categories(int count) {
+        List<String> urls = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            urls.add("https://www.zehrs.ca/food/c/" + (28000 + i));
+        }
+        return urls;
+    }
+
+    /**
+     * Asserts that every page of every category was handled exactly once.
+     *
+     * @param categories The category URLs.
+     * @param handled    Number of times each page was handled.
+     */
+    private static void assertEveryPageOnce(List<String> categories, Map<String, Integer> handled) {
+        Set<String> expected = new HashSet<>();
+        for (String category : categories) {
+            expected.add(category);
+            for (int page = 2; page <= PAGES; page++) {
+                expected.add(CrawlScheduler.withPage(category, page));
+            }
+        }
+        assertEquals(expected, handled.keySet());
+        handled.forEach((url, times) -> assertEquals(1, times, url + " handled " + times + " times"));
+    }
+
+    /**
+     * When a node dies, its current page and its queued pages are crawled by the live nodes,
+     * and none is lost or crawled twice.
+     *
+     * @throws Exception If the crawl fails.
+     */
+    @Test
+    public void requeuesPagesOfDeadNode() throws Exception {
+        List<String> categories = categories(20);
+        List<StubNode> nodes = List.of(new StubNode(4444, 5, 2, null), new StubNode(4445, 5, 0, null),
+                new StubNode(4446, 5, 0, null));
+        Map<String, Integer> handled = new ConcurrentHashMap<>();
+        ShardedCrawlCoordinator.ShardStats stats = crawl(nodes, categories, handled);
+
+        assertEveryPageOnce(categories, handled);
+        assertEquals(0, stats.abandoned());
+        assertTrue(stats.requeued() > 0);
+        assertFalse(stats.nodes().get(0).alive());
+        assertEquals(2, stats.nodes().get(0).pages());
+        assertTrue(stats.nodes().get(1).alive() && stats.nodes().get(2).alive());
+    }
+
+    /**
+     * An idle node steals the queued categories of a slower node.
+     *
+     * @throws Exception If the crawl fails.
+     */
+    @Test
+    public void stealsFromSlowerNode() throws Exception {
+        List<String> categories = categories(8);
+        List<StubNode> nodes = List.of(new StubNode(4444, 200, 0, null), new StubNode(4445, 5, 0, null));
+        Map<String, Integer> handled = new ConcurrentHashMap<>();
+        ShardedCrawlCoordinator.ShardStats stats = crawl(nodes, categories, handled);
+
+        assertEveryPageOnce(categories, handled);
+        ShardedCrawlCoordinator.NodeStats slow = stats.nodes().get(0);
+        ShardedCrawlCoordinator.NodeStats fast = stats.nodes().get(1);
+        assertTrue(fast.stolen() > 0, "Nothing stolen: " + stats);
+        assertTrue(fast.pages() > slow.pages(), stats.toString());
+    }
+
+    /**
+     * A page whose grid does not settle in time is retried instead of ending its category.
+     *
+     * @throws Exception If the crawl fails.
+     */
+    @Test
+    public void retriesTimedOutGrid() throws Exception {
+        List<String> categories = categories(1);
+        String slowPage = CrawlScheduler.withPage(categories.get(0), 2);
+        Map<String, Integer> handled = new ConcurrentHashMap<>();
+        ShardedCrawlCoordinator.ShardStats stats = crawl(List.of(new StubNode(4444, 5, 0, slowPage)), categories,
+                handled);
+
+        assertEveryPageOnce(categories, handled);
+        assertEquals(1, stats.requeued());
+        assertEquals(1, stats.nodes().get(0).failures());
+        assertEquals(0, stats.abandoned());
+    }
+}
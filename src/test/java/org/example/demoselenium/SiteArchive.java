@@ -0,0 +1,206 @@
+package org.example.demoselenium;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SiteArchive class holding recorded HTTP responses on disk, to replay a site offline.
+ * The archive is a directory with an index.tsv file, one line per response
+ * (request key, status, content type, location, body file), and the bodies under bodies/,
+ * named after the SHA-256 of their content so that identical bodies are stored once.
+ * A request key is the method and the URL, followed by a hash of the request body for the
+ * requests having one, since the listing API takes the page and the sort in a POST body.
+ */
+public class SiteArchive {
+    // Name of the index file
+    private static final String INDEX = "index.tsv";
+
+    // Name of the bodies directory
+    private static final String BODIES = "bodies";
+
+    /**
+     * Entry record describing a recorded response.
+     *
+     * @param status      The HTTP status.
+     * @param contentType The Content-Type header, empty if none.
+     * @param location    The Location header of a redirect, empty if none.
+     * @param bodyFile    Name of the body file under bodies/.
+     */
+    public record Entry(int status, String contentType, String location, String bodyFile) {
+    }
+
+    // Archive directory
+    private final Path directory;
+
+    // Entries by request key
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Opens an archive, reading its index if it exists.
+     *
+     * @param directory The archive directory.
+     * @throws IOException If the index cannot be read.
+     */
+    public SiteArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Path index = directory.resolve(INDEX);
+        if (Files.exists(index)) {
+            for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\t", -1);
+                if (parts.length == 5) {
+                    add(parts[0], new Entry(Integer.parseInt(parts[1]), parts[2], parts[3], parts[4]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the key of a request.
+     *
+     * @param method The HTTP method.
+     * @param url    The absolute URL.
+     * @param body   The request body, null or empty if none.
+     * @return The request key.
+     */
+    public static String key(String method, String url, byte[] body) {
+        String key = method.toUpperCase() + " " + url;
+        return body == null || body.length == 0 ? key : key + " #" + sha256(body).substring(0, 16);
+    }
+
+    /**
+     * Records a response, replacing the previous one of the same request.
+     *
+     * @param key         The request key.
+     * @param status      The HTTP status.
+     * @param contentType The Content-Type header, empty if none.
+     * @param location    The Location header of a redirect, empty if none.
+     * @param body        The response body.
+     * @throws IOException If the body cannot be written.
+     */
+    public void put(String key, int status, String contentType, String location, byte[] body) throws IOException {
+        String bodyFile = sha256(body);
+        Path file = directory.resolve(BODIES).resolve(bodyFile);
+        if (!Files.exists(file)) {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), bodyFile, ".tmp");
+            Files.write(tmp, body);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        add(key, new Entry(status, clean(contentType), clean(location), bodyFile));
+    }
+
+    /**
+     * Finds the response of a request. Only the exact request matches: another page, sort or
+     * search body of the same URL is a different request.
+     *
+     * @param key The request key.
+     * @return The entry, null if the request was not recorded.
+     */
+    public Entry get(String key) {
+        return entries.get(key);
+    }
+
+    /**
+     * Reads the body of an entry.
+     *
+     * @param entry The entry.
+     * @return The body.
+     * @throws IOException If the body cannot be read.
+     */
+    public byte[] body(Entry entry) throws IOException {
+        return Files.readAllBytes(directory.resolve(BODIES).resolve(entry.bodyFile()));
+    }
+
+    /**
+     * Returns the hosts of the recorded URLs.
+     *
+     * @return The hosts.
+     */
+    public Set<String> hosts() {
+        Set<String> hosts = new LinkedHashSet<>();
+        for (String key : entries.keySet()) {
+            String host = URI.create(key.split(" ")[1]).getHost();
+            if (host != null) {
+                hosts.add(host);
+            }
+        }
+        return hosts;
+    }
+
+    /**
+     * Returns the number of recorded responses.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Writes the index, the bodies being already on disk.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(directory);
+        Path tmp = directory.resolve(INDEX + ".tmp");
+        Map<String, Entry> sorted = new LinkedHashMap<>();
+        entries.keySet().stream().sorted().forEach(key -> sorted.put(key, entries.get(key)));
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : sorted.entrySet()) {
+                Entry value = entry.getValue();
+                writer.write(entry.getKey() + '\t' + value.status() + '\t' + value.contentType() + '\t'
+                        + value.location() + '\t' + value.bodyFile());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, directory.resolve(INDEX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds an entry to the in-memory index.
+     *
+     * @param key   The request key.
+     * @param entry The entry.
+     */
+    private void add(String key, Entry entry) {
+        entries.put(key, entry);
+    }
+
+    /**
+     * Removes the tabs and line breaks of a header value, which would break the index.
+     *
+     * @param value The header value, possibly null.
+     * @return The cleaned value.
+     */
+    private static String clean(String value) {
+        return value == null ? "" : value.replaceAll("[\t\r\n]", " ");
+    }
+
+    /**
+     * Computes the hex SHA-256 of some bytes.
+     *
+     * @param bytes The bytes.
+     * @return The digest.
+     */
+    static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
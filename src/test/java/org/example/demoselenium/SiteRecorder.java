@@ -0,0 +1,337 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.devtools.Command;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.JsonInput;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SiteRecorder class recording the documents, scripts, style sheets and XHR responses a Chrome
+ * session loads into a SiteArchive, through the DevTools Protocol network events, so that the
+ * scenarios can later be replayed offline by the ReplayServer.
+ * Images, fonts and media are not recorded, the scraper only reads the image URLs.
+ * As for NetworkProductCapture, the raw protocol events are used and the bodies are read on a
+ * background thread. As for NetworkProductCapture, which may share the DevTools session, the
+ * listeners of a closed recorder ignore the events and the Network domain is released, not disabled.
+ * A response whose body cannot be read is not recorded, it would be replayed as an empty document;
+ * it is counted as unrecorded and the replay answers it with a miss.
+ */
+public class SiteRecorder implements AutoCloseable {
+    // Resource types which are not recorded
+    private static final Set<String> SKIPPED_TYPES = Set.of("Image", "Media", "Font", "Ping", "Manifest");
+
+    /**
+     * Request record holding what is known of a request until its body is read.
+     *
+     * @param key         The archive key of the request.
+     * @param status      The HTTP status, 0 until the response is received.
+     * @param contentType The Content-Type of the response.
+     */
+    private record Request(String key, int status, String contentType) {
+    }
+
+    /**
+     * Sent record holding the fields of a Network.requestWillBeSent event.
+     *
+     * @param requestId      The request id.
+     * @param key            The archive key of the request.
+     * @param type           The resource type.
+     * @param redirectStatus The status of the redirect which led to this request, 0 if none.
+     * @param redirectTo     The URL of this request when it follows a redirect.
+     */
+    private record Sent(String requestId, String key, String type, int redirectStatus, String redirectTo) {
+    }
+
+    /**
+     * Received record holding the fields of a Network.responseReceived event.
+     *
+     * @param requestId The request id.
+     * @param status    The HTTP status.
+     * @param mimeType  The MIME type of the response.
+     */
+    private record Received(String requestId, int status, String mimeType) {
+    }
+
+    // Archive the responses are recorded into
+    private final SiteArchive archive;
+
+    // DevTools session of the driver
+    private final DevTools devTools;
+
+    // Reads the response bodies off the protocol thread
+    private final ExecutorService reader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "site-recorder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Requests in flight, keyed by request id
+    private final Map<String, Request> requests = new ConcurrentHashMap<>();
+
+    // Number of recorded responses
+    private final AtomicInteger recorded = new AtomicInteger();
+
+    // Number of responses left out because their body could not be read
+    private final AtomicInteger unrecorded = new AtomicInteger();
+
+    // Set once the recorder is closed, its listeners then ignore the events
+    private volatile boolean closed;
+
+    /**
+     * Starts recording the responses of a Chrome session.
+     *
+     * @param driver  The driver, possibly decorated.
+     * @param archive The archive the responses are recorded into.
+     * @throws IllegalArgumentException If the driver has no DevTools access.
+     */
+    public SiteRecorder(WebDriver driver, SiteArchive archive) {
+        this.archive = archive;
+        this.devTools = NetworkProductCapture.devToolsOf(driver).orElseThrow(
+                () -> new IllegalArgumentException("The driver has no DevTools access: " + driver.getClass()));
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(new Event<>("Network.requestWillBeSent", SiteRecorder::readSent), this::onSent);
+        devTools.addListener(new Event<>("Network.responseReceived", SiteRecorder::readReceived), this::onReceived);
+        devTools.addListener(new Event<>("Network.loadingFinished", NetworkProductCapture::readRequestId),
+                this::onLoadingFinished);
+        devTools.addListener(new Event<>("Network.loadingFailed", NetworkProductCapture::readRequestId), requests::remove);
+        NetworkProductCapture.enableNetwork(devTools);
+    }
+
+    /**
+     * Returns the number of responses recorded so far.
+     *
+     * @return The number of responses.
+     */
+    public int recorded() {
+        return recorded.get();
+    }
+
+    /**
+     * Returns the number of responses left out because their body could not be read.
+     *
+     * @return The number of responses.
+     */
+    public int unrecorded() {
+        return unrecorded.get();
+    }
+
+    /**
+     * Stops recording, waits for the bodies being read and writes the archive index.
+     *
+     * @throws IOException If the index cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        reader.shutdown();
+        try {
+            reader.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // the bodies are read, the network events can go
+        NetworkProductCapture.disableNetwork(devTools);
+        archive.save();
+    }
+
+    /**
+     * Tracks a new request, recording the redirect which led to it if any.
+     *
+     * @param sent The event fields.
+     */
+    private void onSent(Sent sent) {
+        if (closed) {
+            return;
+        }
+        if (sent.redirectStatus() > 0) {
+            Request redirected = requests.remove(sent.requestId());
+            if (redirected != null) {
+                store(redirected.key(), sent.redirectStatus(), "", sent.redirectTo(), new byte[0]);
+            }
+        }
+        if (!SKIPPED_TYPES.contains(sent.type())) {
+            requests.put(sent.requestId(), new Request(sent.key(), 0, ""));
+        }
+    }
+
+    /**
+     * Records the status and the content type of a tracked request.
+     *
+     * @param received The event fields.
+     */
+    private void onReceived(Received received) {
+        if (closed) {
+            return;
+        }
+        requests.computeIfPresent(received.requestId(), (id, request) -> new Request(request.key(),
+                received.status(), received.mimeType()));
+    }
+
+    /**
+     * Schedules the read of the body of a tracked request which is fully loaded.
+     *
+     * @param requestId The request id.
+     */
+    private void onLoadingFinished(String requestId) {
+        Request request = requests.remove(requestId);
+        if (request == null || request.status() == 0 || closed) {
+            return;
+        }
+        reader.execute(() -> {
+            byte[] body;
+            try {
+                body = devTools.send(new Command<>("Network.getResponseBody", Map.of("requestId", requestId),
+                        SiteRecorder::readBody));
+            } catch (WebDriverException e) {
+                if (request.status() != 204 && request.status() != 304) {
+                    // e.g. a body evicted from the browser cache, an empty replay would skew the benchmarks
+                    unrecorded.incrementAndGet();
+                    return;
+                }
+                body = new byte[0];
+            }
+            String contentType = request.contentType().startsWith("text/") || request.contentType().contains("json")
+                    || request.contentType().contains("javascript")
+                    ? request.contentType() + "; charset=utf-8" : request.contentType();
+            store(request.key(), request.status(), contentType, "", body);
+        });
+    }
+
+    /**
+     * Writes a response to the archive.
+     *
+     * @param key         The archive key of the request.
+     * @param status      The HTTP status.
+     * @param contentType The Content-Type of the response.
+     * @param location    The Location of a redirect.
+     * @param body        The response body.
+     */
+    private void store(String key, int status, String contentType, String location, byte[] body) {
+        try {
+            archive.put(key, status, contentType, location, body);
+            recorded.incrementAndGet();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Reads the fields used by the recorder from the Network.requestWillBeSent parameters.
+     *
+     * @param input The event parameters.
+     * @return The event fields.
+     */
+    private static Sent readSent(JsonInput input) {
+        String requestId = "";
+        String type = "";
+        String url = "";
+        String method = "GET";
+        String postData = null;
+        int redirectStatus = 0;
+        input.beginObject();
+        while (input.hasNext()) {
+            switch (input.nextName()) {
+                case "requestId" -> requestId = input.nextString();
+                case "type" -> type = input.nextString();
+                case "request" -> {
+                    input.beginObject();
+                    while (input.hasNext()) {
+                        switch (input.nextName()) {
+                            case "url" -> url = input.nextString();
+                            case "method" -> method = input.nextString();
+                            case "postData" -> postData = input.nextString();
+                            default -> input.skipValue();
+                        }
+                    }
+                    input.endObject();
+                }
+                case "redirectResponse" -> {
+                    input.beginObject();
+                    while (input.hasNext()) {
+                        if ("status".equals(input.nextName())) {
+                            redirectStatus = input.nextNumber().intValue();
+                        } else {
+                            input.skipValue();
+                        }
+                    }
+                    input.endObject();
+                }
+                default -> input.skipValue();
+            }
+        }
+        input.endObject();
+        byte[] body = postData == null ? null : postData.getBytes(StandardCharsets.UTF_8);
+        return new Sent(requestId, SiteArchive.key(method, url, body), type, redirectStatus, url);
+    }
+
+    /**
+     * Reads the fields used by the recorder from the Network.responseReceived parameters.
+     *
+     * @param input The event parameters.
+     * @return The event fields.
+     */
+    private static Received readReceived(JsonInput input) {
+        String requestId = "";
+        int status = 0;
+        String mimeType = "";
+        input.beginObject();
+        while (input.hasNext()) {
+            String name = input.nextName();
+            if ("requestId".equals(name)) {
+                requestId = input.nextString();
+            } else if ("response".equals(name)) {
+                input.beginObject();
+                while (input.hasNext()) {
+                    switch (input.nextName()) {
+                        case "status" -> status = input.nextNumber().intValue();
+                        case "mimeType" -> mimeType = input.nextString();
+                        default -> input.skipValue();
+                    }
+                }
+                input.endObject();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return new Received(requestId, status, mimeType);
+    }
+
+    /**
+     * Reads the body of the Network.getResponseBody result.
+     *
+     * @param input The command result.
+     * @return The body bytes.
+     */
+    private static byte[] readBody(JsonInput input) {
+        String body = "";
+        boolean base64 = false;
+        input.beginObject();
+        while (input.hasNext()) {
+            switch (input.nextName()) {
+                case "body" -> body = input.nextString();
+                case "base64Encoded" -> base64 = input.nextBoolean();
+                default -> input.skipValue();
+            }
+        }
+        input.endObject();
+        return base64 ? Base64.getDecoder().decode(body) : body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,193 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.interactions.Locatable;
+import org.openqa.selenium.support.pagefactory.DefaultElementLocator;
+import org.openqa.selenium.support.pagefactory.DefaultFieldDecorator;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * SnapshotFieldDecorator class initializing the @FindBy fields of a page model with proxies
+ * which keep the resolved elements and lists for the current PageSnapshot generation,
+ * instead of running findElement(s) on every access as the plain PageFactory proxies do.
+ * A call failing with StaleElementReferenceException starts a new generation and is
+ * retried once on the element resolved again.
+ */
+public class SnapshotFieldDecorator extends DefaultFieldDecorator {
+    // Snapshot giving the page generations
+    private final PageSnapshot snapshot;
+
+    /**
+     * Creates a decorator for the page models of the given driver.
+     *
+     * @param context  The driver or element the fields are searched from.
+     * @param snapshot The snapshot tracking the page of the driver.
+     */
+    public SnapshotFieldDecorator(SearchContext context, PageSnapshot snapshot) {
+        super(field -> new SnapshotElementLocator(new DefaultElementLocator(context, field), snapshot));
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    protected WebElement proxyForLocator(ClassLoader loader, ElementLocator locator) {
+        return retryingProxy(loader, locator::findElement, snapshot);
+    }
+
+    /**
+     * Creates a proxy resolving its element through the given supplier and retrying once on a stale element.
+     *
+     * @param loader   The class loader of the proxy.
+     * @param resolve  The supplier resolving the element.
+     * @param snapshot The snapshot invalidated on a stale element.
+     * @return The proxy.
+     */
+    private static WebElement retryingProxy(ClassLoader loader, Supplier<WebElement> resolve, PageSnapshot snapshot) {
+        return (WebElement) Proxy.newProxyInstance(loader,
+                new Class<?>[] {WebElement.class, WrapsElement.class, Locatable.class},
+                new RetryingElementHandler(resolve, snapshot));
+    }
+
+    /**
+     * RetryingElementHandler class forwarding the calls of a proxy to the resolved element.
+     */
+    private static class RetryingElementHandler implements InvocationHandler {
+        // Supplier resolving the element, cached for the current generation
+        private final Supplier<WebElement> resolve;
+
+        // Snapshot invalidated on a stale element
+        private final PageSnapshot snapshot;
+
+        /**
+         * Creates a handler.
+         *
+         * @param resolve  The supplier resolving the element.
+         * @param snapshot The snapshot invalidated on a stale element.
+         */
+        RetryingElementHandler(Supplier<WebElement> resolve, PageSnapshot snapshot) {
+            this.resolve = resolve;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("getWrappedElement")) {
+                return resolve.get();
+            }
+            try {
+                return method.invoke(resolve.get(), args);
+            } catch (InvocationTargetException e) {
+                if (!(e.getCause() instanceof StaleElementReferenceException)) {
+                    throw e.getCause();
+                }
+            }
+            // the page changed under the cached element, resolve it again once
+            snapshot.invalidate();
+            try {
+                return method.invoke(resolve.get(), args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    /**
+     * SnapshotElementLocator class keeping the elements found by a locator for the current generation.
+     */
+    private static class SnapshotElementLocator implements ElementLocator {
+        // Locator doing the lookups
+        private final ElementLocator delegate;
+
+        // Snapshot giving the page generations
+        private final PageSnapshot snapshot;
+
+        // Element found for elementGeneration, null if none
+        private WebElement element;
+
+        // Generation the element was found in
+        private long elementGeneration = -1;
+
+        // Elements found for listGeneration, null if none
+        private List<WebElement> elements;
+
+        // Proxies over the elements, resolving them by index so that they can be retried
+        private List<WebElement> proxies;
+
+        // Generation the elements were found in
+        private long listGeneration = -1;
+
+        /**
+         * Creates a locator.
+         *
+         * @param delegate The locator doing the lookups.
+         * @param snapshot The snapshot giving the page generations.
+         */
+        SnapshotElementLocator(ElementLocator delegate, PageSnapshot snapshot) {
+            this.delegate = delegate;
+            this.snapshot = snapshot;
+        }
+
+        @Override
+        public WebElement findElement() {
+            long generation = snapshot.generation();
+            if (element == null || elementGeneration != generation) {
+                element = delegate.findElement();
+                elementGeneration = generation;
+            }
+            return element;
+        }
+
+        @Override
+        public List<WebElement> findElements() {
+            int size = resolveList().size();
+            if (proxies == null || proxies.size() != size) {
+                proxies = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    int index = i;
+                    proxies.add(retryingProxy(getClass().getClassLoader(), () -> elementAt(index), snapshot));
+                }
+            }
+            return proxies;
+        }
+
+        /**
+         * Returns the elements found in the current generation, looking them up if needed.
+         *
+         * @return The elements.
+         */
+        private List<WebElement> resolveList() {
+            long generation = snapshot.generation();
+            if (elements == null || listGeneration != generation) {
+                elements = delegate.findElements();
+                listGeneration = generation;
+            }
+            return elements;
+        }
+
+        /**
+         * Returns the element at the given index in the current generation.
+         *
+         * @param index The index.
+         * @return The element.
+         * @throws StaleElementReferenceException If the list no longer has that many elements.
+         */
+        private WebElement elementAt(int index) {
+            List<WebElement> current = resolveList();
+            if (index >= current.size()) {
+                throw new StaleElementReferenceException("Element " + index + " is no longer in the list of "
+                        + current.size() + " elements");
+            }
+            return current.get(index);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.example.demoselenium;
+
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.devtools.DevTools;
+import org.openqa.selenium.devtools.Event;
+import org.openqa.selenium.json.JsonInput;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TransferMeter class counting the bytes a Chrome session receives over the network, from the
+ * encodedDataLength of the DevTools Protocol Network.loadingFinished events.
+ * Unlike the transferSize of the Performance API, which is 0 for the cross-origin resources
+ * served without Timing-Allow-Origin (CDN, trackers, images), it counts every response.
+ * Blocked requests never finish loading, so they are not counted.
+ * As for NetworkProductCapture, the raw protocol events are used and the Network domain is
+ * shared with the other components of the session.
+ */
+public class TransferMeter implements AutoCloseable {
+    // DevTools session of the driver
+    private final DevTools devTools;
+
+    // Bytes received since the last reset
+    private final AtomicLong bytes = new AtomicLong();
+
+    // Requests finished since the last reset
+    private final AtomicLong requests = new AtomicLong();
+
+    // Set once the meter is closed, its listener then ignores the events
+    private volatile boolean closed;
+
+    /**
+     * Starts counting the bytes received by a Chrome session.
+     *
+     * @param driver The driver, possibly decorated.
+     * @throws IllegalArgumentException If the driver has no DevTools access.
+     */
+    public TransferMeter(WebDriver driver) {
+        this.devTools = NetworkProductCapture.devToolsOf(driver).orElseThrow(
+                () -> new IllegalArgumentException("The driver has no DevTools access: " + driver.getClass()));
+        devTools.createSessionIfThereIsNotOne();
+        devTools.addListener(new Event<>("Network.loadingFinished", TransferMeter::readEncodedLength),
+                this::onLoadingFinished);
+        NetworkProductCapture.enableNetwork(devTools);
+    }
+
+    /**
+     * Returns the bytes and requests counted since the last call, and starts counting again.
+     *
+     * @return The bytes received, then the number of requests.
+     */
+    public long[] reset() {
+        return new long[] {bytes.getAndSet(0), requests.getAndSet(0)};
+    }
+
+    /**
+     * Stops counting, and disables the network events unless another component still uses them.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            closed = true;
+            NetworkProductCapture.disableNetwork(devTools);
+        }
+    }
+
+    /**
+     * Counts a finished request.
+     *
+     * @param encodedLength The bytes received for the request.
+     */
+    private void onLoadingFinished(long encodedLength) {
+        if (!closed) {
+            bytes.addAndGet(encodedLength);
+            requests.incrementAndGet();
+        }
+    }
+
+    /**
+     * Reads the encodedDataLength of the Network.loadingFinished parameters.
+     *
+     * @param input The event parameters.
+     * @return The bytes received, headers included.
+     */
+    private static long readEncodedLength(JsonInput input) {
+        long length = 0;
+        input.beginObject();
+        while (input.hasNext()) {
+            if ("encodedDataLength".equals(input.nextName())) {
+                length = input.nextNumber().longValue();
+            } else {
+                input.skipValue();
+            }
+        }
+        input.endObject();
+        return length;
+    }
+}